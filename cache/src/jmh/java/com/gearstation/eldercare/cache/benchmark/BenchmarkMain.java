@@ -0,0 +1,82 @@
+package com.gearstation.eldercare.cache.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Description: Run the cache benchmarks once per thread count with the GC profiler, against a
+ * {@link RespStandInServer} started in its own JVM so its allocations don't pollute the measured ones <br>
+ * Arguments are passed to JMH as is, e.g. a benchmark regexp. System properties:
+ * <ul>
+ *     <li>eldercare.bench.threads: comma separated thread counts, default 1,4</li>
+ *     <li>eldercare.bench.results: directory of JSON results, one file per thread count</li>
+ *     <li>eldercare.bench.redis: host:port of a real Redis to use instead of the stand-in</li>
+ * </ul>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:12 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String[] threadCounts = System.getProperty("eldercare.bench.threads", "1,4").split(",");
+        File results = new File(System.getProperty("eldercare.bench.results", "build/reports/jmh"));
+        if (!results.isDirectory() && !results.mkdirs()) {
+            throw new IOException("Cannot create " + results);
+        }
+
+        String redis = System.getProperty(RedisBenchmarkState.REDIS_PROPERTY);
+        Process standIn = redis == null ? startStandIn() : null;
+        try {
+            if (standIn != null) {
+                redis = "127.0.0.1:" + awaitPort(standIn);
+            }
+            for (String threadCount : threadCounts) {
+                int threads = Integer.parseInt(threadCount.trim());
+                new Runner(new OptionsBuilder()
+                        .parent(commandLine)
+                        .threads(threads)
+                        .addProfiler(GCProfiler.class)
+                        .jvmArgsAppend("-D" + RedisBenchmarkState.REDIS_PROPERTY + "=" + redis)
+                        .resultFormat(ResultFormatType.JSON)
+                        .result(new File(results, "cache-t" + threads + ".json").getPath())
+                        .build()).run();
+            }
+        } finally {
+            if (standIn != null) {
+                standIn.destroy();
+            }
+        }
+    }
+
+    private static Process startStandIn() throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), RespStandInServer.class.getName(), "0")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static int awaitPort(Process standIn) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(standIn.getInputStream(), StandardCharsets.US_ASCII));
+        String line = reader.readLine();
+        if (line == null || !line.startsWith("READY ")) {
+            throw new IOException("RESP stand-in did not start: " + line);
+        }
+        return Integer.parseInt(line.substring("READY ".length()));
+    }
+}
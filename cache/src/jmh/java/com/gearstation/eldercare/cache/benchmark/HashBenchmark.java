@@ -0,0 +1,75 @@
+package com.gearstation.eldercare.cache.benchmark;
+
+import com.gearstation.eldercare.cache.utils.BatchResponse;
+import com.gearstation.eldercare.cache.utils.RedisBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.BATCH_SIZE;
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.DB_INDEX;
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.HASH_KEY;
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.nextIndex;
+
+/**
+ * Description: HSET and HGET on one hash, one round trip per command vs one pipeline per
+ * {@value RedisBenchmarkState#BATCH_SIZE} commands. Scores are commands per second <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:12 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BATCH_SIZE)
+public class HashBenchmark {
+
+    @Benchmark
+    public void hsetSingle(RedisBenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(state.redisUtils.hset(HASH_KEY, state.keys[nextIndex()], state.value, DB_INDEX));
+        }
+    }
+
+    @Benchmark
+    public void hsetPipelined(RedisBenchmarkState state, Blackhole blackhole) {
+        RedisBatch batch = state.redisUtils.batch(DB_INDEX);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.hset(HASH_KEY, state.keys[nextIndex()], state.value);
+        }
+        blackhole.consume(batch.execute());
+    }
+
+    @Benchmark
+    public void hgetSingle(RedisBenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(state.redisUtils.hget(HASH_KEY, state.keys[nextIndex()], DB_INDEX));
+        }
+    }
+
+    @Benchmark
+    public void hgetPipelined(RedisBenchmarkState state, Blackhole blackhole) {
+        RedisBatch batch = state.redisUtils.batch(DB_INDEX);
+        @SuppressWarnings("unchecked")
+        BatchResponse<String>[] responses = new BatchResponse[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            responses[i] = batch.hget(HASH_KEY, state.keys[nextIndex()]);
+        }
+        batch.execute();
+        for (BatchResponse<String> response : responses) {
+            blackhole.consume(response.get());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.gearstation.eldercare.cache.benchmark;
+
+import com.gearstation.eldercare.cache.utils.BatchResponse;
+import com.gearstation.eldercare.cache.utils.RedisBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.BATCH_SIZE;
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.DB_INDEX;
+import static com.gearstation.eldercare.cache.benchmark.RedisBenchmarkState.LIST_KEY;
+
+/**
+ * Description: RPUSH followed by LPOP, which keeps the list length steady, and LRANGE of the first ten elements.
+ * One round trip per command vs one pipeline per {@value RedisBenchmarkState#BATCH_SIZE} operations. Scores are
+ * push-pop pairs or LRANGE commands per second <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:12 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BATCH_SIZE)
+public class ListBenchmark {
+
+    @Benchmark
+    public void pushPopSingle(RedisBenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(state.redisUtils.rpush(LIST_KEY, DB_INDEX, state.value));
+            blackhole.consume(state.redisUtils.lpop(LIST_KEY, DB_INDEX));
+        }
+    }
+
+    @Benchmark
+    public void pushPopPipelined(RedisBenchmarkState state, Blackhole blackhole) {
+        RedisBatch batch = state.redisUtils.batch(DB_INDEX);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.rpush(LIST_KEY, state.value);
+            batch.lpop(LIST_KEY);
+        }
+        blackhole.consume(batch.execute());
+    }
+
+    @Benchmark
+    public void lrangeSingle(RedisBenchmarkState state, Blackhole blackhole) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            blackhole.consume(state.redisUtils.lrange(LIST_KEY, 0, 9, DB_INDEX));
+        }
+    }
+
+    @Benchmark
+    public void lrangePipelined(RedisBenchmarkState state, Blackhole blackhole) {
+        RedisBatch batch = state.redisUtils.batch(DB_INDEX);
+        @SuppressWarnings("unchecked")
+        BatchResponse<List<String>>[] responses = new BatchResponse[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            responses[i] = batch.lrange(LIST_KEY, 0, 9);
+        }
+        batch.execute();
+        for (BatchResponse<List<String>> response : responses) {
+            blackhole.consume(response.get());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.gearstation.eldercare.cache.benchmark;
+
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.config.CacheLoadProperties;
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import com.gearstation.eldercare.cache.config.RedisMetricsProperties;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.JedisPoolRegistry;
+import com.gearstation.eldercare.cache.utils.RedisBatch;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Description: RedisUtils wired as RedisConfig does, metrics included, talking to the Redis given by system property
+ * {@value #REDIS_PROPERTY} (host:port), or to an in-process {@link RespStandInServer} when it is absent. Data lives
+ * in DB {@value #DB_INDEX} under the {@value #KEY_PREFIX} prefix, and only those keys are removed from a real Redis <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:12 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@State(Scope.Benchmark)
+public class RedisBenchmarkState {
+
+    static final String REDIS_PROPERTY = "eldercare.bench.redis";
+
+    /**
+     * Number of commands sent per benchmark invocation, one by one or in a single pipeline
+     */
+    static final int BATCH_SIZE = 64;
+
+    /**
+     * Number of distinct keys, fields or members touched, so the data set stays bounded
+     */
+    static final int KEY_SPACE = 256;
+
+    /**
+     * Dedicated DB, kept away from the default one an application on the same Redis would use
+     */
+    static final int DB_INDEX = 15;
+
+    static final String KEY_PREFIX = "bench:";
+
+    static final String HASH_KEY = "bench:hash";
+    static final String LIST_KEY = "bench:list";
+    static final String SET_KEY = "bench:set";
+    static final String ZSET_KEY = "bench:zset";
+
+    @Param({"16", "1024", "16384"})
+    public int valueSize;
+
+    RedisUtils redisUtils;
+    String value;
+    String[] keys;
+
+    private RespStandInServer standIn;
+    private JedisLeaseManager jedisLeaseManager;
+    private NearCache nearCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String address = System.getProperty(REDIS_PROPERTY);
+        String host;
+        int port;
+        if (address == null) {
+            standIn = new RespStandInServer(0);
+            host = "127.0.0.1";
+            port = standIn.getPort();
+        } else {
+            host = address.substring(0, address.lastIndexOf(':'));
+            port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+        }
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(Runtime.getRuntime().availableProcessors() * 4);
+        poolConfig.setMaxIdle(poolConfig.getMaxTotal());
+        poolConfig.setJmxEnabled(false);
+        JedisPoolRegistry jedisPoolRegistry = new JedisPoolRegistry(
+                dbIndex -> new JedisPool(poolConfig, host, port, Protocol.DEFAULT_TIMEOUT, null, dbIndex), DB_INDEX);
+        jedisLeaseManager = new JedisLeaseManager(jedisPoolRegistry, Duration.ZERO, Duration.ofSeconds(5));
+        nearCache = new NearCache(new NearCacheProperties());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        redisUtils = new RedisUtils(jedisLeaseManager, nearCache, new RedisCommandMetrics(meterRegistry, new RedisMetricsProperties()),
+                new ValueCompressor(new RedisCompressionProperties(), meterRegistry), new CacheLoadProperties(), new RedisBulkProperties());
+
+        char[] chars = new char[valueSize];
+        Arrays.fill(chars, 'v');
+        value = new String(chars);
+        keys = new String[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = KEY_PREFIX + i;
+        }
+        clear();
+        populate();
+    }
+
+    /**
+     * Description: Pick a key, field or member index of the bounded key space <br>
+     */
+    static int nextIndex() {
+        return ThreadLocalRandom.current().nextInt(KEY_SPACE);
+    }
+
+    /**
+     * Description: Remove benchmark data. The stand-in only holds benchmark data and is flushed, on a real Redis only
+     * keys under {@value #KEY_PREFIX} are scanned and removed <br>
+     */
+    private void clear() {
+        if (standIn != null) {
+            redisUtils.flushDB();
+            return;
+        }
+        try (Stream<String> found = redisUtils.scan(KEY_PREFIX + "*", DB_INDEX)) {
+            String[] benchKeys = found.toArray(String[]::new);
+            if (benchKeys.length > 0) {
+                redisUtils.remove(DB_INDEX, benchKeys);
+            }
+        }
+    }
+
+    /**
+     * Description: Fill every type so that read benchmarks always hit <br>
+     */
+    private void populate() {
+        RedisBatch batch = redisUtils.batch(DB_INDEX);
+        for (int i = 0; i < KEY_SPACE; i++) {
+            batch.set(keys[i], value);
+            batch.hset(HASH_KEY, keys[i], value);
+            batch.rpush(LIST_KEY, value);
+            batch.sadd(SET_KEY, keys[i]);
+            batch.zadd(ZSET_KEY, i, keys[i]);
+        }
+        if (!batch.execute()) {
+            throw new IllegalStateException("Cannot populate benchmark data");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        clear();
+        nearCache.close();
+        jedisLeaseManager.close();
+        if (standIn != null) {
+            standIn.close();
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.gearstation.eldercare.cache.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Description: In-memory server speaking RESP, standing in for Redis in benchmarks <br>
+ * It answers the string, hash, list, set and sorted set commands used by the benchmarks, so results can be
+ * reproduced offline and don't depend on the Redis version or the host it runs on. Commands are executed one at a
+ * time like Redis does, expiry isn't simulated and replies of pipelined commands are flushed together. It isn't
+ * meant to replace Redis in any other use <br>
+ * Run standalone with: <code>java RespStandInServer [port]</code>, it prints <code>READY &lt;port&gt;</code> once
+ * listening <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:12 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class RespStandInServer implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Bulk strings are decoded one char per byte, so stored values, compressed ones included, are sent back unchanged
+     */
+    private static final Charset BULK = StandardCharsets.ISO_8859_1;
+    private static final String WRONGTYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    private final ServerSocket serverSocket;
+    private final Map<Integer, Map<String, Object>> databases = new HashMap<>();
+    private final Set<Socket> clients = new HashSet<>();
+
+    /**
+     * @param port Port to listen on loopback, 0 to pick a free one <br>
+     */
+    public RespStandInServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "resp-stand-in-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        RespStandInServer server = new RespStandInServer(args.length > 0 ? Integer.parseInt(args[0]) : 6379);
+        System.out.println("READY " + server.getPort());
+        System.out.flush();
+        // Exit together with the parent process which closes our stdin
+        while (System.in.read() != -1) {
+            // ignore input
+        }
+        server.close();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (clients) {
+                    clients.add(socket);
+                }
+                Thread worker = new Thread(() -> serve(socket), "resp-stand-in-" + socket.getPort());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Session session = new Session();
+        try (Socket ignored = socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+            while (true) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                if (!command.isEmpty()) {
+                    Object reply;
+                    synchronized (this) {
+                        reply = dispatch(session, command);
+                    }
+                    writeReply(out, reply);
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
+                if (session.quit) {
+                    return;
+                }
+            }
+        } catch (SocketException | EOFException e) {
+            // client went away
+        } catch (IOException e) {
+            System.err.println("RESP stand-in connection failed: " + e.getMessage());
+        } finally {
+            synchronized (clients) {
+                clients.remove(socket);
+            }
+        }
+    }
+
+    /* ---------------- Commands ---------------- */
+
+    private Object dispatch(Session session, List<String> command) {
+        String name = command.get(0).toUpperCase();
+        Map<String, Object> db = databases.computeIfAbsent(session.dbIndex, index -> new HashMap<>());
+        try {
+            switch (name) {
+                case "PING":
+                    return Status.PONG;
+                case "AUTH":
+                case "CLIENT":
+                    return Status.OK;
+                case "QUIT":
+                    session.quit = true;
+                    return Status.OK;
+                case "SELECT":
+                    session.dbIndex = Integer.parseInt(command.get(1));
+                    return Status.OK;
+                case "FLUSHDB":
+                    db.clear();
+                    return Status.OK;
+                case "DEL": {
+                    long removed = 0;
+                    for (String key : command.subList(1, command.size())) {
+                        removed += db.remove(key) != null ? 1 : 0;
+                    }
+                    return removed;
+                }
+                case "EXISTS":
+                    return db.containsKey(command.get(1)) ? 1L : 0L;
+                case "EXPIRE":
+                    return db.containsKey(command.get(1)) ? 1L : 0L;
+                case "GET":
+                    return typed(db.get(command.get(1)), String.class);
+                case "SET":
+                    db.put(command.get(1), command.get(2));
+                    return Status.OK;
+                case "SETEX":
+                    db.put(command.get(1), command.get(3));
+                    return Status.OK;
+                case "INCR":
+                case "INCRBY": {
+                    String current = typed(db.get(command.get(1)), String.class);
+                    long increment = "INCR".equals(name) ? 1 : Long.parseLong(command.get(2));
+                    long value = (current == null ? 0 : Long.parseLong(current)) + increment;
+                    db.put(command.get(1), Long.toString(value));
+                    return value;
+                }
+                case "HSET":
+                    return hash(db, command.get(1), true).put(command.get(2), command.get(3)) == null ? 1L : 0L;
+                case "HGET": {
+                    Map<String, String> hash = hash(db, command.get(1), false);
+                    return hash == null ? null : hash.get(command.get(2));
+                }
+                case "HGETALL": {
+                    Map<String, String> hash = hash(db, command.get(1), false);
+                    List<String> reply = new ArrayList<>();
+                    if (hash != null) {
+                        hash.forEach((field, value) -> {
+                            reply.add(field);
+                            reply.add(value);
+                        });
+                    }
+                    return reply;
+                }
+                case "LPUSH":
+                case "RPUSH": {
+                    Deque<String> list = list(db, command.get(1), true);
+                    for (String value : command.subList(2, command.size())) {
+                        if ("LPUSH".equals(name)) {
+                            list.addFirst(value);
+                        } else {
+                            list.addLast(value);
+                        }
+                    }
+                    return (long) list.size();
+                }
+                case "LPOP":
+                case "RPOP": {
+                    Deque<String> list = list(db, command.get(1), false);
+                    if (list == null) {
+                        return null;
+                    }
+                    String value = "LPOP".equals(name) ? list.pollFirst() : list.pollLast();
+                    removeIfEmpty(db, command.get(1), list);
+                    return value;
+                }
+                case "LLEN": {
+                    Deque<String> list = list(db, command.get(1), false);
+                    return list == null ? 0L : (long) list.size();
+                }
+                case "LRANGE": {
+                    Deque<String> list = list(db, command.get(1), false);
+                    return list == null ? new ArrayList<>() : range(new ArrayList<>(list), command.get(2), command.get(3));
+                }
+                case "SADD": {
+                    Set<String> set = set(db, command.get(1), true);
+                    long added = 0;
+                    for (String member : command.subList(2, command.size())) {
+                        added += set.add(member) ? 1 : 0;
+                    }
+                    return added;
+                }
+                case "SREM": {
+                    Set<String> set = set(db, command.get(1), false);
+                    long removed = 0;
+                    if (set != null) {
+                        for (String member : command.subList(2, command.size())) {
+                            removed += set.remove(member) ? 1 : 0;
+                        }
+                        removeIfEmpty(db, command.get(1), set);
+                    }
+                    return removed;
+                }
+                case "SISMEMBER": {
+                    Set<String> set = set(db, command.get(1), false);
+                    return set != null && set.contains(command.get(2)) ? 1L : 0L;
+                }
+                case "SCARD": {
+                    Set<String> set = set(db, command.get(1), false);
+                    return set == null ? 0L : (long) set.size();
+                }
+                case "SMEMBERS": {
+                    Set<String> set = set(db, command.get(1), false);
+                    return set == null ? new ArrayList<>() : new ArrayList<>(set);
+                }
+                case "ZADD": {
+                    SortedSet zset = zset(db, command.get(1), true);
+                    return zset.add(Double.parseDouble(command.get(2)), command.get(3)) ? 1L : 0L;
+                }
+                case "ZSCORE": {
+                    SortedSet zset = zset(db, command.get(1), false);
+                    Double score = zset == null ? null : zset.scores.get(command.get(2));
+                    return score == null ? null : formatScore(score);
+                }
+                case "ZCARD": {
+                    SortedSet zset = zset(db, command.get(1), false);
+                    return zset == null ? 0L : (long) zset.scores.size();
+                }
+                case "ZREM": {
+                    SortedSet zset = zset(db, command.get(1), false);
+                    long removed = 0;
+                    if (zset != null) {
+                        for (String member : command.subList(2, command.size())) {
+                            removed += zset.remove(member) ? 1 : 0;
+                        }
+                        removeIfEmpty(db, command.get(1), zset.scores.keySet());
+                    }
+                    return removed;
+                }
+                case "ZRANGE":
+                case "ZREVRANGE": {
+                    SortedSet zset = zset(db, command.get(1), false);
+                    if (zset == null) {
+                        return new ArrayList<>();
+                    }
+                    List<String> members = new ArrayList<>();
+                    zset.ordered.forEach(entry -> members.add(entry.member));
+                    if ("ZREVRANGE".equals(name)) {
+                        Collections.reverse(members);
+                    }
+                    return range(members, command.get(2), command.get(3));
+                }
+                default:
+                    return new Error("ERR unknown command '" + command.get(0) + "'");
+            }
+        } catch (IndexOutOfBoundsException e) {
+            return new Error("ERR wrong number of arguments for '" + command.get(0) + "' command");
+        } catch (NumberFormatException e) {
+            return new Error("ERR value is not an integer or a float");
+        } catch (WrongTypeException e) {
+            return new Error(WRONGTYPE);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> hash(Map<String, Object> db, String key, boolean create) {
+        Object value = create ? db.computeIfAbsent(key, k -> new HashMap<String, String>()) : db.get(key);
+        return typed(value, Map.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Deque<String> list(Map<String, Object> db, String key, boolean create) {
+        Object value = create ? db.computeIfAbsent(key, k -> new ArrayDeque<String>()) : db.get(key);
+        return typed(value, Deque.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> set(Map<String, Object> db, String key, boolean create) {
+        Object value = create ? db.computeIfAbsent(key, k -> new HashSet<String>()) : db.get(key);
+        return typed(value, Set.class);
+    }
+
+    private static SortedSet zset(Map<String, Object> db, String key, boolean create) {
+        Object value = create ? db.computeIfAbsent(key, k -> new SortedSet()) : db.get(key);
+        return typed(value, SortedSet.class);
+    }
+
+    private static <T> T typed(Object value, Class<T> type) {
+        if (value != null && !type.isInstance(value)) {
+            throw new WrongTypeException();
+        }
+        return type.cast(value);
+    }
+
+    private static void removeIfEmpty(Map<String, Object> db, String key, Collection<?> values) {
+        if (values.isEmpty()) {
+            db.remove(key);
+        }
+    }
+
+    private static List<String> range(List<String> values, String start, String stop) {
+        int size = values.size();
+        int from = Integer.parseInt(start);
+        int to = Integer.parseInt(stop);
+        from = Math.max(from < 0 ? size + from : from, 0);
+        to = Math.min(to < 0 ? size + to : to, size - 1);
+        return from > to ? new ArrayList<>() : new ArrayList<>(values.subList(from, to + 1));
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score) ? Long.toString((long) score) : Double.toString(score);
+    }
+
+    /* ---------------- Protocol ---------------- */
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("Inline commands are not supported");
+        }
+        int count = (int) readNumber(in);
+        List<String> command = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Bulk string expected");
+            }
+            int length = (int) readNumber(in);
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length || in.read() != '\r' || in.read() != '\n') {
+                throw new EOFException();
+            }
+            command.add(new String(bytes, BULK));
+        }
+        return command;
+    }
+
+    private static long readNumber(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private static void writeReply(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write(NULL_BULK);
+        } else if (reply == Status.OK) {
+            out.write(OK);
+        } else if (reply instanceof Status) {
+            writeLine(out, '+', ((Status) reply).name());
+        } else if (reply instanceof Error) {
+            writeLine(out, '-', ((Error) reply).message);
+        } else if (reply instanceof Long) {
+            writeLine(out, ':', reply.toString());
+        } else if (reply instanceof String) {
+            byte[] bytes = ((String) reply).getBytes(BULK);
+            writeLine(out, '$', Integer.toString(bytes.length));
+            out.write(bytes);
+            out.write(CRLF);
+        } else {
+            List<?> values = (List<?>) reply;
+            writeLine(out, '*', Integer.toString(values.size()));
+            for (Object value : values) {
+                writeReply(out, value);
+            }
+        }
+    }
+
+    private static void writeLine(OutputStream out, char type, String line) throws IOException {
+        out.write(type);
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+
+    private enum Status {
+        OK, PONG
+    }
+
+    private static final class Error {
+        private final String message;
+
+        private Error(String message) {
+            this.message = message;
+        }
+    }
+
+    private static final class WrongTypeException extends RuntimeException {
+        private WrongTypeException() {
+            super(WRONGTYPE, null, false, false);
+        }
+    }
+
+    private static final class Session {
+        private int dbIndex;
+        private boolean quit;
+    }
+
+    /**
+     * Sorted set kept as a score map plus an ordered view, like the dict and skiplist of Redis
+     */
+    private static final class SortedSet {
+        private final Map<String, Double> scores = new HashMap<>();
+        private final TreeSet<ScoredMember> ordered = new TreeSet<>();
+
+        private boolean add(double score, String member) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                ordered.remove(new ScoredMember(previous, member));
+            }
+            ordered.add(new ScoredMember(score, member));
+            return previous == null;
+        }
+
+        private boolean remove(String member) {
+            Double previous = scores.remove(member);
+            if (previous == null) {
+                return false;
+            }
+            ordered.remove(new ScoredMember(previous, member));
+            return true;
+        }
+    }
+
+    private static final class ScoredMember implements Comparable<ScoredMember> {
+        private final double score;
+        private final String member;
+
+        private ScoredMember(double score, String member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(ScoredMember o) {
+            int byScore = Double.compare(score, o.score);
+            return byScore != 0 ? byScore : member.compareTo(o.member);
+        }
+    }
+}
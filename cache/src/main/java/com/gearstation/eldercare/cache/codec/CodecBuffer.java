@@ -0,0 +1,207 @@
+package com.gearstation.eldercare.cache.codec;
+
+import java.util.Arrays;
+
+/**
+ * Description: Growable write buffer of {@link RedisCodec}. <br>
+ * Every thread keeps one buffer which is handed out by {@link #acquire()} and reused after {@link #close()}, so
+ * encoding a value allocates nothing but the final copy passed to Jedis. A nested acquire on the same thread, or a
+ * buffer grown over {@link #MAX_POOLED_CAPACITY}, falls back to a throwaway buffer. A buffer isn't thread safe <br>
+ * Numbers are written big-endian, var-length numbers take 7 bits per byte, low bits first <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:20 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public final class CodecBuffer implements AutoCloseable {
+
+    static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Pooled buffers which grew over this are dropped on close, so a rare big value isn't kept per thread
+     */
+    static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<CodecBuffer> POOL = ThreadLocal.withInitial(() -> new CodecBuffer(true));
+
+    private final boolean pooled;
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+    private boolean inUse;
+
+    private CodecBuffer(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * Description: Get the empty buffer of the calling thread <br>
+     *
+     * @return Return a buffer which must be closed once its bytes are copied <br>
+     * @author agent <br>
+     */
+    public static CodecBuffer acquire() {
+        CodecBuffer buffer = POOL.get();
+        if (buffer.inUse) {
+            buffer = new CodecBuffer(false);
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CodecBuffer writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    public CodecBuffer writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    public CodecBuffer writeBytes(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    /**
+     * Description: Write 8 bytes, big-endian <br>
+     */
+    public CodecBuffer writeLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    public CodecBuffer writeDouble(double value) {
+        return writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Description: Write a non-negative number in 1 to 5 bytes <br>
+     */
+    public CodecBuffer writeVarInt(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative var int " + value);
+        }
+        return writeVarLong(value);
+    }
+
+    /**
+     * Description: Write an unsigned number in 1 to 10 bytes, small values take less <br>
+     */
+    public CodecBuffer writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Description: Write a signed number zig-zag encoded, so small negative values are short too <br>
+     */
+    public CodecBuffer writeZigZagLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Description: Write UTF-8 bytes of value, prefixed with their length as var int <br>
+     */
+    public CodecBuffer writeString(String value) {
+        writeVarInt(utf8Length(value));
+        return writeUtf8(value);
+    }
+
+    /**
+     * Description: Write UTF-8 bytes of value without length, for a string which ends the value <br>
+     */
+    public CodecBuffer writeUtf8(String value) {
+        int length = value.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[size++] = (byte) (0xC0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xE0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Description: Get the backing array, valid up to {@link #size()} until the next write <br>
+     */
+    byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * Description: Copy written bytes <br>
+     *
+     * @return Return an array of exactly {@link #size()} bytes <br>
+     * @author agent <br>
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Description: Empty the buffer and hand it back to the pool of its thread <br>
+     */
+    @Override
+    public void close() {
+        size = 0;
+        inUse = false;
+        if (pooled && bytes.length > MAX_POOLED_CAPACITY) {
+            bytes = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800 && Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 2;
+                i++;
+            } else if (c >= 0x800 && !Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (c >= 0x80 && c < 0x800) {
+                utf8Length++;
+            }
+        }
+        return utf8Length;
+    }
+}
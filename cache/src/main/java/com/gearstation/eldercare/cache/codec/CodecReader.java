@@ -0,0 +1,113 @@
+package com.gearstation.eldercare.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Description: Reads back what a {@link CodecBuffer} wrote, in the same order. A reader isn't thread safe <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:20 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public final class CodecReader {
+
+    private final byte[] bytes;
+    private int position;
+
+    public CodecReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public int remaining() {
+        return bytes.length - position;
+    }
+
+    public int readByte() {
+        require(1);
+        return bytes[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public byte[] readBytes(int length) {
+        require(length);
+        byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Description: Read all bytes left, for a value which ends the input <br>
+     */
+    public byte[] readRemaining() {
+        return readBytes(remaining());
+    }
+
+    public long readLong() {
+        require(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public int readVarInt() {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Var int out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Var long longer than 10 bytes");
+    }
+
+    public long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Description: Read a string written by {@link CodecBuffer#writeString(String)} <br>
+     */
+    public String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Description: Read all bytes left as UTF-8, for a string written by {@link CodecBuffer#writeUtf8(String)} <br>
+     */
+    public String readUtf8() {
+        String value = new String(bytes, position, remaining(), StandardCharsets.UTF_8);
+        position = bytes.length;
+        return value;
+    }
+
+    private void require(int length) {
+        if (length < 0 || length > remaining()) {
+            throw new IllegalArgumentException("Value truncated: " + length + " bytes needed at " + position + ", " + remaining() + " left");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.gearstation.eldercare.cache.codec;
+
+/**
+ * Description: Converts values of one type to and from the bytes stored in Redis <br>
+ * Codecs write into a {@link CodecBuffer} and read from a {@link CodecReader}, so codecs of small records can be
+ * built from the writes and reads of their fields, see {@link RedisCodecs#of}. Implementations must be thread safe <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:20 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public interface RedisCodec<T> {
+
+    /**
+     * Description: Write value at the end of buffer <br>
+     *
+     * @param value  Value to write, never null <br>
+     * @param buffer Target buffer <br>
+     * @author agent <br>
+     */
+    void encode(T value, CodecBuffer buffer);
+
+    /**
+     * Description: Read one value from reader <br>
+     *
+     * @param reader Source bytes <br>
+     * @return Return the value read <br>
+     * @throws IllegalArgumentException if the bytes aren't in the format of this codec <br>
+     * @author agent <br>
+     */
+    T decode(CodecReader reader);
+
+    /**
+     * Description: Encode value through the pooled buffer of the calling thread <br>
+     *
+     * @param value Value to encode, never null <br>
+     * @return Return encoded bytes <br>
+     * @author agent <br>
+     */
+    default byte[] encode(T value) {
+        try (CodecBuffer buffer = CodecBuffer.acquire()) {
+            encode(value, buffer);
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Description: Decode a whole Redis reply <br>
+     *
+     * @param bytes Reply, may be null <br>
+     * @return Return decoded value, or null if bytes is null <br>
+     * @throws IllegalArgumentException if the bytes aren't in the format of this codec <br>
+     * @author agent <br>
+     */
+    default T decode(byte[] bytes) {
+        return bytes == null ? null : decode(new CodecReader(bytes));
+    }
+}
@@ -0,0 +1,85 @@
+package com.gearstation.eldercare.cache.codec;
+
+import org.springframework.util.SerializationUtils;
+
+import java.time.Instant;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Description: Compact binary codecs of common value types <br>
+ * Numbers are stored in binary, not as decimal text, so INCR and friends can't be used on values written with
+ * {@link #LONG} or {@link #DOUBLE}. Small records are composed of buffer writes, e.g.
+ * <pre>
+ *     RedisCodec&lt;HeartRate&gt; HEART_RATE = RedisCodecs.of(
+ *             (rate, buffer) -&gt; buffer.writeZigZagLong(rate.getBpm()).writeZigZagLong(rate.getMeasuredAt()),
+ *             reader -&gt; new HeartRate(reader.readZigZagLong(), reader.readZigZagLong()));
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:20 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public final class RedisCodecs {
+
+    /**
+     * Zig-zag var long, 1 byte for -64 to 63 and 6 bytes for epoch millis
+     */
+    public static final RedisCodec<Long> LONG = of((value, buffer) -> buffer.writeZigZagLong(value), CodecReader::readZigZagLong);
+
+    /**
+     * IEEE 754 bits, 8 bytes
+     */
+    public static final RedisCodec<Double> DOUBLE = of((value, buffer) -> buffer.writeDouble(value), CodecReader::readDouble);
+
+    /**
+     * Epoch seconds as zig-zag var long then nanos as var int, 6 bytes for a whole second
+     */
+    public static final RedisCodec<Instant> INSTANT = of(
+            (value, buffer) -> buffer.writeZigZagLong(value.getEpochSecond()).writeVarInt(value.getNano()),
+            reader -> Instant.ofEpochSecond(reader.readZigZagLong(), reader.readVarInt()));
+
+    /**
+     * Plain UTF-8 taking the whole value, readable by the String methods of RedisUtils
+     */
+    public static final RedisCodec<String> STRING = of((value, buffer) -> buffer.writeUtf8(value), CodecReader::readUtf8);
+
+    /**
+     * Bytes as they are
+     */
+    public static final RedisCodec<byte[]> BYTES = of((value, buffer) -> buffer.writeBytes(value), CodecReader::readRemaining);
+
+    /**
+     * Java serialization of Serializable values, for values of any type like the ones of Spring caches. Larger and
+     * slower than a codec built with {@link #of}
+     */
+    public static final RedisCodec<Object> SERIALIZABLE = of(
+            (value, buffer) -> buffer.writeBytes(SerializationUtils.serialize(value)),
+            reader -> SerializationUtils.deserialize(reader.readRemaining()));
+
+    private RedisCodecs() {
+    }
+
+    /**
+     * Description: Build a codec from a writer and a reader <br>
+     *
+     * @param writer Writes fields of value to buffer <br>
+     * @param reader Reads fields back in the same order <br>
+     * @return Return codec of T <br>
+     * @author agent <br>
+     */
+    public static <T> RedisCodec<T> of(BiConsumer<T, CodecBuffer> writer, Function<CodecReader, T> reader) {
+        return new RedisCodec<T>() {
+            @Override
+            public void encode(T value, CodecBuffer buffer) {
+                writer.accept(value, buffer);
+            }
+
+            @Override
+            public T decode(CodecReader codecReader) {
+                return reader.apply(codecReader);
+            }
+        };
+    }
+}
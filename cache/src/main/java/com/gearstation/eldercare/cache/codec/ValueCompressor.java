@@ -0,0 +1,211 @@
+package com.gearstation.eldercare.cache.codec;
+
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: Turns String values of RedisUtils into stored bytes, LZ4 compressed above a size threshold <br>
+ * A compressed value starts with byte 0xFF, which never shows up in UTF-8, then the algorithm id and the UTF-8 length
+ * as var int. Any other value is plain UTF-8, so values written before compression was enabled read as they are.
+ * A value is only kept compressed if that makes it smaller <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.compression.bytes: counter, tag stage, raw or compressed size of compressed values</li>
+ *     <li>eldercare.redis.compression.skipped: counter of values over threshold which didn't get smaller</li>
+ *     <li>eldercare.redis.compression.time: timer, tag operation, compress or decompress</li>
+ * </ul>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:22 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class ValueCompressor {
+
+    static final byte MAGIC = (byte) 0xFF;
+    static final byte LZ4 = 1;
+
+    /**
+     * Magic, algorithm and up to 5 bytes of length
+     */
+    private static final int MAX_HEADER = 7;
+
+    private final boolean enabled;
+    private final int threshold;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+    private final Counter rawBytes;
+    private final Counter compressedBytes;
+    private final Counter skipped;
+    private final Timer compressTime;
+    private final Timer decompressTime;
+
+    public ValueCompressor(RedisCompressionProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.threshold = (int) Math.min(Integer.MAX_VALUE, properties.getThreshold().toBytes());
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+        this.rawBytes = bytesCounter(meterRegistry, "raw");
+        this.compressedBytes = bytesCounter(meterRegistry, "compressed");
+        this.skipped = Counter.builder("eldercare.redis.compression.skipped")
+                .description("Values over threshold stored uncompressed because LZ4 didn't make them smaller")
+                .register(meterRegistry);
+        this.compressTime = timer(meterRegistry, "compress");
+        this.decompressTime = timer(meterRegistry, "decompress");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Description: Encode value to UTF-8, and compress it if enabled and over threshold <br>
+     *
+     * @param value Value to store, never null <br>
+     * @return Return bytes to store <br>
+     * @author agent <br>
+     */
+    public byte[] compress(String value) {
+        try (CodecBuffer buffer = CodecBuffer.acquire()) {
+            buffer.writeUtf8(value);
+            int length = buffer.size();
+            if (!enabled || length < threshold) {
+                return buffer.toByteArray();
+            }
+            long start = System.nanoTime();
+            byte[] compressed = new byte[MAX_HEADER + compressor.maxCompressedLength(length)];
+            compressed[0] = MAGIC;
+            compressed[1] = LZ4;
+            int header = writeVarInt(compressed, 2, length);
+            int size = header + compressor.compress(buffer.array(), 0, length, compressed, header, compressed.length - header);
+            compressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (size >= length) {
+                skipped.increment();
+                return buffer.toByteArray();
+            }
+            rawBytes.increment(length);
+            compressedBytes.increment(size);
+            return Arrays.copyOf(compressed, size);
+        }
+    }
+
+    /**
+     * Description: Decode a stored value, decompressing it if it has the compression header <br>
+     *
+     * @param stored Reply of Redis, may be null <br>
+     * @return Return the String value, or null if stored is null <br>
+     * @throws IllegalArgumentException if a compressed value is corrupt <br>
+     * @author agent <br>
+     */
+    public String decompress(byte[] stored) {
+        return stored == null ? null : new String(toUtf8(stored), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Description: Check whether a stored value has the compression header <br>
+     *
+     * @param stored Reply of Redis, may be null <br>
+     * @return Return true if stored is compressed <br>
+     * @author agent <br>
+     */
+    public static boolean isCompressed(byte[] stored) {
+        return stored != null && stored.length > 0 && stored[0] == MAGIC;
+    }
+
+    /**
+     * Description: Get the UTF-8 bytes of a stored value, decompressing it if it has the compression header. For
+     * commands which count bytes, like GETRANGE and STRLEN <br>
+     *
+     * @param stored Reply of Redis, may be null <br>
+     * @return Return UTF-8 bytes of the value, empty if stored is null <br>
+     * @throws IllegalArgumentException if a compressed value is corrupt <br>
+     * @author agent <br>
+     */
+    public byte[] toUtf8(byte[] stored) {
+        if (stored == null) {
+            return new byte[0];
+        }
+        if (!isCompressed(stored)) {
+            return stored;
+        }
+        if (stored.length < 3 || stored[1] != LZ4) {
+            throw new IllegalArgumentException("Unknown compression " + (stored.length < 2 ? "header" : "algorithm " + stored[1]));
+        }
+        long start = System.nanoTime();
+        CodecReader reader = new CodecReader(stored);
+        reader.readByte();
+        reader.readByte();
+        int length = reader.readVarInt();
+        int header = stored.length - reader.remaining();
+        byte[] utf8 = new byte[length];
+        try {
+            if (decompressor.decompress(stored, header, stored.length - header, utf8, 0, length) != length) {
+                throw new IllegalArgumentException("Compressed value shorter than its header says");
+            }
+        } catch (LZ4Exception e) {
+            throw new IllegalArgumentException("Corrupt compressed value", e);
+        }
+        decompressTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return utf8;
+    }
+
+    /**
+     * Description: Cut bytes from start to end, both included, as GETRANGE does: negative offsets count from the
+     * end, and offsets out of the value are clamped to it <br>
+     *
+     * @param utf8  Bytes of the value <br>
+     * @param start Start index, if it is negative, that means start from right <br>
+     * @param end   End index, included <br>
+     * @return Return the bytes in range, empty if none <br>
+     * @author agent <br>
+     */
+    public static byte[] range(byte[] utf8, long start, long end) {
+        int length = utf8.length;
+        if (start < 0) {
+            start = Math.max(0, length + start);
+        }
+        if (end < 0) {
+            end = Math.max(0, length + end);
+        }
+        end = Math.min(end, length - 1L);
+        if (length == 0 || start > end) {
+            return new byte[0];
+        }
+        return Arrays.copyOfRange(utf8, (int) start, (int) end + 1);
+    }
+
+    private static int writeVarInt(byte[] target, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static Counter bytesCounter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("eldercare.redis.compression.bytes")
+                .description("Size of compressed values before and after LZ4, their ratio is the compression ratio")
+                .baseUnit("bytes")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("eldercare.redis.compression.time")
+                .description("Time spent in LZ4, on the calling thread")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Description: Executor of AsyncRedisUtils <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:02 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+@Configuration
+@EnableConfigurationProperties(AsyncRedisProperties.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AsyncRedisConfig {
+
+    private final AsyncRedisProperties asyncRedisProperties;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService redisAsyncExecutor() {
+        if (asyncRedisProperties.isVirtualThreads()) {
+            ExecutorService virtualThreads = virtualThreadExecutor();
+            if (virtualThreads != null) {
+                log.info("Redis async calls run on virtual threads");
+                return virtualThreads;
+            }
+        }
+        int threads = asyncRedisProperties.getThreads();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(asyncRedisProperties.getQueueCapacity()), threadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Description: Look up Executors.newVirtualThreadPerTaskExecutor, which only exists from Java 21 <br>
+     *
+     * @return Return virtual thread executor, or null if runtime doesn't support it <br>
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "redis-async-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
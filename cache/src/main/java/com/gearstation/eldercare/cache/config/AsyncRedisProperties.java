@@ -0,0 +1,32 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Description: Settings of the executor behind AsyncRedisUtils <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:02 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.async")
+public class AsyncRedisProperties {
+
+    /**
+     * Use one virtual thread per call when the runtime supports it, concurrency is then bounded by the pools
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * Number of platform threads, when virtual threads aren't used
+     */
+    private int threads = 16;
+
+    /**
+     * Calls waiting for a platform thread. When full, the caller runs the call itself
+     */
+    private int queueCapacity = 1024;
+}
@@ -0,0 +1,65 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Settings of RedisUtils.getOrLoad <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     load:
+ *       stale-ttl: 1m
+ *       beta: 1.0
+ *       wait-timeout: 2s
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:42 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.load")
+public class CacheLoadProperties {
+
+    /**
+     * Time a value is kept after its TTL, to be served while it is loaded again
+     */
+    private Duration staleTtl = Duration.ofMinutes(1);
+
+    /**
+     * Serve a stale value at once and reload it in the background. When off, callers wait for the reload up to
+     * wait-timeout and get the stale value after that
+     */
+    private boolean staleWhileRevalidate = true;
+
+    /**
+     * XFetch beta. Values are reloaded in the background before their TTL, earlier for slow loads and bigger beta.
+     * Zero turns early refresh off
+     */
+    private double beta = 1.0;
+
+    /**
+     * Lease of the lock which keeps other nodes from loading the same key, longer than the slowest load
+     */
+    private Duration lockTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Time a caller waits for a load running elsewhere, before it takes the stale value or loads itself
+     */
+    private Duration waitTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Interval at which a node waiting for another node's load reads the key again
+     */
+    private Duration pollInterval = Duration.ofMillis(50);
+
+    /**
+     * Threads running background reloads
+     */
+    private int refreshThreads = 4;
+}
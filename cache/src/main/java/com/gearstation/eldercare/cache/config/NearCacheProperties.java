@@ -0,0 +1,58 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description: Settings of the in-process near cache in front of RedisUtils reads <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     near-cache:
+ *       enabled: true
+ *       maximum-size: 50000
+ *       namespaces:
+ *         elder: 30s
+ *         device-config: 5m
+ * </pre>
+ * Only keys whose namespace, the part before the first separator, is listed are cached locally <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:01 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.near-cache")
+public class NearCacheProperties {
+
+    /**
+     * Near cache is opt-in
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of keys kept locally, W-TinyLFU decides which ones stay
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Local TTL keyed by namespace
+     */
+    private Map<String, Duration> namespaces = new LinkedHashMap<>();
+
+    /**
+     * Separator between namespace and the rest of a key
+     */
+    private char namespaceSeparator = ':';
+
+    /**
+     * Pub/sub channel used to tell other nodes about writes
+     */
+    private String invalidationChannel = "eldercare:near-cache:invalidate";
+}
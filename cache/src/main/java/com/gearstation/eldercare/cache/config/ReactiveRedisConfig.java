@@ -0,0 +1,95 @@
+package com.gearstation.eldercare.cache.config;
+
+import com.gearstation.eldercare.cache.reactive.ReactiveRedisConnections;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * Description: Lettuce client of ReactiveRedisUtils, sharing spring.redis host, port, password and timeout <br>
+ * Under spring.redis.sentinel it asks the sentinels for the master, and again on every reconnect, so it follows a
+ * failover like the Jedis pools. With eldercare.cache.replicas its reads stay on the primary. It dials one node, so
+ * it refuses to start with eldercare.cache.sharding nodes or a Redis Cluster, whose keys live on other nodes; set
+ * eldercare.cache.reactive.enabled=false there <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:05 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "eldercare.cache.reactive", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ReactiveRedisProperties.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveRedisConfig {
+
+    private final RedisProperties redisProperties;
+
+    private final ReactiveRedisProperties reactiveRedisProperties;
+
+    private final RedisShardingProperties redisShardingProperties;
+
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources reactiveRedisClientResources() {
+        return DefaultClientResources.builder()
+                .ioThreadPoolSize(reactiveRedisProperties.getIoThreads())
+                .computationThreadPoolSize(reactiveRedisProperties.getComputationThreads())
+                .build();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient reactiveRedisClient(ClientResources reactiveRedisClientResources) {
+        boolean cluster = redisProperties.getCluster() != null && !redisProperties.getCluster().getNodes().isEmpty();
+        if (cluster || !redisShardingProperties.getNodes().isEmpty()) {
+            throw new IllegalStateException("ReactiveRedisUtils dials a single Redis and would miss keys of other "
+                    + (cluster ? "cluster nodes" : "shards") + ", set eldercare.cache.reactive.enabled=false");
+        }
+        return RedisClient.create(reactiveRedisClientResources);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReactiveRedisConnections reactiveRedisConnections(RedisClient reactiveRedisClient) {
+        return new ReactiveRedisConnections(reactiveRedisClient, this::redisUri);
+    }
+
+    private RedisURI redisUri(int dbIndex) {
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        RedisURI.Builder builder;
+        if (sentinel != null && StringUtils.hasText(sentinel.getMaster())) {
+            List<String> nodes = sentinel.getNodes();
+            builder = RedisURI.Builder.sentinel(hostOf(nodes.get(0)), portOf(nodes.get(0)), sentinel.getMaster());
+            for (String node : nodes.subList(1, nodes.size())) {
+                builder.withSentinel(hostOf(node), portOf(node));
+            }
+        } else {
+            builder = RedisURI.builder()
+                    .withHost(redisProperties.getHost())
+                    .withPort(redisProperties.getPort());
+        }
+        builder.withDatabase(dbIndex)
+                .withTimeout(redisProperties.getTimeout());
+        if (StringUtils.hasText(redisProperties.getPassword())) {
+            builder.withPassword(redisProperties.getPassword());
+        }
+        return builder.build();
+    }
+
+    private static String hostOf(String node) {
+        return node.substring(0, node.lastIndexOf(':'));
+    }
+
+    private static int portOf(String node) {
+        return Integer.parseInt(node.substring(node.lastIndexOf(':') + 1));
+    }
+}
@@ -0,0 +1,32 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Description: Settings of the Lettuce client behind ReactiveRedisUtils <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:05 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.reactive")
+public class ReactiveRedisProperties {
+
+    /**
+     * Whether ReactiveRedisUtils is created. It must be turned off with eldercare.cache.sharding or a Redis Cluster
+     */
+    private boolean enabled = true;
+
+    /**
+     * Event loop threads doing network I/O
+     */
+    private int ioThreads = 2;
+
+    /**
+     * Threads used to complete replies and run reactive operators
+     */
+    private int computationThreads = 2;
+}
@@ -0,0 +1,28 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Description: Settings of multi-key commands of RedisUtils, mget, mset, msetnx and remove, with many keys <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:51 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.bulk")
+public class RedisBulkProperties {
+
+    /**
+     * Most keys per command. Larger calls are split into several commands sent in one pipeline per shard, so Redis
+     * is never blocked by one huge command and replies are read chunk by chunk
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Connections of a shard one call may use at once, each sending part of the chunks in its own pipeline
+     */
+    private int parallelism = 1;
+}
@@ -0,0 +1,40 @@
+package com.gearstation.eldercare.cache.config;
+
+import com.gearstation.eldercare.cache.codec.RedisCodecs;
+import com.gearstation.eldercare.cache.manager.RedisUtilsCacheManager;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Description: CacheManager behind @Cacheable, storing values through RedisUtils <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:40 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Configuration
+@EnableConfigurationProperties(RedisCacheManagerProperties.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RedisCacheManagerConfig {
+
+    private final RedisProperties redisProperties;
+
+    private final RedisCacheManagerProperties redisCacheManagerProperties;
+
+    /**
+     * Description: Values are stored with Java serialization, so they must be Serializable <br>
+     */
+    @Bean
+    public CacheManager cacheManager(RedisUtils redisUtils) {
+        Integer database = redisCacheManagerProperties.getDatabase();
+        return new RedisUtilsCacheManager(redisUtils, redisCacheManagerProperties, RedisCodecs.SERIALIZABLE,
+                database != null ? database : redisProperties.getDatabase());
+    }
+}
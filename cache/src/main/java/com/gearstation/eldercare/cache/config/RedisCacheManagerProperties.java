@@ -0,0 +1,111 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Description: Settings of the Spring CacheManager behind @Cacheable <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     cache-manager:
+ *       key-prefix: "cache:"
+ *       defaults:
+ *         ttl: 10m
+ *       caches:
+ *         users:
+ *           ttl: 30m
+ *           maximum-size: 50000
+ *           local-ttl: 5s
+ *         permissions:
+ *           ttl: 1h
+ * </pre>
+ * Unset values of a cache fall back to the defaults <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:40 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.cache-manager")
+public class RedisCacheManagerProperties {
+
+    /**
+     * DB of cached values, spring.redis.database when unset
+     */
+    private Integer database;
+
+    /**
+     * Prefix of every cache key, followed by cache name, "::" and the key
+     */
+    private String keyPrefix = "cache:";
+
+    /**
+     * Cache null returns of @Cacheable methods
+     */
+    private boolean allowNullValues = true;
+
+    /**
+     * Create caches which aren't listed, with the defaults
+     */
+    private boolean dynamic = true;
+
+    /**
+     * Settings of caches which don't set their own
+     */
+    private CacheSpec defaults = new CacheSpec();
+
+    /**
+     * Settings keyed by cache name
+     */
+    private Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+    /**
+     * Description: Settings of a cache, merged over the defaults <br>
+     *
+     * @param name Cache name <br>
+     * @return Return settings with every value set <br>
+     * @author agent <br>
+     */
+    public CacheSpec specOf(String name) {
+        CacheSpec spec = caches.getOrDefault(name, new CacheSpec());
+        CacheSpec merged = new CacheSpec();
+        merged.setTtl(spec.getTtl() != null ? spec.getTtl() : defaults.getTtl() != null ? defaults.getTtl() : Duration.ZERO);
+        merged.setMaximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : defaults.getMaximumSize() != null ? defaults.getMaximumSize() : 0L);
+        merged.setLocalTtl(spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl() != null ? defaults.getLocalTtl() : Duration.ZERO);
+        merged.setLocalMaximumSize(spec.getLocalMaximumSize() != null ? spec.getLocalMaximumSize()
+                : defaults.getLocalMaximumSize() != null ? defaults.getLocalMaximumSize() : 1000L);
+        return merged;
+    }
+
+    @Data
+    public static class CacheSpec {
+
+        /**
+         * Time to live of entries in Redis, zero keeps them until evicted
+         */
+        private Duration ttl;
+
+        /**
+         * Most entries kept in Redis, the oldest written ones are dropped beyond it. Zero is unbounded
+         */
+        private Long maximumSize;
+
+        /**
+         * Time entries stay in the local tier of each node, zero disables the local tier. Writes of other nodes are
+         * only seen once it has passed
+         */
+        private Duration localTtl;
+
+        /**
+         * Most entries of the local tier of each node
+         */
+        private Long localMaximumSize;
+    }
+}
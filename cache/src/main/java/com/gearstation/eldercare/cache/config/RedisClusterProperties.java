@@ -0,0 +1,43 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Redis Cluster settings on top of spring.redis.cluster <br>
+ * Example:
+ * <pre>
+ * spring:
+ *   redis:
+ *     cluster:
+ *       nodes: 192.168.179.111:7000,192.168.179.112:7000
+ *       max-redirects: 5
+ * eldercare:
+ *   cache:
+ *     cluster:
+ *       refresh-interval: 30s
+ * </pre>
+ * With spring.redis.cluster.nodes set, RedisUtils routes keys by hash slot and eldercare.cache.sharding is ignored.
+ * A cluster only has DB 0, so every dbIndex goes to DB 0 and keys of former DBs must not collide <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:32 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.cluster")
+public class RedisClusterProperties {
+
+    /**
+     * Interval of CLUSTER SLOTS reloads, MOVED replies and connection failures also trigger one
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * Reject calls to a dbIndex other than 0 instead of sending them to DB 0
+     */
+    private boolean strictDatabase = false;
+}
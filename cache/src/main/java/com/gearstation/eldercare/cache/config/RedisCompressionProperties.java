@@ -0,0 +1,37 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Description: Settings of LZ4 compression of big String values written through RedisUtils <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     compression:
+ *       enabled: true
+ *       threshold: 2KB
+ * </pre>
+ * Compressed values are read back whether compression is enabled or not, so it can be switched off safely <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:22 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.compression")
+public class RedisCompressionProperties {
+
+    /**
+     * Compression is opt-in
+     */
+    private boolean enabled = false;
+
+    /**
+     * Values whose UTF-8 form is smaller than this are stored as they are
+     */
+    private DataSize threshold = DataSize.ofKilobytes(1);
+}
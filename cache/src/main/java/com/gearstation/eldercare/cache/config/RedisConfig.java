@@ -1,13 +1,34 @@
 package com.gearstation.eldercare.cache.config;
 
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.near.NearCacheInvalidationBus;
+import com.gearstation.eldercare.cache.pool.ClusterSlots;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.JedisPoolRegistry;
+import com.gearstation.eldercare.cache.pool.ReplicaSet;
+import com.gearstation.eldercare.cache.pool.SentinelMasterMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Description: Redis config bean <br>
  * Copyright © 2019 www.gear-station.com <br>
@@ -17,21 +38,201 @@ import redis.clients.jedis.JedisPoolConfig;
  * @version 1.0.1 <br>
  */
 @Configuration
+@EnableConfigurationProperties({RedisPoolProperties.class, RedisLeaseProperties.class, NearCacheProperties.class, RedisMetricsProperties.class, RedisCompressionProperties.class, RedisShardingProperties.class, RedisClusterProperties.class, RedisReplicaProperties.class, RedisSentinelProperties.class, CacheLoadProperties.class, RedisBulkProperties.class})
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class RedisConfig {
 
     private final RedisProperties redisProperties;
 
+    private final RedisPoolProperties redisPoolProperties;
+
+    private final RedisLeaseProperties redisLeaseProperties;
+
+    private final NearCacheProperties nearCacheProperties;
+
+    private final RedisMetricsProperties redisMetricsProperties;
+
+    private final RedisCompressionProperties redisCompressionProperties;
+
+    private final RedisShardingProperties redisShardingProperties;
+
+    private final RedisClusterProperties redisClusterProperties;
+
+    private final RedisReplicaProperties redisReplicaProperties;
+
+    private final RedisSentinelProperties redisSentinelProperties;
+
+    /**
+     * Description: Pools of spring.redis.host, of every eldercare.cache.sharding node, or of every Redis Cluster
+     * master when spring.redis.cluster.nodes is set. Reads of a single primary may go to eldercare.cache.replicas.
+     * When spring.redis.sentinel is set, pools follow the master named there <br>
+     */
+    @Bean(destroyMethod = "close")
+    public JedisLeaseManager jedisLeaseManager(RedisCommandMetrics redisCommandMetrics) {
+        JedisLeaseManager jedisLeaseManager = createLeaseManager(redisCommandMetrics);
+        jedisLeaseManager.setLeakTraceSampling(redisLeaseProperties.getLeakTraceSampling());
+        return jedisLeaseManager;
+    }
+
+    private JedisLeaseManager createLeaseManager(RedisCommandMetrics redisCommandMetrics) {
+        List<String> replicaNodes = redisReplicaProperties.getNodes();
+        if (!replicaNodes.isEmpty() && (isCluster() || !redisShardingProperties.getNodes().isEmpty())) {
+            throw new IllegalStateException("eldercare.cache.replicas only applies to a single spring.redis.host");
+        }
+        if (isSentinel()) {
+            if (isCluster() || !redisShardingProperties.getNodes().isEmpty() || !replicaNodes.isEmpty()) {
+                throw new IllegalStateException("spring.redis.sentinel can't be combined with a cluster, sharding or replicas");
+            }
+            return sentinelLeaseManager(redisCommandMetrics);
+        }
+        if (isCluster()) {
+            RedisProperties.Cluster cluster = redisProperties.getCluster();
+            ClusterSlots clusterSlots = new ClusterSlots(cluster.getNodes(),
+                    cluster.getMaxRedirects() != null ? cluster.getMaxRedirects() : 5, redisClusterProperties.isStrictDatabase());
+            return new JedisLeaseManager(clusterSlots,
+                    node -> new JedisPoolRegistry(node, dbIndex -> createPool(hostOf(node), portOf(node), dbIndex), 0),
+                    redisClusterProperties.getRefreshInterval(), redisLeaseProperties.getLeakThreshold(), redisLeaseProperties.getLeakCheckInterval());
+        }
+        List<JedisPoolRegistry> shards = new ArrayList<>();
+        if (redisShardingProperties.getNodes().isEmpty()) {
+            shards.add(new JedisPoolRegistry(redisProperties.getHost() + ":" + redisProperties.getPort(),
+                    dbIndex -> createPool(redisProperties.getHost(), redisProperties.getPort(), dbIndex), redisProperties.getDatabase()));
+        }
+        for (String node : redisShardingProperties.getNodes()) {
+            shards.add(new JedisPoolRegistry(node, dbIndex -> createPool(hostOf(node), portOf(node), dbIndex), redisProperties.getDatabase()));
+        }
+        JedisLeaseManager jedisLeaseManager = new JedisLeaseManager(shards, redisShardingProperties.getVirtualNodes(),
+                redisLeaseProperties.getLeakThreshold(), redisLeaseProperties.getLeakCheckInterval());
+        if (!replicaNodes.isEmpty()) {
+            List<JedisPoolRegistry> replicas = new ArrayList<>();
+            for (String node : replicaNodes) {
+                replicas.add(new JedisPoolRegistry(node, dbIndex -> createPool(hostOf(node), portOf(node), dbIndex), redisProperties.getDatabase()));
+            }
+            jedisLeaseManager.setReplicaSet(new ReplicaSet(shards.get(0), replicas, redisReplicaProperties.getMaxLag().toBytes(),
+                    redisReplicaProperties.getLagCheckInterval(), redisReplicaProperties.getReadFrom(), redisReplicaProperties.getNamespaces(),
+                    redisReplicaProperties.getNamespaceSeparator(), redisCommandMetrics.getMeterRegistry()));
+        }
+        return jedisLeaseManager;
+    }
+
+    private JedisLeaseManager sentinelLeaseManager(RedisCommandMetrics redisCommandMetrics) {
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        SentinelMasterMonitor monitor = new SentinelMasterMonitor(sentinel.getMaster(), sentinel.getNodes(),
+                redisProperties.getTimeout(), redisSentinelProperties.getFailoverWait(), redisSentinelProperties.getDrainTimeout(),
+                redisCommandMetrics.getMeterRegistry());
+        HostAndPort master = monitor.discoverMaster();
+        JedisPoolRegistry registry = new JedisPoolRegistry(master.toString(),
+                dbIndex -> createPool(master.getHost(), master.getPort(), dbIndex), redisProperties.getDatabase());
+        JedisLeaseManager jedisLeaseManager = new JedisLeaseManager(registry,
+                redisLeaseProperties.getLeakThreshold(), redisLeaseProperties.getLeakCheckInterval());
+        monitor.start(registry, master, node -> dbIndex -> createPool(node.getHost(), node.getPort(), dbIndex));
+        jedisLeaseManager.setSentinelMonitor(monitor);
+        return jedisLeaseManager;
+    }
+
+    /**
+     * Description: Pools of the first shard, owned by {@link JedisLeaseManager} <br>
+     */
+    @Bean(destroyMethod = "")
+    public JedisPoolRegistry jedisPoolRegistry(JedisLeaseManager jedisLeaseManager) {
+        return jedisLeaseManager.getJedisPoolRegistry();
+    }
+
+    @Bean(destroyMethod = "close")
+    public NearCache nearCache(JedisLeaseManager jedisLeaseManager) {
+        NearCache nearCache = new NearCache(nearCacheProperties);
+        if (nearCacheProperties.isEnabled()) {
+            nearCache.setInvalidationBus(new NearCacheInvalidationBus(nearCache, nearCacheProperties.getInvalidationChannel(), jedisLeaseManager, () -> createConnection(jedisLeaseManager)));
+        }
+        return nearCache;
+    }
+
+    /**
+     * Description: Command meters go to the actuator MeterRegistry if there is one, else to the global registry <br>
+     */
     @Bean
-    public JedisPool redisPoolFactory() {
+    public RedisCommandMetrics redisCommandMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = redisMetricsProperties.isEnabled()
+                ? meterRegistry.getIfAvailable(() -> Metrics.globalRegistry)
+                : new CompositeMeterRegistry();
+        return new RedisCommandMetrics(registry, redisMetricsProperties);
+    }
+
+    @Bean
+    public ValueCompressor valueCompressor(RedisCommandMetrics redisCommandMetrics) {
+        return new ValueCompressor(redisCompressionProperties, redisCommandMetrics.getMeterRegistry());
+    }
+
+    /**
+     * Description: Pool bound to spring.redis.database, DB 0 in a cluster, owned by {@link JedisPoolRegistry}. Not
+     * created under spring.redis.sentinel, where it would keep pointing at the first master after a failover; take
+     * connections from {@link JedisLeaseManager} there <br>
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnExpression("'${spring.redis.sentinel.master:}'.isEmpty()")
+    public JedisPool redisPoolFactory(JedisPoolRegistry jedisPoolRegistry) {
+        return jedisPoolRegistry.getPool(jedisPoolRegistry.getDefaultDatabase());
+    }
+
+    private JedisPool createPool(String host, int port, int dbIndex) {
+        return new JedisPool(poolConfig(dbIndex), host, port, (int) redisProperties.getTimeout().toMillis(), redisProperties.getPassword(), dbIndex);
+    }
+
+    /**
+     * Description: Open a connection outside of the pools, for subscribers which keep it for their whole life. It goes
+     * to the first shard, where messages are published. Any node of a cluster gets all messages. Under Sentinel it
+     * goes to the master of the first shard when it is opened <br>
+     */
+    private Jedis createConnection(JedisLeaseManager jedisLeaseManager) {
+        String host = redisProperties.getHost();
+        int port = redisProperties.getPort();
+        String node = isSentinel() ? jedisLeaseManager.getJedisPoolRegistry().getName()
+                : isCluster() ? redisProperties.getCluster().getNodes().get(0)
+                : redisShardingProperties.getNodes().isEmpty() ? null : redisShardingProperties.getNodes().get(0);
+        if (node != null) {
+            host = hostOf(node);
+            port = portOf(node);
+        }
+        Jedis jedis = new Jedis(host, port, (int) redisProperties.getTimeout().toMillis());
+        if (StringUtils.hasText(redisProperties.getPassword())) {
+            try {
+                jedis.auth(redisProperties.getPassword());
+            } catch (RuntimeException e) {
+                jedis.close();
+                throw e;
+            }
+        }
+        return jedis;
+    }
+
+    private boolean isCluster() {
+        return redisProperties.getCluster() != null && !redisProperties.getCluster().getNodes().isEmpty();
+    }
+
+    private boolean isSentinel() {
+        return redisProperties.getSentinel() != null && StringUtils.hasText(redisProperties.getSentinel().getMaster());
+    }
+
+    private static String hostOf(String node) {
+        return node.substring(0, node.lastIndexOf(':'));
+    }
+
+    private static int portOf(String node) {
+        return Integer.parseInt(node.substring(node.lastIndexOf(':') + 1));
+    }
+
+    private JedisPoolConfig poolConfig(int dbIndex) {
+        RedisProperties.Pool pool = redisProperties.getJedis().getPool();
+        RedisPoolProperties.DatabasePool override = redisPoolProperties.getDatabases().getOrDefault(dbIndex, new RedisPoolProperties.DatabasePool());
         JedisPoolConfig jedisPoolConfig = new JedisPoolConfig();
-        jedisPoolConfig.setMaxIdle(redisProperties.getJedis().getPool().getMaxIdle());
-        jedisPoolConfig.setMaxTotal(redisProperties.getJedis().getPool().getMaxActive());
-        jedisPoolConfig.setMinIdle(redisProperties.getJedis().getPool().getMinIdle());
-        jedisPoolConfig.setMaxWaitMillis(redisProperties.getJedis().getPool().getMaxWait().toMillis());
+        jedisPoolConfig.setMaxIdle(override.getMaxIdle() != null ? override.getMaxIdle() : pool.getMaxIdle());
+        jedisPoolConfig.setMaxTotal(override.getMaxActive() != null ? override.getMaxActive() : pool.getMaxActive());
+        jedisPoolConfig.setMinIdle(override.getMinIdle() != null ? override.getMinIdle() : pool.getMinIdle());
+        jedisPoolConfig.setMaxWaitMillis((override.getMaxWait() != null ? override.getMaxWait() : pool.getMaxWait()).toMillis());
         jedisPoolConfig.setBlockWhenExhausted(true);
         jedisPoolConfig.setJmxEnabled(true);
-        return new JedisPool(jedisPoolConfig, redisProperties.getHost(), redisProperties.getPort(), (int) redisProperties.getTimeout().toMillis(), redisProperties.getPassword());
+        jedisPoolConfig.setJmxNamePrefix("redis-db" + dbIndex);
+        return jedisPoolConfig;
     }
 
-}
\ No newline at end of file
+}
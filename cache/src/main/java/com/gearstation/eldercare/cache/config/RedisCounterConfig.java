@@ -0,0 +1,33 @@
+package com.gearstation.eldercare.cache.config;
+
+import com.gearstation.eldercare.cache.utils.RedisCounters;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Description: Write-behind counters for high-frequency increments <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:53 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Configuration
+@EnableConfigurationProperties(RedisCounterProperties.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RedisCounterConfig {
+
+    private final RedisCounterProperties redisCounterProperties;
+
+    /**
+     * Description: Closed before the connection pools, so pending deltas are flushed on shutdown <br>
+     */
+    @Bean(destroyMethod = "close")
+    public RedisCounters redisCounters(RedisUtils redisUtils) {
+        return redisUtils.counters(redisCounterProperties.getFlushInterval(), redisCounterProperties.getFlushThreshold());
+    }
+}
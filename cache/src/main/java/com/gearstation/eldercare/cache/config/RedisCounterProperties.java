@@ -0,0 +1,29 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Settings of the write-behind RedisCounters bean <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:53 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.counters")
+public class RedisCounterProperties {
+
+    /**
+     * Longest time an increment stays local before it is sent
+     */
+    private Duration flushInterval = Duration.ofMillis(100);
+
+    /**
+     * Pending increments which trigger a flush before the interval, zero flushes on the interval only
+     */
+    private long flushThreshold = 10_000;
+}
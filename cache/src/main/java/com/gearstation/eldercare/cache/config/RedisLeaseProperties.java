@@ -0,0 +1,35 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Settings of connection leases handed out by JedisLeaseManager <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:58 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.lease")
+public class RedisLeaseProperties {
+
+    /**
+     * Leases held longer than this are reported, zero disables leak detection
+     */
+    private Duration leakThreshold = Duration.ZERO;
+
+    /**
+     * Interval of leak checks
+     */
+    private Duration leakCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * One lease in this many keeps its acquiring stack for leak reports, 1 keeps all. All leases keep it while debug
+     * logging of JedisLeaseManager is on
+     */
+    private int leakTraceSampling = 100;
+}
@@ -0,0 +1,52 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Settings of the Micrometer meters recorded for every RedisUtils command <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     metrics:
+ *       percentiles: 0.5, 0.99
+ *       maximum-expected-value: 2s
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:15 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.metrics")
+public class RedisMetricsProperties {
+
+    /**
+     * Record meters into the application MeterRegistry
+     */
+    private boolean enabled = true;
+
+    /**
+     * Publish histogram buckets, so percentiles can be aggregated across nodes by the monitoring system
+     */
+    private boolean percentileHistogram = true;
+
+    /**
+     * Percentiles computed in process, not aggregable across nodes. None by default
+     */
+    private double[] percentiles = new double[0];
+
+    /**
+     * Lowest histogram bucket
+     */
+    private Duration minimumExpectedValue = Duration.ofNanos(100_000);
+
+    /**
+     * Highest histogram bucket
+     */
+    private Duration maximumExpectedValue = Duration.ofSeconds(5);
+}
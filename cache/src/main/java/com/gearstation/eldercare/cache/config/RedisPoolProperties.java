@@ -0,0 +1,51 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Description: Per DB overrides of spring.redis.jedis.pool <br>
+ * Example:
+ * <pre>
+ * spring:
+ *   redis:
+ *     jedis:
+ *       pool:
+ *         max-active: 8
+ *         databases:
+ *           1:
+ *             max-active: 32
+ *             min-idle: 4
+ * </pre>
+ * Unset values fall back to the shared spring.redis.jedis.pool values <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:57 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.redis.jedis.pool")
+public class RedisPoolProperties {
+
+    /**
+     * Pool settings keyed by DB index
+     */
+    private Map<Integer, DatabasePool> databases = new HashMap<>();
+
+    @Data
+    public static class DatabasePool {
+
+        private Integer maxActive;
+
+        private Integer maxIdle;
+
+        private Integer minIdle;
+
+        private Duration maxWait;
+    }
+}
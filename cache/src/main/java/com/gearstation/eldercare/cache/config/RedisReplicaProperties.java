@@ -0,0 +1,70 @@
+package com.gearstation.eldercare.cache.config;
+
+import com.gearstation.eldercare.cache.pool.ReadFrom;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description: Read replicas of spring.redis.host <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     replicas:
+ *       nodes:
+ *         - 192.168.179.121:6379
+ *       read-from: replica-preferred
+ *       namespaces:
+ *         device-config: replica
+ *         alert: primary
+ * </pre>
+ * Read-only RedisUtils calls go where read-from of their key's namespace says, writes always go to the primary.
+ * Replicas share spring.redis.password, timeout and pool settings. Only a single primary can have replicas, not
+ * eldercare.cache.sharding nodes or a cluster <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:34 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.replicas")
+public class RedisReplicaProperties {
+
+    /**
+     * Replica nodes as host:port, reads stay on the primary when empty
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Where reads of keys without a listed namespace go
+     */
+    private ReadFrom readFrom = ReadFrom.REPLICA_PREFERRED;
+
+    /**
+     * Where reads go, keyed by namespace
+     */
+    private Map<String, ReadFrom> namespaces = new LinkedHashMap<>();
+
+    /**
+     * Separator between namespace and the rest of a key
+     */
+    private char namespaceSeparator = ':';
+
+    /**
+     * Replicas further behind the primary are only read by read-from replica, when no replica is closer
+     */
+    private DataSize maxLag = DataSize.ofMegabytes(1);
+
+    /**
+     * Interval of replication lag checks
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+}
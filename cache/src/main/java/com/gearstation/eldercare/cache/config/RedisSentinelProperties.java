@@ -0,0 +1,44 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Description: Failover handling when spring.redis.sentinel is set <br>
+ * Example:
+ * <pre>
+ * spring:
+ *   redis:
+ *     sentinel:
+ *       master: eldercare
+ *       nodes: 192.168.179.131:26379,192.168.179.132:26379,192.168.179.133:26379
+ * eldercare:
+ *   cache:
+ *     sentinel:
+ *       failover-wait: 5s
+ *       drain-timeout: 10s
+ * </pre>
+ * The master is asked to sentinels at startup and followed through their +switch-master events. Sentinel mode
+ * can't be combined with eldercare.cache.sharding, eldercare.cache.replicas or a cluster <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:37 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.sentinel")
+public class RedisSentinelProperties {
+
+    /**
+     * Longest time a call waits for the new master once sentinels see the master down, it fails after that
+     */
+    private Duration failoverWait = Duration.ofSeconds(5);
+
+    /**
+     * Time given to connections leased from the old master before its pools are closed
+     */
+    private Duration drainTimeout = Duration.ofSeconds(10);
+}
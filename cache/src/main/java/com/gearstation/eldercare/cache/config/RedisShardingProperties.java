@@ -0,0 +1,41 @@
+package com.gearstation.eldercare.cache.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Description: Redis nodes keys are spread over by consistent hashing <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   cache:
+ *     sharding:
+ *       nodes:
+ *         - 192.168.179.111:6379
+ *         - 192.168.179.112:6379
+ * </pre>
+ * Without nodes, all keys go to spring.redis.host. Nodes share spring.redis.password, timeout and pool settings.
+ * Keep the order and names of nodes stable, a renamed node gets other keys <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:28 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.cache.sharding")
+public class RedisShardingProperties {
+
+    /**
+     * Shard nodes as host:port
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Points of each node on the hash ring, more points spread keys more evenly
+     */
+    private int virtualNodes = 160;
+}
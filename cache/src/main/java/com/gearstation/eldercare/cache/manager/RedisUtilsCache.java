@@ -0,0 +1,324 @@
+package com.gearstation.eldercare.cache.manager;
+
+import com.gearstation.eldercare.cache.codec.RedisCodec;
+import com.gearstation.eldercare.cache.config.RedisCacheManagerProperties;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Description: Spring cache whose entries are Redis strings written through {@link RedisUtils} <br>
+ * Keys are PREFIX + NAME + "::" + key. A cache with a maximum size keeps the write time of its keys in the sorted
+ * set PREFIX{NAME}:index and drops the oldest written keys beyond the size. Its keys are then PREFIX{NAME}::key, so
+ * the whole cache lives on the shard of its hash tag and each write stays one pipeline. With a local TTL, entries are
+ * also kept in a Caffeine tier of the node. That tier isn't told about writes of other nodes, so one sees them
+ * after at most the local TTL: it is off unless a cache sets local-ttl, which is meant to be seconds, for values
+ * read far more often than written. {@link #clear()} walks the keys of the cache with SCAN and deletes them in batches, other data of the DB is
+ * left alone. Redis failures read as misses and are logged <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:40 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisUtilsCache extends AbstractValueAdaptingCache {
+
+    private static final int CLEAR_BATCH = 500;
+
+    private final String name;
+    private final RedisUtils redisUtils;
+    private final RedisCodec<Object> codec;
+    private final int dbIndex;
+    private final long ttlMillis;
+    private final long maximumSize;
+    private final String keyPrefix;
+    private final String indexKey;
+    private final Cache<Object, Object> local;
+    private final Map<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param name            Cache name <br>
+     * @param spec            Settings merged over the defaults <br>
+     * @param keyPrefix       Prefix of every cache key <br>
+     * @param allowNullValues Cache null values <br>
+     * @param redisUtils      Redis access <br>
+     * @param codec           Codec of values, and of NullValue when null values are allowed <br>
+     * @param dbIndex         DB of the entries <br>
+     */
+    public RedisUtilsCache(String name, RedisCacheManagerProperties.CacheSpec spec, String keyPrefix, boolean allowNullValues,
+                           RedisUtils redisUtils, RedisCodec<Object> codec, int dbIndex) {
+        super(allowNullValues);
+        this.name = name;
+        this.redisUtils = redisUtils;
+        this.codec = codec;
+        this.dbIndex = dbIndex;
+        this.ttlMillis = spec.getTtl().toMillis();
+        this.maximumSize = spec.getMaximumSize();
+        String cachePart = maximumSize > 0 ? "{" + name + "}" : name;
+        this.keyPrefix = keyPrefix + cachePart + "::";
+        this.indexKey = maximumSize > 0 ? keyPrefix + cachePart + ":index" : null;
+        this.local = spec.getLocalTtl().isZero() ? null : Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaximumSize())
+                .expireAfterWrite(spec.getLocalTtl().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisUtils;
+    }
+
+    /**
+     * Description: Get the Redis key of a cache key <br>
+     *
+     * @param key Cache key, its toString is used <br>
+     * @return Return Redis key <br>
+     * @author agent <br>
+     */
+    public String redisKeyOf(Object key) {
+        return keyPrefix + key;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        if (local != null) {
+            Object value = local.getIfPresent(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        Object value = codec.decode(redisUtils.get(SafeEncoder.encode(redisKeyOf(key)), dbIndex));
+        if (value != null && local != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Description: Get value of key, or load it through valueLoader and cache it on miss. Loads of one key are
+     * single-flight on this node: callers missing the same key wait for the first one's value, other keys load in
+     * parallel <br>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, created);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            // A load finishing between the lookup and the flight has put the value already
+            cached = get(key);
+            T value;
+            if (cached != null) {
+                value = (T) cached.get();
+            } else {
+                value = valueLoader.call();
+                put(key, value);
+            }
+            created.complete(value);
+            return value;
+        } catch (Exception e) {
+            created.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.remove(key, created);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        String redisKey = redisKeyOf(key);
+        byte[] bytes = codec.encode(stored);
+        long now = System.currentTimeMillis();
+        AtomicReference<Response<Long>> size = new AtomicReference<>();
+        boolean sent = redisUtils.pipelined("CACHE_PUT", redisKey, dbIndex, pipeline -> {
+            if (ttlMillis > 0) {
+                pipeline.psetex(SafeEncoder.encode(redisKey), ttlMillis, bytes);
+            } else {
+                pipeline.set(SafeEncoder.encode(redisKey), bytes);
+            }
+            if (indexKey != null) {
+                size.set(index(pipeline, redisKey, now, ZAddParams.zAddParams()));
+            }
+        });
+        if (local != null) {
+            if (sent) {
+                local.put(key, stored);
+            } else {
+                local.invalidate(key);
+            }
+        }
+        if (sent && size.get() != null) {
+            trim(size.get().get());
+        }
+    }
+
+    /**
+     * Description: Set value only if key has none, with SET NX. The current value is read in the same pipeline <br>
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        String redisKey = redisKeyOf(key);
+        byte[] rawKey = SafeEncoder.encode(redisKey);
+        byte[] bytes = codec.encode(stored);
+        long now = System.currentTimeMillis();
+        AtomicReference<Response<String>> set = new AtomicReference<>();
+        AtomicReference<Response<byte[]>> current = new AtomicReference<>();
+        AtomicReference<Response<Long>> size = new AtomicReference<>();
+        boolean sent = redisUtils.pipelined("CACHE_PUT_IF_ABSENT", redisKey, dbIndex, pipeline -> {
+            SetParams params = SetParams.setParams().nx();
+            if (ttlMillis > 0) {
+                params.px(ttlMillis);
+            }
+            set.set(pipeline.set(rawKey, bytes, params));
+            current.set(pipeline.get(rawKey));
+            if (indexKey != null) {
+                size.set(index(pipeline, redisKey, now, ZAddParams.zAddParams().nx()));
+            }
+        });
+        if (!sent) {
+            return null;
+        }
+        if (set.get().get() != null) {
+            if (local != null) {
+                local.put(key, stored);
+            }
+            if (size.get() != null) {
+                trim(size.get().get());
+            }
+            return null;
+        }
+        Object existing = codec.decode(current.get().get());
+        return existing == null ? null : new SimpleValueWrapper(fromStoreValue(existing));
+    }
+
+    @Override
+    public void evict(Object key) {
+        String redisKey = redisKeyOf(key);
+        redisUtils.pipelined("CACHE_EVICT", redisKey, dbIndex, pipeline -> {
+            pipeline.del(redisKey);
+            if (indexKey != null) {
+                pipeline.zrem(indexKey, redisKey);
+            }
+        });
+        if (local != null) {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * Description: Delete every key of this cache, found with SCAN and deleted in batches <br>
+     */
+    @Override
+    public void clear() {
+        List<String> batch = new ArrayList<>(CLEAR_BATCH);
+        try (Stream<String> keys = redisUtils.scan(globEscape(keyPrefix) + "*", dbIndex)) {
+            keys.forEach(key -> {
+                batch.add(key);
+                if (batch.size() == CLEAR_BATCH) {
+                    redisUtils.remove(dbIndex, batch.toArray(new String[0]));
+                    batch.clear();
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Cannot clear cache {}: {}", name, e.getMessage());
+        }
+        if (indexKey != null) {
+            batch.add(indexKey);
+        }
+        if (!batch.isEmpty()) {
+            redisUtils.remove(dbIndex, batch.toArray(new String[0]));
+        }
+        if (local != null) {
+            local.invalidateAll();
+        }
+    }
+
+    /**
+     * Description: Record the write time of redisKey, drop entries of the index whose key has expired, and read the
+     * index size. NX keeps the time of a key which was already there <br>
+     */
+    private Response<Long> index(Pipeline pipeline, String redisKey, long now, ZAddParams params) {
+        pipeline.zadd(indexKey, now, redisKey, params);
+        if (ttlMillis > 0) {
+            pipeline.zremrangeByScore(indexKey, Double.NEGATIVE_INFINITY, now - ttlMillis);
+        }
+        return pipeline.zcard(indexKey);
+    }
+
+    /**
+     * Description: Delete the oldest written keys beyond the maximum size. Nodes trimming at the same time may
+     * delete a few more keys than needed <br>
+     */
+    private void trim(Long size) {
+        if (size == null || size <= maximumSize) {
+            return;
+        }
+        long excess = size - maximumSize;
+        AtomicReference<Response<Set<String>>> oldest = new AtomicReference<>();
+        if (!redisUtils.pipelined("CACHE_TRIM", indexKey, dbIndex, pipeline -> oldest.set(pipeline.zrange(indexKey, 0, excess - 1)))) {
+            return;
+        }
+        String[] dropped = oldest.get().get().toArray(new String[0]);
+        if (dropped.length == 0) {
+            return;
+        }
+        redisUtils.pipelined("CACHE_TRIM", indexKey, dbIndex, pipeline -> {
+            pipeline.del(dropped);
+            pipeline.zrem(indexKey, dropped);
+        });
+    }
+
+    /**
+     * Description: Escape the glob characters of SCAN MATCH <br>
+     */
+    static String globEscape(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length() + 8);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.gearstation.eldercare.cache.manager;
+
+import com.gearstation.eldercare.cache.codec.RedisCodec;
+import com.gearstation.eldercare.cache.config.RedisCacheManagerProperties;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Description: Spring CacheManager whose caches are {@link RedisUtilsCache}s <br>
+ * Caches listed in eldercare.cache.cache-manager.caches are created at startup, other names get a cache with the
+ * defaults on first use unless dynamic is off. See {@link RedisCacheManagerProperties} for settings <br>
+ * Example:
+ * <pre>
+ *     &#64;Cacheable(cacheNames = "users", key = "#userId")
+ *     public User findUser(long userId)
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:40 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class RedisUtilsCacheManager extends AbstractCacheManager {
+
+    private final RedisUtils redisUtils;
+    private final RedisCacheManagerProperties properties;
+    private final RedisCodec<Object> codec;
+    private final int dbIndex;
+
+    /**
+     * @param redisUtils Redis access <br>
+     * @param properties Cache settings <br>
+     * @param codec      Codec of cached values <br>
+     * @param dbIndex    DB of cached values <br>
+     */
+    public RedisUtilsCacheManager(RedisUtils redisUtils, RedisCacheManagerProperties properties, RedisCodec<Object> codec, int dbIndex) {
+        this.redisUtils = redisUtils;
+        this.properties = properties;
+        this.codec = codec;
+        this.dbIndex = dbIndex;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<>(properties.getCaches().size());
+        for (String name : properties.getCaches().keySet()) {
+            caches.add(createCache(name));
+        }
+        return caches;
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return properties.isDynamic() ? createCache(name) : null;
+    }
+
+    private RedisUtilsCache createCache(String name) {
+        return new RedisUtilsCache(name, properties.specOf(name), properties.getKeyPrefix(), properties.isAllowNullValues(),
+                redisUtils, codec, dbIndex);
+    }
+}
@@ -0,0 +1,130 @@
+package com.gearstation.eldercare.cache.metrics;
+
+import com.gearstation.eldercare.cache.config.RedisMetricsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: Micrometer timers of Redis commands, tagged by command, DB index and outcome <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.commands: timer, tags command, db and outcome (success or error)</li>
+ *     <li>eldercare.redis.errors: counter, tags command, db and exception</li>
+ * </ul>
+ * Meters are created on first use of a command and DB, then looked up without allocating, so recording a
+ * success costs two map lookups and a histogram update <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:15 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class RedisCommandMetrics {
+
+    public static final String COMMANDS = "eldercare.redis.commands";
+    public static final String ERRORS = "eldercare.redis.errors";
+
+    private final MeterRegistry meterRegistry;
+    private final RedisMetricsProperties properties;
+    private final ConcurrentMap<Integer, ConcurrentMap<String, CommandMeters>> meters = new ConcurrentHashMap<>();
+
+    public RedisCommandMetrics(MeterRegistry meterRegistry, RedisMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    /**
+     * Description: Get the registry meters are recorded into, shared with the other meters of the cache module <br>
+     */
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    /**
+     * Description: Record a command which got its reply <br>
+     *
+     * @param command    Redis command name, e.g. HGET <br>
+     * @param dbIndex    DB index from 0 to 15 <br>
+     * @param startNanos {@link System#nanoTime()} taken before the command <br>
+     * @author agent <br>
+     */
+    public void success(String command, int dbIndex, long startNanos) {
+        meters(command, dbIndex).success.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Description: Record a command which failed, and count the failure by exception type <br>
+     *
+     * @param command    Redis command name, e.g. HGET <br>
+     * @param dbIndex    DB index from 0 to 15 <br>
+     * @param startNanos {@link System#nanoTime()} taken before the command <br>
+     * @param error      Failure <br>
+     * @author agent <br>
+     */
+    public void failure(String command, int dbIndex, long startNanos, Exception error) {
+        CommandMeters commandMeters = meters(command, dbIndex);
+        commandMeters.error().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Counter.builder(ERRORS)
+                .description("Failed Redis commands by exception")
+                .tag("command", command)
+                .tag("db", commandMeters.db)
+                .tag("exception", error.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private CommandMeters meters(String command, int dbIndex) {
+        ConcurrentMap<String, CommandMeters> byCommand = meters.get(dbIndex);
+        if (byCommand == null) {
+            byCommand = meters.computeIfAbsent(dbIndex, db -> new ConcurrentHashMap<>());
+        }
+        CommandMeters commandMeters = byCommand.get(command);
+        if (commandMeters == null) {
+            commandMeters = byCommand.computeIfAbsent(command, name -> new CommandMeters(name, dbIndex));
+        }
+        return commandMeters;
+    }
+
+    private Timer timer(String command, String db, String outcome) {
+        return Timer.builder(COMMANDS)
+                .description("Redis commands sent by RedisUtils")
+                .tag("command", command)
+                .tag("db", db)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(properties.isPercentileHistogram())
+                .publishPercentiles(properties.getPercentiles())
+                .minimumExpectedValue(properties.getMinimumExpectedValue())
+                .maximumExpectedValue(properties.getMaximumExpectedValue())
+                .register(meterRegistry);
+    }
+
+    private final class CommandMeters {
+        private final String command;
+        private final String db;
+        private final Timer success;
+        private volatile Timer error;
+
+        private CommandMeters(String command, int dbIndex) {
+            this.command = command;
+            this.db = Integer.toString(dbIndex);
+            this.success = timer(command, db, "success");
+        }
+
+        /**
+         * Error timer is only registered once a command fails, to keep the number of series down
+         */
+        private Timer error() {
+            Timer timer = error;
+            if (timer == null) {
+                timer = timer(command, db, "error");
+                error = timer;
+            }
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.gearstation.eldercare.cache.near;
+
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Description: Size bounded in-process cache of GET, HGET and HGETALL replies. <br>
+ * Entries of one key are dropped together when the key is written through RedisUtils on this node, or when
+ * another node announces a write on {@link NearCacheInvalidationBus}. A reply loaded while the key is being
+ * invalidated isn't kept, so a slow read can't put back a value older than the write <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:01 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class NearCache implements AutoCloseable {
+
+    private static final int STRIPES = 64;
+
+    private final NearCacheProperties properties;
+    private final String[] namespaces;
+    private final long[] ttlNanos;
+    private final Cache<NearKey, NearEntry> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private NearCacheInvalidationBus invalidationBus;
+
+    public NearCache(NearCacheProperties properties) {
+        this.properties = properties;
+        this.namespaces = properties.getNamespaces().keySet().toArray(new String[0]);
+        this.ttlNanos = properties.getNamespaces().values().stream().mapToLong(ttl -> ttl.toNanos()).toArray();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new NamespaceExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Description: Attach the bus used to tell other nodes about local writes <br>
+     */
+    public void setInvalidationBus(NearCacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Description: Check whether replies for key may be kept locally <br>
+     *
+     * @param key <br>
+     * @return Return true if near cache is enabled and namespace of key has a TTL <br>
+     * @author agent <br>
+     */
+    public boolean isCacheable(String key) {
+        return properties.isEnabled() && namespaceOf(key) >= 0;
+    }
+
+    /**
+     * Description: Get string value, load it through loader on miss <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param key     <br>
+     * @param loader  Reads value from Redis <br>
+     * @return Return cached or loaded value <br>
+     * @author agent <br>
+     */
+    public String get(int dbIndex, String key, Supplier<String> loader) {
+        if (!isCacheable(key)) {
+            return loader.get();
+        }
+        NearKey nearKey = new NearKey(dbIndex, key);
+        NearEntry entry = entries.getIfPresent(nearKey);
+        if (entry != null && entry.value != null) {
+            return entry.value;
+        }
+        long version = version(nearKey);
+        String value = loader.get();
+        if (value != null) {
+            entry = entries.get(nearKey, this::newEntry);
+            if (version(nearKey) == version) {
+                entry.value = value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Description: Get value of hash field, load it through loader on miss <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param key     <br>
+     * @param field   <br>
+     * @param loader  Reads field from Redis <br>
+     * @return Return cached or loaded value <br>
+     * @author agent <br>
+     */
+    public String hget(int dbIndex, String key, String field, Supplier<String> loader) {
+        if (!isCacheable(key)) {
+            return loader.get();
+        }
+        NearKey nearKey = new NearKey(dbIndex, key);
+        NearEntry entry = entries.getIfPresent(nearKey);
+        if (entry != null) {
+            Map<String, String> hash = entry.hash;
+            if (hash != null) {
+                return hash.get(field);
+            }
+            String value = entry.fields.get(field);
+            if (value != null) {
+                return value;
+            }
+        }
+        long version = version(nearKey);
+        String value = loader.get();
+        if (value != null) {
+            entry = entries.get(nearKey, this::newEntry);
+            if (version(nearKey) == version) {
+                entry.fields.put(field, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Description: Get all fields of hash, load them through loader on miss <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param key     <br>
+     * @param loader  Reads hash from Redis <br>
+     * @return Return cached or loaded hash, a cached hash is read-only <br>
+     * @author agent <br>
+     */
+    public Map<String, String> hgetall(int dbIndex, String key, Supplier<Map<String, String>> loader) {
+        if (!isCacheable(key)) {
+            return loader.get();
+        }
+        NearKey nearKey = new NearKey(dbIndex, key);
+        NearEntry entry = entries.getIfPresent(nearKey);
+        if (entry != null && entry.hash != null) {
+            return entry.hash;
+        }
+        long version = version(nearKey);
+        Map<String, String> hash = loader.get();
+        if (hash != null && !hash.isEmpty()) {
+            entry = entries.get(nearKey, this::newEntry);
+            if (version(nearKey) == version) {
+                entry.hash = Collections.unmodifiableMap(new HashMap<>(hash));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Description: Drop local entries of keys and tell other nodes to drop theirs <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param keys    Written keys <br>
+     * @author agent <br>
+     */
+    public void invalidate(int dbIndex, String... keys) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String key : keys) {
+            if (namespaceOf(key) >= 0) {
+                invalidateLocal(dbIndex, key);
+                if (invalidationBus != null) {
+                    invalidationBus.publish(dbIndex, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Description: Drop local entries of whole DB and tell other nodes to drop theirs <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @author agent <br>
+     */
+    public void invalidateAll(int dbIndex) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        invalidateAllLocal(dbIndex);
+        if (invalidationBus != null) {
+            invalidationBus.publishAll(dbIndex);
+        }
+    }
+
+    void invalidateLocal(int dbIndex, String key) {
+        NearKey nearKey = new NearKey(dbIndex, key);
+        versions.incrementAndGet(stripe(nearKey));
+        entries.invalidate(nearKey);
+    }
+
+    void invalidateAllLocal(int dbIndex) {
+        for (int i = 0; i < STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        entries.asMap().keySet().removeIf(nearKey -> nearKey.dbIndex == dbIndex);
+    }
+
+    void clearLocal() {
+        for (int i = 0; i < STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        entries.invalidateAll();
+    }
+
+    /**
+     * Description: Get hit, miss and eviction counters <br>
+     */
+    public CacheStats stats() {
+        return entries.stats();
+    }
+
+    public long estimatedSize() {
+        return entries.estimatedSize();
+    }
+
+    @Override
+    public void close() {
+        if (invalidationBus != null) {
+            invalidationBus.close();
+        }
+        entries.invalidateAll();
+    }
+
+    private NearEntry newEntry(NearKey nearKey) {
+        return new NearEntry(ttlNanos[namespaceOf(nearKey.key)]);
+    }
+
+    private int namespaceOf(String key) {
+        char separator = properties.getNamespaceSeparator();
+        for (int i = 0; i < namespaces.length; i++) {
+            String namespace = namespaces[i];
+            if (key.startsWith(namespace) && key.length() > namespace.length() && key.charAt(namespace.length()) == separator) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long version(NearKey nearKey) {
+        return versions.get(stripe(nearKey));
+    }
+
+    private static int stripe(NearKey nearKey) {
+        return nearKey.hashCode() & (STRIPES - 1);
+    }
+
+    private static final class NearKey {
+
+        private final int dbIndex;
+        private final String key;
+
+        private NearKey(int dbIndex, String key) {
+            this.dbIndex = dbIndex;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NearKey)) {
+                return false;
+            }
+            NearKey other = (NearKey) o;
+            return dbIndex == other.dbIndex && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = 31 * key.hashCode() + dbIndex;
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public String toString() {
+            return dbIndex + "/" + key;
+        }
+    }
+
+    private static final class NearEntry {
+
+        private final long ttlNanos;
+        private volatile String value;
+        private volatile Map<String, String> hash;
+        private final Map<String, String> fields = new ConcurrentHashMap<>();
+
+        private NearEntry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+    }
+
+    private static final class NamespaceExpiry implements Expiry<NearKey, NearEntry> {
+
+        @Override
+        public long expireAfterCreate(NearKey key, NearEntry entry, long currentTime) {
+            return entry.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(NearKey key, NearEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(NearKey key, NearEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.gearstation.eldercare.cache.near;
+
+import com.gearstation.eldercare.cache.pool.JedisLease;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Description: Tells other nodes about writes to near cached keys through Redis pub/sub. <br>
+ * Writers only enqueue a message, a publisher thread sends queued messages in one pipeline. A subscriber
+ * thread keeps a dedicated connection subscribed and drops matching local entries. Whenever the subscription
+ * is (re)established the local cache is cleared, since messages may have been missed meanwhile <br>
+ * Message format: nodeId|dbIndex|K&lt;key&gt; for one key, nodeId|dbIndex|A for a whole DB <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:01 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class NearCacheInvalidationBus implements AutoCloseable {
+
+    private static final int OUTBOX_CAPACITY = 100_000;
+    private static final int MAX_BATCH = 512;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final NearCache nearCache;
+    private final String channel;
+    private final JedisLeaseManager jedisLeaseManager;
+    private final Supplier<Jedis> subscriberConnection;
+    private final BlockingQueue<String> outbox = new LinkedBlockingQueue<>(OUTBOX_CAPACITY);
+    private final Thread publisher;
+    private final Thread subscriber;
+    private final JedisPubSub listener = new Listener();
+    private volatile boolean running = true;
+
+    /**
+     * @param nearCache            Local cache to invalidate <br>
+     * @param channel              Pub/sub channel <br>
+     * @param jedisLeaseManager    Used to publish messages <br>
+     * @param subscriberConnection Opens the dedicated connection kept subscribed <br>
+     */
+    public NearCacheInvalidationBus(NearCache nearCache, String channel, JedisLeaseManager jedisLeaseManager,
+                                    Supplier<Jedis> subscriberConnection) {
+        this.nearCache = nearCache;
+        this.channel = channel;
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.subscriberConnection = subscriberConnection;
+        this.publisher = daemon(this::publishLoop, "near-cache-publisher");
+        this.subscriber = daemon(this::subscribeLoop, "near-cache-subscriber");
+        publisher.start();
+        subscriber.start();
+    }
+
+    void publish(int dbIndex, String key) {
+        enqueue(nodeId + '|' + dbIndex + "|K" + key);
+    }
+
+    void publishAll(int dbIndex) {
+        enqueue(nodeId + '|' + dbIndex + "|A");
+    }
+
+    private void enqueue(String message) {
+        if (!outbox.offer(message)) {
+            log.warn("Near cache outbox is full, other nodes will rely on TTL for {}", message);
+        }
+    }
+
+    private void publishLoop() {
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                batch.add(outbox.take());
+                outbox.drainTo(batch, MAX_BATCH - 1);
+                try (JedisLease lease = jedisLeaseManager.acquire(jedisLeaseManager.getJedisPoolRegistry().getDefaultDatabase())) {
+                    Pipeline pipeline = lease.getJedis().pipelined();
+                    for (String message : batch) {
+                        pipeline.publish(channel, message);
+                    }
+                    pipeline.sync();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Cannot publish {} near cache invalidations: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void subscribeLoop() {
+        while (running) {
+            try (Jedis jedis = subscriberConnection.get()) {
+                jedis.subscribe(listener, channel);
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Near cache subscription lost: {}", e.getMessage());
+                }
+            }
+            if (running) {
+                nearCache.clearLocal();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void onInvalidation(String message) {
+        int nodeEnd = message.indexOf('|');
+        int dbEnd = message.indexOf('|', nodeEnd + 1);
+        if (nodeEnd < 0 || dbEnd < 0 || dbEnd + 1 >= message.length()) {
+            log.warn("Ignore malformed near cache message {}", message);
+            return;
+        }
+        if (message.regionMatches(0, nodeId, 0, nodeEnd) && nodeEnd == nodeId.length()) {
+            return;
+        }
+        int dbIndex = Integer.parseInt(message.substring(nodeEnd + 1, dbEnd));
+        if (message.charAt(dbEnd + 1) == 'A') {
+            nearCache.invalidateAllLocal(dbIndex);
+        } else {
+            nearCache.invalidateLocal(dbIndex, message.substring(dbEnd + 2));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        publisher.interrupt();
+        if (listener.isSubscribed()) {
+            listener.unsubscribe();
+        }
+        subscriber.interrupt();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private class Listener extends JedisPubSub {
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            nearCache.clearLocal();
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            onInvalidation(message);
+        }
+    }
+}
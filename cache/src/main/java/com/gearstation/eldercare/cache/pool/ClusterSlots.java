@@ -0,0 +1,176 @@
+package com.gearstation.eldercare.cache.pool;
+
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Description: Slot to node map of a Redis Cluster <br>
+ * A key belongs to hash slot CRC16(key) mod 16384, of its hash tag if it has one. The map is filled from
+ * CLUSTER SLOTS by {@link JedisLeaseManager#refreshTopology()}, and a MOVED reply moves its slot at once. Only
+ * masters are shards. Nodes get a shard index when first seen and keep it, a node which left the cluster just owns
+ * no slot anymore <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:32 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class ClusterSlots implements ShardRouter {
+
+    public static final int SLOTS = 16384;
+
+    private final List<String> nodes = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> shardsByNode = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray owners = new AtomicIntegerArray(SLOTS);
+    private final int maxRedirects;
+    private final boolean strictDatabase;
+
+    /**
+     * @param seedNodes      Nodes as host:port, slots are spread over them until the first refresh <br>
+     * @param maxRedirects   MOVED or ASK replies followed per command <br>
+     * @param strictDatabase Reject DB indexes other than 0 instead of mapping them to DB 0 <br>
+     */
+    public ClusterSlots(List<String> seedNodes, int maxRedirects, boolean strictDatabase) {
+        if (seedNodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one cluster node is needed");
+        }
+        for (String node : seedNodes) {
+            shardOfNode(node);
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            owners.set(slot, slot % seedNodes.size());
+        }
+        this.maxRedirects = maxRedirects;
+        this.strictDatabase = strictDatabase;
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public String getShardName(int shard) {
+        return nodes.get(shard);
+    }
+
+    @Override
+    public int slotOf(byte[] key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    @Override
+    public int slotOf(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    @Override
+    public int slotOf(String... keys) {
+        if (keys.length == 0) {
+            return 0;
+        }
+        int slot = slotOf(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (slotOf(keys[i]) != slot) {
+                return SPREAD;
+            }
+        }
+        return slot;
+    }
+
+    @Override
+    public int shardOfSlot(int slot) {
+        return owners.get(slot);
+    }
+
+    public int getMaxRedirects() {
+        return maxRedirects;
+    }
+
+    /**
+     * Description: Map the DB index asked by a caller to the only DB of a cluster <br>
+     *
+     * @param dbIndex DB index asked by caller <br>
+     * @return Return 0 <br>
+     * @throws IllegalArgumentException if dbIndex isn't 0 and strict database is enabled <br>
+     * @author agent <br>
+     */
+    public int database(int dbIndex) {
+        if (dbIndex != 0 && strictDatabase) {
+            throw new IllegalArgumentException("Redis Cluster only has DB 0, DB " + dbIndex + " was asked");
+        }
+        return 0;
+    }
+
+    /**
+     * Description: Get the shard of a node, giving it a new index on first sight <br>
+     *
+     * @param node host:port <br>
+     * @return Return shard index <br>
+     * @author agent <br>
+     */
+    public int shardOfNode(String node) {
+        Integer shard = shardsByNode.get(node);
+        if (shard != null) {
+            return shard;
+        }
+        synchronized (nodes) {
+            return shardsByNode.computeIfAbsent(node, added -> {
+                nodes.add(added);
+                log.info("Redis Cluster node {} is shard {}", added, nodes.size() - 1);
+                return nodes.size() - 1;
+            });
+        }
+    }
+
+    public int shardOfNode(HostAndPort node) {
+        return shardOfNode(node.getHost() + ":" + node.getPort());
+    }
+
+    /**
+     * Description: Record a MOVED reply, the slot is served by target from now on <br>
+     *
+     * @param slot   Slot of the redirected key <br>
+     * @param target Node given by the reply <br>
+     * @return Return shard index of target <br>
+     * @author agent <br>
+     */
+    public int moved(int slot, HostAndPort target) {
+        int shard = shardOfNode(target);
+        owners.set(slot, shard);
+        return shard;
+    }
+
+    /**
+     * Description: Replace the map with a CLUSTER SLOTS reply <br>
+     * Each entry is [first slot, last slot, [master host, port, id], replicas...] <br>
+     *
+     * @param clusterSlots Reply of CLUSTER SLOTS <br>
+     * @return Return the number of slots which changed node <br>
+     * @author agent <br>
+     */
+    public int update(List<Object> clusterSlots) {
+        int changed = 0;
+        for (Object entry : clusterSlots) {
+            List<?> range = (List<?>) entry;
+            List<?> master = (List<?>) range.get(2);
+            int shard = shardOfNode(SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1));
+            int last = ((Long) range.get(1)).intValue();
+            for (int slot = ((Long) range.get(0)).intValue(); slot <= last; slot++) {
+                if (owners.getAndSet(slot, shard) != shard) {
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,91 @@
+package com.gearstation.eldercare.cache.pool;
+
+import redis.clients.jedis.Jedis;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Description: One connection borrowed through {@link JedisLeaseManager}. <br>
+ * Closing the lease returns the connection to its pool exactly once, use it with try-with-resources <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:58 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class JedisLease implements AutoCloseable {
+
+    private final JedisLeaseManager manager;
+    private final Jedis jedis;
+    private final int shard;
+    private final int dbIndex;
+    private final long acquiredAt;
+    private final String acquiredBy;
+    private final Throwable acquireTrace;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean reported;
+
+    JedisLease(JedisLeaseManager manager, Jedis jedis, int shard, int dbIndex, Throwable acquireTrace) {
+        this.manager = manager;
+        this.jedis = jedis;
+        this.shard = shard;
+        this.dbIndex = dbIndex;
+        this.acquiredAt = System.nanoTime();
+        this.acquiredBy = Thread.currentThread().getName();
+        this.acquireTrace = acquireTrace;
+    }
+
+    public Jedis getJedis() {
+        return jedis;
+    }
+
+    /**
+     * Description: Get index of the shard the connection belongs to, 0 unless sharding is configured <br>
+     */
+    public int getShard() {
+        return shard;
+    }
+
+    public int getDbIndex() {
+        return dbIndex;
+    }
+
+    /**
+     * Description: Get name of the thread which acquired the lease <br>
+     */
+    public String getAcquiredBy() {
+        return acquiredBy;
+    }
+
+    /**
+     * Description: Get stack of the acquiring call, null unless leak detection is enabled and the lease was sampled <br>
+     */
+    public Throwable getAcquireTrace() {
+        return acquireTrace;
+    }
+
+    /**
+     * Description: Get how long the lease has been held <br>
+     *
+     * @return Return held time in nanoseconds <br>
+     * @author agent <br>
+     */
+    public long heldNanos() {
+        return System.nanoTime() - acquiredAt;
+    }
+
+    boolean markReported() {
+        if (reported) {
+            return false;
+        }
+        reported = true;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            manager.release(this);
+        }
+    }
+}
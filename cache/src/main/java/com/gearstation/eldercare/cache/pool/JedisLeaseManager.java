@@ -0,0 +1,574 @@
+package com.gearstation.eldercare.cache.pool;
+
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Description: Hands out connections of {@link JedisPoolRegistry} as {@link JedisLease}s. <br>
+ * Every lease is timed from borrow to return. When leak detection is enabled, leases held longer than the threshold
+ * are reported once, with the acquiring stack when it was kept: for one lease in {@link #setLeakTraceSampling(int)},
+ * or for all of them while debug logging is on. Blocking commands run by {@link #callBlocking(int, int, Function)}
+ * hold their connection on purpose and are never reported. Stats of each DB are registered as MXBean
+ * com.gearstation.eldercare.cache:type=JedisLeases,db=N, with shard="host:port" added when sharded. <br>
+ * With several shards, one registry per Redis node, connections for a key come from the shard owning it on the
+ * {@link ShardRing}. In Redis Cluster mode shards are the masters found in {@link ClusterSlots}, their registries
+ * are created when a node is first seen, MOVED and ASK replies are followed by {@link #call(int, int, Function)},
+ * and the slot map is refreshed in the background. Read-only commands may go to a {@link ReplicaSet} of the first
+ * shard through {@link #call(int, int, ReadFrom, Function)}, those reads aren't counted in lease stats. Under
+ * Sentinel, a {@link SentinelMasterMonitor} switches the first shard to each new master. Closing the manager closes
+ * the pools of every shard <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:58 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class JedisLeaseManager implements Closeable {
+
+    private static final String JMX_DOMAIN = "com.gearstation.eldercare.cache";
+
+    private final List<JedisPoolRegistry> shards;
+    private final ShardRouter shardRouter;
+    private final ClusterSlots cluster;
+    private final Function<String, JedisPoolRegistry> registryFactory;
+    private final long leakThresholdNanos;
+    private final List<Map<Integer, JedisLeaseStats>> stats;
+    private final Set<JedisLease> leases = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService leakDetector;
+    private final ScheduledExecutorService topologyRefresher;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final ExecutorService fanOutExecutor;
+    private volatile ReplicaSet replicaSet;
+    private volatile SentinelMasterMonitor sentinelMonitor;
+    private volatile int leakTraceSampling = 100;
+
+    /**
+     * @param jedisPoolRegistry  Pools to borrow from <br>
+     * @param leakThreshold      Leases held longer are reported, zero disables leak detection <br>
+     * @param leakCheckInterval  Interval of leak checks <br>
+     */
+    public JedisLeaseManager(JedisPoolRegistry jedisPoolRegistry, Duration leakThreshold, Duration leakCheckInterval) {
+        this(Collections.singletonList(jedisPoolRegistry), 1, leakThreshold, leakCheckInterval);
+    }
+
+    /**
+     * @param shards            Pools of each shard, in a stable order <br>
+     * @param virtualNodes      Points of each shard on the hash ring <br>
+     * @param leakThreshold     Leases held longer are reported, zero disables leak detection <br>
+     * @param leakCheckInterval Interval of leak checks <br>
+     */
+    public JedisLeaseManager(List<JedisPoolRegistry> shards, int virtualNodes, Duration leakThreshold, Duration leakCheckInterval) {
+        this(new ShardRing(shards.stream().map(JedisPoolRegistry::getName).collect(Collectors.toList()), virtualNodes),
+                shards, null, null, leakThreshold, leakCheckInterval);
+    }
+
+    /**
+     * @param cluster           Slot map holding the seed nodes <br>
+     * @param registryFactory   Create the pools of a node, given as host:port <br>
+     * @param refreshInterval   Interval of slot map refreshes <br>
+     * @param leakThreshold     Leases held longer are reported, zero disables leak detection <br>
+     * @param leakCheckInterval Interval of leak checks <br>
+     */
+    public JedisLeaseManager(ClusterSlots cluster, Function<String, JedisPoolRegistry> registryFactory, Duration refreshInterval,
+                             Duration leakThreshold, Duration leakCheckInterval) {
+        this(cluster, Collections.emptyList(), cluster, registryFactory, leakThreshold, leakCheckInterval);
+        refreshTopology();
+        long interval = refreshInterval.toMillis();
+        topologyRefresher.scheduleWithFixedDelay(this::refreshTopology, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private JedisLeaseManager(ShardRouter shardRouter, List<JedisPoolRegistry> shards, ClusterSlots cluster,
+                              Function<String, JedisPoolRegistry> registryFactory, Duration leakThreshold, Duration leakCheckInterval) {
+        this.shardRouter = shardRouter;
+        this.shards = new CopyOnWriteArrayList<>(shards);
+        this.cluster = cluster;
+        this.registryFactory = registryFactory;
+        this.stats = new CopyOnWriteArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            stats.add(new ConcurrentHashMap<>());
+        }
+        this.topologyRefresher = cluster == null ? null : Executors.newSingleThreadScheduledExecutor(daemon("redis-cluster-topology"));
+        this.fanOutExecutor = Executors.newCachedThreadPool(daemon("redis-fan-out"));
+        this.leakThresholdNanos = leakThreshold.toNanos();
+        if (leakThresholdNanos > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(daemon("jedis-leak-detector"));
+            long interval = leakCheckInterval.toMillis();
+            leakDetector.scheduleWithFixedDelay(this::detectLeaks, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Description: Borrow a connection bound to specified DB, on the first shard. For commands which aren't about
+     * a key, like PUBLISH <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lease, which must be closed to give the connection back <br>
+     * @author agent <br>
+     */
+    public JedisLease acquire(int dbIndex) {
+        return acquireShard(0, dbIndex);
+    }
+
+    /**
+     * Description: Borrow a connection bound to specified DB, on the shard owning key <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param key     Key the connection is used for <br>
+     * @return Return lease, which must be closed to give the connection back <br>
+     * @author agent <br>
+     */
+    public JedisLease acquire(int dbIndex, String key) {
+        return acquireShard(shardRouter.shardOf(key), dbIndex);
+    }
+
+    public JedisLease acquire(int dbIndex, byte[] key) {
+        return acquireShard(shardRouter.shardOf(key), dbIndex);
+    }
+
+    /**
+     * Description: Borrow a connection bound to specified DB on specified shard <br>
+     *
+     * @param shard   Shard index from 0 to {@link #getShardCount()} - 1 <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lease, which must be closed to give the connection back <br>
+     * @author agent <br>
+     */
+    public JedisLease acquireShard(int shard, int dbIndex) {
+        return acquireShard(shard, dbIndex, false);
+    }
+
+    private JedisLease acquireShard(int shard, int dbIndex, boolean blocking) {
+        if (cluster != null) {
+            dbIndex = cluster.database(dbIndex);
+        }
+        JedisPoolRegistry registry = registry(shard);
+        JedisPool pool = registry.getPool(dbIndex);
+        JedisLeaseStats dbStats = stats(shard, dbIndex, registry);
+        long start = System.nanoTime();
+        Jedis jedis;
+        try {
+            jedis = pool.getResource();
+        } catch (RuntimeException e) {
+            dbStats.acquireFailures.increment();
+            throw e;
+        }
+        dbStats.acquireWait.record(System.nanoTime() - start);
+        dbStats.leased.increment();
+        if (leakDetector == null || blocking) {
+            return new JedisLease(this, jedis, shard, dbIndex, null);
+        }
+        Throwable acquireTrace = null;
+        if (log.isDebugEnabled() || ThreadLocalRandom.current().nextInt(leakTraceSampling) == 0) {
+            acquireTrace = new Throwable("Jedis lease acquired here");
+        }
+        JedisLease lease = new JedisLease(this, jedis, shard, dbIndex, acquireTrace);
+        leases.add(lease);
+        return lease;
+    }
+
+    /**
+     * Description: Run a command on a leased connection of a shard. In cluster mode, MOVED and ASK replies are
+     * followed to their node, up to max redirects, and a connection failure schedules a slot map refresh. Under
+     * Sentinel, a call waits while the master is failing over, and a call whose connection failed is run once more
+     * if the master switched meanwhile <br>
+     *
+     * @param shard   Shard index from 0 to {@link #getShardCount()} - 1 <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param command Command to run <br>
+     * @return Return reply of command <br>
+     * @author agent <br>
+     */
+    public <T> T call(int shard, int dbIndex, Function<Jedis, T> command) {
+        return call(shard, dbIndex, false, command);
+    }
+
+    /**
+     * Description: Run a blocking command like BRPOP, which holds its connection up to its own timeout. Works as
+     * {@link #call(int, int, Function)}, but the lease is left out of leak detection <br>
+     *
+     * @param shard   Shard index from 0 to {@link #getShardCount()} - 1 <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param command Blocking command to run <br>
+     * @return Return reply of command <br>
+     * @author agent <br>
+     */
+    public <T> T callBlocking(int shard, int dbIndex, Function<Jedis, T> command) {
+        return call(shard, dbIndex, true, command);
+    }
+
+    private <T> T call(int shard, int dbIndex, boolean blocking, Function<Jedis, T> command) {
+        SentinelMasterMonitor sentinel = sentinelMonitor;
+        if (sentinel == null || shard != 0) {
+            return callShard(shard, dbIndex, blocking, command);
+        }
+        sentinel.awaitFailover();
+        int generation = registry(0).getGeneration();
+        try {
+            T reply = callShard(0, dbIndex, blocking, command);
+            sentinel.callSucceeded();
+            return reply;
+        } catch (JedisConnectionException e) {
+            if (!sentinel.connectionFailed(generation)) {
+                throw e;
+            }
+            log.warn("Redis master {} switched during a call, running it on the new master: {}",
+                    sentinel.getMasterName(), e.getMessage());
+            return callShard(0, dbIndex, blocking, command);
+        }
+    }
+
+    private <T> T callShard(int shard, int dbIndex, boolean blocking, Function<Jedis, T> command) {
+        boolean asking = false;
+        for (int redirects = 0; ; redirects++) {
+            try (JedisLease lease = acquireShard(shard, dbIndex, blocking)) {
+                if (asking) {
+                    lease.getJedis().asking();
+                }
+                return command.apply(lease.getJedis());
+            } catch (JedisRedirectionException e) {
+                if (cluster == null || redirects >= cluster.getMaxRedirects()) {
+                    throw e;
+                }
+                asking = e instanceof JedisAskDataException;
+                if (asking) {
+                    shard = cluster.shardOfNode(e.getTargetNode());
+                } else {
+                    shard = cluster.moved(e.getSlot(), e.getTargetNode());
+                    refreshTopologyLater();
+                }
+            } catch (JedisConnectionException e) {
+                if (cluster != null) {
+                    refreshTopologyLater();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Description: Run a read-only command on the first shard or one of its replicas, as readFrom says. A
+     * replica-preferred read whose replica fails is run again on the primary <br>
+     *
+     * @param shard    Shard index from 0 to {@link #getShardCount()} - 1, only shard 0 has replicas <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param readFrom Where to read <br>
+     * @param command  Read-only command to run <br>
+     * @return Return reply of command <br>
+     * @author agent <br>
+     */
+    public <T> T call(int shard, int dbIndex, ReadFrom readFrom, Function<Jedis, T> command) {
+        ReplicaSet replicas = replicaSet;
+        if (replicas == null || readFrom == ReadFrom.PRIMARY || shard != 0) {
+            return call(shard, dbIndex, command);
+        }
+        int replica = replicas.pick(readFrom);
+        if (replica < 0) {
+            return call(shard, dbIndex, command);
+        }
+        try (Jedis jedis = replicas.getReplica(replica).getResource(dbIndex)) {
+            return command.apply(jedis);
+        } catch (JedisConnectionException e) {
+            replicas.markUnreachable(replica);
+            if (readFrom == ReadFrom.REPLICA) {
+                throw e;
+            }
+            log.warn("Redis replica {} failed, reading primary: {}", replicas.getReplica(replica).getName(), e.getMessage());
+            replicas.fallback();
+            return call(shard, dbIndex, command);
+        }
+    }
+
+    /**
+     * Description: Run calls to several shards in parallel, the first one on the calling thread <br>
+     *
+     * @param calls Calls, each of them using one shard <br>
+     * @return Return replies in order of calls <br>
+     * @author agent <br>
+     */
+    public <T> List<T> fanOut(List<Supplier<T>> calls) {
+        if (calls.size() == 1) {
+            return Collections.singletonList(calls.get(0).get());
+        }
+        List<CompletableFuture<T>> others = new ArrayList<>(calls.size() - 1);
+        for (int i = 1; i < calls.size(); i++) {
+            others.add(CompletableFuture.supplyAsync(calls.get(i), fanOutExecutor));
+        }
+        List<T> replies = new ArrayList<>(calls.size());
+        replies.add(calls.get(0).get());
+        others.forEach(other -> replies.add(other.join()));
+        return replies;
+    }
+
+    /**
+     * Description: Reload the cluster slot map from the first node which answers CLUSTER SLOTS. Does nothing
+     * unless in cluster mode <br>
+     *
+     * @return Return true if the map was loaded <br>
+     * @author agent <br>
+     */
+    public boolean refreshTopology() {
+        if (cluster == null) {
+            return false;
+        }
+        refreshPending.set(false);
+        for (int shard = 0; shard < cluster.size(); shard++) {
+            try (JedisLease lease = acquireShard(shard, 0)) {
+                int changed = cluster.update(lease.getJedis().clusterSlots());
+                if (changed > 0) {
+                    log.info("{} Redis Cluster slots changed node, {} nodes known", changed, cluster.size());
+                }
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Cannot load cluster slots from {}: {}", cluster.getShardName(shard), e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void refreshTopologyLater() {
+        if (refreshPending.compareAndSet(false, true)) {
+            topologyRefresher.execute(this::refreshTopology);
+        }
+    }
+
+    /**
+     * Description: Give the connection of a lease back. Stats are gone once the manager is closed, the connection
+     * is given back anyway <br>
+     */
+    void release(JedisLease lease) {
+        try {
+            if (leakDetector != null) {
+                leases.remove(lease);
+            }
+            JedisLeaseStats dbStats = stats.get(lease.getShard()).get(lease.getDbIndex());
+            if (dbStats != null) {
+                dbStats.hold.record(lease.heldNanos());
+                dbStats.leased.decrement();
+            }
+        } finally {
+            lease.getJedis().close();
+        }
+    }
+
+    /**
+     * Description: Get stats of all DBs of the first shard used so far <br>
+     *
+     * @return Return read-only view of stats keyed by DB index <br>
+     * @author agent <br>
+     */
+    public Map<Integer, JedisLeaseStats> getStats() {
+        return getStats(0);
+    }
+
+    public Map<Integer, JedisLeaseStats> getStats(int shard) {
+        return Collections.unmodifiableMap(stats.get(shard));
+    }
+
+    /**
+     * Description: Get pools of the first shard, the only one unless sharding is configured <br>
+     */
+    public JedisPoolRegistry getJedisPoolRegistry() {
+        return registry(0);
+    }
+
+    public List<JedisPoolRegistry> getJedisPoolRegistries() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    public int getShardCount() {
+        return shardRouter.size();
+    }
+
+    public ShardRouter getShardRouter() {
+        return shardRouter;
+    }
+
+    /**
+     * Description: Get the daemon threads running {@link #fanOut(List)}, shut down with this manager. Callers bound
+     * how many tasks they submit at once <br>
+     */
+    public Executor getFanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    /**
+     * Description: Get replicas of the first shard <br>
+     *
+     * @return Return replicas, or null if none are configured <br>
+     * @author agent <br>
+     */
+    public ReplicaSet getReplicaSet() {
+        return replicaSet;
+    }
+
+    /**
+     * Description: Send reads of the first shard to replicas, which are closed with the manager <br>
+     */
+    public void setReplicaSet(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+    }
+
+    public int getLeakTraceSampling() {
+        return leakTraceSampling;
+    }
+
+    /**
+     * Description: Keep the acquiring stack of one lease in leakTraceSampling, 1 keeps all of them <br>
+     */
+    public void setLeakTraceSampling(int leakTraceSampling) {
+        if (leakTraceSampling < 1) {
+            throw new IllegalArgumentException("Leak trace sampling must be at least 1, was " + leakTraceSampling);
+        }
+        this.leakTraceSampling = leakTraceSampling;
+    }
+
+    public SentinelMasterMonitor getSentinelMonitor() {
+        return sentinelMonitor;
+    }
+
+    /**
+     * Description: Follow failovers of the first shard, the monitor is closed with the manager <br>
+     */
+    public void setSentinelMonitor(SentinelMasterMonitor sentinelMonitor) {
+        this.sentinelMonitor = sentinelMonitor;
+    }
+
+    /**
+     * Description: Get slot map in Redis Cluster mode <br>
+     *
+     * @return Return slot map, or null if not in cluster mode <br>
+     * @author agent <br>
+     */
+    public ClusterSlots getClusterSlots() {
+        return cluster;
+    }
+
+    private JedisPoolRegistry registry(int shard) {
+        if (shard < shards.size()) {
+            return shards.get(shard);
+        }
+        synchronized (shards) {
+            while (shards.size() <= shard) {
+                stats.add(new ConcurrentHashMap<>());
+                shards.add(registryFactory.apply(shardRouter.getShardName(shards.size())));
+            }
+        }
+        return shards.get(shard);
+    }
+
+    private JedisLeaseStats stats(int shard, int dbIndex, JedisPoolRegistry registry) {
+        Map<Integer, JedisLeaseStats> shardStats = stats.get(shard);
+        JedisLeaseStats dbStats = shardStats.get(dbIndex);
+        if (dbStats != null) {
+            return dbStats;
+        }
+        return shardStats.computeIfAbsent(dbIndex, index -> {
+            JedisLeaseStats created = new JedisLeaseStats(shardRouter.getShardName(shard), index, registry);
+            try {
+                mBeanServer().registerMBean(created, objectName(shard, index));
+            } catch (JMException e) {
+                log.warn("Cannot register lease stats of DB {}: {}", index, e.getMessage());
+            }
+            return created;
+        });
+    }
+
+    private void detectLeaks() {
+        for (JedisLease lease : leases) {
+            long held = lease.heldNanos();
+            if (held > leakThresholdNanos && lease.markReported()) {
+                JedisLeaseStats dbStats = stats.get(lease.getShard()).get(lease.getDbIndex());
+                if (dbStats != null) {
+                    dbStats.leaks.increment();
+                }
+                String message = "Jedis connection of DB " + lease.getDbIndex() + " has been held for "
+                        + TimeUnit.NANOSECONDS.toMillis(held) + " ms by " + lease.getAcquiredBy();
+                if (lease.getAcquireTrace() != null) {
+                    log.warn(message, lease.getAcquireTrace());
+                } else {
+                    log.warn("{}, its stack was not sampled", message);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        if (topologyRefresher != null) {
+            topologyRefresher.shutdownNow();
+        }
+        fanOutExecutor.shutdownNow();
+        if (replicaSet != null) {
+            replicaSet.close();
+        }
+        if (sentinelMonitor != null) {
+            sentinelMonitor.close();
+        }
+        for (int shard = 0; shard < stats.size(); shard++) {
+            for (Integer dbIndex : stats.get(shard).keySet()) {
+                try {
+                    mBeanServer().unregisterMBean(objectName(shard, dbIndex));
+                } catch (JMException e) {
+                    log.debug("Cannot unregister lease stats of DB {}: {}", dbIndex, e.getMessage());
+                }
+            }
+            stats.get(shard).clear();
+        }
+        shards.forEach(JedisPoolRegistry::close);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static MBeanServer mBeanServer() {
+        return ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private ObjectName objectName(int shard, int dbIndex) throws JMException {
+        String name = JMX_DOMAIN + ":type=JedisLeases,db=" + dbIndex;
+        return new ObjectName(cluster == null && shards.size() == 1 ? name : name + ",shard=" + ObjectName.quote(shardRouter.getShardName(shard)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.gearstation.eldercare.cache.pool;
+
+import redis.clients.jedis.JedisPool;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Description: Lease counters and histograms of one DB pool of a shard <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:58 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class JedisLeaseStats implements JedisLeaseStatsMXBean {
+
+    private final String shard;
+    private final int dbIndex;
+    private final JedisPoolRegistry registry;
+    final LatencyHistogram acquireWait = new LatencyHistogram();
+    final LatencyHistogram hold = new LatencyHistogram();
+    final LongAdder leased = new LongAdder();
+    final LongAdder leaks = new LongAdder();
+    final LongAdder acquireFailures = new LongAdder();
+
+    JedisLeaseStats(String shard, int dbIndex, JedisPoolRegistry registry) {
+        this.shard = shard;
+        this.dbIndex = dbIndex;
+        this.registry = registry;
+    }
+
+    @Override
+    public String getShard() {
+        return shard;
+    }
+
+    @Override
+    public int getDbIndex() {
+        return dbIndex;
+    }
+
+    @Override
+    public int getActive() {
+        JedisPool pool = registry.peekPool(dbIndex);
+        return pool == null ? 0 : pool.getNumActive();
+    }
+
+    @Override
+    public int getIdle() {
+        JedisPool pool = registry.peekPool(dbIndex);
+        return pool == null ? 0 : pool.getNumIdle();
+    }
+
+    @Override
+    public int getWaiting() {
+        JedisPool pool = registry.peekPool(dbIndex);
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+
+    @Override
+    public int getLeased() {
+        return leased.intValue();
+    }
+
+    @Override
+    public long getLeaksDetected() {
+        return leaks.sum();
+    }
+
+    @Override
+    public long getAcquireCount() {
+        return acquireWait.getCount();
+    }
+
+    @Override
+    public long getAcquireFailures() {
+        return acquireFailures.sum();
+    }
+
+    @Override
+    public double getAcquireWaitMeanMillis() {
+        return acquireWait.getMeanMillis();
+    }
+
+    @Override
+    public double getAcquireWaitMaxMillis() {
+        return acquireWait.getMaxMillis();
+    }
+
+    @Override
+    public Map<String, Long> getAcquireWaitHistogram() {
+        return acquireWait.snapshot();
+    }
+
+    @Override
+    public double getHoldMeanMillis() {
+        return hold.getMeanMillis();
+    }
+
+    @Override
+    public double getHoldMaxMillis() {
+        return hold.getMaxMillis();
+    }
+
+    @Override
+    public Map<String, Long> getHoldHistogram() {
+        return hold.snapshot();
+    }
+}
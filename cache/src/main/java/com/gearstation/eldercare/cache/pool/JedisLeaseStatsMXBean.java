@@ -0,0 +1,44 @@
+package com.gearstation.eldercare.cache.pool;
+
+import java.util.Map;
+
+/**
+ * Description: JMX view of the connection leases of one DB, registered next to the commons-pool MBeans <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:58 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public interface JedisLeaseStatsMXBean {
+
+    String getShard();
+
+    int getDbIndex();
+
+    int getActive();
+
+    int getIdle();
+
+    int getWaiting();
+
+    int getLeased();
+
+    long getLeaksDetected();
+
+    long getAcquireCount();
+
+    long getAcquireFailures();
+
+    double getAcquireWaitMeanMillis();
+
+    double getAcquireWaitMaxMillis();
+
+    Map<String, Long> getAcquireWaitHistogram();
+
+    double getHoldMeanMillis();
+
+    double getHoldMaxMillis();
+
+    Map<String, Long> getHoldHistogram();
+}
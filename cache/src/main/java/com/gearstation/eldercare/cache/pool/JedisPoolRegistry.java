@@ -0,0 +1,157 @@
+package com.gearstation.eldercare.cache.pool;
+
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Description: Lazily created Jedis pools keyed by DB index. <br>
+ * Connections of a pool are bound to its DB when they are created, so no SELECT is sent per command. After a
+ * failover the registry is switched to the new master: later calls get pools of the new node, while connections
+ * leased from the old pools are still returned to them <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:57 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class JedisPoolRegistry implements Closeable {
+
+    private volatile Node node;
+    private final int defaultDatabase;
+
+    public JedisPoolRegistry(IntFunction<JedisPool> poolFactory, int defaultDatabase) {
+        this("default", poolFactory, defaultDatabase);
+    }
+
+    /**
+     * @param name            Name of the Redis node, like host:port <br>
+     * @param poolFactory     Create the pool of a DB index <br>
+     * @param defaultDatabase DB configured by spring.redis.database <br>
+     */
+    public JedisPoolRegistry(String name, IntFunction<JedisPool> poolFactory, int defaultDatabase) {
+        this.node = new Node(name, poolFactory, 0);
+        this.defaultDatabase = defaultDatabase;
+    }
+
+    public String getName() {
+        return node.name;
+    }
+
+    /**
+     * Description: Get pool of specified DB, create it on first use. Pools are created under the lock of
+     * {@link #switchTo(String, IntFunction)}, so none is added to the pools of a node once they are retired <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return pool whose connections are bound to dbIndex <br>
+     * @author agent <br>
+     */
+    public JedisPool getPool(int dbIndex) {
+        JedisPool pool = node.pools.get(dbIndex);
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (this) {
+            Node current = node;
+            return current.pools.computeIfAbsent(dbIndex, index -> {
+                log.info("Create Jedis pool for DB {} of {}", index, current.name);
+                return current.poolFactory.apply(index);
+            });
+        }
+    }
+
+    /**
+     * Description: Get pool of specified DB if it was created, for stats which must not open pools <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return pool whose connections are bound to dbIndex, or null if none was created yet <br>
+     * @author agent <br>
+     */
+    public JedisPool peekPool(int dbIndex) {
+        return node.pools.get(dbIndex);
+    }
+
+    /**
+     * Description: Borrow a connection bound to specified DB <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return connection, which must be closed to return it to its pool <br>
+     * @author agent <br>
+     */
+    public Jedis getResource(int dbIndex) {
+        return getPool(dbIndex).getResource();
+    }
+
+    /**
+     * Description: Get DB configured by spring.redis.database <br>
+     *
+     * @return Return default DB index <br>
+     * @author agent <br>
+     */
+    public int getDefaultDatabase() {
+        return defaultDatabase;
+    }
+
+    /**
+     * Description: Get all pools created so far <br>
+     *
+     * @return Return read-only view of pools keyed by DB index <br>
+     * @author agent <br>
+     */
+    public Map<Integer, JedisPool> getPools() {
+        return Collections.unmodifiableMap(node.pools);
+    }
+
+    /**
+     * Description: Point the registry to another node, after a failover <br>
+     *
+     * @param name        Name of the new node, like host:port <br>
+     * @param poolFactory Create the pool of a DB index on the new node <br>
+     * @return Return pools of the old node, to close once their leases are back <br>
+     * @author agent <br>
+     */
+    public synchronized Map<Integer, JedisPool> switchTo(String name, IntFunction<JedisPool> poolFactory) {
+        Node retired = node;
+        log.info("Switch Jedis pools from {} to {}", retired.name, name);
+        node = new Node(name, poolFactory, retired.generation + 1);
+        return retired.pools;
+    }
+
+    /**
+     * Description: Get the number of switches so far, a caller seeing it change knows pools point elsewhere <br>
+     */
+    public int getGeneration() {
+        return node.generation;
+    }
+
+    @Override
+    public synchronized void close() {
+        node.pools.values().forEach(JedisPool::close);
+        node.pools.clear();
+    }
+
+    /**
+     * Description: Node the pools point to, swapped whole by {@link #switchTo(String, IntFunction)} so readers never
+     * see the name or factory of one node with the pools of another <br>
+     */
+    private static final class Node {
+
+        private final String name;
+        private final IntFunction<JedisPool> poolFactory;
+        private final Map<Integer, JedisPool> pools = new ConcurrentHashMap<>();
+        private final int generation;
+
+        private Node(String name, IntFunction<JedisPool> poolFactory, int generation) {
+            this.name = name;
+            this.poolFactory = poolFactory;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.gearstation.eldercare.cache.pool;
+
+/**
+ * Description: Where read-only commands are sent when replicas are configured <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:34 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public enum ReadFrom {
+
+    /**
+     * Always read the primary, for read-your-writes
+     */
+    PRIMARY,
+
+    /**
+     * Only read replicas, lagging ones too when no replica is in sync. Fails if no replica is reachable
+     */
+    REPLICA,
+
+    /**
+     * Read a replica in sync with the primary, else the primary
+     */
+    REPLICA_PREFERRED
+}
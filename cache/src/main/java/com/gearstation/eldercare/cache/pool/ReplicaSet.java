@@ -0,0 +1,220 @@
+package com.gearstation.eldercare.cache.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Description: Read replicas of the primary Redis node, with their replication lag <br>
+ * Lag is checked on a fixed delay: it is the master_repl_offset of the primary minus the slave_repl_offset of the
+ * replica, in bytes. A replica whose link to the primary is down, or which doesn't answer, counts as unreachable
+ * until the next check. Reads are spread round-robin over replicas within the max lag <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.replica.lag: gauge, tag replica, bytes behind the primary, -1 if unreachable</li>
+ *     <li>eldercare.redis.replica.fallback: counter of replica-preferred reads sent to the primary</li>
+ * </ul>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:34 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class ReplicaSet implements Closeable {
+
+    static final long UNREACHABLE = -1;
+
+    private final JedisPoolRegistry primary;
+    private final List<JedisPoolRegistry> replicas;
+    private final long maxLagBytes;
+    private final ReadFrom defaultReadFrom;
+    private final String[] namespaces;
+    private final ReadFrom[] namespaceReadFrom;
+    private final char namespaceSeparator;
+    private final AtomicLongArray lags;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private final ScheduledExecutorService lagChecker;
+
+    /**
+     * @param primary            Pools of the primary <br>
+     * @param replicas           Pools of each replica <br>
+     * @param maxLagBytes        Replicas further behind aren't read unless {@link ReadFrom#REPLICA} finds no other <br>
+     * @param lagCheckInterval   Interval of lag checks <br>
+     * @param defaultReadFrom    Choice of keys without a listed namespace <br>
+     * @param namespaces         Choice keyed by namespace, the part of a key before the first separator <br>
+     * @param namespaceSeparator Separator between namespace and the rest of a key <br>
+     * @param meterRegistry      Registry of lag and fallback meters <br>
+     */
+    public ReplicaSet(JedisPoolRegistry primary, List<JedisPoolRegistry> replicas, long maxLagBytes, Duration lagCheckInterval,
+                      ReadFrom defaultReadFrom, Map<String, ReadFrom> namespaces, char namespaceSeparator, MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is needed");
+        }
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.maxLagBytes = maxLagBytes;
+        this.defaultReadFrom = defaultReadFrom;
+        this.namespaces = namespaces.keySet().toArray(new String[0]);
+        this.namespaceReadFrom = namespaces.values().toArray(new ReadFrom[0]);
+        this.namespaceSeparator = namespaceSeparator;
+        this.lags = new AtomicLongArray(replicas.size());
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            lags.set(replica, UNREACHABLE);
+            int index = replica;
+            Gauge.builder("eldercare.redis.replica.lag", lags, all -> all.get(index))
+                    .description("Replication bytes the replica is behind the primary, -1 if unreachable")
+                    .baseUnit("bytes")
+                    .tag("replica", replicas.get(replica).getName())
+                    .register(meterRegistry);
+        }
+        this.fallbacks = Counter.builder("eldercare.redis.replica.fallback")
+                .description("Replica-preferred reads sent to the primary because no replica was in sync")
+                .register(meterRegistry);
+        checkLag();
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = lagCheckInterval.toMillis();
+        lagChecker.scheduleWithFixedDelay(this::checkLag, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    public JedisPoolRegistry getReplica(int replica) {
+        return replicas.get(replica);
+    }
+
+    /**
+     * Description: Get lag of a replica at the last check <br>
+     *
+     * @param replica Replica index <br>
+     * @return Return bytes behind the primary, or -1 if unreachable <br>
+     * @author agent <br>
+     */
+    public long getLag(int replica) {
+        return lags.get(replica);
+    }
+
+    /**
+     * Description: Get the configured choice for key, by its namespace <br>
+     *
+     * @param key <br>
+     * @return Return choice of the namespace, or the default one <br>
+     * @author agent <br>
+     */
+    public ReadFrom readFromOf(String key) {
+        for (int i = 0; i < namespaces.length; i++) {
+            String namespace = namespaces[i];
+            if (key.startsWith(namespace) && key.length() > namespace.length() && key.charAt(namespace.length()) == namespaceSeparator) {
+                return namespaceReadFrom[i];
+            }
+        }
+        return defaultReadFrom;
+    }
+
+    /**
+     * Description: Pick the replica to read <br>
+     *
+     * @param readFrom {@link ReadFrom#REPLICA} or {@link ReadFrom#REPLICA_PREFERRED} <br>
+     * @return Return replica index, or -1 to read the primary <br>
+     * @throws IllegalStateException if readFrom is REPLICA and no replica is reachable <br>
+     * @author agent <br>
+     */
+    public int pick(ReadFrom readFrom) {
+        int start = next.getAndIncrement() & Integer.MAX_VALUE;
+        int reachable = -1;
+        for (int i = 0; i < replicas.size(); i++) {
+            int replica = (start + i) % replicas.size();
+            long lag = lags.get(replica);
+            if (lag != UNREACHABLE && lag <= maxLagBytes) {
+                return replica;
+            }
+            if (lag != UNREACHABLE && reachable < 0) {
+                reachable = replica;
+            }
+        }
+        if (readFrom == ReadFrom.REPLICA_PREFERRED) {
+            fallbacks.increment();
+            return -1;
+        }
+        if (reachable < 0) {
+            throw new IllegalStateException("No Redis replica is reachable");
+        }
+        return reachable;
+    }
+
+    /**
+     * Description: Stop reading a replica which failed, until the next lag check finds it back <br>
+     */
+    public void markUnreachable(int replica) {
+        lags.set(replica, UNREACHABLE);
+    }
+
+    /**
+     * Description: Count a replica-preferred read which went to the primary after its replica failed <br>
+     */
+    void fallback() {
+        fallbacks.increment();
+    }
+
+    private void checkLag() {
+        long primaryOffset;
+        try (Jedis jedis = primary.getResource(primary.getDefaultDatabase())) {
+            primaryOffset = Long.parseLong(infoField(jedis.info("replication"), "master_repl_offset", "0"));
+        } catch (RuntimeException e) {
+            log.warn("Cannot read replication offset of primary {}: {}", primary.getName(), e.getMessage());
+            return;
+        }
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            JedisPoolRegistry registry = replicas.get(replica);
+            try (Jedis jedis = registry.getResource(registry.getDefaultDatabase())) {
+                String info = jedis.info("replication");
+                if (!"up".equals(infoField(info, "master_link_status", "down"))) {
+                    lags.set(replica, UNREACHABLE);
+                    continue;
+                }
+                long offset = Long.parseLong(infoField(info, "slave_repl_offset", "0"));
+                lags.set(replica, Math.max(0, primaryOffset - offset));
+            } catch (RuntimeException e) {
+                if (lags.getAndSet(replica, UNREACHABLE) != UNREACHABLE) {
+                    log.warn("Redis replica {} is unreachable: {}", registry.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    static String infoField(String info, String field, String missing) {
+        for (String line : info.split("\r\n")) {
+            if (line.startsWith(field + ":")) {
+                return line.substring(field.length() + 1).trim();
+            }
+        }
+        return missing;
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(JedisPoolRegistry::close);
+    }
+}
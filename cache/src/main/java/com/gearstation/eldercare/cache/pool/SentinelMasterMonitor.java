@@ -0,0 +1,319 @@
+package com.gearstation.eldercare.cache.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Description: Follows the master of a Sentinel-managed Redis and switches a {@link JedisPoolRegistry} to it <br>
+ * One thread per sentinel subscribes to +odown, -odown and +switch-master. Once sentinels agree the master is down,
+ * callers of {@link JedisLeaseManager} wait up to the failover wait for the switch instead of hanging on the socket
+ * timeout, and fail fast after it. On +switch-master the registry gets pools of the new master, a caller whose
+ * connection failed before the switch is run again once, and old pools are closed after the drain timeout. Each time
+ * a listener (re)subscribes it asks sentinels for the master, catching up with switches it couldn't hear <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.failover.time: timer, tag master, from the first sign of a down master to the switch</li>
+ *     <li>eldercare.redis.failover.switches: counter of master switches</li>
+ * </ul>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:37 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class SentinelMasterMonitor implements Closeable {
+
+    private static final long RESUBSCRIBE_DELAY_MILLIS = 1000;
+
+    private static final String[] CHANNELS = {"+switch-master", "+odown", "-odown"};
+
+    private final String masterName;
+    private final List<HostAndPort> sentinels;
+    private final int timeoutMillis;
+    private final long failoverWaitNanos;
+    private final Duration drainTimeout;
+    private final Timer failoverTime;
+    private final Counter switches;
+    private final List<Thread> listeners = new ArrayList<>();
+    private final List<JedisPubSub> subscriptions = Collections.synchronizedList(new ArrayList<>());
+    private final ScheduledExecutorService drainer;
+    private JedisPoolRegistry registry;
+    private Function<HostAndPort, IntFunction<JedisPool>> poolFactory;
+    private HostAndPort master;
+    private volatile boolean failingOver;
+    private volatile long downSince;
+    private volatile boolean running = true;
+
+    /**
+     * @param masterName    Name of the master in sentinel config <br>
+     * @param sentinels     Sentinels as host:port <br>
+     * @param timeout       Connect and read timeout of sentinel connections <br>
+     * @param failoverWait  Longest time a caller waits for the switch once the master is down <br>
+     * @param drainTimeout  Time given to leases of old pools before they are closed <br>
+     * @param meterRegistry Registry of failover meters <br>
+     */
+    public SentinelMasterMonitor(String masterName, List<String> sentinels, Duration timeout, Duration failoverWait,
+                                 Duration drainTimeout, MeterRegistry meterRegistry) {
+        this.masterName = masterName;
+        this.sentinels = new ArrayList<>(sentinels.size());
+        for (String sentinel : sentinels) {
+            this.sentinels.add(HostAndPort.parseString(sentinel));
+        }
+        this.timeoutMillis = (int) timeout.toMillis();
+        this.failoverWaitNanos = failoverWait.toNanos();
+        this.drainTimeout = drainTimeout;
+        this.failoverTime = Timer.builder("eldercare.redis.failover.time")
+                .description("Time from the first sign of a down master to the switch to the new one")
+                .tag("master", masterName)
+                .register(meterRegistry);
+        this.switches = Counter.builder("eldercare.redis.failover.switches")
+                .description("Switches to a new master announced by sentinels")
+                .tag("master", masterName)
+                .register(meterRegistry);
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-sentinel-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Description: Ask sentinels for the current master, the first one which knows it answers <br>
+     *
+     * @return Return address of the master <br>
+     * @throws JedisConnectionException if no sentinel knows the master <br>
+     * @author agent <br>
+     */
+    public HostAndPort discoverMaster() {
+        for (HostAndPort sentinel : sentinels) {
+            try (Jedis jedis = new Jedis(sentinel.getHost(), sentinel.getPort(), timeoutMillis)) {
+                List<String> address = jedis.sentinelGetMasterAddrByName(masterName);
+                if (address != null && address.size() == 2) {
+                    return new HostAndPort(address.get(0), Integer.parseInt(address.get(1)));
+                }
+                log.warn("Sentinel {} doesn't know master {}", sentinel, masterName);
+            } catch (RuntimeException e) {
+                log.warn("Cannot ask sentinel {} for master {}: {}", sentinel, masterName, e.getMessage());
+            }
+        }
+        throw new JedisConnectionException("No sentinel of " + sentinels + " knows master " + masterName);
+    }
+
+    /**
+     * Description: Start following switches of the master <br>
+     *
+     * @param registry    Pools of the current master, switched to each new master <br>
+     * @param master      Address the registry points to <br>
+     * @param poolFactory Create the pool factory of a master <br>
+     * @author agent <br>
+     */
+    public synchronized void start(JedisPoolRegistry registry, HostAndPort master, Function<HostAndPort, IntFunction<JedisPool>> poolFactory) {
+        this.registry = registry;
+        this.master = master;
+        this.poolFactory = poolFactory;
+        for (HostAndPort sentinel : sentinels) {
+            Thread listener = new Thread(() -> listen(sentinel), "redis-sentinel-" + sentinel);
+            listener.setDaemon(true);
+            listener.start();
+            listeners.add(listener);
+        }
+    }
+
+    public String getMasterName() {
+        return masterName;
+    }
+
+    public boolean isFailingOver() {
+        return failingOver;
+    }
+
+    /**
+     * Description: Called before a call to the master. While sentinels see the master down, wait for the switch <br>
+     *
+     * @throws JedisConnectionException if the master is still down after the failover wait <br>
+     * @author agent <br>
+     */
+    public void awaitFailover() {
+        if (failingOver && !awaitSwitch(registry.getGeneration())) {
+            throw new JedisConnectionException("Master " + masterName + " is down, failover still running");
+        }
+    }
+
+    /**
+     * Description: Called when a connection to the master failed. Starts the failover clock, and says whether the
+     * call can be run again on a new master <br>
+     *
+     * @param generation Generation of the registry when the failed call started <br>
+     * @return Return true if the registry has switched since, waiting for it while a failover is running <br>
+     * @author agent <br>
+     */
+    public boolean connectionFailed(int generation) {
+        markDown();
+        return awaitSwitch(generation);
+    }
+
+    /**
+     * Description: Called after a call to the master went through, a connection failure which wasn't followed by a
+     * failover doesn't start the failover clock anymore <br>
+     */
+    public void callSucceeded() {
+        if (downSince != 0 && !failingOver) {
+            downSince = 0;
+        }
+    }
+
+    private synchronized boolean awaitSwitch(int generation) {
+        long deadline = System.nanoTime() + failoverWaitNanos;
+        while (registry.getGeneration() == generation && failingOver) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return registry.getGeneration() != generation;
+    }
+
+    private void markDown() {
+        if (downSince == 0) {
+            downSince = System.nanoTime();
+        }
+    }
+
+    private synchronized void switched(HostAndPort newMaster) {
+        if (newMaster.equals(master)) {
+            return;
+        }
+        log.warn("Master {} switched from {} to {}", masterName, master, newMaster);
+        master = newMaster;
+        Map<Integer, JedisPool> retired = registry.switchTo(newMaster.toString(), poolFactory.apply(newMaster));
+        drainer.schedule(() -> retired.values().forEach(JedisPool::close), drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        switches.increment();
+        if (downSince != 0) {
+            failoverTime.record(System.nanoTime() - downSince, TimeUnit.NANOSECONDS);
+        }
+        downSince = 0;
+        failingOver = false;
+        notifyAll();
+    }
+
+    private synchronized void recovered() {
+        if (failingOver) {
+            log.info("Master {} is back up at {}", masterName, master);
+        }
+        failingOver = false;
+        downSince = 0;
+        notifyAll();
+    }
+
+    private void listen(HostAndPort sentinel) {
+        while (running) {
+            JedisPubSub subscription = new JedisPubSub() {
+                @Override
+                public void onMessage(String channel, String message) {
+                    onEvent(channel, message.split(" "));
+                }
+
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    if (subscribedChannels == CHANNELS.length) {
+                        catchUp();
+                    }
+                }
+            };
+            subscriptions.add(subscription);
+            try (Jedis jedis = new Jedis(sentinel.getHost(), sentinel.getPort(), timeoutMillis, 0)) {
+                jedis.subscribe(subscription, CHANNELS);
+            } catch (RuntimeException e) {
+                if (running) {
+                    log.warn("Lost sentinel {}, subscribing again: {}", sentinel, e.getMessage());
+                }
+            } finally {
+                subscriptions.remove(subscription);
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Description: Ask sentinels for the master once subscribed, so a switch announced while no subscription was
+     * listening, before start or while a sentinel was lost, isn't missed <br>
+     */
+    void catchUp() {
+        try {
+            switched(discoverMaster());
+        } catch (JedisConnectionException e) {
+            log.warn("Cannot check master {} after subscribing: {}", masterName, e.getMessage());
+        }
+    }
+
+    /**
+     * Description: +switch-master sends "name old-ip old-port new-ip new-port", odown events send
+     * "master name ip port ..." <br>
+     */
+    void onEvent(String channel, String[] parts) {
+        if ("+switch-master".equals(channel)) {
+            if (parts.length >= 5 && masterName.equals(parts[0])) {
+                switched(new HostAndPort(parts[3], Integer.parseInt(parts[4])));
+            }
+            return;
+        }
+        if (parts.length < 2 || !"master".equals(parts[0]) || !masterName.equals(parts[1])) {
+            return;
+        }
+        if ("+odown".equals(channel)) {
+            log.warn("Sentinels see master {} down", masterName);
+            markDown();
+            failingOver = true;
+        } else if ("-odown".equals(channel)) {
+            recovered();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (subscriptions) {
+            for (JedisPubSub subscription : subscriptions) {
+                try {
+                    subscription.unsubscribe();
+                } catch (RuntimeException e) {
+                    log.debug("Cannot unsubscribe from sentinel: {}", e.getMessage());
+                }
+            }
+        }
+        listeners.forEach(Thread::interrupt);
+        drainer.shutdownNow();
+    }
+}
@@ -0,0 +1,151 @@
+package com.gearstation.eldercare.cache.pool;
+
+import redis.clients.jedis.util.Hashing;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Description: Consistent hash ring placing keys on shards, with virtual nodes to even out the load <br>
+ * Keys are hashed with MurmurHash64A. When a key holds a hash tag like "elder:{42}:vitals", only the part between
+ * the braces is hashed, so keys sharing a tag are kept on the same shard and can be used together by multi-key
+ * commands. Adding a shard only moves about 1/N of the keys. A ring of one shard places every key on it without
+ * hashing. Each shard is a single slot of {@link ShardRouter} <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:28 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class ShardRing implements ShardRouter {
+
+    private final List<String> shardNames;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param shardNames   Stable shard names, like host:port. Renaming a shard moves its keys <br>
+     * @param virtualNodes Points of each shard on the ring <br>
+     */
+    public ShardRing(List<String> shardNames, int virtualNodes) {
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.shardNames = Collections.unmodifiableList(shardNames);
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shardNames.size(); shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.putIfAbsent(Hashing.MURMUR_HASH.hash(shardNames.get(shard) + "#" + node), shard);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new int[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+            points[i] = point.getKey();
+            owners[i++] = point.getValue();
+        }
+    }
+
+    @Override
+    public int size() {
+        return shardNames.size();
+    }
+
+    @Override
+    public String getShardName(int shard) {
+        return shardNames.get(shard);
+    }
+
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    @Override
+    public int shardOf(String key) {
+        return shardNames.size() == 1 ? 0 : shardOf(SafeEncoder.encode(key));
+    }
+
+    /**
+     * Description: Find the shard owning key, the first ring point at or after the hash of its tag <br>
+     *
+     * @param key <br>
+     * @return Return shard index <br>
+     * @author agent <br>
+     */
+    @Override
+    public int shardOf(byte[] key) {
+        if (shardNames.size() == 1) {
+            return 0;
+        }
+        long hash = Hashing.MURMUR_HASH.hash(hashTagOf(key));
+        int point = Arrays.binarySearch(points, hash);
+        if (point < 0) {
+            point = -point - 1;
+        }
+        return owners[point == points.length ? 0 : point];
+    }
+
+    /**
+     * Description: Find the single shard owning all keys <br>
+     *
+     * @param keys <br>
+     * @return Return shard index, or {@link #SPREAD} if keys live on several shards <br>
+     * @author agent <br>
+     */
+    public int shardOf(String... keys) {
+        if (shardNames.size() == 1 || keys.length == 0) {
+            return 0;
+        }
+        int shard = SPREAD;
+        for (String key : keys) {
+            int owner = shardOf(key);
+            if (shard != SPREAD && owner != shard) {
+                return SPREAD;
+            }
+            shard = owner;
+        }
+        return shard;
+    }
+
+    @Override
+    public int slotOf(byte[] key) {
+        return shardOf(key);
+    }
+
+    @Override
+    public int slotOf(String key) {
+        return shardOf(key);
+    }
+
+    @Override
+    public int slotOf(String... keys) {
+        return shardOf(keys);
+    }
+
+    @Override
+    public int shardOfSlot(int slot) {
+        return slot;
+    }
+
+    /**
+     * Description: Get the part of key which is hashed, the content of the first non-empty {...} if any <br>
+     */
+    static byte[] hashTagOf(byte[] key) {
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        return close == open + 1 ? key : Arrays.copyOfRange(key, open + 1, close);
+                    }
+                }
+                return key;
+            }
+        }
+        return key;
+    }
+}
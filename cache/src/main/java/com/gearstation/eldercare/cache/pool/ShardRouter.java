@@ -0,0 +1,64 @@
+package com.gearstation.eldercare.cache.pool;
+
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * Description: Places keys on the Redis nodes behind {@link JedisLeaseManager} <br>
+ * A key belongs to a slot, and a slot to a shard. Multi-key commands can only run when all their keys share a slot:
+ * on a {@link ShardRing} a slot is a whole shard, in Redis Cluster ({@link ClusterSlots}) it is one of the 16384 hash
+ * slots. Keys sharing a hash tag like "elder:{42}:vitals" always share a slot <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:32 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public interface ShardRouter {
+
+    /**
+     * Returned for a set of keys which doesn't live in a single slot
+     */
+    int SPREAD = -1;
+
+    /**
+     * Description: Get the number of shards known so far <br>
+     */
+    int size();
+
+    /**
+     * Description: Get name of a shard, like host:port <br>
+     */
+    String getShardName(int shard);
+
+    int slotOf(byte[] key);
+
+    default int slotOf(String key) {
+        return slotOf(SafeEncoder.encode(key));
+    }
+
+    /**
+     * Description: Find the single slot of all keys <br>
+     *
+     * @param keys <br>
+     * @return Return slot, or {@link #SPREAD} if keys live in several slots <br>
+     * @author agent <br>
+     */
+    int slotOf(String... keys);
+
+    /**
+     * Description: Get the shard serving a slot <br>
+     *
+     * @param slot <br>
+     * @return Return shard index from 0 to {@link #size()} - 1 <br>
+     * @author agent <br>
+     */
+    int shardOfSlot(int slot);
+
+    default int shardOf(String key) {
+        return shardOfSlot(slotOf(key));
+    }
+
+    default int shardOf(byte[] key) {
+        return shardOfSlot(slotOf(key));
+    }
+}
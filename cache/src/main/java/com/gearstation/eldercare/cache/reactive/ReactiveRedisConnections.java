@@ -0,0 +1,124 @@
+package com.gearstation.eldercare.cache.reactive;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntFunction;
+
+/**
+ * Description: One multiplexed Lettuce connection per DB index, opened without blocking on first use. <br>
+ * A connection serves any number of concurrent commands, so no pool is needed. A failed connect isn't cached.
+ * Values which may be compressed by ValueCompressor are read and written on a second connection per DB whose values
+ * are raw bytes, see {@link #valueCommands(int)} <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:05 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class ReactiveRedisConnections implements Closeable {
+
+    private final RedisClient redisClient;
+    private final IntFunction<RedisURI> uriFactory;
+    private final Map<Integer, Mono<RedisReactiveCommands<String, String>>> commands = new ConcurrentHashMap<>();
+    private final Map<Integer, Mono<RedisReactiveCommands<String, byte[]>>> valueCommands = new ConcurrentHashMap<>();
+    private final Queue<StatefulRedisConnection<String, ?>> connections = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param redisClient Client sharing the event loops <br>
+     * @param uriFactory  Build URI of given DB index <br>
+     */
+    public ReactiveRedisConnections(RedisClient redisClient, IntFunction<RedisURI> uriFactory) {
+        this.redisClient = redisClient;
+        this.uriFactory = uriFactory;
+    }
+
+    /**
+     * Description: Get commands bound to specified DB <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return commands once connection is open <br>
+     * @author agent <br>
+     */
+    public Mono<RedisReactiveCommands<String, String>> commands(int dbIndex) {
+        return commands.computeIfAbsent(dbIndex, index -> connect(index, StringCodec.UTF8, commands));
+    }
+
+    /**
+     * Description: Get commands bound to specified DB whose values are raw bytes, for values which may be compressed <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return commands once connection is open <br>
+     * @author agent <br>
+     */
+    public Mono<RedisReactiveCommands<String, byte[]>> valueCommands(int dbIndex) {
+        return valueCommands.computeIfAbsent(dbIndex, index -> connect(index, StoredValueCodec.INSTANCE, valueCommands));
+    }
+
+    private <V> Mono<RedisReactiveCommands<String, V>> connect(int dbIndex, RedisCodec<String, V> codec,
+                                                                Map<Integer, Mono<RedisReactiveCommands<String, V>>> opened) {
+        return Mono.fromCompletionStage(() -> redisClient.connectAsync(codec, uriFactory.apply(dbIndex)))
+                .doOnNext(connection -> {
+                    log.info("Open reactive Redis connection for DB {}", dbIndex);
+                    connections.add(connection);
+                })
+                .doOnError(e -> {
+                    log.error("Cannot connect reactive Redis to DB {}: {}", dbIndex, e.getMessage());
+                    opened.remove(dbIndex);
+                })
+                .map(StatefulRedisConnection::reactive)
+                .cache();
+    }
+
+    @Override
+    public void close() {
+        commands.clear();
+        valueCommands.clear();
+        StatefulRedisConnection<String, ?> connection;
+        while ((connection = connections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Description: UTF-8 keys and raw byte values <br>
+     */
+    private static final class StoredValueCodec implements RedisCodec<String, byte[]> {
+
+        private static final StoredValueCodec INSTANCE = new StoredValueCodec();
+
+        @Override
+        public String decodeKey(ByteBuffer bytes) {
+            return StringCodec.UTF8.decodeKey(bytes);
+        }
+
+        @Override
+        public byte[] decodeValue(ByteBuffer bytes) {
+            return ByteArrayCodec.INSTANCE.decodeValue(bytes);
+        }
+
+        @Override
+        public ByteBuffer encodeKey(String key) {
+            return StringCodec.UTF8.encodeKey(key);
+        }
+
+        @Override
+        public ByteBuffer encodeValue(byte[] value) {
+            return ByteArrayCodec.INSTANCE.encodeValue(value);
+        }
+    }
+}
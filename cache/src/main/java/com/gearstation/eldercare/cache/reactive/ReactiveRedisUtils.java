@@ -0,0 +1,584 @@
+package com.gearstation.eldercare.cache.reactive;
+
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.utils.RedisScript;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanStream;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.reactive.RedisReactiveCommands;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Description: Non-blocking Redis tools on Lettuce, the reactive counterpart of RedisUtils <br>
+ * Nothing is sent until the returned publisher is subscribed. Unlike RedisUtils, failures aren't swallowed but
+ * signalled downstream, so callers decide with onErrorResume. Range and scan operations emit elements as they are
+ * requested: scans fetch the next cursor page and {@link #lrangeStream(String, int, int)} the next window only when
+ * downstream has demand, so a slow consumer never buffers a whole collection. String and hash values go through
+ * the same {@link ValueCompressor} as RedisUtils, so values written by either read back from the other. APPEND and
+ * SETRANGE can't rewrite a compressed value on a shared connection, they signal IllegalStateException for one.
+ * Writes of String and hash keys drop their near cache entries, here and on other nodes, like RedisUtils <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:05 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Component
+@ConditionalOnProperty(prefix = "eldercare.cache.reactive", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveRedisUtils {
+
+    private final ReactiveRedisConnections reactiveRedisConnections;
+
+    private final ValueCompressor valueCompressor;
+
+    private final NearCache nearCache;
+
+    /* ---------------- Key ---------------- */
+
+    /**
+     * Description: Remove keys from specified DB <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param keys    <br>
+     * @return Return the number of removed keys <br>
+     * @author agent <br>
+     */
+    public Mono<Long> remove(int dbIndex, String... keys) {
+        return invalidating(mono(dbIndex, commands -> commands.del(keys)), dbIndex, keys);
+    }
+
+    public Mono<Boolean> isExisting(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.exists(key)).map(count -> count > 0);
+    }
+
+    public Mono<Boolean> expire(String key, int time, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.expire(key, time)), dbIndex, key);
+    }
+
+    public Mono<Long> ttl(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.ttl(key));
+    }
+
+    public Mono<Boolean> persist(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.persist(key));
+    }
+
+    public Mono<String> type(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.type(key));
+    }
+
+    /**
+     * Description: Stream pattern matched keys with SCAN, the next page is fetched on demand <br>
+     *
+     * @param pattern Glob-style pattern <br>
+     * @param count   COUNT hint per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return matched keys, a key may be emitted more than once <br>
+     * @author agent <br>
+     */
+    public Flux<String> scan(String pattern, long count, int dbIndex) {
+        ScanArgs args = ScanArgs.Builder.matches(pattern).limit(count);
+        return flux(dbIndex, commands -> ScanStream.scan(commands, args));
+    }
+
+    /* ---------------- String ---------------- */
+
+    public Mono<String> get(String key, int dbIndex) {
+        return valueMono(dbIndex, commands -> commands.get(key)).map(valueCompressor::decompress);
+    }
+
+    public Mono<String> set(String key, String value, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.set(key, valueCompressor.compress(value))), dbIndex, key);
+    }
+
+    public Mono<String> setex(String key, String value, int seconds, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.setex(key, seconds, valueCompressor.compress(value))), dbIndex, key);
+    }
+
+    /**
+     * Description: Set key with expire time only if it doesn't exist, in one command <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param seconds Expire time, unit: second <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return true if key was set <br>
+     * @author agent <br>
+     */
+    public Mono<Boolean> setnx(String key, String value, int seconds, int dbIndex) {
+        Mono<Boolean> set = valueMono(dbIndex, commands -> commands.set(key, valueCompressor.compress(value), SetArgs.Builder.nx().ex(seconds)))
+                .map("OK"::equals)
+                .defaultIfEmpty(false);
+        return invalidating(set, dbIndex, key);
+    }
+
+    public Mono<Boolean> setnx(String key, String value, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.setnx(key, valueCompressor.compress(value))), dbIndex, key);
+    }
+
+    public Mono<String> getSet(String key, String value, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.getset(key, valueCompressor.compress(value))).map(valueCompressor::decompress), dbIndex, key);
+    }
+
+    /**
+     * Description: Append value to a String which isn't compressed <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return UTF-8 length of value, or IllegalStateException if the value is compressed <br>
+     * @author agent <br>
+     */
+    public Mono<Long> append(String key, String value, int dbIndex) {
+        Mono<Long> edit = this.<Long>plainStringCommand(dbIndex, ScriptOutputType.INTEGER, key, "append", value)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(compressed(key, "APPEND"))));
+        return invalidating(edit, dbIndex, key);
+    }
+
+    /**
+     * Description: Replace part of a String which isn't compressed, from offset <br>
+     *
+     * @param key     <br>
+     * @param str     <br>
+     * @param offset  Start index in UTF-8 bytes <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return UTF-8 length of value, or IllegalStateException if the value is compressed <br>
+     * @author agent <br>
+     */
+    public Mono<Long> setRange(String key, String str, int offset, int dbIndex) {
+        Mono<Long> edit = this.<Long>plainStringCommand(dbIndex, ScriptOutputType.INTEGER, key, "setrange", Integer.toString(offset), str)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(compressed(key, "SETRANGE"))));
+        return invalidating(edit, dbIndex, key);
+    }
+
+    /**
+     * Description: Get part of a String, offsets count UTF-8 bytes of the value as written. A compressed value is
+     * read whole and cut once decompressed <br>
+     *
+     * @param key         <br>
+     * @param startOffset Start index, if it is negative, that means start from right <br>
+     * @param endOffset   End index <br>
+     * @param dbIndex     DB index from 0 to 15 <br>
+     * @return Return the part, empty string if key doesn't exist <br>
+     * @author agent <br>
+     */
+    public Mono<String> getrange(String key, int startOffset, int endOffset, int dbIndex) {
+        return this.<String>plainStringCommand(dbIndex, ScriptOutputType.VALUE, key, "getrange", Integer.toString(startOffset), Integer.toString(endOffset))
+                .switchIfEmpty(valueMono(dbIndex, commands -> commands.get(key))
+                        .map(stored -> new String(ValueCompressor.range(valueCompressor.toUtf8(stored), startOffset, endOffset), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Description: Get values by keys <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param keys    <br>
+     * @return Return values in order of keys, null for missing keys <br>
+     * @author agent <br>
+     */
+    public Mono<List<String>> mget(int dbIndex, String... keys) {
+        return valueFlux(dbIndex, commands -> commands.mget(keys))
+                .collectList()
+                .map(this::valuesOf);
+    }
+
+    public Mono<String> mset(Map<String, String> keysvalues, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.mset(compress(keysvalues))), dbIndex, keysvalues.keySet().toArray(new String[0]));
+    }
+
+    public Mono<Boolean> msetnx(Map<String, String> keysvalues, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.msetnx(compress(keysvalues))), dbIndex, keysvalues.keySet().toArray(new String[0]));
+    }
+
+    public Mono<Long> incr(String key, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.incr(key)), dbIndex, key);
+    }
+
+    public Mono<Long> incrBy(String key, long increment, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.incrby(key, increment)), dbIndex, key);
+    }
+
+    public Mono<Long> decr(String key, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.decr(key)), dbIndex, key);
+    }
+
+    public Mono<Long> decrBy(String key, long decrement, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.decrby(key, decrement)), dbIndex, key);
+    }
+
+    /**
+     * Description: Get length of a String in UTF-8 bytes of the value as written. A compressed value is read whole
+     * to get it <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return the length, 0 if key doesn't exist <br>
+     * @author agent <br>
+     */
+    public Mono<Long> serlen(String key, int dbIndex) {
+        return this.<Long>plainStringCommand(dbIndex, ScriptOutputType.INTEGER, key, "strlen")
+                .switchIfEmpty(valueMono(dbIndex, commands -> commands.get(key))
+                        .map(stored -> (long) valueCompressor.toUtf8(stored).length)
+                        .defaultIfEmpty(0L));
+    }
+
+    /* ---------------- Hash ---------------- */
+
+    public Mono<Boolean> hset(String key, String field, String value, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.hset(key, field, valueCompressor.compress(value))), dbIndex, key);
+    }
+
+    public Mono<Boolean> hsetnx(String key, String field, String value, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.hsetnx(key, field, valueCompressor.compress(value))), dbIndex, key);
+    }
+
+    public Mono<String> hmset(String key, Map<String, String> hash, int dbIndex) {
+        return invalidating(valueMono(dbIndex, commands -> commands.hmset(key, compress(hash))), dbIndex, key);
+    }
+
+    public Mono<String> hget(String key, String field, int dbIndex) {
+        return valueMono(dbIndex, commands -> commands.hget(key, field)).map(valueCompressor::decompress);
+    }
+
+    /**
+     * Description: Get values of fields <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param fields  <br>
+     * @return Return values in order of fields, null for missing fields <br>
+     * @author agent <br>
+     */
+    public Mono<List<String>> hmget(String key, int dbIndex, String... fields) {
+        return valueFlux(dbIndex, commands -> commands.hmget(key, fields))
+                .collectList()
+                .map(this::valuesOf);
+    }
+
+    public Mono<Long> hincrby(String key, String field, long increment, int dbIndex) {
+        return invalidating(mono(dbIndex, commands -> commands.hincrby(key, field, increment)), dbIndex, key);
+    }
+
+    public Mono<Boolean> hexists(String key, String field, int dbIndex) {
+        return mono(dbIndex, commands -> commands.hexists(key, field));
+    }
+
+    public Mono<Long> hlen(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.hlen(key));
+    }
+
+    public Mono<Long> hdel(String key, int dbIndex, String... fields) {
+        return invalidating(mono(dbIndex, commands -> commands.hdel(key, fields)), dbIndex, key);
+    }
+
+    public Flux<String> hkeys(String key, int dbIndex) {
+        return flux(dbIndex, commands -> commands.hkeys(key));
+    }
+
+    public Flux<String> hvals(String key, int dbIndex) {
+        return valueFlux(dbIndex, commands -> commands.hvals(key)).map(valueCompressor::decompress);
+    }
+
+    public Mono<Map<String, String>> hgetall(String key, int dbIndex) {
+        return valueMono(dbIndex, commands -> commands.hgetall(key)).map(this::decompress);
+    }
+
+    /**
+     * Description: Stream field-values of a hash with HSCAN, the next page is fetched on demand <br>
+     *
+     * @param key     <br>
+     * @param count   COUNT hint per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return field-values, a field may be emitted more than once <br>
+     * @author agent <br>
+     */
+    public Flux<KeyValue<String, String>> hscan(String key, long count, int dbIndex) {
+        ScanArgs args = ScanArgs.Builder.limit(count);
+        return valueFlux(dbIndex, commands -> ScanStream.hscan(commands, key, args))
+                .map(entry -> KeyValue.just(entry.getKey(), valueCompressor.decompress(entry.getValue())));
+    }
+
+    /* ---------------- List ---------------- */
+
+    public Mono<Long> lpush(String key, int dbIndex, String... strs) {
+        return mono(dbIndex, commands -> commands.lpush(key, strs));
+    }
+
+    public Mono<Long> rpush(String key, int dbIndex, String... strs) {
+        return mono(dbIndex, commands -> commands.rpush(key, strs));
+    }
+
+    public Mono<String> lset(String key, long index, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.lset(key, index, value));
+    }
+
+    public Mono<Long> lrem(String key, long count, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.lrem(key, count, value));
+    }
+
+    public Mono<String> ltrim(String key, long start, long end, int dbIndex) {
+        return mono(dbIndex, commands -> commands.ltrim(key, start, end));
+    }
+
+    public Mono<String> lpop(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.lpop(key));
+    }
+
+    public Mono<String> rpop(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.rpop(key));
+    }
+
+    public Mono<String> rpoplpush(String srckey, String dstkey, int dbIndex) {
+        return mono(dbIndex, commands -> commands.rpoplpush(srckey, dstkey));
+    }
+
+    public Mono<String> lindex(String key, long index, int dbIndex) {
+        return mono(dbIndex, commands -> commands.lindex(key, index));
+    }
+
+    public Mono<Long> llen(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.llen(key));
+    }
+
+    public Flux<String> lrange(String key, long start, long end, int dbIndex) {
+        return flux(dbIndex, commands -> commands.lrange(key, start, end));
+    }
+
+    /**
+     * Description: Stream a whole list with one LRANGE per window, the next window is fetched on demand <br>
+     *
+     * @param key      <br>
+     * @param pageSize Number of elements fetched per LRANGE <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @return Return elements from head to tail. Elements pushed or popped meanwhile may shift windows <br>
+     * @author agent <br>
+     */
+    public Flux<String> lrangeStream(String key, int pageSize, int dbIndex) {
+        return flux(dbIndex, commands -> Flux.range(0, Integer.MAX_VALUE)
+                .concatMap(page -> {
+                    long start = (long) page * pageSize;
+                    return commands.lrange(key, start, start + pageSize - 1).collectList();
+                }, 1)
+                .takeUntil(window -> window.size() < pageSize)
+                .concatMapIterable(Function.identity()));
+    }
+
+    /* ---------------- Set ---------------- */
+
+    public Mono<Long> sadd(String key, int dbIndex, String... values) {
+        return mono(dbIndex, commands -> commands.sadd(key, values));
+    }
+
+    public Mono<Long> srem(String key, int dbIndex, String... values) {
+        return mono(dbIndex, commands -> commands.srem(key, values));
+    }
+
+    public Mono<String> spop(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.spop(key));
+    }
+
+    public Flux<String> sdiff(int dbIndex, String... keys) {
+        return flux(dbIndex, commands -> commands.sdiff(keys));
+    }
+
+    public Flux<String> sinter(int dbIndex, String... keys) {
+        return flux(dbIndex, commands -> commands.sinter(keys));
+    }
+
+    public Flux<String> sunion(int dbIndex, String... keys) {
+        return flux(dbIndex, commands -> commands.sunion(keys));
+    }
+
+    public Mono<Boolean> smove(String srcKey, String dstKey, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.smove(srcKey, dstKey, value));
+    }
+
+    public Mono<Long> scard(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.scard(key));
+    }
+
+    public Mono<Boolean> sismember(String key, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.sismember(key, value));
+    }
+
+    public Mono<String> srandmember(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.srandmember(key));
+    }
+
+    public Flux<String> smembers(String key, int dbIndex) {
+        return flux(dbIndex, commands -> commands.smembers(key));
+    }
+
+    /**
+     * Description: Stream members of a set with SSCAN, the next page is fetched on demand <br>
+     *
+     * @param key     <br>
+     * @param count   COUNT hint per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return members, a member may be emitted more than once <br>
+     * @author agent <br>
+     */
+    public Flux<String> sscan(String key, long count, int dbIndex) {
+        ScanArgs args = ScanArgs.Builder.limit(count);
+        return flux(dbIndex, commands -> ScanStream.sscan(commands, key, args));
+    }
+
+    /* ---------------- Sorted set ---------------- */
+
+    public Mono<Long> zadd(String key, double score, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zadd(key, score, value));
+    }
+
+    public Flux<String> zrange(String key, long start, long end, int dbIndex) {
+        return flux(dbIndex, commands -> commands.zrange(key, start, end));
+    }
+
+    public Flux<ScoredValue<String>> zrangeWithScores(String key, long start, long end, int dbIndex) {
+        return flux(dbIndex, commands -> commands.zrangeWithScores(key, start, end));
+    }
+
+    public Flux<String> zrevrange(String key, long start, long end, int dbIndex) {
+        return flux(dbIndex, commands -> commands.zrevrange(key, start, end));
+    }
+
+    /**
+     * Description: Return desc order of value between specified score range, same as RedisUtils#zrangebyscore <br>
+     *
+     * @param key      <br>
+     * @param scoreMax <br>
+     * @param scoreMin <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @return Return values <br>
+     * @author agent <br>
+     */
+    public Flux<String> zrangebyscore(String key, String scoreMax, String scoreMin, int dbIndex) {
+        return flux(dbIndex, commands -> commands.zrevrangebyscore(key, scoreMax, scoreMin));
+    }
+
+    public Mono<Long> zcount(String key, String scoreMin, String scoreMax, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zcount(key, scoreMin, scoreMax));
+    }
+
+    public Mono<Long> zrem(String key, int dbIndex, String... values) {
+        return mono(dbIndex, commands -> commands.zrem(key, values));
+    }
+
+    public Mono<Double> zincrby(String key, double score, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zincrby(key, score, value));
+    }
+
+    public Mono<Long> zrank(String key, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zrank(key, value));
+    }
+
+    public Mono<Long> zrevrank(String key, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zrevrank(key, value));
+    }
+
+    public Mono<Long> zcard(String key, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zcard(key));
+    }
+
+    public Mono<Double> zscore(String key, String value, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zscore(key, value));
+    }
+
+    public Mono<Long> zremrangeByRank(String key, long start, long end, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zremrangebyrank(key, start, end));
+    }
+
+    public Mono<Long> zremrangeByScore(String key, double start, double end, int dbIndex) {
+        return mono(dbIndex, commands -> commands.zremrangebyscore(key, start, end));
+    }
+
+    /**
+     * Description: Stream members and scores of a sorted set with ZSCAN, the next page is fetched on demand <br>
+     *
+     * @param key     <br>
+     * @param count   COUNT hint per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return members with scores, in no particular order <br>
+     * @author agent <br>
+     */
+    public Flux<ScoredValue<String>> zscan(String key, long count, int dbIndex) {
+        ScanArgs args = ScanArgs.Builder.limit(count);
+        return flux(dbIndex, commands -> ScanStream.zscan(commands, key, args));
+    }
+
+    /**
+     * Description: Drop near cache entries of written keys once the write is done, failed or cancelled, here and on
+     * other nodes, as RedisUtils does <br>
+     */
+    private <T> Mono<T> invalidating(Mono<T> write, int dbIndex, String... keys) {
+        return write.doFinally(signal -> nearCache.invalidate(dbIndex, keys));
+    }
+
+    private <T> Mono<T> mono(int dbIndex, Function<RedisReactiveCommands<String, String>, Mono<T>> command) {
+        return reactiveRedisConnections.commands(dbIndex).flatMap(command);
+    }
+
+    private <T> Flux<T> flux(int dbIndex, Function<RedisReactiveCommands<String, String>, Flux<T>> command) {
+        return reactiveRedisConnections.commands(dbIndex).flatMapMany(command);
+    }
+
+    private <T> Mono<T> valueMono(int dbIndex, Function<RedisReactiveCommands<String, byte[]>, Mono<T>> command) {
+        return reactiveRedisConnections.valueCommands(dbIndex).flatMap(command);
+    }
+
+    private <T> Flux<T> valueFlux(int dbIndex, Function<RedisReactiveCommands<String, byte[]>, Flux<T>> command) {
+        return reactiveRedisConnections.valueCommands(dbIndex).flatMapMany(command);
+    }
+
+    /**
+     * Description: Run a command on a String unless its value is compressed, with {@link RedisScript#PLAIN_STRING_COMMAND} <br>
+     *
+     * @return Return reply of the command, empty if the value is compressed <br>
+     */
+    private <T> Mono<T> plainStringCommand(int dbIndex, ScriptOutputType type, String key, String... args) {
+        RedisScript script = RedisScript.PLAIN_STRING_COMMAND;
+        String[] keys = {key};
+        return mono(dbIndex, commands -> commands.<T>evalsha(script.getSha1(), type, keys, args)
+                .onErrorResume(RedisNoScriptException.class, e -> commands.eval(script.getSource(), type, keys, args))
+                .next());
+    }
+
+    private static IllegalStateException compressed(String key, String command) {
+        return new IllegalStateException(command + " can't edit compressed value of " + key + ", use RedisUtils");
+    }
+
+    private Map<String, byte[]> compress(Map<String, String> values) {
+        Map<String, byte[]> stored = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+        values.forEach((key, value) -> stored.put(key, valueCompressor.compress(value)));
+        return stored;
+    }
+
+    private Map<String, String> decompress(Map<String, byte[]> stored) {
+        Map<String, String> values = new LinkedHashMap<>(stored.size() * 4 / 3 + 1);
+        stored.forEach((key, value) -> values.put(key, valueCompressor.decompress(value)));
+        return values;
+    }
+
+    private List<String> valuesOf(List<KeyValue<String, byte[]>> keyValues) {
+        return keyValues.stream()
+                .map(keyValue -> keyValue.hasValue() ? valueCompressor.decompress(keyValue.getValue()) : null)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,616 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.pool.ReadFrom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.SortingParams;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Description: Non-blocking facade of {@link RedisUtils}. <br>
+ * Every method runs its RedisUtils counterpart on the dedicated redisAsyncExecutor and returns at once, so a web
+ * thread can start several cache calls and join them. Replies and failure values are the same as RedisUtils, and
+ * calls made inside {@link RedisUtils#readFrom(ReadFrom, Supplier)} read where it says <br>
+ * Example:
+ * <pre>
+ *     CompletableFuture&lt;String&gt; profile = asyncRedisUtils.get("elder:42", 1);
+ *     CompletableFuture&lt;Map&lt;String, String&gt;&gt; device = asyncRedisUtils.hgetall("device:7", 2);
+ *     CompletableFuture.allOf(profile, device).join();
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:02 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Component
+public class AsyncRedisUtils {
+
+    private final RedisUtils redisUtils;
+
+    private final Executor redisAsyncExecutor;
+
+    @Autowired
+    public AsyncRedisUtils(RedisUtils redisUtils, @Qualifier("redisAsyncExecutor") Executor redisAsyncExecutor) {
+        this.redisUtils = redisUtils;
+        this.redisAsyncExecutor = redisAsyncExecutor;
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#get(String, int)} <br>
+     */
+    public CompletableFuture<String> get(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.get(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#set(String, String, int)} <br>
+     */
+    public CompletableFuture<String> set(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.set(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#remove(int, String...)} <br>
+     */
+    public CompletableFuture<Long> remove(final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.remove(dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#append(String, String, int)} <br>
+     */
+    public CompletableFuture<Long> append(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.append(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#isExisting(String, int)} <br>
+     */
+    public CompletableFuture<Boolean> isExisting(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.isExisting(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#flushDB()} <br>
+     */
+    public CompletableFuture<String> flushDB() {
+        return submit(() -> redisUtils.flushDB());
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#expire(String, int, int)} <br>
+     */
+    public CompletableFuture<Long> expire(final String key, final int time, final int dbIndex) {
+        return submit(() -> redisUtils.expire(key, time, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#ttl(String, int)} <br>
+     */
+    public CompletableFuture<Long> ttl(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.ttl(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#persist(String, int)} <br>
+     */
+    public CompletableFuture<Long> persist(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.persist(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#setex(String, String, int, int)} <br>
+     */
+    public CompletableFuture<String> setex(final String key, final String value, final int seconds, final int dbIndex) {
+        return submit(() -> redisUtils.setex(key, value, seconds, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#setnx(String, String, int)} <br>
+     */
+    public CompletableFuture<Long> setnx(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.setnx(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#getSet(String, String, int)} <br>
+     */
+    public CompletableFuture<String> getSet(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.getSet(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#setRange(String, String, int, int)} <br>
+     */
+    public CompletableFuture<Long> setRange(final String key, final String str, final int offset, final int dbIndex) {
+        return submit(() -> redisUtils.setRange(key, str, offset, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#mget(int, String...)} <br>
+     */
+    public CompletableFuture<List<String>> mget(final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.mget(dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#mset(int, String...)} <br>
+     */
+    public CompletableFuture<String> mset(final int dbIndex, final String... keysvalues) {
+        return submit(() -> redisUtils.mset(dbIndex, keysvalues));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#msetnx(int, String...)} <br>
+     */
+    public CompletableFuture<Long> msetnx(final int dbIndex, final String... keysvalues) {
+        return submit(() -> redisUtils.msetnx(dbIndex, keysvalues));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#getrange(String, int, int, int)} <br>
+     */
+    public CompletableFuture<String> getrange(final String key, final int startOffset, final int endOffset, final int dbIndex) {
+        return submit(() -> redisUtils.getrange(key, startOffset, endOffset, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#incr(String, int)} <br>
+     */
+    public CompletableFuture<Long> incr(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.incr(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#incrBy(String, Long, int)} <br>
+     */
+    public CompletableFuture<Long> incrBy(final String key, final Long increment, final int dbIndex) {
+        return submit(() -> redisUtils.incrBy(key, increment, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#decr(String, int)} <br>
+     */
+    public CompletableFuture<Long> decr(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.decr(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#decrBy(String, Long, int)} <br>
+     */
+    public CompletableFuture<Long> decrBy(final String key, final Long decrement, final int dbIndex) {
+        return submit(() -> redisUtils.decrBy(key, decrement, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#serlen(String, int)} <br>
+     */
+    public CompletableFuture<Long> serlen(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.serlen(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hset(String, String, String, int)} <br>
+     */
+    public CompletableFuture<Long> hset(final String key, final String field, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.hset(key, field, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hsetnx(String, String, String, int)} <br>
+     */
+    public CompletableFuture<Long> hsetnx(final String key, final String field, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.hsetnx(key, field, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hmset(String, Map<String, String>, int)} <br>
+     */
+    public CompletableFuture<String> hmset(final String key, final Map<String, String> hash, final int dbIndex) {
+        return submit(() -> redisUtils.hmset(key, hash, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hget(String, String, int)} <br>
+     */
+    public CompletableFuture<String> hget(final String key, final String field, final int dbIndex) {
+        return submit(() -> redisUtils.hget(key, field, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hmget(String, int, String...)} <br>
+     */
+    public CompletableFuture<List<String>> hmget(final String key, final int dbIndex, final String... fields) {
+        return submit(() -> redisUtils.hmget(key, dbIndex, fields));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hincrby(String, String, Long, int)} <br>
+     */
+    public CompletableFuture<Long> hincrby(final String key, final String field, final Long increment, final int dbIndex) {
+        return submit(() -> redisUtils.hincrby(key, field, increment, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hexists(String, String, int)} <br>
+     */
+    public CompletableFuture<Boolean> hexists(final String key, final String field, final int dbIndex) {
+        return submit(() -> redisUtils.hexists(key, field, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hlen(String, int)} <br>
+     */
+    public CompletableFuture<Long> hlen(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.hlen(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hdel(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> hdel(final String key, final int dbIndex, final String... fields) {
+        return submit(() -> redisUtils.hdel(key, dbIndex, fields));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hkeys(String, int)} <br>
+     */
+    public CompletableFuture<Set<String>> hkeys(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.hkeys(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hvals(String, int)} <br>
+     */
+    public CompletableFuture<List<String>> hvals(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.hvals(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hgetall(String, int)} <br>
+     */
+    public CompletableFuture<Map<String, String>> hgetall(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.hgetall(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lpush(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> lpush(final String key, final int dbIndex, final String... strs) {
+        return submit(() -> redisUtils.lpush(key, dbIndex, strs));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#rpush(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> rpush(final String key, final int dbIndex, final String... strs) {
+        return submit(() -> redisUtils.rpush(key, dbIndex, strs));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#linsert(String, ListPosition, String, String, int)} <br>
+     */
+    public CompletableFuture<Long> linsert(final String key, final ListPosition where, final String pivot, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.linsert(key, where, pivot, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lset(String, Long, String, int)} <br>
+     */
+    public CompletableFuture<String> lset(final String key, final Long index, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.lset(key, index, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lrem(String, long, String, int)} <br>
+     */
+    public CompletableFuture<Long> lrem(final String key, final long count, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.lrem(key, count, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#ltrim(String, long, long, int)} <br>
+     */
+    public CompletableFuture<String> ltrim(final String key, final long start, final long end, final int dbIndex) {
+        return submit(() -> redisUtils.ltrim(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lpop(String, int)} <br>
+     */
+    public CompletableFuture<String> lpop(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.lpop(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#rpop(String, int)} <br>
+     */
+    public CompletableFuture<String> rpop(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.rpop(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#rpoplpush(String, String, int)} <br>
+     */
+    public CompletableFuture<String> rpoplpush(final String srckey, final String dstkey, final int dbIndex) {
+        return submit(() -> redisUtils.rpoplpush(srckey, dstkey, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lindex(String, long, int)} <br>
+     */
+    public CompletableFuture<String> lindex(final String key, final long index, final int dbIndex) {
+        return submit(() -> redisUtils.lindex(key, index, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#llen(String, int)} <br>
+     */
+    public CompletableFuture<Long> llen(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.llen(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#lrange(String, long, long, int)} <br>
+     */
+    public CompletableFuture<List<String>> lrange(final String key, final long start, final long end, final int dbIndex) {
+        return submit(() -> redisUtils.lrange(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sort(String, SortingParams, int)} <br>
+     */
+    public CompletableFuture<List<String>> sort(final String key, final SortingParams sortingParameters, final int dbIndex) {
+        return submit(() -> redisUtils.sort(key, sortingParameters, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sort(String, int)} <br>
+     */
+    public CompletableFuture<List<String>> sort(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.sort(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sadd(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> sadd(final String key, final int dbIndex, final String... values) {
+        return submit(() -> redisUtils.sadd(key, dbIndex, values));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#srem(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> srem(final String key, final int dbIndex, final String... values) {
+        return submit(() -> redisUtils.srem(key, dbIndex, values));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#spop(String, int)} <br>
+     */
+    public CompletableFuture<String> spop(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.spop(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sdiff(int, String...)} <br>
+     */
+    public CompletableFuture<Set<String>> sdiff(final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sdiff(dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sdiffstore(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> sdiffstore(final String dstKey, final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sdiffstore(dstKey, dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sinter(int, String...)} <br>
+     */
+    public CompletableFuture<Set<String>> sinter(final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sinter(dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sinterstore(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> sinterstore(final String dstKey, final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sinterstore(dstKey, dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sunion(int, String...)} <br>
+     */
+    public CompletableFuture<Set<String>> sunion(final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sunion(dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sunionstore(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> sunionstore(final String dstKey, final int dbIndex, final String... keys) {
+        return submit(() -> redisUtils.sunionstore(dstKey, dbIndex, keys));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#smove(String, String, String, int)} <br>
+     */
+    public CompletableFuture<Long> smove(final String srcKey, final String dstKey, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.smove(srcKey, dstKey, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#scard(String, int)} <br>
+     */
+    public CompletableFuture<Long> scard(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.scard(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#sismember(String, String, int)} <br>
+     */
+    public CompletableFuture<Boolean> sismember(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.sismember(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#srandmember(String, int)} <br>
+     */
+    public CompletableFuture<String> srandmember(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.srandmember(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#smembers(String, int)} <br>
+     */
+    public CompletableFuture<Set<String>> smembers(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.smembers(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zadd(String, double, String, int)} <br>
+     */
+    public CompletableFuture<Long> zadd(final String key, final double score, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.zadd(key, score, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrange(String, long, long, int)} <br>
+     */
+    public CompletableFuture<Set<String>> zrange(final String key, final long start, final long end, final int dbIndex) {
+        return submit(() -> redisUtils.zrange(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zcount(String, double, double, int)} <br>
+     */
+    public CompletableFuture<Long> zcount(final String key, final double start, final double end, final int dbIndex) {
+        return submit(() -> redisUtils.zcount(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#hincrBy(String, String, long, int)} <br>
+     */
+    public CompletableFuture<Long> hincrBy(final String key, final String field, final long increment, final int dbIndex) {
+        return submit(() -> redisUtils.hincrBy(key, field, increment, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrem(String, int, String...)} <br>
+     */
+    public CompletableFuture<Long> zrem(final String key, final int dbIndex, final String... values) {
+        return submit(() -> redisUtils.zrem(key, dbIndex, values));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zincrby(String, double, String, int)} <br>
+     */
+    public CompletableFuture<Double> zincrby(final String key, final double score, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.zincrby(key, score, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrank(String, String, int)} <br>
+     */
+    public CompletableFuture<Long> zrank(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.zrank(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrevrank(String, String, int)} <br>
+     */
+    public CompletableFuture<Long> zrevrank(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.zrevrank(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrevrange(String, long, long, int)} <br>
+     */
+    public CompletableFuture<Set<String>> zrevrange(final String key, final long start, final long end, final int dbIndex) {
+        return submit(() -> redisUtils.zrevrange(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zrangebyscore(String, String, String, int)} <br>
+     */
+    public CompletableFuture<Set<String>> zrangebyscore(final String key, final String scoreMax, final String scoreMin, final int dbIndex) {
+        return submit(() -> redisUtils.zrangebyscore(key, scoreMax, scoreMin, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zcount(String, String, String, int)} <br>
+     */
+    public CompletableFuture<Long> zcount(final String key, final String scoreMin, final String scoreMax, final int dbIndex) {
+        return submit(() -> redisUtils.zcount(key, scoreMin, scoreMax, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zcard(String, int)} <br>
+     */
+    public CompletableFuture<Long> zcard(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.zcard(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zscore(String, String, int)} <br>
+     */
+    public CompletableFuture<Double> zscore(final String key, final String value, final int dbIndex) {
+        return submit(() -> redisUtils.zscore(key, value, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zremrangeByRank(String, long, long, int)} <br>
+     */
+    public CompletableFuture<Long> zremrangeByRank(final String key, final long start, final long end, final int dbIndex) {
+        return submit(() -> redisUtils.zremrangeByRank(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#zremrangeByScore(String, double, double, int)} <br>
+     */
+    public CompletableFuture<Long> zremrangeByScore(final String key, final double start, final double end, final int dbIndex) {
+        return submit(() -> redisUtils.zremrangeByScore(key, start, end, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#keys(String, int)} <br>
+     */
+    public CompletableFuture<Set<String>> keys(final String pattern, final int dbIndex) {
+        return submit(() -> redisUtils.keys(pattern, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisUtils#type(String, int)} <br>
+     */
+    public CompletableFuture<String> type(final String key, final int dbIndex) {
+        return submit(() -> redisUtils.type(key, dbIndex));
+    }
+
+    /**
+     * Description: Async {@link RedisBatch#execute()} <br>
+     */
+    public CompletableFuture<Boolean> execute(final RedisBatch batch) {
+        return submit(batch::execute);
+    }
+
+    /**
+     * Description: Run call on the executor, with the {@link RedisUtils#readFrom(ReadFrom, Supplier)} choice of the
+     * submitting thread, since it lives in a thread local <br>
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        ReadFrom readFrom = RedisUtils.currentReadFrom();
+        Supplier<T> task = readFrom == null ? call : () -> redisUtils.readFrom(readFrom, call);
+        return CompletableFuture.supplyAsync(task, redisAsyncExecutor);
+    }
+}
@@ -0,0 +1,71 @@
+package com.gearstation.eldercare.cache.utils;
+
+/**
+ * Description: Typed result of one command queued in a {@link RedisBatch}. <br>
+ * The value is available once {@link RedisBatch#execute()} has returned <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:56 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class BatchResponse<T> {
+
+    private volatile boolean done;
+    private T value;
+    private Exception error;
+
+    /**
+     * Description: Get value replied by Redis <br>
+     *
+     * @return Return replied value, or null if the command failed <br>
+     * @throws IllegalStateException if the batch has not been executed yet <br>
+     * @author agent <br>
+     */
+    public T get() {
+        if (!done) {
+            throw new IllegalStateException("Batch has not been executed yet");
+        }
+        return value;
+    }
+
+    /**
+     * Description: Check whether the owning batch has been executed <br>
+     *
+     * @return Return true once a reply or a failure is recorded <br>
+     * @author agent <br>
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Description: Check whether the command failed <br>
+     *
+     * @return Return true if Redis replied an error or the batch could not be sent <br>
+     * @author agent <br>
+     */
+    public boolean isFailed() {
+        return done && error != null;
+    }
+
+    /**
+     * Description: Get failure of the command <br>
+     *
+     * @return Return the failure, or null if the command succeeded <br>
+     * @author agent <br>
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    void complete(T value) {
+        this.value = value;
+        this.done = true;
+    }
+
+    void fail(Exception error) {
+        this.error = error;
+        this.done = true;
+    }
+}
@@ -0,0 +1,790 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLease;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.ShardRouter;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.SortingParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Description: Queue of Redis commands sent to one DB in a single pipeline per shard <br>
+ * Commands mirror the ones of {@link RedisUtils} without the dbIndex parameter. Each of them returns a
+ * {@link BatchResponse} which is filled when {@link #execute()} is called. Nothing is sent before that, and
+ * one connection per shard is used for the whole batch. A multi-key command whose keys live in several slots fails
+ * in its response. A batch doesn't follow Redis Cluster redirects, its commands fail during resharding. A batch isn't thread safe and should be used by one caller.
+ * Values are compressed and decompressed by the {@link ValueCompressor} of {@link RedisUtils}, so both read each
+ * other's writes. APPEND, SETRANGE, GETRANGE and STRLEN leave a compressed value alone and fail in their response,
+ * since editing it takes a read and a write; such keys should be edited through RedisUtils <br>
+ * Example:
+ * <pre>
+ *     RedisBatch batch = redisUtils.batch(1);
+ *     batch.hset("device:42", "lastSeen", now);
+ *     BatchResponse&lt;Long&gt; beats = batch.incr("device:42:beats");
+ *     batch.execute();
+ *     beats.get();
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 20:56 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisBatch {
+
+    /**
+     * Command tag of batch metrics, a whole pipeline is timed as one command
+     */
+    static final String PIPELINE = "PIPELINE";
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final NearCache nearCache;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final ValueCompressor valueCompressor;
+    private final int dbIndex;
+    private final List<QueuedCommand<?, ?>> commands = new ArrayList<>();
+    private final List<String> writtenKeys = new ArrayList<>();
+
+    RedisBatch(JedisLeaseManager jedisLeaseManager, NearCache nearCache, RedisCommandMetrics redisCommandMetrics,
+               ValueCompressor valueCompressor, int dbIndex) {
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.nearCache = nearCache;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.valueCompressor = valueCompressor;
+        this.dbIndex = dbIndex;
+    }
+
+    /**
+     * Description: Get the number of queued commands <br>
+     *
+     * @return Return the number of commands waiting for execute <br>
+     * @author agent <br>
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Description: Send all queued commands in one pipeline per shard, fill their responses and release the
+     * connections. <br>
+     * The batch is empty afterwards and can be reused <br>
+     *
+     * @return Return true if the pipelines were sent, or false if a connection failed. Errors replied for single
+     * commands are recorded in their own response <br>
+     * @author agent <br>
+     */
+    public boolean execute() {
+        if (commands.isEmpty()) {
+            return true;
+        }
+        Map<Integer, List<QueuedCommand<?, ?>>> queuedByShard = new LinkedHashMap<>();
+        for (QueuedCommand<?, ?> command : commands) {
+            queuedByShard.computeIfAbsent(command.shard, shard -> new ArrayList<>()).add(command);
+        }
+        String[] written = writtenKeys.toArray(new String[0]);
+        commands.clear();
+        writtenKeys.clear();
+        boolean sent = true;
+        try {
+            for (Map.Entry<Integer, List<QueuedCommand<?, ?>>> queued : queuedByShard.entrySet()) {
+                sent &= execute(queued.getKey(), queued.getValue());
+            }
+        } finally {
+            nearCache.invalidate(dbIndex, written);
+        }
+        return sent;
+    }
+
+    private boolean execute(int shard, List<QueuedCommand<?, ?>> queued) {
+        long start = System.nanoTime();
+        try (JedisLease lease = jedisLeaseManager.acquireShard(shard, dbIndex)) {
+            Pipeline pipeline = lease.getJedis().pipelined();
+            for (QueuedCommand<?, ?> command : queued) {
+                command.send(pipeline);
+            }
+            pipeline.sync();
+            redisCommandMetrics.success(PIPELINE, dbIndex, start);
+        } catch (Exception e) {
+            redisCommandMetrics.failure(PIPELINE, dbIndex, start, e);
+            log.error(e.getMessage());
+            queued.forEach(command -> command.response.fail(e));
+            return false;
+        }
+        queued.forEach(QueuedCommand::collect);
+        return true;
+    }
+
+    /* ---------------- Key ---------------- */
+
+    /**
+     * Description: Queue GET, see {@link RedisUtils#get(String, int)} <br>
+     */
+    public BatchResponse<String> get(final String key) {
+        return queue(key, pipeline -> pipeline.get(SafeEncoder.encode(key)), valueCompressor::decompress);
+    }
+
+    /**
+     * Description: Queue SET, see {@link RedisUtils#set(String, String, int)} <br>
+     */
+    public BatchResponse<String> set(final String key, final String value) {
+        byte[] stored = valueCompressor.compress(value);
+        return queueWrite(key, pipeline -> pipeline.set(SafeEncoder.encode(key), stored));
+    }
+
+    /**
+     * Description: Queue DEL, see {@link RedisUtils#remove(int, String...)} <br>
+     */
+    public BatchResponse<Long> remove(final String... keys) {
+        return queueWrite(keys, pipeline -> pipeline.del(keys));
+    }
+
+    /**
+     * Description: Queue APPEND, see {@link RedisUtils#append(String, String, int)}. Fails on a compressed value <br>
+     */
+    public BatchResponse<Long> append(final String key, final String value) {
+        return queueWrite(key, plainString(key, "append", value), plainReply(key, "APPEND", Long.class));
+    }
+
+    /**
+     * Description: Queue EXISTS, see {@link RedisUtils#isExisting(String, int)} <br>
+     */
+    public BatchResponse<Boolean> isExisting(final String key) {
+        return queue(key, pipeline -> pipeline.exists(key));
+    }
+
+    /**
+     * Description: Queue EXPIRE, see {@link RedisUtils#expire(String, int, int)} <br>
+     */
+    public BatchResponse<Long> expire(final String key, final int time) {
+        return queueWrite(key, pipeline -> pipeline.expire(key, time));
+    }
+
+    /**
+     * Description: Queue TTL, see {@link RedisUtils#ttl(String, int)} <br>
+     */
+    public BatchResponse<Long> ttl(final String key) {
+        return queue(key, pipeline -> pipeline.ttl(key));
+    }
+
+    /**
+     * Description: Queue PERSIST, see {@link RedisUtils#persist(String, int)} <br>
+     */
+    public BatchResponse<Long> persist(final String key) {
+        return queue(key, pipeline -> pipeline.persist(key));
+    }
+
+    /**
+     * Description: Queue TYPE, see {@link RedisUtils#type(String, int)} <br>
+     */
+    public BatchResponse<String> type(final String key) {
+        return queue(key, pipeline -> pipeline.type(key));
+    }
+
+    /* ---------------- String ---------------- */
+
+    /**
+     * Description: Queue SETEX, see {@link RedisUtils#setex(String, String, int, int)} <br>
+     */
+    public BatchResponse<String> setex(final String key, final String value, final int seconds) {
+        byte[] stored = valueCompressor.compress(value);
+        return queueWrite(key, pipeline -> pipeline.setex(SafeEncoder.encode(key), seconds, stored));
+    }
+
+    /**
+     * Description: Queue SETNX, see {@link RedisUtils#setnx(String, String, int)} <br>
+     */
+    public BatchResponse<Long> setnx(final String key, final String value) {
+        return queueWrite(key, pipeline -> pipeline.setnx(key, value));
+    }
+
+    /**
+     * Description: Queue GETSET, see {@link RedisUtils#getSet(String, String, int)} <br>
+     */
+    public BatchResponse<String> getSet(final String key, final String value) {
+        byte[] stored = valueCompressor.compress(value);
+        return queueWrite(key, pipeline -> pipeline.getSet(SafeEncoder.encode(key), stored), valueCompressor::decompress);
+    }
+
+    /**
+     * Description: Queue SETRANGE, see {@link RedisUtils#setRange(String, String, int, int)}. Fails on a compressed
+     * value <br>
+     */
+    public BatchResponse<Long> setRange(final String key, final String str, final int offset) {
+        return queueWrite(key, plainString(key, "setrange", Integer.toString(offset), str), plainReply(key, "SETRANGE", Long.class));
+    }
+
+    /**
+     * Description: Queue MGET, see {@link RedisUtils#mget(int, String...)} <br>
+     */
+    public BatchResponse<List<String>> mget(final String... keys) {
+        return queue(keys, pipeline -> pipeline.mget(SafeEncoder.encodeMany(keys)), replies -> RedisUtils.decompress(valueCompressor, replies));
+    }
+
+    /**
+     * Description: Queue MSET, see {@link RedisUtils#mset(int, String...)} <br>
+     */
+    public BatchResponse<String> mset(final String... keysvalues) {
+        byte[][] stored = RedisUtils.compressValues(valueCompressor, keysvalues);
+        return queueWrite(RedisUtils.keysOf(keysvalues), pipeline -> pipeline.mset(stored));
+    }
+
+    /**
+     * Description: Queue MSETNX, see {@link RedisUtils#msetnx(int, String...)} <br>
+     */
+    public BatchResponse<Long> msetnx(final String... keysvalues) {
+        byte[][] stored = RedisUtils.compressValues(valueCompressor, keysvalues);
+        return queueWrite(RedisUtils.keysOf(keysvalues), pipeline -> pipeline.msetnx(stored));
+    }
+
+    /**
+     * Description: Queue GETRANGE, see {@link RedisUtils#getrange(String, int, int, int)}. Fails on a compressed
+     * value <br>
+     */
+    public BatchResponse<String> getrange(final String key, final int startOffset, final int endOffset) {
+        return queue(key, plainString(key, "getrange", Integer.toString(startOffset), Integer.toString(endOffset)),
+                plainReply(key, "GETRANGE", String.class));
+    }
+
+    /**
+     * Description: Queue INCR, see {@link RedisUtils#incr(String, int)} <br>
+     */
+    public BatchResponse<Long> incr(final String key) {
+        return queueWrite(key, pipeline -> pipeline.incr(key));
+    }
+
+    /**
+     * Description: Queue INCRBY, see {@link RedisUtils#incrBy(String, Long, int)} <br>
+     */
+    public BatchResponse<Long> incrBy(final String key, final Long increment) {
+        return queueWrite(key, pipeline -> pipeline.incrBy(key, increment));
+    }
+
+    /**
+     * Description: Queue DECR, see {@link RedisUtils#decr(String, int)} <br>
+     */
+    public BatchResponse<Long> decr(final String key) {
+        return queueWrite(key, pipeline -> pipeline.decr(key));
+    }
+
+    /**
+     * Description: Queue DECRBY, see {@link RedisUtils#decrBy(String, Long, int)} <br>
+     */
+    public BatchResponse<Long> decrBy(final String key, final Long decrement) {
+        return queueWrite(key, pipeline -> pipeline.decrBy(key, decrement));
+    }
+
+    /**
+     * Description: Queue STRLEN, see {@link RedisUtils#serlen(String, int)}. Fails on a compressed value <br>
+     */
+    public BatchResponse<Long> serlen(final String key) {
+        return queue(key, plainString(key, "strlen"), plainReply(key, "STRLEN", Long.class));
+    }
+
+    /* ---------------- Hash ---------------- */
+
+    /**
+     * Description: Queue HSET, see {@link RedisUtils#hset(String, String, String, int)} <br>
+     */
+    public BatchResponse<Long> hset(final String key, final String field, final String value) {
+        byte[] stored = valueCompressor.compress(value);
+        return queueWrite(key, pipeline -> pipeline.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), stored));
+    }
+
+    /**
+     * Description: Queue HSETNX, see {@link RedisUtils#hsetnx(String, String, String, int)} <br>
+     */
+    public BatchResponse<Long> hsetnx(final String key, final String field, final String value) {
+        byte[] stored = valueCompressor.compress(value);
+        return queueWrite(key, pipeline -> pipeline.hsetnx(SafeEncoder.encode(key), SafeEncoder.encode(field), stored));
+    }
+
+    /**
+     * Description: Queue HMSET, see {@link RedisUtils#hmset(String, Map, int)} <br>
+     */
+    public BatchResponse<String> hmset(final String key, final Map<String, String> hash) {
+        Map<byte[], byte[]> stored = new HashMap<>(hash.size() * 4 / 3 + 1);
+        hash.forEach((field, value) -> stored.put(SafeEncoder.encode(field), valueCompressor.compress(value)));
+        return queueWrite(key, pipeline -> pipeline.hmset(SafeEncoder.encode(key), stored));
+    }
+
+    /**
+     * Description: Queue HGET, see {@link RedisUtils#hget(String, String, int)} <br>
+     */
+    public BatchResponse<String> hget(final String key, final String field) {
+        return queue(key, pipeline -> pipeline.hget(SafeEncoder.encode(key), SafeEncoder.encode(field)), valueCompressor::decompress);
+    }
+
+    /**
+     * Description: Queue HMGET, see {@link RedisUtils#hmget(String, int, String...)} <br>
+     */
+    public BatchResponse<List<String>> hmget(final String key, final String... fields) {
+        return queue(key, pipeline -> pipeline.hmget(SafeEncoder.encode(key), SafeEncoder.encodeMany(fields)),
+                replies -> RedisUtils.decompress(valueCompressor, replies));
+    }
+
+    /**
+     * Description: Queue HINCRBY, see {@link RedisUtils#hincrby(String, String, Long, int)} <br>
+     */
+    public BatchResponse<Long> hincrby(final String key, final String field, final Long increment) {
+        return queueWrite(key, pipeline -> pipeline.hincrBy(key, field, increment));
+    }
+
+    /**
+     * Description: Queue HEXISTS, see {@link RedisUtils#hexists(String, String, int)} <br>
+     */
+    public BatchResponse<Boolean> hexists(final String key, final String field) {
+        return queue(key, pipeline -> pipeline.hexists(key, field));
+    }
+
+    /**
+     * Description: Queue HLEN, see {@link RedisUtils#hlen(String, int)} <br>
+     */
+    public BatchResponse<Long> hlen(final String key) {
+        return queue(key, pipeline -> pipeline.hlen(key));
+    }
+
+    /**
+     * Description: Queue HDEL, see {@link RedisUtils#hdel(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> hdel(final String key, final String... fields) {
+        return queueWrite(key, pipeline -> pipeline.hdel(key, fields));
+    }
+
+    /**
+     * Description: Queue HKEYS, see {@link RedisUtils#hkeys(String, int)} <br>
+     */
+    public BatchResponse<Set<String>> hkeys(final String key) {
+        return queue(key, pipeline -> pipeline.hkeys(key));
+    }
+
+    /**
+     * Description: Queue HVALS, see {@link RedisUtils#hvals(String, int)} <br>
+     */
+    public BatchResponse<List<String>> hvals(final String key) {
+        return queue(key, pipeline -> pipeline.hvals(SafeEncoder.encode(key)), replies -> RedisUtils.decompress(valueCompressor, replies));
+    }
+
+    /**
+     * Description: Queue HGETALL, see {@link RedisUtils#hgetall(String, int)} <br>
+     */
+    public BatchResponse<Map<String, String>> hgetall(final String key) {
+        return queue(key, pipeline -> pipeline.hgetAll(SafeEncoder.encode(key)), replies -> RedisUtils.decompress(valueCompressor, replies));
+    }
+
+    /* ---------------- List ---------------- */
+
+    /**
+     * Description: Queue LPUSH, see {@link RedisUtils#lpush(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> lpush(final String key, final String... strs) {
+        return queue(key, pipeline -> pipeline.lpush(key, strs));
+    }
+
+    /**
+     * Description: Queue RPUSH, see {@link RedisUtils#rpush(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> rpush(final String key, final String... strs) {
+        return queue(key, pipeline -> pipeline.rpush(key, strs));
+    }
+
+    /**
+     * Description: Queue LINSERT, see {@link RedisUtils#linsert(String, ListPosition, String, String, int)} <br>
+     */
+    public BatchResponse<Long> linsert(final String key, final ListPosition where, final String pivot, final String value) {
+        return queue(key, pipeline -> pipeline.linsert(key, where, pivot, value));
+    }
+
+    /**
+     * Description: Queue LSET, see {@link RedisUtils#lset(String, Long, String, int)} <br>
+     */
+    public BatchResponse<String> lset(final String key, final Long index, final String value) {
+        return queue(key, pipeline -> pipeline.lset(key, index, value));
+    }
+
+    /**
+     * Description: Queue LREM, see {@link RedisUtils#lrem(String, long, String, int)} <br>
+     */
+    public BatchResponse<Long> lrem(final String key, final long count, final String value) {
+        return queue(key, pipeline -> pipeline.lrem(key, count, value));
+    }
+
+    /**
+     * Description: Queue LTRIM, see {@link RedisUtils#ltrim(String, long, long, int)} <br>
+     */
+    public BatchResponse<String> ltrim(final String key, final long start, final long end) {
+        return queue(key, pipeline -> pipeline.ltrim(key, start, end));
+    }
+
+    /**
+     * Description: Queue LPOP, see {@link RedisUtils#lpop(String, int)} <br>
+     */
+    public BatchResponse<String> lpop(final String key) {
+        return queue(key, pipeline -> pipeline.lpop(key));
+    }
+
+    /**
+     * Description: Queue RPOP, see {@link RedisUtils#rpop(String, int)} <br>
+     */
+    public BatchResponse<String> rpop(final String key) {
+        return queue(key, pipeline -> pipeline.rpop(key));
+    }
+
+    /**
+     * Description: Queue RPOPLPUSH, see {@link RedisUtils#rpoplpush(String, String, int)} <br>
+     */
+    public BatchResponse<String> rpoplpush(final String srckey, final String dstkey) {
+        return queue(new String[]{srckey, dstkey}, pipeline -> pipeline.rpoplpush(srckey, dstkey));
+    }
+
+    /**
+     * Description: Queue LINDEX, see {@link RedisUtils#lindex(String, long, int)} <br>
+     */
+    public BatchResponse<String> lindex(final String key, final long index) {
+        return queue(key, pipeline -> pipeline.lindex(key, index));
+    }
+
+    /**
+     * Description: Queue LLEN, see {@link RedisUtils#llen(String, int)} <br>
+     */
+    public BatchResponse<Long> llen(final String key) {
+        return queue(key, pipeline -> pipeline.llen(key));
+    }
+
+    /**
+     * Description: Queue LRANGE, see {@link RedisUtils#lrange(String, long, long, int)} <br>
+     */
+    public BatchResponse<List<String>> lrange(final String key, final long start, final long end) {
+        return queue(key, pipeline -> pipeline.lrange(key, start, end));
+    }
+
+    /**
+     * Description: Queue SORT, see {@link RedisUtils#sort(String, SortingParams, int)} <br>
+     */
+    public BatchResponse<List<String>> sort(final String key, final SortingParams sortingParameters) {
+        return queue(key, pipeline -> pipeline.sort(key, sortingParameters));
+    }
+
+    /**
+     * Description: Queue SORT, see {@link RedisUtils#sort(String, int)} <br>
+     */
+    public BatchResponse<List<String>> sort(final String key) {
+        return queue(key, pipeline -> pipeline.sort(key));
+    }
+
+    /* ---------------- Set ---------------- */
+
+    /**
+     * Description: Queue SADD, see {@link RedisUtils#sadd(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> sadd(final String key, final String... values) {
+        return queue(key, pipeline -> pipeline.sadd(key, values));
+    }
+
+    /**
+     * Description: Queue SREM, see {@link RedisUtils#srem(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> srem(final String key, final String... values) {
+        return queue(key, pipeline -> pipeline.srem(key, values));
+    }
+
+    /**
+     * Description: Queue SPOP, see {@link RedisUtils#spop(String, int)} <br>
+     */
+    public BatchResponse<String> spop(final String key) {
+        return queue(key, pipeline -> pipeline.spop(key));
+    }
+
+    /**
+     * Description: Queue SDIFF, see {@link RedisUtils#sdiff(int, String...)} <br>
+     */
+    public BatchResponse<Set<String>> sdiff(final String... keys) {
+        return queue(keys, pipeline -> pipeline.sdiff(keys));
+    }
+
+    /**
+     * Description: Queue SDIFFSTORE, see {@link RedisUtils#sdiffstore(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> sdiffstore(final String dstKey, final String... keys) {
+        return queue(withKey(dstKey, keys), pipeline -> pipeline.sdiffstore(dstKey, keys));
+    }
+
+    /**
+     * Description: Queue SINTER, see {@link RedisUtils#sinter(int, String...)} <br>
+     */
+    public BatchResponse<Set<String>> sinter(final String... keys) {
+        return queue(keys, pipeline -> pipeline.sinter(keys));
+    }
+
+    /**
+     * Description: Queue SINTERSTORE, see {@link RedisUtils#sinterstore(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> sinterstore(final String dstKey, final String... keys) {
+        return queue(withKey(dstKey, keys), pipeline -> pipeline.sinterstore(dstKey, keys));
+    }
+
+    /**
+     * Description: Queue SUNION, see {@link RedisUtils#sunion(int, String...)} <br>
+     */
+    public BatchResponse<Set<String>> sunion(final String... keys) {
+        return queue(keys, pipeline -> pipeline.sunion(keys));
+    }
+
+    /**
+     * Description: Queue SUNIONSTORE, see {@link RedisUtils#sunionstore(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> sunionstore(final String dstKey, final String... keys) {
+        return queue(withKey(dstKey, keys), pipeline -> pipeline.sunionstore(dstKey, keys));
+    }
+
+    /**
+     * Description: Queue SMOVE, see {@link RedisUtils#smove(String, String, String, int)} <br>
+     */
+    public BatchResponse<Long> smove(final String srcKey, final String dstKey, final String value) {
+        return queue(new String[]{srcKey, dstKey}, pipeline -> pipeline.smove(srcKey, dstKey, value));
+    }
+
+    /**
+     * Description: Queue SCARD, see {@link RedisUtils#scard(String, int)} <br>
+     */
+    public BatchResponse<Long> scard(final String key) {
+        return queue(key, pipeline -> pipeline.scard(key));
+    }
+
+    /**
+     * Description: Queue SISMEMBER, see {@link RedisUtils#sismember(String, String, int)} <br>
+     */
+    public BatchResponse<Boolean> sismember(final String key, final String value) {
+        return queue(key, pipeline -> pipeline.sismember(key, value));
+    }
+
+    /**
+     * Description: Queue SRANDMEMBER, see {@link RedisUtils#srandmember(String, int)} <br>
+     */
+    public BatchResponse<String> srandmember(final String key) {
+        return queue(key, pipeline -> pipeline.srandmember(key));
+    }
+
+    /**
+     * Description: Queue SMEMBERS, see {@link RedisUtils#smembers(String, int)} <br>
+     */
+    public BatchResponse<Set<String>> smembers(final String key) {
+        return queue(key, pipeline -> pipeline.smembers(key));
+    }
+
+    /* ---------------- Sorted set ---------------- */
+
+    /**
+     * Description: Queue ZADD, see {@link RedisUtils#zadd(String, double, String, int)} <br>
+     */
+    public BatchResponse<Long> zadd(final String key, final double score, final String value) {
+        return queue(key, pipeline -> pipeline.zadd(key, score, value));
+    }
+
+    /**
+     * Description: Queue ZRANGE, see {@link RedisUtils#zrange(String, long, long, int)} <br>
+     */
+    public BatchResponse<Set<String>> zrange(final String key, final long start, final long end) {
+        return queue(key, pipeline -> pipeline.zrange(key, start, end));
+    }
+
+    /**
+     * Description: Queue ZCOUNT, see {@link RedisUtils#zcount(String, double, double, int)} <br>
+     */
+    public BatchResponse<Long> zcount(final String key, final double start, final double end) {
+        return queue(key, pipeline -> pipeline.zcount(key, start, end));
+    }
+
+    /**
+     * Description: Queue ZCOUNT, see {@link RedisUtils#zcount(String, String, String, int)} <br>
+     */
+    public BatchResponse<Long> zcount(final String key, final String scoreMin, final String scoreMax) {
+        return queue(key, pipeline -> pipeline.zcount(key, scoreMin, scoreMax));
+    }
+
+    /**
+     * Description: Queue ZREM, see {@link RedisUtils#zrem(String, int, String...)} <br>
+     */
+    public BatchResponse<Long> zrem(final String key, final String... values) {
+        return queue(key, pipeline -> pipeline.zrem(key, values));
+    }
+
+    /**
+     * Description: Queue ZINCRBY, see {@link RedisUtils#zincrby(String, double, String, int)} <br>
+     */
+    public BatchResponse<Double> zincrby(final String key, final double score, final String value) {
+        return queue(key, pipeline -> pipeline.zincrby(key, score, value));
+    }
+
+    /**
+     * Description: Queue ZRANK, see {@link RedisUtils#zrank(String, String, int)} <br>
+     */
+    public BatchResponse<Long> zrank(final String key, final String value) {
+        return queue(key, pipeline -> pipeline.zrank(key, value));
+    }
+
+    /**
+     * Description: Queue ZREVRANK, see {@link RedisUtils#zrevrank(String, String, int)} <br>
+     */
+    public BatchResponse<Long> zrevrank(final String key, final String value) {
+        return queue(key, pipeline -> pipeline.zrevrank(key, value));
+    }
+
+    /**
+     * Description: Queue ZREVRANGE, see {@link RedisUtils#zrevrange(String, long, long, int)} <br>
+     */
+    public BatchResponse<Set<String>> zrevrange(final String key, final long start, final long end) {
+        return queue(key, pipeline -> pipeline.zrevrange(key, start, end));
+    }
+
+    /**
+     * Description: Queue ZREVRANGEBYSCORE, see {@link RedisUtils#zrangebyscore(String, String, String, int)} <br>
+     */
+    public BatchResponse<Set<String>> zrangebyscore(final String key, final String scoreMax, final String scoreMin) {
+        return queue(key, pipeline -> pipeline.zrevrangeByScore(key, scoreMax, scoreMin));
+    }
+
+    /**
+     * Description: Queue ZCARD, see {@link RedisUtils#zcard(String, int)} <br>
+     */
+    public BatchResponse<Long> zcard(final String key) {
+        return queue(key, pipeline -> pipeline.zcard(key));
+    }
+
+    /**
+     * Description: Queue ZSCORE, see {@link RedisUtils#zscore(String, String, int)} <br>
+     */
+    public BatchResponse<Double> zscore(final String key, final String value) {
+        return queue(key, pipeline -> pipeline.zscore(key, value));
+    }
+
+    /**
+     * Description: Queue ZREMRANGEBYRANK, see {@link RedisUtils#zremrangeByRank(String, long, long, int)} <br>
+     */
+    public BatchResponse<Long> zremrangeByRank(final String key, final long start, final long end) {
+        return queue(key, pipeline -> pipeline.zremrangeByRank(key, start, end));
+    }
+
+    /**
+     * Description: Queue ZREMRANGEBYSCORE, see {@link RedisUtils#zremrangeByScore(String, double, double, int)} <br>
+     */
+    public BatchResponse<Long> zremrangeByScore(final String key, final double start, final double end) {
+        return queue(key, pipeline -> pipeline.zremrangeByScore(key, start, end));
+    }
+
+    private <T> BatchResponse<T> queueWrite(String key, Function<Pipeline, Response<T>> command) {
+        return queueWrite(key, command, Function.identity());
+    }
+
+    private <R, T> BatchResponse<T> queueWrite(String key, Function<Pipeline, Response<R>> command, Function<R, T> reply) {
+        writtenKeys.add(key);
+        return queue(key, command, reply);
+    }
+
+    private <T> BatchResponse<T> queueWrite(String[] keys, Function<Pipeline, Response<T>> command) {
+        Collections.addAll(writtenKeys, keys);
+        return queue(keys, command, Function.identity());
+    }
+
+    private <T> BatchResponse<T> queue(String key, Function<Pipeline, Response<T>> command) {
+        return queue(key, command, Function.identity());
+    }
+
+    /**
+     * Description: Queue a command whose reply is turned into the value of its response, like a stored value into
+     * the String it holds <br>
+     */
+    private <R, T> BatchResponse<T> queue(String key, Function<Pipeline, Response<R>> command, Function<R, T> reply) {
+        return queue(jedisLeaseManager.getShardRouter().shardOf(key), command, reply);
+    }
+
+    private <T> BatchResponse<T> queue(String[] keys, Function<Pipeline, Response<T>> command) {
+        return queue(keys, command, Function.identity());
+    }
+
+    /**
+     * Description: Queue a multi-key command, which fails at once if its keys live in several slots <br>
+     */
+    private <R, T> BatchResponse<T> queue(String[] keys, Function<Pipeline, Response<R>> command, Function<R, T> reply) {
+        int slot = jedisLeaseManager.getShardRouter().slotOf(keys);
+        if (slot == ShardRouter.SPREAD) {
+            BatchResponse<T> response = new BatchResponse<>();
+            response.fail(new IllegalArgumentException("Keys " + Arrays.toString(keys) + " live in several slots"));
+            return response;
+        }
+        return queue(jedisLeaseManager.getShardRouter().shardOfSlot(slot), command, reply);
+    }
+
+    private <R, T> BatchResponse<T> queue(int shard, Function<Pipeline, Response<R>> command, Function<R, T> reply) {
+        QueuedCommand<R, T> queued = new QueuedCommand<>(shard, command, reply);
+        commands.add(queued);
+        return queued.response;
+    }
+
+    /**
+     * Description: Command run through {@link RedisScript#PLAIN_STRING_COMMAND}, which replies nil instead of
+     * touching a compressed value <br>
+     */
+    private static Function<Pipeline, Response<Object>> plainString(String key, String... args) {
+        return pipeline -> RedisScript.PLAIN_STRING_COMMAND.eval(pipeline, Collections.singletonList(key), Arrays.asList(args));
+    }
+
+    private static <T> Function<Object, T> plainReply(String key, String command, Class<T> type) {
+        return reply -> {
+            if (reply == null) {
+                throw new IllegalStateException("Value of " + key + " is compressed, " + command + " it through RedisUtils");
+            }
+            return type.cast(reply);
+        };
+    }
+
+    private static String[] withKey(String key, String[] keys) {
+        String[] all = Arrays.copyOf(keys, keys.length + 1);
+        all[keys.length] = key;
+        return all;
+    }
+
+    private static final class QueuedCommand<R, T> {
+
+        private final int shard;
+        private final Function<Pipeline, Response<R>> command;
+        private final Function<R, T> reply;
+        private final BatchResponse<T> response = new BatchResponse<>();
+        private Response<R> pending;
+
+        private QueuedCommand(int shard, Function<Pipeline, Response<R>> command, Function<R, T> reply) {
+            this.shard = shard;
+            this.command = command;
+            this.reply = reply;
+        }
+
+        private void send(Pipeline pipeline) {
+            pending = command.apply(pipeline);
+        }
+
+        private void collect() {
+            try {
+                response.complete(reply.apply(pending.get()));
+            } catch (Exception e) {
+                log.error(e.getMessage());
+                response.fail(e);
+            }
+        }
+    }
+}
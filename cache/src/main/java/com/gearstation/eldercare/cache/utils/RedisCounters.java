@@ -0,0 +1,398 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Description: Write-behind counters, for increments too frequent to send one by one <br>
+ * Increments are added to a LongAdder cell per counter on this node, and the summed deltas are sent every flush
+ * interval, or sooner once about flush-threshold increments are pending. A flush sends one INCRBY or HINCRBY per
+ * counter, in one pipeline per shard, and shards in parallel. A flush which fails puts its deltas back for the next
+ * one. Pending deltas are flushed on close. Counters of this class see their increments at once through
+ * {@link #get(String, int)} and {@link #hget(String, String, int)}, which add pending deltas to the stored value;
+ * other nodes and RedisUtils see them after the flush. While a flush is on its way a read may count its delta twice,
+ * never miss it. Delivery is at least once: a pipeline which fails after Redis applied part of it, like a connection
+ * lost while reading replies, puts all its deltas back, so some of them are counted twice in Redis. Counters which
+ * must be exact should use {@link RedisUtils#incrBy(String, Long, int)}. Deltas still pending when the JVM dies are
+ * lost <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.counters.increments: counter of local increments</li>
+ *     <li>eldercare.redis.counters.flushed: counter of increments sent to Redis</li>
+ *     <li>eldercare.redis.counters.pending: gauge of counters held locally, idle ones are dropped after two flushes</li>
+ * </ul>
+ * Example:
+ * <pre>
+ *     redisCounters.hincrBy("device:" + deviceId + ":stats", "samples", 1, 2);
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:53 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisCounters implements Closeable {
+
+    /**
+     * The pending total is summed on about one increment in this many, so increments don't all touch it
+     */
+    private static final int THRESHOLD_SAMPLING = 64;
+
+    /**
+     * Checks of a retired cell's writers before the flusher parks between checks
+     */
+    private static final int RETIRE_SPINS = 100;
+
+    private static final long RETIRE_PARK_NANOS = 10_000;
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final NearCache nearCache;
+    private final RedisUtils redisUtils;
+    private final long flushThreshold;
+    private final Map<Target, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<Target, Long> flushing = new ConcurrentHashMap<>();
+    private final LongAdder unflushed = new LongAdder();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final Counter increments;
+    private final Counter flushed;
+
+    RedisCounters(JedisLeaseManager jedisLeaseManager, RedisCommandMetrics redisCommandMetrics, NearCache nearCache, RedisUtils redisUtils,
+                  Duration flushInterval, long flushThreshold) {
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.nearCache = nearCache;
+        this.redisUtils = redisUtils;
+        this.flushThreshold = flushThreshold;
+        MeterRegistry meterRegistry = redisCommandMetrics.getMeterRegistry();
+        this.increments = Counter.builder("eldercare.redis.counters.increments")
+                .description("Counter increments added locally")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("eldercare.redis.counters.flushed")
+                .description("Counter increments sent to Redis")
+                .register(meterRegistry);
+        Gauge.builder("eldercare.redis.counters.pending", cells, Map::size)
+                .description("Counters held locally")
+                .register(meterRegistry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-counters-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toNanos();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public void incr(String key, int dbIndex) {
+        incrBy(key, 1, dbIndex);
+    }
+
+    /**
+     * Description: Add delta to a counter, sent with the next flush <br>
+     *
+     * @param key     <br>
+     * @param delta   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @author agent <br>
+     */
+    public void incrBy(String key, long delta, int dbIndex) {
+        increment(new Target(dbIndex, key, null), delta);
+    }
+
+    /**
+     * Description: Add delta to a field of a map, sent with the next flush <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param delta   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @author agent <br>
+     */
+    public void hincrBy(String key, String field, long delta, int dbIndex) {
+        increment(new Target(dbIndex, key, field), delta);
+    }
+
+    /**
+     * Description: Read a counter with the deltas of this node not flushed yet <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return stored value plus pending deltas, a missing or unreadable value counts as 0 <br>
+     * @author agent <br>
+     */
+    public long get(String key, int dbIndex) {
+        return parse(redisUtils.get(key, dbIndex)) + pending(new Target(dbIndex, key, null));
+    }
+
+    /**
+     * Description: Read a counter in a field of a map with the deltas of this node not flushed yet <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return stored value plus pending deltas, a missing or unreadable value counts as 0 <br>
+     * @author agent <br>
+     */
+    public long hget(String key, String field, int dbIndex) {
+        return parse(redisUtils.hget(key, field, dbIndex)) + pending(new Target(dbIndex, key, field));
+    }
+
+    /**
+     * Description: Send every pending delta now, returns once Redis replied <br>
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            unflushed.reset();
+            Map<Target, Long> drained = drain();
+            if (!drained.isEmpty()) {
+                send(drained);
+            }
+        }
+    }
+
+    /**
+     * Description: Stop the flush thread and flush what is pending <br>
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void increment(Target target, long delta) {
+        add(target, delta);
+        increments.increment();
+        unflushed.increment();
+        if (flushThreshold > 0 && ThreadLocalRandom.current().nextInt(THRESHOLD_SAMPLING) == 0 && unflushed.sum() >= flushThreshold
+                && flushQueued.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushQueued.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // Closing, the final flush takes it
+                flushQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Description: Add delta to the cell of target, in a new cell if the flusher retired the current one meanwhile.
+     * A writer is counted on the cell while it checks and adds, so the flusher waits for it before the last read <br>
+     */
+    private void add(Target target, long delta) {
+        while (true) {
+            Cell cell = cells.computeIfAbsent(target, created -> new Cell());
+            cell.writers.increment();
+            try {
+                if (!cell.retired) {
+                    cell.delta.add(delta);
+                    return;
+                }
+            } finally {
+                cell.writers.decrement();
+            }
+            cells.remove(target, cell);
+        }
+    }
+
+    /**
+     * Description: Move deltas of cells to flushing. A cell with nothing to send at two flushes in a row is retired
+     * and removed <br>
+     */
+    private Map<Target, Long> drain() {
+        Map<Target, Long> drained = new HashMap<>();
+        for (Map.Entry<Target, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            long delta = cell.delta.sum();
+            if (delta == 0 && cell.idle) {
+                cell.retired = true;
+                for (int spins = 0; cell.writers.sum() != 0; spins++) {
+                    if (spins < RETIRE_SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(RETIRE_PARK_NANOS);
+                    }
+                }
+                cells.remove(entry.getKey(), cell);
+                delta = cell.delta.sum();
+            }
+            cell.idle = delta == 0;
+            if (delta != 0) {
+                // Shown by reads from here on, before it leaves the cell
+                flushing.put(entry.getKey(), delta);
+                cell.delta.add(-delta);
+                drained.put(entry.getKey(), delta);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Description: Send drained deltas, one pipeline per DB and shard. Deltas of a failed pipeline go back to their
+     * cells, also those Redis may have applied before it failed <br>
+     */
+    private void send(Map<Target, Long> drained) {
+        Map<List<Integer>, List<Target>> groups = new LinkedHashMap<>();
+        for (Target target : drained.keySet()) {
+            int shard = jedisLeaseManager.getShardRouter().shardOf(target.key);
+            groups.computeIfAbsent(Arrays.asList(target.dbIndex, shard), group -> new ArrayList<>()).add(target);
+        }
+        List<Supplier<Void>> calls = new ArrayList<>(groups.size());
+        groups.forEach((group, targets) -> calls.add(() -> {
+            sendToShard(group.get(1), group.get(0), targets, drained);
+            return null;
+        }));
+        jedisLeaseManager.fanOut(calls);
+    }
+
+    private void sendToShard(int shard, int dbIndex, List<Target> targets, Map<Target, Long> drained) {
+        long start = System.nanoTime();
+        try {
+            List<Response<Long>> replies = jedisLeaseManager.call(shard, dbIndex, jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<Long>> responses = new ArrayList<>(targets.size());
+                for (Target target : targets) {
+                    long delta = drained.get(target);
+                    responses.add(target.field == null ? pipeline.incrBy(target.key, delta) : pipeline.hincrBy(target.key, target.field, delta));
+                }
+                pipeline.sync();
+                return responses;
+            });
+            redisCommandMetrics.success("INCRBY", dbIndex, start);
+            for (int i = 0; i < targets.size(); i++) {
+                try {
+                    replies.get(i).get();
+                } catch (JedisDataException e) {
+                    log.error("Counter {} dropped a delta of {}: {}", targets.get(i), drained.get(targets.get(i)), e.getMessage());
+                }
+            }
+            flushed.increment(targets.size());
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure("INCRBY", dbIndex, start, e);
+            log.error("Cannot flush {} counters to shard {}, retrying with the next flush: {}", targets.size(), shard, e.getMessage());
+            for (Target target : targets) {
+                add(target, drained.get(target));
+            }
+        } finally {
+            for (Target target : targets) {
+                flushing.remove(target);
+            }
+            nearCache.invalidate(dbIndex, targets.stream().map(target -> target.key).distinct().toArray(String[]::new));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Counter flush failed: {}", e.getMessage());
+        }
+    }
+
+    private long pending(Target target) {
+        Cell cell = cells.get(target);
+        Long inFlight = flushing.get(target);
+        return (cell == null ? 0 : cell.delta.sum()) + (inFlight == null ? 0 : inFlight);
+    }
+
+    private static long parse(String stored) {
+        if (stored == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(stored);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Description: Local deltas of one counter <br>
+     */
+    private static final class Cell {
+
+        private final LongAdder delta = new LongAdder();
+        private final LongAdder writers = new LongAdder();
+        private volatile boolean retired;
+        /**
+         * Had nothing to send at the last flush, only used by the flusher
+         */
+        private boolean idle;
+    }
+
+    /**
+     * Description: Counter key, with a field for map counters <br>
+     */
+    private static final class Target {
+
+        private final int dbIndex;
+        private final String key;
+        private final String field;
+
+        private Target(int dbIndex, String key, String field) {
+            this.dbIndex = dbIndex;
+            this.key = key;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target other = (Target) o;
+            return dbIndex == other.dbIndex && key.equals(other.key) && Objects.equals(field, other.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dbIndex, key, field);
+        }
+
+        @Override
+        public String toString() {
+            return field == null ? dbIndex + ":" + key : dbIndex + ":" + key + "#" + field;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Description: Distributed lock on a Redis key, safe against crashed holders and paused holders <br>
+ * A lock is taken with SET NAME token NX PX lease in a Lua script which also increments NAME:fence, so each
+ * acquisition gets a fencing token greater than all previous ones. Resources guarded by the lock should reject
+ * writes carrying a token lower than the last one they saw, which keeps a holder that was paused past its lease
+ * from doing harm. While held, the lease is renewed every third of its time by a watchdog thread, only if the key
+ * still holds the token, and release deletes the key only if it does. A holder that crashes leaves the lock behind
+ * for at most one lease. Both keys are on the shard of the lock name; in Redis Cluster the name needs a hash tag
+ * covering it, like {lock:billing}. Lock names are meter tags, so they should be a bounded set <br>
+ * Renewals of all leases of a node share a watchdog of one thread per core, each renewal taking one round trip. A
+ * renewal late by more than two thirds of the lease loses the lock, so the watchdog keeps up with about
+ * threads * lease / 3 / round trip leases held at once; leases should be much longer than a slow round trip <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.lock.wait: timer, tags lock and result (acquired or timeout)</li>
+ *     <li>eldercare.redis.lock.hold: timer, tag lock</li>
+ *     <li>eldercare.redis.lock.contention: counter of attempts which found the lock taken, tag lock</li>
+ *     <li>eldercare.redis.lock.lost: counter of leases lost before release, tag lock</li>
+ * </ul>
+ * Example:
+ * <pre>
+ *     RedisLock billing = redisUtils.lock("{lock:billing}", Duration.ofSeconds(30), 0);
+ *     try (RedisLock.Lease lease = billing.tryLock(Duration.ofSeconds(2))) {
+ *         if (lease != null) {
+ *             invoiceDao.close(month, lease.getFencingToken());
+ *         }
+ *     }
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:43 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisLock {
+
+    private static final RedisScript ACQUIRE = RedisScript.of("lock-acquire",
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+                    + "return redis.call('incr', KEYS[2]) else return false end");
+
+    private static final RedisScript RENEW = RedisScript.of("lock-renew",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end");
+
+    private static final long MAX_RETRY_MILLIS = 100;
+
+    private static final int HELD = 0;
+    private static final int RELEASED = 1;
+    private static final int LOST = 2;
+
+    private static final AtomicInteger WATCHDOG_THREADS = new AtomicInteger();
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newScheduledThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "redis-lock-watchdog-" + WATCHDOG_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final String name;
+    private final String fence;
+    private final long leaseMillis;
+    private final int dbIndex;
+    private final Timer acquired;
+    private final Timer timedOut;
+    private final Timer hold;
+    private final Counter contention;
+    private final Counter lost;
+
+    RedisLock(JedisLeaseManager jedisLeaseManager, RedisCommandMetrics redisCommandMetrics, String name, Duration leaseTime, int dbIndex) {
+        if (leaseTime.toMillis() < 3) {
+            throw new IllegalArgumentException("Lease time must be at least 3 ms, was " + leaseTime);
+        }
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.name = name;
+        this.fence = name + ":fence";
+        this.leaseMillis = leaseTime.toMillis();
+        this.dbIndex = dbIndex;
+        MeterRegistry meterRegistry = redisCommandMetrics.getMeterRegistry();
+        this.acquired = waitTimer(meterRegistry, "acquired");
+        this.timedOut = waitTimer(meterRegistry, "timeout");
+        this.hold = Timer.builder("eldercare.redis.lock.hold")
+                .description("Time Redis locks are held")
+                .tag("lock", name)
+                .register(meterRegistry);
+        this.contention = Counter.builder("eldercare.redis.lock.contention")
+                .description("Attempts which found the Redis lock taken")
+                .tag("lock", name)
+                .register(meterRegistry);
+        this.lost = Counter.builder("eldercare.redis.lock.lost")
+                .description("Redis lock leases lost before release")
+                .tag("lock", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Description: Take the lock if it is free, without waiting <br>
+     *
+     * @return Return the lease, or null if the lock is held elsewhere <br>
+     * @author agent <br>
+     */
+    public Lease tryLock() {
+        return tryLock(Duration.ZERO);
+    }
+
+    /**
+     * Description: Take the lock, retrying with jittered pauses up to waitTime <br>
+     *
+     * @param waitTime Longest time to wait for the lock <br>
+     * @return Return the lease, which must be closed to release the lock, or null if the lock stayed taken <br>
+     * @throws redis.clients.jedis.exceptions.JedisException if Redis fails <br>
+     * @author agent <br>
+     */
+    public Lease tryLock(Duration waitTime) {
+        long start = System.nanoTime();
+        long deadline = start + waitTime.toNanos();
+        String token = UUID.randomUUID().toString();
+        while (true) {
+            Long fencingToken = execute("EVALSHA", jedis -> (Long) ACQUIRE.eval(jedis, Arrays.asList(name, fence),
+                    Arrays.asList(token, Long.toString(leaseMillis))));
+            if (fencingToken != null) {
+                acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return new Lease(token, fencingToken);
+            }
+            contention.increment();
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                timedOut.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return null;
+            }
+            try {
+                long pause = ThreadLocalRandom.current().nextLong(MAX_RETRY_MILLIS / 5, MAX_RETRY_MILLIS);
+                Thread.sleep(Math.min(pause, TimeUnit.NANOSECONDS.toMillis(left) + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                timedOut.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return null;
+            }
+        }
+    }
+
+    private <T> T execute(String command, Function<Jedis, T> call) {
+        long start = System.nanoTime();
+        try {
+            T reply = jedisLeaseManager.call(jedisLeaseManager.getShardRouter().shardOf(name), dbIndex, call);
+            redisCommandMetrics.success(command, dbIndex, start);
+            return reply;
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure(command, dbIndex, start, e);
+            throw e;
+        }
+    }
+
+    private Timer waitTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("eldercare.redis.lock.wait")
+                .description("Time spent waiting for Redis locks")
+                .tag("lock", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Description: One acquisition of the lock, renewed until closed <br>
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String token;
+        private final long fencingToken;
+        private final long acquiredAt = System.nanoTime();
+        private final ScheduledFuture<?> renewal;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+
+        private Lease(String token, long fencingToken) {
+            this.token = token;
+            this.fencingToken = fencingToken;
+            long interval = leaseMillis / 3;
+            this.renewal = WATCHDOG.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Description: Get the fencing token of this acquisition, greater than the one of any earlier acquisition
+         * of the lock <br>
+         */
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        /**
+         * Description: Check whether the lease is still known to be held. It turns false when a renewal found the
+         * lock gone or taken by someone else, the work done under it should then be abandoned <br>
+         */
+        public boolean isHeld() {
+            return state.get() == HELD;
+        }
+
+        /**
+         * Description: Stop renewing and release the lock if this lease still holds it. A renewal running meanwhile
+         * finds the lease released, so it isn't counted as lost <br>
+         */
+        @Override
+        public void close() {
+            renewal.cancel(false);
+            if (!state.compareAndSet(HELD, RELEASED)) {
+                return;
+            }
+            hold.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            try {
+                execute("EVALSHA", jedis -> RedisScript.COMPARE_AND_DELETE.eval(jedis, Collections.singletonList(name), Collections.singletonList(token)));
+            } catch (RuntimeException e) {
+                log.warn("Cannot release lock {}, it expires within {} ms: {}", name, leaseMillis, e.getMessage());
+            }
+        }
+
+        private void renew() {
+            if (state.get() != HELD) {
+                return;
+            }
+            Object renewed;
+            try {
+                renewed = execute("EVALSHA", jedis -> RENEW.eval(jedis, Collections.singletonList(name),
+                        Arrays.asList(token, Long.toString(leaseMillis))));
+            } catch (RuntimeException e) {
+                log.warn("Cannot renew lock {}, retrying: {}", name, e.getMessage());
+                return;
+            }
+            if (!Long.valueOf(1).equals(renewed) && state.compareAndSet(HELD, LOST)) {
+                if (renewal != null) {
+                    renewal.cancel(false);
+                }
+                lost.increment();
+                log.warn("Lock {} was lost before release, fencing token {}", name, fencingToken);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Description: Token bucket rate limiter shared by all nodes through Redis <br>
+ * Each bucket is a hash NAME:KEY holding its tokens and the time they were counted, refilled and taken in one Lua
+ * script, so nodes never race on it. To keep Redis out of most requests, a node takes tokens in grants of about
+ * rate * sync interval and hands them out locally until they are used up or the interval ends. Under high rates a
+ * node so calls Redis about once per sync interval per bucket, and the limit still holds across nodes. Tokens
+ * left in an ended grant are dropped, so a bucket shared by N nodes may turn away up to N grants more than a
+ * perfect limiter. Buckets are refilled by the clock of Redis, so clocks of nodes don't matter. Calls to Redis are
+ * made outside the lock of the local grant: one thread fetches the next grant while the others taking from the same
+ * exhausted bucket meanwhile ask Redis for their own token. When Redis fails, requests are allowed <br>
+ * Meters:
+ * <ul>
+ *     <li>eldercare.redis.rate-limit: counter, tags limiter and result (allowed or rejected)</li>
+ *     <li>eldercare.redis.rate-limit.syncs: counter of grants asked to Redis, tag limiter</li>
+ * </ul>
+ * Example:
+ * <pre>
+ *     RedisRateLimiter ingest = redisUtils.rateLimiter("ratelimit:ingest", Duration.ofMillis(10), 0);
+ *     if (!ingest.tryAcquire(deviceId, 50, 100).isAllowed()) {
+ *         // reply 429
+ *     }
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:46 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisRateLimiter {
+
+    /**
+     * KEYS[1] bucket, ARGV rate per second, burst, wanted tokens. Returns granted tokens and the millis until one
+     * token is back when none was granted. Time is read from Redis, so the script is replicated by its effects
+     */
+    private static final RedisScript TAKE = RedisScript.of("rate-limit-take", "redis.replicate_commands() "
+            + "local rate = tonumber(ARGV[1]) "
+            + "local burst = tonumber(ARGV[2]) "
+            + "local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "local state = redis.call('hmget', KEYS[1], 'tokens', 'ts') "
+            + "local tokens = tonumber(state[1]) or burst "
+            + "local ts = tonumber(state[2]) or now "
+            + "if now > ts then tokens = math.min(burst, tokens + (now - ts) * rate / 1000) ts = now end "
+            + "local granted = math.min(tonumber(ARGV[3]), math.floor(tokens)) "
+            + "tokens = tokens - granted "
+            + "redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts)) "
+            + "redis.call('pexpire', KEYS[1], math.ceil(burst * 1000 / rate) + 1000) "
+            + "local retry = 0 "
+            + "if granted < 1 then retry = math.ceil((1 - tokens) * 1000 / rate) end "
+            + "return {granted, retry}");
+
+    private static final Decision ALLOWED = new Decision(true, 0);
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final String name;
+    private final long syncIntervalNanos;
+    private final int dbIndex;
+    private final Cache<String, Grant> grants;
+    private final Counter allowed;
+    private final Counter rejected;
+    private final Counter syncs;
+
+    RedisRateLimiter(JedisLeaseManager jedisLeaseManager, RedisCommandMetrics redisCommandMetrics, String name, Duration syncInterval, int dbIndex) {
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.name = name;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.dbIndex = dbIndex;
+        this.grants = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(1).toNanos() + syncIntervalNanos, TimeUnit.NANOSECONDS)
+                .build();
+        MeterRegistry meterRegistry = redisCommandMetrics.getMeterRegistry();
+        this.allowed = decisions(meterRegistry, "allowed");
+        this.rejected = decisions(meterRegistry, "rejected");
+        this.syncs = Counter.builder("eldercare.redis.rate-limit.syncs")
+                .description("Token grants asked to Redis")
+                .tag("limiter", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Description: Take one token of the bucket of key <br>
+     *
+     * @param key              Bucket, e.g. route and client <br>
+     * @param permitsPerSecond Refill rate <br>
+     * @param burst            Capacity, the most requests let through at once <br>
+     * @return Return whether the request may go, and when to retry if not <br>
+     * @author agent <br>
+     */
+    public Decision tryAcquire(String key, double permitsPerSecond, long burst) {
+        Grant grant = grants.get(key, bucket -> new Grant());
+        boolean fetching;
+        synchronized (grant) {
+            long now = System.nanoTime();
+            if (grant.tokens > 0 && now < grant.expiresAt) {
+                grant.tokens--;
+                allowed.increment();
+                return ALLOWED;
+            }
+            if (now < grant.retryAt) {
+                rejected.increment();
+                return new Decision(false, Math.max(1, (grant.retryAt - now) / 1_000_000));
+            }
+            fetching = !grant.fetching;
+            grant.fetching = true;
+        }
+        // Only one thread at a time fetches a grant, the others take just their token
+        List<Long> reply = take(key, permitsPerSecond, burst, fetching ? grantSize(permitsPerSecond, burst, syncIntervalNanos) : 1);
+        synchronized (grant) {
+            long now = System.nanoTime();
+            if (fetching) {
+                grant.fetching = false;
+            }
+            if (reply == null) {
+                allowed.increment();
+                return ALLOWED;
+            }
+            long granted = reply.get(0);
+            if (granted < 1) {
+                long retryMillis = Math.max(1, reply.get(1));
+                grant.retryAt = Math.max(grant.retryAt, now + Math.min(retryMillis * 1_000_000, syncIntervalNanos));
+                rejected.increment();
+                return new Decision(false, retryMillis);
+            }
+            grant.retryAt = 0;
+            if (granted > 1) {
+                if (now >= grant.expiresAt) {
+                    grant.tokens = 0;
+                }
+                grant.tokens += granted - 1;
+                grant.expiresAt = now + syncIntervalNanos;
+            }
+            allowed.increment();
+            return ALLOWED;
+        }
+    }
+
+    /**
+     * Description: Tokens asked per sync, what the bucket refills in one sync interval, at least 1 and at most
+     * a tenth of the burst so one node can't drain it <br>
+     */
+    static long grantSize(double permitsPerSecond, long burst, long syncIntervalNanos) {
+        long perInterval = (long) Math.ceil(permitsPerSecond * syncIntervalNanos / 1e9);
+        return Math.max(1, Math.min(perInterval, burst / 10));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> take(String key, double permitsPerSecond, long burst, long wanted) {
+        String bucket = name + ":" + key;
+        syncs.increment();
+        long start = System.nanoTime();
+        try {
+            List<Long> reply = (List<Long>) jedisLeaseManager.call(jedisLeaseManager.getShardRouter().shardOf(bucket), dbIndex,
+                    jedis -> TAKE.eval(jedis, Collections.singletonList(bucket), Arrays.asList(Double.toString(permitsPerSecond),
+                            Long.toString(burst), Long.toString(wanted))));
+            redisCommandMetrics.success("EVALSHA", dbIndex, start);
+            return reply;
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure("EVALSHA", dbIndex, start, e);
+            log.error("Rate limiter {} cannot reach Redis, letting requests through: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private Counter decisions(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("eldercare.redis.rate-limit")
+                .description("Rate limited requests by decision")
+                .tag("limiter", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Description: Tokens granted to this node for a bucket <br>
+     */
+    private static final class Grant {
+
+        private long tokens;
+        private long expiresAt;
+        private long retryAt;
+        private boolean fetching;
+    }
+
+    /**
+     * Description: Outcome of {@link #tryAcquire(String, double, long)} <br>
+     */
+    public static final class Decision {
+
+        private final boolean allowed;
+        private final long retryAfterMillis;
+
+        private Decision(boolean allowed, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * Description: Get the time after which a token should be back, 0 when allowed <br>
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
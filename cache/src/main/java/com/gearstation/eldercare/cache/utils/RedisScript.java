@@ -0,0 +1,205 @@
+package com.gearstation.eldercare.cache.utils;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Description: Lua script called by its SHA1 <br>
+ * The SHA1 is computed here, so a call is one EVALSHA whether or not the script was loaded. A server which doesn't
+ * know the script, because it restarted, failed over or was flushed, replies NOSCRIPT; the script is then sent once
+ * with EVAL, which also caches it there. Calls on many keys are pipelined the same way with
+ * {@link #evalEach(Jedis, List, List)}, resending only those answered NOSCRIPT. Scripts listed in
+ * {@link RedisScriptRegistry} are loaded on every shard at startup. Keys of one call must live in one slot <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:48 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public final class RedisScript {
+
+    /**
+     * KEYS[1] counter, ARGV increment, cap, TTL in seconds set when the key has none, 0 for none. Returns 1 and the
+     * new value, or 0 and the current value when the increment would pass the cap
+     */
+    public static final RedisScript INCREMENT_WITH_CAP = of("increment-with-cap",
+            "local current = tonumber(redis.call('get', KEYS[1]) or '0') "
+                    + "local increment = tonumber(ARGV[1]) "
+                    + "if current + increment > tonumber(ARGV[2]) then return {0, current} end "
+                    + "local value = redis.call('incrby', KEYS[1], increment) "
+                    + "if tonumber(ARGV[3]) > 0 and redis.call('ttl', KEYS[1]) < 0 then redis.call('expire', KEYS[1], ARGV[3]) end "
+                    + "return {1, value}");
+
+    /**
+     * KEYS[1] hash, ARGV field, new value, '1' if the field must be absent, expected value as written and as stored.
+     * Returns 1 if set, 0 if the field held something else
+     */
+    public static final RedisScript HASH_COMPARE_AND_SET = of("hash-compare-and-set",
+            "local current = redis.call('hget', KEYS[1], ARGV[1]) "
+                    + "if ARGV[3] == '1' then if current then return 0 end "
+                    + "elseif current ~= ARGV[4] and current ~= ARGV[5] then return 0 end "
+                    + "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "return 1");
+
+    /**
+     * KEYS[1] list, ARGV maximum length then values pushed on the left. Returns the length after trimming
+     */
+    public static final RedisScript BOUNDED_PUSH = of("bounded-push",
+            "local length = redis.call('lpush', KEYS[1], unpack(ARGV, 2)) "
+                    + "local maximum = tonumber(ARGV[1]) "
+                    + "if length > maximum then redis.call('ltrim', KEYS[1], 0, maximum - 1) return maximum end "
+                    + "return length");
+
+    /**
+     * KEYS[1] key, ARGV expected value. Deletes the key only if it holds the value, returns the number deleted
+     */
+    public static final RedisScript COMPARE_AND_DELETE = of("compare-and-delete",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end");
+
+    /**
+     * KEYS[1] string, ARGV a command on it like APPEND, then its arguments after the key. Runs the command unless the
+     * value is compressed by {@link com.gearstation.eldercare.cache.codec.ValueCompressor}, then returns nil
+     */
+    public static final RedisScript PLAIN_STRING_COMMAND = of("plain-string-command",
+            "if string.byte(redis.call('getrange', KEYS[1], 0, 0)) == 255 then return false end "
+                    + "return redis.call(ARGV[1], KEYS[1], unpack(ARGV, 2))");
+
+    private final String name;
+    private final String source;
+    private final String sha1;
+
+    private RedisScript(String name, String source) {
+        this.name = name;
+        this.source = source;
+        this.sha1 = sha1(source);
+    }
+
+    /**
+     * Description: Create a script <br>
+     *
+     * @param name   Name in the registry and in logs <br>
+     * @param source Lua source <br>
+     * @return Return the script <br>
+     * @author agent <br>
+     */
+    public static RedisScript of(String name, String source) {
+        return new RedisScript(name, source);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * Description: Call the script by SHA1, sending it with EVAL if the server doesn't know it <br>
+     *
+     * @param jedis Connection <br>
+     * @param keys  KEYS of the script <br>
+     * @param args  ARGV of the script <br>
+     * @return Return reply of the script <br>
+     * @author agent <br>
+     */
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(source, keys, args);
+        }
+    }
+
+    /**
+     * Description: Call the script with binary keys and arguments, like {@link #eval(Jedis, List, List)} <br>
+     */
+    public Object evalBinary(Jedis jedis, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return jedis.evalsha(SafeEncoder.encode(sha1), keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(SafeEncoder.encode(source), keys, args);
+        }
+    }
+
+    /**
+     * Description: Call the script once per list of keys, all by SHA1 in one pipeline. Calls answered NOSCRIPT are
+     * sent again with EVAL in a second pipeline, so the source only goes over the wire when the server lost it <br>
+     *
+     * @param jedis Connection of the shard owning all keys <br>
+     * @param keys  KEYS of each call <br>
+     * @param args  ARGV of every call <br>
+     * @return Return replies of the calls, in order of keys <br>
+     * @throws redis.clients.jedis.exceptions.JedisDataException if a call fails otherwise <br>
+     * @author agent <br>
+     */
+    public List<Object> evalEach(Jedis jedis, List<List<String>> keys, List<String> args) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Object>> responses = new ArrayList<>(keys.size());
+        for (List<String> callKeys : keys) {
+            responses.add(pipeline.evalsha(sha1, callKeys, args));
+        }
+        pipeline.sync();
+        List<Object> replies = new ArrayList<>(keys.size());
+        List<Integer> unknown = new ArrayList<>();
+        for (int i = 0; i < responses.size(); i++) {
+            try {
+                replies.add(responses.get(i).get());
+            } catch (JedisNoScriptException e) {
+                replies.add(null);
+                unknown.add(i);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            Pipeline resend = jedis.pipelined();
+            List<Response<Object>> resent = new ArrayList<>(unknown.size());
+            for (int i : unknown) {
+                resent.add(resend.eval(source, keys.get(i), args));
+            }
+            resend.sync();
+            for (int i = 0; i < unknown.size(); i++) {
+                replies.set(unknown.get(i), resent.get(i).get());
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * Description: Queue the script in a pipeline. It is sent with EVAL, since a NOSCRIPT reply to EVALSHA would only
+     * show up once the pipeline is synced; Redis still caches it <br>
+     *
+     * @param pipeline Pipeline of the shard owning keys <br>
+     * @param keys     KEYS of the script <br>
+     * @param args     ARGV of the script <br>
+     * @return Return response of the script, filled when the pipeline is synced <br>
+     * @author agent <br>
+     */
+    public Response<Object> eval(Pipeline pipeline, List<String> keys, List<String> args) {
+        return pipeline.eval(source, keys, args);
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(SafeEncoder.encode(source));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
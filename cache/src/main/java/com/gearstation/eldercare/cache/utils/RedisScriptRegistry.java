@@ -0,0 +1,124 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Description: Lua scripts loaded with SCRIPT LOAD on every shard at startup, so their first calls don't need to
+ * send them. The built-in scripts of {@link RedisScript} are registered already. Scripts registered after startup
+ * are loaded at once. A script which isn't registered, or which a server lost, still works: it is sent on its first
+ * call there <br>
+ * Example:
+ * <pre>
+ *     private static final RedisScript ADMIT = RedisScript.of("admit", "...");
+ *
+ *     redisScriptRegistry.register(ADMIT);
+ *     redisUtils.eval(ADMIT, Collections.singletonList("ward:3:beds"), Collections.singletonList("42"), 0);
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:48 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Component
+@Log4j2
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RedisScriptRegistry {
+
+    private final JedisLeaseManager jedisLeaseManager;
+
+    private final Map<String, RedisScript> scripts = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    /**
+     * Description: Register the built-in scripts and load every script on every shard <br>
+     */
+    @PostConstruct
+    public void start() {
+        register(RedisScript.INCREMENT_WITH_CAP);
+        register(RedisScript.HASH_COMPARE_AND_SET);
+        register(RedisScript.BOUNDED_PUSH);
+        register(RedisScript.COMPARE_AND_DELETE);
+        register(RedisScript.PLAIN_STRING_COMMAND);
+        started = true;
+        load(scripts.values());
+    }
+
+    /**
+     * Description: Add a script, and load it on every shard once started <br>
+     *
+     * @param script Script <br>
+     * @return Return the script <br>
+     * @throws IllegalArgumentException if another script has the same name <br>
+     * @author agent <br>
+     */
+    public RedisScript register(RedisScript script) {
+        RedisScript registered = scripts.putIfAbsent(script.getName(), script);
+        if (registered != null && !registered.getSha1().equals(script.getSha1())) {
+            throw new IllegalArgumentException("Another script is named " + script.getName());
+        }
+        if (registered == null && started) {
+            load(Collections.singletonList(script));
+        }
+        return script;
+    }
+
+    /**
+     * Description: Get a script by name <br>
+     *
+     * @param name Name of the script <br>
+     * @return Return the script, or null if none is registered under name <br>
+     * @author agent <br>
+     */
+    public RedisScript get(String name) {
+        return scripts.get(name);
+    }
+
+    public Collection<RedisScript> getScripts() {
+        return Collections.unmodifiableCollection(scripts.values());
+    }
+
+    /**
+     * Description: SCRIPT LOAD scripts on every shard in parallel. Failures are only logged, the scripts are then
+     * sent on first call <br>
+     */
+    private void load(Collection<RedisScript> loaded) {
+        List<Supplier<Integer>> calls = new ArrayList<>(jedisLeaseManager.getShardCount());
+        for (int i = 0; i < jedisLeaseManager.getShardCount(); i++) {
+            int shard = i;
+            calls.add(() -> {
+                try {
+                    return jedisLeaseManager.call(shard, 0, jedis -> {
+                        for (RedisScript script : loaded) {
+                            String sha1 = jedis.scriptLoad(script.getSource());
+                            if (!script.getSha1().equals(sha1)) {
+                                log.warn("Shard {} loaded script {} as {}, expected {}", shard, script.getName(), sha1, script.getSha1());
+                            }
+                        }
+                        return loaded.size();
+                    });
+                } catch (RuntimeException e) {
+                    log.warn("Cannot load scripts on shard {}, they'll be sent on first call: {}", shard, e.getMessage());
+                    return 0;
+                }
+            });
+        }
+        if (!calls.isEmpty()) {
+            jedisLeaseManager.fanOut(calls);
+        }
+    }
+}
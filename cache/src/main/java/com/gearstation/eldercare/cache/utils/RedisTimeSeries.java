@@ -0,0 +1,381 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Tuple;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Description: Time series of numeric samples, like vital signs of residents, on sorted sets <br>
+ * A series is split in partitions of fixed time length, each a sorted set NAME:{SERIES}:START scored by timestamp
+ * in millis, with members TIMESTAMP:VALUE so equal values at different times are kept apart. The hash tag keeps the
+ * partitions of a series on one shard, so a query on it is one pipeline. Appends are pipelined per shard; each
+ * also drops the samples past the retention from the partition the retention ends in, and older partitions expire
+ * whole once their last sample is past it. Samples dated further ahead than the retention are skipped too, so a
+ * read looks at most from the retention ago to as far ahead, and at most {@link #MAX_PARTITIONS_PER_READ}
+ * partitions. Downsampling runs in a Lua script per partition, all in one pipeline, so only one min, max, sum and
+ * count per window leave Redis. Windows start at multiples of their length since the epoch <br>
+ * Example:
+ * <pre>
+ *     RedisTimeSeries vitals = redisUtils.timeSeries("vitals", Duration.ofHours(6), Duration.ofDays(30), 3);
+ *     vitals.append("resident:42:heart-rate", Arrays.asList(new RedisTimeSeries.Sample(now, 72)));
+ *     List&lt;RedisTimeSeries.Window&gt; hourly = vitals.downsample("resident:42:heart-rate", now - DAY, now, Duration.ofHours(1));
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:54 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class RedisTimeSeries {
+
+    public static final int MAX_PARTITIONS_PER_READ = 10_000;
+
+    /**
+     * KEYS[1] partition, ARGV from, to, window in millis. Returns start, count, min, max and sum of each window with
+     * samples, as strings since Lua numbers are replied as integers
+     */
+    private static final RedisScript DOWNSAMPLE = RedisScript.of("time-series-downsample",
+            "local window = tonumber(ARGV[3]) "
+                    + "local samples = redis.call('zrangebyscore', KEYS[1], ARGV[1], ARGV[2], 'WITHSCORES') "
+                    + "local reply = {} "
+                    + "local start, count, min, max, sum "
+                    + "local function emit() "
+                    + "for _, n in ipairs({start, count, min, max, sum}) do reply[#reply + 1] = string.format('%.17g', n) end "
+                    + "end "
+                    + "for i = 1, #samples, 2 do "
+                    + "local timestamp = tonumber(samples[i + 1]) "
+                    + "local value = tonumber(string.sub(samples[i], string.find(samples[i], ':', 1, true) + 1)) "
+                    + "local windowStart = timestamp - timestamp % window "
+                    + "if windowStart ~= start then "
+                    + "if start then emit() end "
+                    + "start, count, min, max, sum = windowStart, 0, value, value, 0 "
+                    + "end "
+                    + "count = count + 1 "
+                    + "if value < min then min = value end "
+                    + "if value > max then max = value end "
+                    + "sum = sum + value "
+                    + "end "
+                    + "if start then emit() end "
+                    + "return reply");
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final String name;
+    private final long partitionMillis;
+    private final long retentionMillis;
+    private final int dbIndex;
+
+    RedisTimeSeries(JedisLeaseManager jedisLeaseManager, RedisCommandMetrics redisCommandMetrics, String name, Duration partition,
+                    Duration retention, int dbIndex) {
+        if (partition.toMillis() <= 0) {
+            throw new IllegalArgumentException("Partition must be at least 1 ms, was " + partition);
+        }
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.name = name;
+        this.partitionMillis = partition.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.dbIndex = dbIndex;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Description: Add samples to a series <br>
+     *
+     * @param series  Series, like resident:42:heart-rate <br>
+     * @param samples Samples in any order <br>
+     * @throws redis.clients.jedis.exceptions.JedisException if Redis fails <br>
+     * @author agent <br>
+     */
+    public void append(String series, List<Sample> samples) {
+        append(Collections.singletonMap(series, samples));
+    }
+
+    /**
+     * Description: Add samples to several series, with one pipeline per shard and shards in parallel. Samples past
+     * the retention, or further ahead than it, are skipped <br>
+     *
+     * @param samplesBySeries Samples keyed by series <br>
+     * @throws redis.clients.jedis.exceptions.JedisException if Redis fails <br>
+     * @author agent <br>
+     */
+    public void append(Map<String, List<Sample>> samplesBySeries) {
+        long now = System.currentTimeMillis();
+        long cutoff = now - retentionMillis;
+        long horizon = saturatedAdd(now, retentionMillis);
+        Map<Integer, Map<String, Map<String, Double>>> partitionsByShard = new LinkedHashMap<>();
+        Map<Integer, List<String>> trimsByShard = new LinkedHashMap<>();
+        samplesBySeries.forEach((series, samples) -> {
+            int shard = shardOf(series);
+            Map<String, Map<String, Double>> partitions = partitionsByShard.computeIfAbsent(shard, created -> new LinkedHashMap<>());
+            for (Sample sample : samples) {
+                if (sample.getTimestamp() >= cutoff && sample.getTimestamp() <= horizon) {
+                    partitions.computeIfAbsent(partitionKey(series, sample.getTimestamp()), partition -> new HashMap<>())
+                            .put(sample.getTimestamp() + ":" + sample.getValue(), (double) sample.getTimestamp());
+                }
+            }
+            trimsByShard.computeIfAbsent(shard, created -> new ArrayList<>()).add(partitionKey(series, cutoff));
+        });
+        List<Supplier<Void>> calls = new ArrayList<>(partitionsByShard.size());
+        partitionsByShard.forEach((shard, partitions) -> calls.add(() -> execute("ZADD", shard, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            partitions.forEach((key, members) -> {
+                pipeline.zadd(key, members);
+                pipeline.pexpireAt(key, partitionStartOf(key) + partitionMillis + retentionMillis);
+            });
+            for (String key : trimsByShard.get(shard)) {
+                pipeline.zremrangeByScore(key, Double.NEGATIVE_INFINITY, cutoff - 1);
+            }
+            pipeline.sync();
+            return null;
+        })));
+        jedisLeaseManager.fanOut(calls);
+    }
+
+    /**
+     * Description: Drop samples of a series older than the retention now, instead of at its next append <br>
+     *
+     * @param series Series <br>
+     * @return Return number of samples dropped <br>
+     * @author agent <br>
+     */
+    public long trim(String series) {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        String key = partitionKey(series, cutoff);
+        return execute("ZREMRANGEBYSCORE", shardOf(series),
+                jedis -> jedis.zremrangeByScore(key, Double.NEGATIVE_INFINITY, cutoff - 1));
+    }
+
+    /**
+     * Description: Read samples of a series <br>
+     *
+     * @param series Series <br>
+     * @param from   First timestamp, inclusive <br>
+     * @param to     Last timestamp, inclusive <br>
+     * @return Return samples in order of time <br>
+     * @throws redis.clients.jedis.exceptions.JedisException if Redis fails <br>
+     * @throws IllegalArgumentException if the range covers more than {@link #MAX_PARTITIONS_PER_READ} partitions <br>
+     * @author agent <br>
+     */
+    public List<Sample> range(String series, long from, long to) {
+        List<String> keys = partitionKeys(series, from, to);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Set<Tuple>> pages = execute("ZRANGEBYSCORE", shardOf(series), jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Set<Tuple>>> responses = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                responses.add(pipeline.zrangeByScoreWithScores(key, from, to));
+            }
+            pipeline.sync();
+            List<Set<Tuple>> replies = new ArrayList<>(responses.size());
+            responses.forEach(response -> replies.add(response.get()));
+            return replies;
+        });
+        List<Sample> samples = new ArrayList<>();
+        for (Set<Tuple> page : pages) {
+            for (Tuple tuple : page) {
+                samples.add(new Sample((long) tuple.getScore(), valueOf(tuple.getElement())));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Description: Read min, max, average and count of samples of a series per window, computed in Redis <br>
+     *
+     * @param series Series <br>
+     * @param from   First timestamp, inclusive <br>
+     * @param to     Last timestamp, inclusive <br>
+     * @param window Length of windows, which start at multiples of it since the epoch <br>
+     * @return Return windows holding samples, in order of time <br>
+     * @throws redis.clients.jedis.exceptions.JedisException if Redis fails <br>
+     * @throws IllegalArgumentException if the range covers more than {@link #MAX_PARTITIONS_PER_READ} partitions <br>
+     * @author agent <br>
+     */
+    @SuppressWarnings("unchecked")
+    public List<Window> downsample(String series, long from, long to, Duration window) {
+        List<String> keys = partitionKeys(series, from, to);
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> args = Arrays.asList(Long.toString(from), Long.toString(to), Long.toString(window.toMillis()));
+        List<List<String>> partitions = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            partitions.add(Collections.singletonList(key));
+        }
+        List<Object> replies = execute("EVALSHA", shardOf(series), jedis -> DOWNSAMPLE.evalEach(jedis, partitions, args));
+        // A window may span two partitions
+        TreeMap<Long, Window> windows = new TreeMap<>();
+        for (Object partition : replies) {
+            List<String> reply = (List<String>) partition;
+            for (int i = 0; i + 4 < reply.size(); i += 5) {
+                Window partial = new Window((long) Double.parseDouble(reply.get(i)), (long) Double.parseDouble(reply.get(i + 1)),
+                        Double.parseDouble(reply.get(i + 2)), Double.parseDouble(reply.get(i + 3)), Double.parseDouble(reply.get(i + 4)));
+                windows.merge(partial.getStart(), partial, Window::merge);
+            }
+        }
+        return new ArrayList<>(windows.values());
+    }
+
+    /**
+     * Description: Keys of the partitions of a series covering from to to, skipping those past the retention or
+     * further ahead than it <br>
+     *
+     * @throws IllegalArgumentException if more than {@link #MAX_PARTITIONS_PER_READ} partitions are left <br>
+     */
+    List<String> partitionKeys(String series, long from, long to) {
+        long now = System.currentTimeMillis();
+        long first = partitionStart(Math.max(from, now - retentionMillis));
+        long last = partitionStart(Math.min(to, saturatedAdd(now, retentionMillis)));
+        if (last < first) {
+            return Collections.emptyList();
+        }
+        // Negative when the span overflows
+        long span = last - first;
+        if (span < 0 || span / partitionMillis >= MAX_PARTITIONS_PER_READ) {
+            throw new IllegalArgumentException("Range of series " + series + " covers more than " + MAX_PARTITIONS_PER_READ
+                    + " partitions, read it in parts");
+        }
+        int count = (int) (span / partitionMillis) + 1;
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(name + ":{" + series + "}:" + (first + i * partitionMillis));
+        }
+        return keys;
+    }
+
+    String partitionKey(String series, long timestamp) {
+        return name + ":{" + series + "}:" + partitionStart(timestamp);
+    }
+
+    private long partitionStart(long timestamp) {
+        return Math.floorDiv(timestamp, partitionMillis) * partitionMillis;
+    }
+
+    private static long saturatedAdd(long timestamp, long millis) {
+        return millis > Long.MAX_VALUE - timestamp ? Long.MAX_VALUE : timestamp + millis;
+    }
+
+    private static long partitionStartOf(String key) {
+        return Long.parseLong(key.substring(key.lastIndexOf(':') + 1));
+    }
+
+    static double valueOf(String member) {
+        return Double.parseDouble(member.substring(member.indexOf(':') + 1));
+    }
+
+    private int shardOf(String series) {
+        return jedisLeaseManager.getShardRouter().shardOf(partitionKey(series, 0));
+    }
+
+    private <T> T execute(String command, int shard, Function<Jedis, T> call) {
+        long start = System.nanoTime();
+        try {
+            T reply = jedisLeaseManager.call(shard, dbIndex, call);
+            redisCommandMetrics.success(command, dbIndex, start);
+            return reply;
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure(command, dbIndex, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Description: One reading <br>
+     */
+    public static final class Sample {
+
+        private final long timestamp;
+        private final double value;
+
+        /**
+         * @param timestamp Epoch millis <br>
+         * @param value     Reading <br>
+         */
+        public Sample(long timestamp, double value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + "=" + value;
+        }
+    }
+
+    /**
+     * Description: Summary of the samples of one window <br>
+     */
+    public static final class Window {
+
+        private final long start;
+        private final long count;
+        private final double min;
+        private final double max;
+        private final double sum;
+
+        Window(long start, long count, double min, double max, double sum) {
+            this.start = start;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+        }
+
+        /**
+         * Description: Get the first timestamp of the window <br>
+         */
+        public long getStart() {
+            return start;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getAverage() {
+            return sum / count;
+        }
+
+        Window merge(Window other) {
+            return new Window(start, count + other.count, Math.min(min, other.min), Math.max(max, other.max), sum + other.sum);
+        }
+    }
+}
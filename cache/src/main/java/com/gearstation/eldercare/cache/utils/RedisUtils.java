@@ -1,17 +1,63 @@
 package com.gearstation.eldercare.cache.utils;
 
+import com.gearstation.eldercare.cache.codec.RedisCodec;
+import com.gearstation.eldercare.cache.codec.RedisCodecs;
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.config.CacheLoadProperties;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLease;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.ReadFrom;
+import com.gearstation.eldercare.cache.pool.ReplicaSet;
+import com.gearstation.eldercare.cache.pool.ShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.SortingParams;
-
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Description: Redis tools <br>
@@ -26,7 +72,27 @@ import java.util.Set;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class RedisUtils {
 
-    private final JedisPool jedisPool;
+    private static final int DEFAULT_SCAN_COUNT = 1000;
+
+    static final int MSETNX_ATTEMPTS = 3;
+
+    private static final int REWRITE_ATTEMPTS = 3;
+
+    private static final ThreadLocal<ReadFrom> READ_FROM = new ThreadLocal<>();
+
+    private final JedisLeaseManager jedisLeaseManager;
+
+    private final NearCache nearCache;
+
+    private final RedisCommandMetrics redisCommandMetrics;
+
+    private final ValueCompressor valueCompressor;
+
+    private final CacheLoadProperties cacheLoadProperties;
+
+    private final RedisBulkProperties redisBulkProperties;
+
+    private volatile SingleFlightLoader singleFlightLoader;
 
     /**
      * Description: Retrieve value by key from specified DB, and release the connection <br>
@@ -38,18 +104,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String get(final String key, final int dbIndex) {
-        Jedis jedis = null;
-        String value = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            value = jedis.get(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return value;
+        return nearCache.get(dbIndex, key, () -> read("GET", dbIndex, key, jedis -> valueCompressor.decompress(jedis.get(SafeEncoder.encode(key))), null));
     }
 
     /**
@@ -63,17 +118,8 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String set(final String key, final String value, final int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.set(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return "NG";
-        } finally {
-            returnResource(jedisPool);
-        }
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("SET", dbIndex, key, jedis -> jedis.set(SafeEncoder.encode(key), stored), "NG");
     }
 
     /**
@@ -86,41 +132,41 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long remove(final int dbIndex, final String... keys) {
-        Jedis jedis = null;
         try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.del(keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
+            int slot = router().slotOf(keys);
+            if (slot != ShardRouter.SPREAD && keys.length <= redisBulkProperties.getChunkSize()) {
+                return executeOnShard("DEL", dbIndex, router().shardOfSlot(slot), jedis -> jedis.del(keys), 0L);
+            }
+            long[] removed = new long[1];
+            fanOut("DEL", dbIndex, ReadFrom.PRIMARY, keys.length, i -> router().slotOf(keys[i]),
+                    (pipeline, indices) -> pipeline.del(select(keys, indices)), (indices, count) -> removed[0] += count);
+            return removed[0];
         } finally {
-            returnResource(jedisPool);
+            nearCache.invalidate(dbIndex, keys);
         }
     }
 
     /**
-     * Description: Append value by key from specified DB <br>
+     * Description: Append value by key from specified DB. A compressed value is read, decompressed, appended to and
+     * written back compressed with its TTL, in a transaction watching key <br>
      * CreateTime 2019-05-14 23:45 <br>
      *
      * @param key     <br>
      * @param value   <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return length of value if success, or 0L if fail <br>
+     * @return Return UTF-8 length of value if success, or 0L if fail <br>
      * @author packy <br>
      */
     public Long append(final String key, final String value, final int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.append(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return executeAndInvalidate("APPEND", dbIndex, key, jedis -> {
+            Long length = (Long) RedisScript.PLAIN_STRING_COMMAND.eval(jedis, Collections.singletonList(key), Arrays.asList("append", value));
+            return length != null ? length : rewriteCompressed(jedis, key, current -> {
+                byte[] appended = SafeEncoder.encode(value);
+                byte[] edited = Arrays.copyOf(current, current.length + appended.length);
+                System.arraycopy(appended, 0, edited, current.length, appended.length);
+                return edited;
+            });
+        }, 0L);
     }
 
     /**
@@ -133,37 +179,30 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Boolean isExisting(final String key, final int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.exists(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return false;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return read("EXISTS", dbIndex, key, jedis -> jedis.exists(key), false);
     }
 
     /**
      * Description: Clear all keys in current DB <br>
      * CreateTime 2019-05-14 23:45 <br>
      *
-     * @return Always return OK <br>
+     * @return Return OK if every shard was flushed, or null if fail <br>
      * @author packy <br>
      */
     public String flushDB() {
-        Jedis jedis = null;
+        int dbIndex = jedisLeaseManager.getJedisPoolRegistry().getDefaultDatabase();
         try {
-            jedis = jedisPool.getResource();
-            return jedis.flushDB();
-        } catch (Exception e) {
-            log.error(e.getMessage());
+            String reply = null;
+            for (int shard = 0; shard < jedisLeaseManager.getShardCount(); shard++) {
+                reply = executeOnShard("FLUSHDB", dbIndex, shard, jedis -> jedis.flushDB(), null);
+                if (reply == null) {
+                    return null;
+                }
+            }
+            return reply;
         } finally {
-            returnResource(jedisPool);
+            nearCache.invalidateAll(dbIndex);
         }
-        return null;
     }
 
     /**
@@ -177,17 +216,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long expire(String key, int time, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.expire(key, time);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return executeAndInvalidate("EXPIRE", dbIndex, key, jedis -> jedis.expire(key, time), 0L);
     }
 
     /**
@@ -200,17 +229,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long ttl(String key, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.ttl(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return read("TTL", dbIndex, key, jedis -> jedis.ttl(key), 0L);
     }
 
     /**
@@ -223,17 +242,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long persist(String key, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.persist(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return -1L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return execute("PERSIST", dbIndex, key, jedis -> jedis.persist(key), -1L);
     }
 
     /**
@@ -248,21 +257,13 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String setex(String key, String value, int seconds, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.setex(key, seconds, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return null;
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("SETEX", dbIndex, key, jedis -> jedis.setex(SafeEncoder.encode(key), seconds, stored), null);
     }
 
     /**
-     * Description: Add a new key, if it exists, do nothing <br>
+     * Description: Add a new key, if it exists, do nothing. Locks shouldn't be built on it, see
+     * {@link #lock(String, Duration, int)} <br>
      * CreateTime 2019-05-20 23:45 <br>
      *
      * @param key     <br>
@@ -272,17 +273,25 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long setnx(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.setnx(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return executeAndInvalidate("SETNX", dbIndex, key, jedis -> jedis.setnx(key, value), 0L);
+    }
+
+    /**
+     * Description: Set value to key with an expire time only if key doesn't exist, in one command instead of
+     * setnx then expire <br>
+     * CreateTime 2026-10-16 22:48 <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param seconds Expire time, unit is second <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return 1 if success, or 0 if key exists or exception. <br>
+     * @author agent <br>
+     */
+    public Long setnx(String key, String value, int seconds, int dbIndex) {
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("SET", dbIndex, key,
+                jedis -> jedis.set(SafeEncoder.encode(key), stored, SetParams.setParams().nx().ex(seconds)) != null ? 1L : 0L, 0L);
     }
 
     /**
@@ -296,42 +305,34 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String getSet(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.getSet(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return null;
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("GETSET", dbIndex, key, jedis -> valueCompressor.decompress(jedis.getSet(SafeEncoder.encode(key), stored)), null);
     }
 
     /**
-     * Description: Replace string value from offset position for specified key <br>
+     * Description: Replace string value from offset position for specified key. Offsets count UTF-8 bytes of the
+     * value as written, a compressed value is decompressed, edited and written back compressed with its TTL, in a
+     * transaction watching key <br>
      * CreateTime 2019-05-20 23:45 <br>
      *
      * @param key     <br>
      * @param str     <br>
      * @param offset  Start index<br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return length of string after replacement, or 0 if fail <br>
+     * @return Return UTF-8 length of string after replacement, or 0 if fail <br>
      * @author packy <br>
      */
     public Long setRange(String key, String str, int offset, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.setrange(key, offset, str);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
+        return executeAndInvalidate("SETRANGE", dbIndex, key, jedis -> {
+            Long length = (Long) RedisScript.PLAIN_STRING_COMMAND.eval(jedis, Collections.singletonList(key),
+                    Arrays.asList("setrange", Integer.toString(offset), str));
+            return length != null ? length : rewriteCompressed(jedis, key, current -> {
+                byte[] replacement = SafeEncoder.encode(str);
+                byte[] edited = Arrays.copyOf(current, Math.max(current.length, offset + replacement.length));
+                System.arraycopy(replacement, 0, edited, offset, replacement.length);
+                return edited;
+            });
+        }, 0L);
     }
 
     /**
@@ -340,22 +341,13 @@ public class RedisUtils {
      *
      * @param keys    String array or a single key <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return value list of specified keys <br>
+     * @return Return value list of specified keys, in order of keys. Keys on several shards are fetched with one
+     * MGET per shard, and more keys than eldercare.cache.bulk.chunk-size with one MGET per chunk <br>
      * @author packy <br>
      */
     public List<String> mget(int dbIndex, String... keys) {
-        Jedis jedis = null;
-        List<String> values = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            values = jedis.mget(keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return values;
+        List<byte[]> replies = mget(dbIndex, SafeEncoder.encodeMany(keys));
+        return replies == null ? null : decompress(valueCompressor, replies);
     }
 
     /**
@@ -363,24 +355,31 @@ public class RedisUtils {
      * CreateTime 2019-05-20 23:45 <br>
      * Example obj.mset(new String[]{"key2","value1","key2","value2"})
      *
-     * @param keysvalues key-values <br>
+     * @param keysvalues key-values, values are compressed like {@link #set(String, String, int)} does <br>
      * @param dbIndex    DB index from 0 to 15 <br>
-     * @return Return OK if success, or null if fail <br>
+     * @return Return OK if success, or null if fail. Keys on several shards are set with one MSET per shard, and
+     * more keys than eldercare.cache.bulk.chunk-size with one MSET per chunk, which isn't atomic across commands <br>
      * @author packy <br>
      */
     public String mset(int dbIndex, String... keysvalues) {
-        Jedis jedis = null;
-        String res = null;
+        String[] keys = keysOf(keysvalues);
+        byte[][] stored = compressValues(valueCompressor, keysvalues);
         try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.mset(keysvalues);
-        } catch (Exception e) {
-            log.error(e.getMessage());
+            int slot = router().slotOf(keys);
+            if (slot != ShardRouter.SPREAD && keys.length <= redisBulkProperties.getChunkSize()) {
+                return executeOnShard("MSET", dbIndex, router().shardOfSlot(slot), jedis -> jedis.mset(stored), null);
+            }
+            return fanOut("MSET", dbIndex, ReadFrom.PRIMARY, keys.length, i -> router().slotOf(keys[i]), (pipeline, indices) -> {
+                byte[][] slotKeysvalues = new byte[indices.size() * 2][];
+                for (int i = 0; i < indices.size(); i++) {
+                    slotKeysvalues[i * 2] = stored[indices.get(i) * 2];
+                    slotKeysvalues[i * 2 + 1] = stored[indices.get(i) * 2 + 1];
+                }
+                return pipeline.mset(slotKeysvalues);
+            }, (indices, reply) -> { }) ? "OK" : null;
         } finally {
-            returnResource(jedisPool);
+            nearCache.invalidate(dbIndex, keys);
         }
-        return res;
     }
 
     /**
@@ -388,50 +387,44 @@ public class RedisUtils {
      * CreateTime 2019-05-20 23:45 <br>
      * Example obj.msetnx(new String[]{"key2","value1","key2","value2"})
      *
-     * @param keysvalues key-values <br>
+     * @param keysvalues key-values, values are compressed like {@link #set(String, String, int)} does <br>
      * @param dbIndex    DB index from 0 to 15 <br>
-     * @return Return 1 if success, or 0 if fail <br>
+     * @return Return 1 if success, or 0 if fail. Fails if keys live on several shards. More keys than
+     * eldercare.cache.bulk.chunk-size are still set all or none, with one MSET per chunk in a watched MULTI <br>
      * @author packy <br>
      */
     public Long msetnx(int dbIndex, String... keysvalues) {
-        Jedis jedis = null;
-        Long res = 0L;
+        String[] keys = keysOf(keysvalues);
+        byte[][] stored = compressValues(valueCompressor, keysvalues);
         try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.msetnx(keysvalues);
-        } catch (Exception e) {
-            log.error(e.getMessage());
+            if (keys.length > redisBulkProperties.getChunkSize()) {
+                return executeOnOneShard("MSETNX", dbIndex, keys, jedis -> msetnxChunked(keys, stored, jedis), 0L);
+            }
+            return executeOnOneShard("MSETNX", dbIndex, keys, jedis -> jedis.msetnx(stored), 0L);
         } finally {
-            returnResource(jedisPool);
+            nearCache.invalidate(dbIndex, keys);
         }
-        return res;
     }
 
     /**
-     * Description: Get sub-string value for specified key <br>
+     * Description: Get sub-string value for specified key. Offsets count UTF-8 bytes of the value as written, a
+     * compressed value is read whole and cut once decompressed <br>
      * CreateTime 2019-05-20 23:45 <br>
      *
      * @param key         <br>
      * @param startOffset Start index, if it is negative, that means start from right <br>
      * @param endOffset   End index<br>
      * @param dbIndex     DB index from 0 to 15 <br>
-     * @return Return null if key doesn't exist <br>
+     * @return Return empty string if key doesn't exist, or null if fail <br>
      * @author packy <br>
      */
     public String getrange(String key, int startOffset, int endOffset, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.getrange(key, startOffset, endOffset);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("GETRANGE", dbIndex, key, jedis -> {
+            String range = (String) RedisScript.PLAIN_STRING_COMMAND.eval(jedis, Collections.singletonList(key),
+                    Arrays.asList("getrange", Integer.toString(startOffset), Integer.toString(endOffset)));
+            return range != null ? range : SafeEncoder.encode(ValueCompressor.range(
+                    valueCompressor.toUtf8(jedis.get(SafeEncoder.encode(key))), startOffset, endOffset));
+        }, null);
     }
 
     /**
@@ -444,18 +437,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long incr(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.incr(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("INCR", dbIndex, key, jedis -> jedis.incr(key), null);
     }
 
     /**
@@ -469,18 +451,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long incrBy(String key, Long increment, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.incrBy(key, increment);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("INCRBY", dbIndex, key, jedis -> jedis.incrBy(key, increment), null);
     }
 
     /**
@@ -493,18 +464,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long decr(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.decr(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("DECR", dbIndex, key, jedis -> jedis.decr(key), null);
     }
 
     /**
@@ -518,22 +478,31 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long decrBy(String key, Long decrement, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.decrBy(key, decrement);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("DECRBY", dbIndex, key, jedis -> jedis.decrBy(key, decrement), null);
+    }
+
+    /**
+     * Description: Increase value by specified step value unless that takes it over cap, atomically <br>
+     * CreateTime 2026-10-16 22:48 <br>
+     *
+     * @param key       <br>
+     * @param increment <br>
+     * @param cap       Largest value allowed <br>
+     * @param seconds   Expire time given to key if it has none, unit is second, 0 for none <br>
+     * @param dbIndex   DB index from 0 to 15 <br>
+     * @return Return increased value, or null if it would be over cap or if fail <br>
+     * @author agent <br>
+     */
+    @SuppressWarnings("unchecked")
+    public Long incrByCapped(String key, long increment, long cap, int seconds, int dbIndex) {
+        List<Long> reply = (List<Long>) eval(RedisScript.INCREMENT_WITH_CAP, Collections.singletonList(key),
+                Arrays.asList(Long.toString(increment), Long.toString(cap), Integer.toString(seconds)), dbIndex);
+        return reply != null && reply.get(0) == 1L ? reply.get(1) : null;
     }
 
     /**
-     * Description: Get length of specified key  <br>
+     * Description: Get length of specified key, in UTF-8 bytes of the value as written. A compressed value is read
+     * whole to get it <br>
      * CreateTime 2019-05-22 15:45 <br>
      *
      * @param key     <br>
@@ -542,18 +511,10 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long serlen(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.strlen(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("STRLEN", dbIndex, key, jedis -> {
+            Long length = (Long) RedisScript.PLAIN_STRING_COMMAND.eval(jedis, Collections.singletonList(key), Collections.singletonList("strlen"));
+            return length != null ? length : (long) valueCompressor.toUtf8(jedis.get(SafeEncoder.encode(key))).length;
+        }, null);
     }
 
     /**
@@ -568,18 +529,8 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hset(String key, String field, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hset(key, field, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("HSET", dbIndex, key, jedis -> jedis.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), stored), null);
     }
 
     /**
@@ -595,18 +546,30 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hsetnx(String key, String field, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            res = jedis.hsetnx(key, field, value);
-        } catch (Exception e) {
+        byte[] stored = valueCompressor.compress(value);
+        return executeAndInvalidate("HSETNX", dbIndex, key, jedis -> jedis.hsetnx(SafeEncoder.encode(key), SafeEncoder.encode(field), stored), null);
+    }
 
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+    /**
+     * Description: Set a field of a map only if it holds expected, atomically <br>
+     * CreateTime 2026-10-16 22:48 <br>
+     *
+     * @param key      <br>
+     * @param field    Map key <br>
+     * @param expected Value the field must hold, or null if it must not exist <br>
+     * @param value    New value <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @return Return 1 if set, 0 if the field holds something else, null if failed <br>
+     * @author agent <br>
+     */
+    public Long hcompareAndSet(String key, String field, String expected, String value, int dbIndex) {
+        byte[] none = new byte[0];
+        // The field may hold expected as written or compressed, depending on when it was written
+        List<byte[]> args = Arrays.asList(SafeEncoder.encode(field), valueCompressor.compress(value),
+                SafeEncoder.encode(expected == null ? "1" : "0"), expected == null ? none : SafeEncoder.encode(expected),
+                expected == null ? none : valueCompressor.compress(expected));
+        return executeAndInvalidate("EVALSHA", dbIndex, key, jedis -> (Long) RedisScript.HASH_COMPARE_AND_SET.evalBinary(jedis,
+                Collections.singletonList(SafeEncoder.encode(key)), args), null);
     }
 
     /**
@@ -621,18 +584,9 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String hmset(String key, Map<String, String> hash, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hmset(key, hash);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        Map<byte[], byte[]> stored = new HashMap<>(hash.size() * 4 / 3 + 1);
+        hash.forEach((field, value) -> stored.put(SafeEncoder.encode(field), valueCompressor.compress(value)));
+        return executeAndInvalidate("HMSET", dbIndex, key, jedis -> jedis.hmset(SafeEncoder.encode(key), stored), null);
     }
 
     /**
@@ -646,18 +600,8 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String hget(String key, String field, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hget(key, field);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return nearCache.hget(dbIndex, key, field, () -> read("HGET", dbIndex, key,
+                jedis -> valueCompressor.decompress(jedis.hget(SafeEncoder.encode(key), SafeEncoder.encode(field))), null));
     }
 
     /**
@@ -671,18 +615,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public List<String> hmget(String key, int dbIndex, String... fields) {
-        Jedis jedis = null;
-        List<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hmget(key, fields);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("HMGET", dbIndex, key, jedis -> decompress(valueCompressor, jedis.hmget(SafeEncoder.encode(key), SafeEncoder.encodeMany(fields))), null);
     }
 
     /**
@@ -697,18 +630,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hincrby(String key, String field, Long increment, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hincrBy(key, field, increment);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("HINCRBY", dbIndex, key, jedis -> jedis.hincrBy(key, field, increment), null);
     }
 
     /**
@@ -722,18 +644,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Boolean hexists(String key, String field, int dbIndex) {
-        Jedis jedis = null;
-        Boolean res = false;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hexists(key, field);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("HEXISTS", dbIndex, key, jedis -> jedis.hexists(key, field), false);
     }
 
     /**
@@ -746,19 +657,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hlen(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hlen(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
-
+        return read("HLEN", dbIndex, key, jedis -> jedis.hlen(key), null);
     }
 
     /**
@@ -772,18 +671,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hdel(String key, int dbIndex, String... fields) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hdel(key, fields);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeAndInvalidate("HDEL", dbIndex, key, jedis -> jedis.hdel(key, fields), null);
     }
 
     /**
@@ -796,18 +684,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Set<String> hkeys(String key, int dbIndex) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hkeys(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("HKEYS", dbIndex, key, jedis -> jedis.hkeys(key), null);
     }
 
     /**
@@ -820,18 +697,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public List<String> hvals(String key, int dbIndex) {
-        Jedis jedis = null;
-        List<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hvals(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("HVALS", dbIndex, key, jedis -> decompress(valueCompressor, jedis.hvals(SafeEncoder.encode(key))), null);
     }
 
     /**
@@ -844,18 +710,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Map<String, String> hgetall(String key, int dbIndex) {
-        Jedis jedis = null;
-        Map<String, String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.hgetAll(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return nearCache.hgetall(dbIndex, key, () -> read("HGETALL", dbIndex, key, jedis -> decompress(valueCompressor, jedis.hgetAll(SafeEncoder.encode(key))), null));
     }
 
     /**
@@ -869,18 +724,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long lpush(String key, int dbIndex, String... strs) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lpush(key, strs);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("LPUSH", dbIndex, key, jedis -> jedis.lpush(key, strs), null);
     }
 
     /**
@@ -894,18 +738,25 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long rpush(String key, int dbIndex, String... strs) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.rpush(key, strs);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("RPUSH", dbIndex, key, jedis -> jedis.rpush(key, strs), null);
+    }
+
+    /**
+     * Description: Add elements to left side of list and drop the oldest ones beyond maxLength, atomically <br>
+     * CreateTime 2026-10-16 22:48 <br>
+     *
+     * @param key       <br>
+     * @param maxLength Most elements kept <br>
+     * @param dbIndex   DB index from 0 to 15 <br>
+     * @param strs      elements will be added one by one <br>
+     * @return Return size of list, or null if fail <br>
+     * @author agent <br>
+     */
+    public Long lpushBounded(String key, long maxLength, int dbIndex, String... strs) {
+        List<String> args = new ArrayList<>(strs.length + 1);
+        args.add(Long.toString(maxLength));
+        args.addAll(Arrays.asList(strs));
+        return (Long) eval(RedisScript.BOUNDED_PUSH, Collections.singletonList(key), args, dbIndex);
     }
 
     /**
@@ -922,18 +773,7 @@ public class RedisUtils {
      */
     public Long linsert(String key, ListPosition where, String pivot,
                         String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.linsert(key, where, pivot, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("LINSERT", dbIndex, key, jedis -> jedis.linsert(key, where, pivot, value), null);
     }
 
     /**
@@ -948,18 +788,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String lset(String key, Long index, String value, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lset(key, index, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("LSET", dbIndex, key, jedis -> jedis.lset(key, index, value), null);
     }
 
     /**
@@ -974,18 +803,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long lrem(String key, long count, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lrem(key, count, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("LREM", dbIndex, key, jedis -> jedis.lrem(key, count, value), null);
     }
 
     /**
@@ -1000,18 +818,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String ltrim(String key, long start, long end, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.ltrim(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("LTRIM", dbIndex, key, jedis -> jedis.ltrim(key, start, end), null);
     }
 
     /**
@@ -1023,19 +830,8 @@ public class RedisUtils {
      * @return Return OK if success <br>
      * @author packy <br>
      */
-    synchronized public String lpop(String key, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lpop(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+    public String lpop(String key, int dbIndex) {
+        return execute("LPOP", dbIndex, key, jedis -> jedis.lpop(key), null);
     }
 
     /**
@@ -1047,19 +843,8 @@ public class RedisUtils {
      * @return Return OK if success <br>
      * @author packy <br>
      */
-    synchronized public String rpop(String key, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.rpop(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+    public String rpop(String key, int dbIndex) {
+        return execute("RPOP", dbIndex, key, jedis -> jedis.rpop(key), null);
     }
 
     /**
@@ -1069,22 +854,11 @@ public class RedisUtils {
      * @param srckey  <br>
      * @param dstkey  <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return OK if success <br>
+     * @return Return OK if success. Fails if the lists live on different shards <br>
      * @author packy <br>
      */
     public String rpoplpush(String srckey, String dstkey, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.rpoplpush(srckey, dstkey);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeOnOneShard("RPOPLPUSH", dbIndex, new String[]{srckey, dstkey}, jedis -> jedis.rpoplpush(srckey, dstkey), null);
     }
 
     /**
@@ -1098,18 +872,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String lindex(String key, long index, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lindex(key, index);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("LINDEX", dbIndex, key, jedis -> jedis.lindex(key, index), null);
     }
 
     /**
@@ -1122,18 +885,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long llen(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.llen(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("LLEN", dbIndex, key, jedis -> jedis.llen(key), null);
     }
 
     /**
@@ -1148,18 +900,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public List<String> lrange(String key, long start, long end, int dbIndex) {
-        Jedis jedis = null;
-        List<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.lrange(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("LRANGE", dbIndex, key, jedis -> jedis.lrange(key, start, end), null);
     }
 
     /**
@@ -1173,17 +914,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public List<String> sort(String key, SortingParams sortingParameters, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.sort(key, sortingParameters);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return null;
+        return execute("SORT", dbIndex, key, jedis -> jedis.sort(key, sortingParameters), null);
     }
 
     /**
@@ -1196,17 +927,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public List<String> sort(String key, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.sort(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return null;
+        return execute("SORT", dbIndex, key, jedis -> jedis.sort(key), null);
     }
 
     /**
@@ -1220,18 +941,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long sadd(String key, int dbIndex, String... values) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sadd(key, values);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("SADD", dbIndex, key, jedis -> jedis.sadd(key, values), null);
     }
 
     /**
@@ -1245,18 +955,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long srem(String key, int dbIndex, String... values) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.srem(key, values);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("SREM", dbIndex, key, jedis -> jedis.srem(key, values), null);
     }
 
     /**
@@ -1269,18 +968,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String spop(String key, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.spop(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("SPOP", dbIndex, key, jedis -> jedis.spop(key), null);
     }
 
     /**
@@ -1289,22 +977,33 @@ public class RedisUtils {
      *
      * @param keys    <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return difference set <br>
+     * @return Return difference set, empty if no keys are given. Sets on other shards than the first one are fetched
+     * as one SUNION per shard and removed locally <br>
      * @author packy <br>
      */
     public Set<String> sdiff(int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sdiff(keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (keys.length == 0) {
+            return new HashSet<>();
+        }
+        int slot = router().slotOf(keys);
+        if (slot != ShardRouter.SPREAD) {
+            return executeOnShard("SDIFF", dbIndex, router().shardOfSlot(slot), readFromOf(keys[0]), jedis -> jedis.sdiff(keys), null);
         }
-        return res;
+        Set<String> difference = new HashSet<>();
+        List<Set<String>> others = new ArrayList<>();
+        boolean done = fanOut("SDIFF", dbIndex, readFromOf(keys[0]), keys.length, i -> router().slotOf(keys[i]), (pipeline, indices) ->
+                indices.get(0) == 0 ? pipeline.sdiff(select(keys, indices)) : pipeline.sunion(select(keys, indices)), (indices, members) -> {
+            if (indices.get(0) == 0) {
+                difference.addAll(members);
+            } else {
+                others.add(members);
+            }
+        });
+        if (!done) {
+            return null;
+        }
+        others.forEach(difference::removeAll);
+        return difference;
     }
 
     /**
@@ -1318,18 +1017,10 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long sdiffstore(String dstKey, int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sdiffstore(dstKey, keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (router().slotOf(withKey(dstKey, keys)) != ShardRouter.SPREAD) {
+            return execute("SDIFFSTORE", dbIndex, dstKey, jedis -> jedis.sdiffstore(dstKey, keys), null);
         }
-        return res;
+        return storeSet("SDIFFSTORE", dbIndex, dstKey, sdiff(dbIndex, keys));
     }
 
     /**
@@ -1338,22 +1029,26 @@ public class RedisUtils {
      *
      * @param keys    <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return intersection <br>
+     * @return Return intersection, empty if no keys are given. Sets on several shards are intersected per shard,
+     * then locally <br>
      * @author packy <br>
      */
     public Set<String> sinter(int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sinter(keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (keys.length == 0) {
+            return new HashSet<>();
+        }
+        int slot = router().slotOf(keys);
+        if (slot != ShardRouter.SPREAD) {
+            return executeOnShard("SINTER", dbIndex, router().shardOfSlot(slot), readFromOf(keys[0]), jedis -> jedis.sinter(keys), null);
         }
-        return res;
+        List<Set<String>> intersections = new ArrayList<>();
+        if (!fanOut("SINTER", dbIndex, readFromOf(keys[0]), keys.length, i -> router().slotOf(keys[i]),
+                (pipeline, indices) -> pipeline.sinter(select(keys, indices)), (indices, members) -> intersections.add(members))) {
+            return null;
+        }
+        Set<String> intersection = new HashSet<>(intersections.get(0));
+        intersections.forEach(intersection::retainAll);
+        return intersection;
     }
 
     /**
@@ -1367,18 +1062,10 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long sinterstore(String dstKey, int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sinterstore(dstKey, keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (router().slotOf(withKey(dstKey, keys)) != ShardRouter.SPREAD) {
+            return execute("SINTERSTORE", dbIndex, dstKey, jedis -> jedis.sinterstore(dstKey, keys), null);
         }
-        return res;
+        return storeSet("SINTERSTORE", dbIndex, dstKey, sinter(dbIndex, keys));
     }
 
 
@@ -1388,22 +1075,21 @@ public class RedisUtils {
      *
      * @param keys    <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return union set <br>
+     * @return Return union set, empty if no keys are given. Sets on several shards are merged per shard, then
+     * locally <br>
      * @author packy <br>
      */
     public Set<String> sunion(int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sunion(keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (keys.length == 0) {
+            return new HashSet<>();
+        }
+        int slot = router().slotOf(keys);
+        if (slot != ShardRouter.SPREAD) {
+            return executeOnShard("SUNION", dbIndex, router().shardOfSlot(slot), readFromOf(keys[0]), jedis -> jedis.sunion(keys), null);
         }
-        return res;
+        Set<String> union = new HashSet<>();
+        return fanOut("SUNION", dbIndex, readFromOf(keys[0]), keys.length, i -> router().slotOf(keys[i]),
+                (pipeline, indices) -> pipeline.sunion(select(keys, indices)), (indices, members) -> union.addAll(members)) ? union : null;
     }
 
     /**
@@ -1417,18 +1103,10 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long sunionstore(String dstKey, int dbIndex, String... keys) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sunionstore(dstKey, keys);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+        if (router().slotOf(withKey(dstKey, keys)) != ShardRouter.SPREAD) {
+            return execute("SUNIONSTORE", dbIndex, dstKey, jedis -> jedis.sunionstore(dstKey, keys), null);
         }
-        return res;
+        return storeSet("SUNIONSTORE", dbIndex, dstKey, sunion(dbIndex, keys));
     }
 
     /**
@@ -1439,22 +1117,11 @@ public class RedisUtils {
      * @param dstKey  <br>
      * @param value   Value of src set <br>
      * @param dbIndex DB index from 0 to 15 <br>
-     * @return Return 1 if success, or 0 if value doesn't exist <br>
+     * @return Return 1 if success, or 0 if value doesn't exist. Fails if the sets live on different shards <br>
      * @author packy <br>
      */
     public Long smove(String srcKey, String dstKey, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.smove(srcKey, dstKey, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return executeOnOneShard("SMOVE", dbIndex, new String[]{srcKey, dstKey}, jedis -> jedis.smove(srcKey, dstKey, value), null);
     }
 
     /**
@@ -1467,18 +1134,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long scard(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.scard(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("SCARD", dbIndex, key, jedis -> jedis.scard(key), null);
     }
 
     /**
@@ -1492,18 +1148,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Boolean sismember(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        Boolean res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.sismember(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("SISMEMBER", dbIndex, key, jedis -> jedis.sismember(key, value), null);
     }
 
     /**
@@ -1516,18 +1161,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String srandmember(String key, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.srandmember(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("SRANDMEMBER", dbIndex, key, jedis -> jedis.srandmember(key), null);
     }
 
     /**
@@ -1540,18 +1174,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Set<String> smembers(String key, int dbIndex) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.smembers(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("SMEMBERS", dbIndex, key, jedis -> jedis.smembers(key), null);
     }
 
     /**
@@ -1566,18 +1189,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zadd(String key, double score, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zadd(key, score, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("ZADD", dbIndex, key, jedis -> jedis.zadd(key, score, value), null);
     }
 
     /**
@@ -1592,17 +1204,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Set<String> zrange(String key, long start, long end, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.zrange(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return null;
+        return read("ZRANGE", dbIndex, key, jedis -> jedis.zrange(key, start, end), null);
     }
 
     /**
@@ -1617,18 +1219,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zcount(String key, double start, double end, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.zcount(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
-
+        return read("ZCOUNT", dbIndex, key, jedis -> jedis.zcount(key, start, end), 0L);
     }
 
     /**
@@ -1643,18 +1234,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long hincrBy(String key, String field, long increment, int dbIndex) {
-        Jedis jedis = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            return jedis.hincrBy(key, field, increment);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-            return 0L;
-        } finally {
-            returnResource(jedisPool);
-        }
-
+        return executeAndInvalidate("HINCRBY", dbIndex, key, jedis -> jedis.hincrBy(key, field, increment), 0L);
     }
 
     /**
@@ -1668,18 +1248,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zrem(String key, int dbIndex, String... values) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zrem(key, values);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("ZREM", dbIndex, key, jedis -> jedis.zrem(key, values), null);
     }
 
     /**
@@ -1694,18 +1263,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Double zincrby(String key, double score, String value, int dbIndex) {
-        Jedis jedis = null;
-        Double res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zincrby(key, score, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("ZINCRBY", dbIndex, key, jedis -> jedis.zincrby(key, score, value), null);
     }
 
     /**
@@ -1719,18 +1277,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zrank(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zrank(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZRANK", dbIndex, key, jedis -> jedis.zrank(key, value), null);
     }
 
     /**
@@ -1744,18 +1291,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zrevrank(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zrevrank(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZREVRANK", dbIndex, key, jedis -> jedis.zrevrank(key, value), null);
     }
 
     /**
@@ -1770,18 +1306,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Set<String> zrevrange(String key, long start, long end, int dbIndex) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zrevrange(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZREVRANGE", dbIndex, key, jedis -> jedis.zrevrange(key, start, end), null);
     }
 
     /**
@@ -1796,18 +1321,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Set<String> zrangebyscore(String key, String scoreMax, String scoreMin, int dbIndex) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zrevrangeByScore(key, scoreMax, scoreMin);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZREVRANGEBYSCORE", dbIndex, key, jedis -> jedis.zrevrangeByScore(key, scoreMax, scoreMin), null);
     }
 
     /**
@@ -1822,18 +1336,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zcount(String key, String scoreMin, String scoreMax, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zcount(key, scoreMin, scoreMax);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZCOUNT", dbIndex, key, jedis -> jedis.zcount(key, scoreMin, scoreMax), null);
     }
 
     /**
@@ -1846,18 +1349,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zcard(String key, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zcard(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZCARD", dbIndex, key, jedis -> jedis.zcard(key), null);
     }
 
     /**
@@ -1871,18 +1363,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Double zscore(String key, String value, int dbIndex) {
-        Jedis jedis = null;
-        Double res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zscore(key, value);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("ZSCORE", dbIndex, key, jedis -> jedis.zscore(key, value), null);
     }
 
     /**
@@ -1897,18 +1378,7 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zremrangeByRank(String key, long start, long end, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zremrangeByRank(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("ZREMRANGEBYRANK", dbIndex, key, jedis -> jedis.zremrangeByRank(key, start, end), null);
     }
 
     /**
@@ -1923,42 +1393,241 @@ public class RedisUtils {
      * @author packy <br>
      */
     public Long zremrangeByScore(String key, double start, double end, int dbIndex) {
-        Jedis jedis = null;
-        Long res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.zremrangeByScore(key, start, end);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return execute("ZREMRANGEBYSCORE", dbIndex, key, jedis -> jedis.zremrangeByScore(key, start, end), null);
     }
 
     /**
-     * Description: Return all pattern matched keys <br>
+     * Description: Return all pattern matched keys. Keys are collected page by page with SCAN, so Redis isn't
+     * blocked, but all of them are still kept in memory. Prefer {@link #scan(String, int, String, int)} for big DBs <br>
      * CreateTime 2019-05-26 09:45 <br>
      *
      * @param pattern <br>
      * @param dbIndex  DB index from 0 to 15 <br>
-     * @return Return all matched keys <br>
+     * @return Return all matched keys, or null if fail <br>
      * @author packy <br>
      */
     public Set<String> keys(String pattern, int dbIndex) {
-        Jedis jedis = null;
-        Set<String> res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.keys(pattern);
+        try (Stream<String> keys = scan(pattern, DEFAULT_SCAN_COUNT, null, dbIndex)) {
+            return keys.collect(Collectors.toSet());
         } catch (Exception e) {
             log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
+            return null;
+        }
+    }
+
+    /**
+     * Description: Stream pattern matched keys with SCAN <br>
+     * CreateTime 2026-10-16 21:02 <br>
+     *
+     * @param pattern <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of keys, see {@link #scan(String, int, String, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<String> scan(String pattern, int dbIndex) {
+        return scan(pattern, DEFAULT_SCAN_COUNT, null, dbIndex);
+    }
+
+    /**
+     * Description: Stream pattern matched keys with SCAN. A connection is leased only while a page is fetched,
+     * and the next page is fetched once the previous one is consumed. A key may show up more than once, and keys
+     * added or removed during the walk may or may not show up <br>
+     * CreateTime 2026-10-16 21:02 <br>
+     *
+     * @param pattern Glob-style pattern, null matches all keys <br>
+     * @param count   COUNT hint, the number of keys Redis looks at per page <br>
+     * @param type    Only keep keys of this type like "hash" or "zset", null keeps all. Filtered with one pipelined
+     *                TYPE per page since SCAN TYPE needs Redis 6 <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of keys, failure of a page is thrown to the consumer as JedisException <br>
+     * @author agent <br>
+     */
+    public Stream<String> scan(String pattern, int count, String type, int dbIndex) {
+        ScanParams params = scanParams(pattern, count);
+        if (jedisLeaseManager.getShardCount() == 1) {
+            return StreamSupport.stream(new ScanSpliterator<>(cursor -> scanPage(0, cursor, params, type, dbIndex)), false);
         }
-        return res;
+        return IntStream.range(0, jedisLeaseManager.getShardCount()).boxed().flatMap(shard ->
+                StreamSupport.stream(new ScanSpliterator<>(cursor -> scanPage(shard, cursor, params, type, dbIndex)), false));
+    }
+
+    /**
+     * Description: Stream fields and values of a map with HSCAN, instead of loading it whole with hgetall <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of entries, see {@link #hscan(String, String, int, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<Map.Entry<String, String>> hscan(String key, int dbIndex) {
+        return hscan(key, null, DEFAULT_SCAN_COUNT, dbIndex);
+    }
+
+    /**
+     * Description: Stream fields and values of a map with HSCAN. Like {@link #scan(String, int, String, int)}, at
+     * most one page is held and the walk stops as soon as the consumer does, e.g. with limit or anyMatch. A field
+     * may show up more than once <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param pattern Glob-style pattern of fields, null matches all fields <br>
+     * @param count   COUNT hint, the number of fields Redis looks at per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of entries, failure of a page is thrown to the consumer as JedisException <br>
+     * @author agent <br>
+     */
+    public Stream<Map.Entry<String, String>> hscan(String key, String pattern, int count, int dbIndex) {
+        ScanParams params = scanParams(pattern, count);
+        byte[] rawKey = SafeEncoder.encode(key);
+        return collectionScan("HSCAN", key, dbIndex, (jedis, cursor) -> {
+            ScanResult<Map.Entry<byte[], byte[]>> page = jedis.hscan(rawKey, SafeEncoder.encode(cursor), params);
+            List<Map.Entry<String, String>> entries = new ArrayList<>(page.getResult().size());
+            for (Map.Entry<byte[], byte[]> entry : page.getResult()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(SafeEncoder.encode(entry.getKey()), valueCompressor.decompress(entry.getValue())));
+            }
+            return new ScanResult<>(page.getCursor(), entries);
+        });
+    }
+
+    /**
+     * Description: Stream members of a set with SSCAN, instead of loading it whole with smembers <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param pattern Glob-style pattern of members, null matches all members <br>
+     * @param count   COUNT hint, the number of members Redis looks at per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of members, see {@link #hscan(String, String, int, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<String> sscan(String key, String pattern, int count, int dbIndex) {
+        ScanParams params = scanParams(pattern, count);
+        return collectionScan("SSCAN", key, dbIndex, (jedis, cursor) -> jedis.sscan(key, cursor, params));
+    }
+
+    /**
+     * Description: Stream members of a set with SSCAN, instead of loading it whole with smembers <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of members, see {@link #sscan(String, String, int, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<String> sscan(String key, int dbIndex) {
+        return sscan(key, null, DEFAULT_SCAN_COUNT, dbIndex);
+    }
+
+    /**
+     * Description: Stream members and scores of a sorted set with ZSCAN, instead of loading it whole with
+     * zrange(key, 0, -1). Members come in no particular order <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param pattern Glob-style pattern of members, null matches all members <br>
+     * @param count   COUNT hint, the number of members Redis looks at per page <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of members with scores, see {@link #hscan(String, String, int, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<Tuple> zscan(String key, String pattern, int count, int dbIndex) {
+        ScanParams params = scanParams(pattern, count);
+        return collectionScan("ZSCAN", key, dbIndex, (jedis, cursor) -> jedis.zscan(key, cursor, params));
+    }
+
+    /**
+     * Description: Stream members and scores of a sorted set with ZSCAN, instead of loading it whole with
+     * zrange(key, 0, -1) <br>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return lazy stream of members with scores, see {@link #zscan(String, String, int, int)} <br>
+     * @author agent <br>
+     */
+    public Stream<Tuple> zscan(String key, int dbIndex) {
+        return zscan(key, null, DEFAULT_SCAN_COUNT, dbIndex);
+    }
+
+    /**
+     * Description: Hand a stream to consumer in pages, consumed by several threads while the next pages are read.
+     * Pages are consumed on the fan-out threads of the lease manager; reading waits while parallelism pages are
+     * being consumed, so at most parallelism + 1 pages are held whatever the size of the stream. If the calling
+     * thread is interrupted, no more pages are handed out and the running ones are waited for <br>
+     * Example:
+     * <pre>
+     *     redisUtils.forEachPage(redisUtils.hscan("facility:7:residents", 1), 500, 4, page -&gt; {
+     *         residentIndex.update(page);
+     *         return true;
+     *     });
+     * </pre>
+     * CreateTime 2026-10-16 22:49 <br>
+     *
+     * @param elements    Stream, e.g. of {@link #hscan(String, int)} <br>
+     * @param pageSize    Elements per page <br>
+     * @param parallelism Threads consuming pages, 1 consumes them on the calling thread <br>
+     * @param consumer    Consume a page, return false to stop the walk <br>
+     * @return Return number of elements handed to consumer <br>
+     * @throws RuntimeException the first one thrown by consumer or by the stream, once running pages are done <br>
+     * @author agent <br>
+     */
+    public <T> long forEachPage(Stream<T> elements, int pageSize, int parallelism, Predicate<List<T>> consumer) {
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicLong handed = new AtomicLong();
+        int consumers = Math.max(parallelism, 1);
+        Semaphore running = new Semaphore(consumers);
+        boolean interrupted = false;
+        try (Stream<T> closing = elements) {
+            Iterator<T> iterator = closing.iterator();
+            while (!stopped.get() && iterator.hasNext()) {
+                List<T> page = new ArrayList<>(pageSize);
+                while (page.size() < pageSize && iterator.hasNext()) {
+                    page.add(iterator.next());
+                }
+                Runnable consume = () -> {
+                    try {
+                        if (!stopped.get()) {
+                            handed.addAndGet(page.size());
+                            if (!consumer.test(page)) {
+                                stopped.set(true);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        stopped.set(true);
+                    } finally {
+                        running.release();
+                    }
+                };
+                running.acquire();
+                if (consumers == 1) {
+                    consume.run();
+                } else {
+                    try {
+                        jedisLeaseManager.getFanOutExecutor().execute(consume);
+                    } catch (RejectedExecutionException e) {
+                        running.release();
+                        throw e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            stopped.set(true);
+            running.acquireUninterruptibly(consumers);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return handed.get();
     }
 
     /**
@@ -1971,32 +1640,869 @@ public class RedisUtils {
      * @author packy <br>
      */
     public String type(String key, int dbIndex) {
-        Jedis jedis = null;
-        String res = null;
-        try {
-            jedis = jedisPool.getResource();
-            jedis.select(dbIndex);
-            res = jedis.type(key);
-        } catch (Exception e) {
-            log.error(e.getMessage());
-        } finally {
-            returnResource(jedisPool);
-        }
-        return res;
+        return read("TYPE", dbIndex, key, jedis -> jedis.type(key), null);
     }
 
     /**
-     * Description: Release collection <br>
-     * CreateTime 2019-05-26 09:45 <br>
+     * Description: Retrieve binary value by key from specified DB. Binary reads bypass the near cache <br>
+     * CreateTime 2026-10-16 22:20 <br>
      *
-     * @param jedisPool  DB index from 0 to 15 <br>
-     * @return Return type of key <br>
-     * @author packy <br>
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return value of input key if success, or null if fail <br>
+     * @author agent <br>
      */
-    private static void returnResource(JedisPool jedisPool) {
-        if (jedisPool != null) {
-            jedisPool.close();
-        }
+    public byte[] get(final byte[] key, final int dbIndex) {
+        return read("GET", dbIndex, key, jedis -> jedis.get(key), null);
+    }
+
+    /**
+     * Description: Add binary value to specified DB <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return OK if success, or NG if fail <br>
+     * @author agent <br>
+     */
+    public String set(final byte[] key, final byte[] value, final int dbIndex) {
+        return executeAndInvalidate("SET", dbIndex, key, jedis -> jedis.set(key, value), "NG");
+    }
+
+    /**
+     * Description: Add binary value with expire time. If key exists, will be overwritten <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param seconds Expire time, unit: second <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return OK if success, or null if fail <br>
+     * @author agent <br>
+     */
+    public String setex(byte[] key, byte[] value, int seconds, int dbIndex) {
+        return executeAndInvalidate("SETEX", dbIndex, key, jedis -> jedis.setex(key, seconds, value), null);
     }
 
+    /**
+     * Description: Get binary values by keys <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param keys    <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return value list of specified keys, null for missing ones, empty if no keys are given, or null if
+     * fail <br>
+     * @author agent <br>
+     */
+    public List<byte[]> mget(int dbIndex, byte[]... keys) {
+        if (keys.length == 0) {
+            return new ArrayList<>();
+        }
+        if (jedisLeaseManager.getClusterSlots() == null && jedisLeaseManager.getShardCount() == 1 && keys.length <= redisBulkProperties.getChunkSize()) {
+            return executeOnShard("MGET", dbIndex, 0, readFromOf(keys[0]), jedis -> jedis.mget(keys), null);
+        }
+        List<byte[]> values = new ArrayList<>(Collections.nCopies(keys.length, null));
+        return fanOut("MGET", dbIndex, readFromOf(keys[0]), keys.length, i -> router().slotOf(keys[i]), (pipeline, indices) -> {
+            byte[][] slotKeys = new byte[indices.size()][];
+            for (int i = 0; i < slotKeys.length; i++) {
+                slotKeys[i] = keys[indices.get(i)];
+            }
+            return pipeline.mget(slotKeys);
+        }, (indices, replies) -> {
+            for (int i = 0; i < indices.size(); i++) {
+                values.set(indices.get(i), replies.get(i));
+            }
+        }) ? values : null;
+    }
+
+    /**
+     * Description: Get binary value of a field in hash. Binary reads bypass the near cache <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return value of field, or null if fail <br>
+     * @author agent <br>
+     */
+    public byte[] hget(byte[] key, byte[] field, int dbIndex) {
+        return read("HGET", dbIndex, key, jedis -> jedis.hget(key, field), null);
+    }
+
+    /**
+     * Description: Set binary value of a field in hash <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param value   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return 1 if field is new, 0 if it was overwritten or fail <br>
+     * @author agent <br>
+     */
+    public Long hset(byte[] key, byte[] field, byte[] value, int dbIndex) {
+        return executeAndInvalidate("HSET", dbIndex, key, jedis -> jedis.hset(key, field, value), 0L);
+    }
+
+    /**
+     * Description: Get all binary fields and values of hash <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return fields and values, or null if fail <br>
+     * @author agent <br>
+     */
+    public Map<byte[], byte[]> hgetall(byte[] key, int dbIndex) {
+        return read("HGETALL", dbIndex, key, jedis -> jedis.hgetAll(key), null);
+    }
+
+    /**
+     * Description: Retrieve value by key and decode it with codec. Typed reads bypass the near cache <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param codec   Codec the value was written with <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return decoded value, or null if key doesn't exist or fail <br>
+     * @throws IllegalArgumentException if the stored value isn't in the format of codec <br>
+     * @author agent <br>
+     */
+    public <T> T get(String key, RedisCodec<T> codec, int dbIndex) {
+        return codec.decode(get(SafeEncoder.encode(key), dbIndex));
+    }
+
+    /**
+     * Description: Encode value with codec and add it to specified DB <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param codec   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return OK if success, or NG if fail <br>
+     * @author agent <br>
+     */
+    public <T> String set(String key, T value, RedisCodec<T> codec, int dbIndex) {
+        byte[] bytes = codec.encode(value);
+        return executeAndInvalidate("SET", dbIndex, key, jedis -> jedis.set(SafeEncoder.encode(key), bytes), "NG");
+    }
+
+    /**
+     * Description: Encode value with codec and add it with expire time <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param value   <br>
+     * @param codec   <br>
+     * @param seconds Expire time, unit: second <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return OK if success, or null if fail <br>
+     * @author agent <br>
+     */
+    public <T> String setex(String key, T value, RedisCodec<T> codec, int seconds, int dbIndex) {
+        byte[] bytes = codec.encode(value);
+        return executeAndInvalidate("SETEX", dbIndex, key, jedis -> jedis.setex(SafeEncoder.encode(key), seconds, bytes), null);
+    }
+
+    /**
+     * Description: Get values by keys and decode them with codec <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param codec   Codec the values were written with <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @param keys    <br>
+     * @return Return decoded values in order of keys, null for missing ones, or null if fail <br>
+     * @throws IllegalArgumentException if a stored value isn't in the format of codec <br>
+     * @author agent <br>
+     */
+    public <T> List<T> mget(RedisCodec<T> codec, int dbIndex, String... keys) {
+        List<byte[]> replies = mget(dbIndex, SafeEncoder.encodeMany(keys));
+        if (replies == null) {
+            return null;
+        }
+        List<T> values = new ArrayList<>(replies.size());
+        for (byte[] reply : replies) {
+            values.add(codec.decode(reply));
+        }
+        return values;
+    }
+
+    /**
+     * Description: Get value of a field in hash and decode it with codec. Typed reads bypass the near cache <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param codec   Codec the value was written with <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return decoded value, or null if field doesn't exist or fail <br>
+     * @throws IllegalArgumentException if the stored value isn't in the format of codec <br>
+     * @author agent <br>
+     */
+    public <T> T hget(String key, String field, RedisCodec<T> codec, int dbIndex) {
+        return codec.decode(hget(SafeEncoder.encode(key), SafeEncoder.encode(field), dbIndex));
+    }
+
+    /**
+     * Description: Encode value with codec and set it to a field in hash <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param field   <br>
+     * @param value   <br>
+     * @param codec   <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return 1 if field is new, 0 if it was overwritten or fail <br>
+     * @author agent <br>
+     */
+    public <T> Long hset(String key, String field, T value, RedisCodec<T> codec, int dbIndex) {
+        byte[] bytes = codec.encode(value);
+        return executeAndInvalidate("HSET", dbIndex, key, jedis -> jedis.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), bytes), 0L);
+    }
+
+    /**
+     * Description: Get all fields of hash and decode their values with codec <br>
+     * CreateTime 2026-10-16 22:20 <br>
+     *
+     * @param key     <br>
+     * @param codec   Codec the values were written with <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return decoded values keyed by field, or null if fail <br>
+     * @throws IllegalArgumentException if a stored value isn't in the format of codec <br>
+     * @author agent <br>
+     */
+    public <T> Map<String, T> hgetall(String key, RedisCodec<T> codec, int dbIndex) {
+        Map<byte[], byte[]> replies = hgetall(SafeEncoder.encode(key), dbIndex);
+        if (replies == null) {
+            return null;
+        }
+        Map<String, T> values = new HashMap<>(replies.size() * 4 / 3 + 1);
+        for (Map.Entry<byte[], byte[]> reply : replies.entrySet()) {
+            values.put(SafeEncoder.encode(reply.getKey()), codec.decode(reply.getValue()));
+        }
+        return values;
+    }
+
+    /**
+     * Description: Start a batch of commands which will be sent to specified DB in one pipeline <br>
+     * CreateTime 2026-10-16 20:56 <br>
+     *
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return an empty batch, commands are sent when {@link RedisBatch#execute()} is called <br>
+     * @author agent <br>
+     */
+    public RedisBatch batch(int dbIndex) {
+        return new RedisBatch(jedisLeaseManager, nearCache, redisCommandMetrics, valueCompressor, dbIndex);
+    }
+
+    /**
+     * Description: Get a work queue on a list of specified DB, consumed with blocking pops. Items failing
+     * {@link RedisWorkQueue#DEFAULT_MAX_ATTEMPTS} times go to its dead list <br>
+     * CreateTime 2026-10-16 22:23 <br>
+     *
+     * @param name    Key of the list <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return the queue, nothing is sent to Redis before it's used <br>
+     * @author agent <br>
+     */
+    public RedisWorkQueue workQueue(String name, int dbIndex) {
+        return workQueue(name, RedisWorkQueue.DEFAULT_MAX_ATTEMPTS, dbIndex);
+    }
+
+    /**
+     * Description: Get a work queue on a list of specified DB, consumed with blocking pops <br>
+     * CreateTime 2026-10-16 23:05 <br>
+     *
+     * @param name        Key of the list <br>
+     * @param maxAttempts Failures after which an item goes to the dead list NAME:dead <br>
+     * @param dbIndex     DB index from 0 to 15 <br>
+     * @return Return the queue, nothing is sent to Redis before it's used <br>
+     * @author agent <br>
+     */
+    public RedisWorkQueue workQueue(String name, int maxAttempts, int dbIndex) {
+        return new RedisWorkQueue(jedisLeaseManager, redisCommandMetrics, name, maxAttempts, dbIndex);
+    }
+
+    /**
+     * Description: Get a distributed lock on a key of specified DB, with lease renewal and fencing tokens <br>
+     * CreateTime 2026-10-16 22:43 <br>
+     *
+     * @param name      Key of the lock, also the tag of its meters <br>
+     * @param leaseTime Time the lock outlives a crashed holder, renewed while held <br>
+     * @param dbIndex   DB index from 0 to 15 <br>
+     * @return Return the lock, nothing is sent to Redis before it's used <br>
+     * @author agent <br>
+     */
+    public RedisLock lock(String name, Duration leaseTime, int dbIndex) {
+        return new RedisLock(jedisLeaseManager, redisCommandMetrics, name, leaseTime, dbIndex);
+    }
+
+    /**
+     * Description: Get a token bucket rate limiter shared by all nodes, with buckets under keys NAME:... of
+     * specified DB. Tokens are taken from Redis in grants lasting one sync interval, so the limiter should be
+     * created once and kept <br>
+     * CreateTime 2026-10-16 22:46 <br>
+     *
+     * @param name         Key prefix of the buckets, also the tag of its meters <br>
+     * @param syncInterval Longest time a node hands out granted tokens before it asks Redis again <br>
+     * @param dbIndex      DB index from 0 to 15 <br>
+     * @return Return the rate limiter, nothing is sent to Redis before it's used <br>
+     * @author agent <br>
+     */
+    public RedisRateLimiter rateLimiter(String name, Duration syncInterval, int dbIndex) {
+        return new RedisRateLimiter(jedisLeaseManager, redisCommandMetrics, name, syncInterval, dbIndex);
+    }
+
+    /**
+     * Description: Get write-behind counters, which add increments up locally and send them in pipelined batches.
+     * They run a flush thread, so they should be created once and closed. The one configured by
+     * eldercare.cache.counters is a bean <br>
+     * CreateTime 2026-10-16 22:53 <br>
+     *
+     * @param flushInterval  Longest time an increment waits before it is sent <br>
+     * @param flushThreshold Pending increments which trigger a flush before the interval, 0 for none <br>
+     * @return Return the counters <br>
+     * @author agent <br>
+     */
+    public RedisCounters counters(Duration flushInterval, long flushThreshold) {
+        return new RedisCounters(jedisLeaseManager, redisCommandMetrics, nearCache, this, flushInterval, flushThreshold);
+    }
+
+    /**
+     * Description: Get a time series store on sorted sets of specified DB, with samples split in partitions of keys
+     * NAME:{SERIES}:START <br>
+     * CreateTime 2026-10-16 22:54 <br>
+     *
+     * @param name      Key prefix of the partitions <br>
+     * @param partition Time length of a partition, a query reads one sorted set per partition it covers <br>
+     * @param retention Time samples are kept <br>
+     * @param dbIndex   DB index from 0 to 15 <br>
+     * @return Return the time series store, nothing is sent to Redis before it's used <br>
+     * @author agent <br>
+     */
+    public RedisTimeSeries timeSeries(String name, Duration partition, Duration retention, int dbIndex) {
+        return new RedisTimeSeries(jedisLeaseManager, redisCommandMetrics, name, partition, retention, dbIndex);
+    }
+
+    /**
+     * Description: Get value of key, or load it through loader and cache it for ttl. Safe against stampedes: callers
+     * of a missing key share one load per node, and nodes share one load through a short lock. A value close to its
+     * expiry may be reloaded in the background ahead of time, and an expired one is served stale for up to
+     * eldercare.cache.load.stale-ttl while it is reloaded. Keys written here hold an envelope with the expiry, so
+     * they must only be read through getOrLoad <br>
+     * Example:
+     * <pre>
+     *     String plan = redisUtils.getOrLoad("care-plan:42", Duration.ofMinutes(5), () -&gt; planDao.findJson(42), 1);
+     * </pre>
+     * CreateTime 2026-10-16 22:42 <br>
+     *
+     * @param key     <br>
+     * @param ttl     Time the loaded value is fresh <br>
+     * @param loader  Loads the value from its source, a null value isn't cached <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return cached or loaded value, or a stale value if the reload is slower than the wait timeout <br>
+     * @author agent <br>
+     */
+    public String getOrLoad(String key, Duration ttl, Supplier<String> loader, int dbIndex) {
+        return getOrLoad(key, ttl, loader, RedisCodecs.STRING, dbIndex);
+    }
+
+    /**
+     * Description: {@link #getOrLoad(String, Duration, Supplier, int)} for values stored with codec <br>
+     * CreateTime 2026-10-16 22:42 <br>
+     *
+     * @param key     <br>
+     * @param ttl     Time the loaded value is fresh <br>
+     * @param loader  Loads the value from its source, a null value isn't cached <br>
+     * @param codec   Codec of the value <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return cached or loaded value, or a stale value if the reload is slower than the wait timeout <br>
+     * @author agent <br>
+     */
+    public <T> T getOrLoad(String key, Duration ttl, Supplier<T> loader, RedisCodec<T> codec, int dbIndex) {
+        SingleFlightLoader flights = singleFlightLoader;
+        if (flights == null) {
+            synchronized (this) {
+                if (singleFlightLoader == null) {
+                    singleFlightLoader = new SingleFlightLoader(this, cacheLoadProperties);
+                }
+                flights = singleFlightLoader;
+            }
+        }
+        return flights.getOrLoad(key, ttl, loader, codec, dbIndex);
+    }
+
+    /**
+     * Description: Send commands in one pipeline on a connection of the shard owning key, for binary commands which
+     * {@link RedisBatch} doesn't have. Every key used by commands must share the slot of key, e.g. through a hash
+     * tag. Replies are read from the responses once the call returns true. Near cached entries aren't dropped <br>
+     * CreateTime 2026-10-16 22:40 <br>
+     *
+     * @param name     Tag of the pipeline metrics <br>
+     * @param key      Key deciding the shard <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param commands Queue commands on the pipeline <br>
+     * @return Return true if the pipeline was sent, or false if fail. Errors replied for single commands are thrown
+     * by their response <br>
+     * @author agent <br>
+     */
+    public boolean pipelined(String name, String key, int dbIndex, Consumer<Pipeline> commands) {
+        return execute(name, dbIndex, key, jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            commands.accept(pipeline);
+            pipeline.sync();
+            return true;
+        }, false);
+    }
+
+    /**
+     * Description: Run a Lua script by SHA1 on the shard owning its keys, sending it if the server doesn't know it.
+     * Near cached entries of the keys are dropped <br>
+     * CreateTime 2026-10-16 22:48 <br>
+     *
+     * @param script  Script, see {@link RedisScriptRegistry} to load it at startup <br>
+     * @param keys    KEYS of the script, all in one slot. The script runs on the first shard without keys <br>
+     * @param args    ARGV of the script <br>
+     * @param dbIndex DB index from 0 to 15 <br>
+     * @return Return reply of the script, or null if fail <br>
+     * @author agent <br>
+     */
+    public Object eval(RedisScript script, List<String> keys, List<String> args, int dbIndex) {
+        if (keys.isEmpty()) {
+            return executeOnShard("EVALSHA", dbIndex, 0, jedis -> script.eval(jedis, keys, args), null);
+        }
+        String[] keyArray = keys.toArray(new String[0]);
+        try {
+            return executeOnOneShard("EVALSHA", dbIndex, keyArray, jedis -> script.eval(jedis, keys, args), null);
+        } finally {
+            nearCache.invalidate(dbIndex, keyArray);
+        }
+    }
+
+    /**
+     * Description: Run calls of the current thread with their reads sent where readFrom says, whatever
+     * eldercare.cache.replicas.namespaces says. Values held by the near cache are still served locally <br>
+     * Example:
+     * <pre>
+     *     Map&lt;String, String&gt; saved = redisUtils.readFrom(ReadFrom.PRIMARY, () -&gt; redisUtils.hgetall("elder:42", 1));
+     * </pre>
+     * CreateTime 2026-10-16 22:34 <br>
+     *
+     * @param readFrom Where to read <br>
+     * @param calls    RedisUtils calls <br>
+     * @return Return result of calls <br>
+     * @author agent <br>
+     */
+    public <T> T readFrom(ReadFrom readFrom, Supplier<T> calls) {
+        ReadFrom previous = READ_FROM.get();
+        READ_FROM.set(readFrom);
+        try {
+            return calls.get();
+        } finally {
+            if (previous == null) {
+                READ_FROM.remove();
+            } else {
+                READ_FROM.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Description: Get the choice of {@link #readFrom(ReadFrom, Supplier)} in effect on the current thread <br>
+     *
+     * @return Return where reads of the current thread go, or null if they follow the namespaces <br>
+     */
+    static ReadFrom currentReadFrom() {
+        return READ_FROM.get();
+    }
+
+    private ScanResult<String> scanPage(int shard, String cursor, ScanParams params, String type, int dbIndex) {
+        long start = System.nanoTime();
+        try (JedisLease lease = jedisLeaseManager.acquireShard(shard, dbIndex)) {
+            ScanResult<String> page = lease.getJedis().scan(cursor, params);
+            redisCommandMetrics.success("SCAN", dbIndex, start);
+            if (type == null || page.getResult().isEmpty()) {
+                return page;
+            }
+            Pipeline pipeline = lease.getJedis().pipelined();
+            List<Response<String>> types = new ArrayList<>(page.getResult().size());
+            for (String key : page.getResult()) {
+                types.add(pipeline.type(key));
+            }
+            pipeline.sync();
+            List<String> matched = new ArrayList<>(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                if (type.equals(types.get(i).get())) {
+                    matched.add(page.getResult().get(i));
+                }
+            }
+            return new ScanResult<>(page.getCursor(), matched);
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure("SCAN", dbIndex, start, e);
+            throw e;
+        }
+    }
+
+    private static ScanParams scanParams(String pattern, int count) {
+        ScanParams params = new ScanParams().count(count);
+        if (pattern != null) {
+            params.match(pattern);
+        }
+        return params;
+    }
+
+    /**
+     * Description: Walk a cursor over one collection, on the shard owning key or on a replica as
+     * {@link #readFromOf(String)} says when the stream is created. A connection is leased per page <br>
+     */
+    private <T> Stream<T> collectionScan(String name, String key, int dbIndex, BiFunction<Jedis, String, ScanResult<T>> pageFetcher) {
+        int shard = router().shardOf(key);
+        ReadFrom readFrom = readFromOf(key);
+        return StreamSupport.stream(new ScanSpliterator<>(cursor -> {
+            long start = System.nanoTime();
+            try {
+                ScanResult<T> page = jedisLeaseManager.call(shard, dbIndex, readFrom, jedis -> pageFetcher.apply(jedis, cursor));
+                redisCommandMetrics.success(name, dbIndex, start);
+                return page;
+            } catch (RuntimeException e) {
+                redisCommandMetrics.failure(name, dbIndex, start, e);
+                throw e;
+            }
+        }), false);
+    }
+
+    /**
+     * Description: Run a command on a leased connection of specified DB on the shard owning key, and release the
+     * connection <br>
+     * CreateTime 2026-10-16 20:58 <br>
+     *
+     * @param name     Redis command name, tag of its metrics <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param key      Key the command is about <br>
+     * @param command  Command to run <br>
+     * @param fallback Value returned when the command fails <br>
+     * @return Return reply of command, or fallback if fail <br>
+     * @author packy <br>
+     */
+    private <T> T execute(String name, int dbIndex, String key, Function<Jedis, T> command, T fallback) {
+        return executeOnShard(name, dbIndex, router().shardOf(key), command, fallback);
+    }
+
+    private <T> T execute(String name, int dbIndex, byte[] key, Function<Jedis, T> command, T fallback) {
+        return executeOnShard(name, dbIndex, router().shardOf(key), command, fallback);
+    }
+
+    /**
+     * Description: Run a multi-key command which Redis can only run on one node <br>
+     * CreateTime 2026-10-16 22:28 <br>
+     *
+     * @return Return reply of command, or fallback if fail or if keys live on several shards <br>
+     * @author agent <br>
+     */
+    private <T> T executeOnOneShard(String name, int dbIndex, String[] keys, Function<Jedis, T> command, T fallback) {
+        int slot = router().slotOf(keys);
+        if (slot == ShardRouter.SPREAD) {
+            log.error("{} keys {} live in several slots, give them a common hash tag like elder:{42}:vitals", name, Arrays.toString(keys));
+            return fallback;
+        }
+        return executeOnShard(name, dbIndex, router().shardOfSlot(slot), command, fallback);
+    }
+
+    /**
+     * Description: Run a read-only command on the shard owning key, or on a replica as {@link #readFromOf(String)}
+     * says <br>
+     * CreateTime 2026-10-16 22:34 <br>
+     *
+     * @param name     Redis command name, tag of its metrics <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param key      Key the command reads <br>
+     * @param command  Read-only command to run <br>
+     * @param fallback Value returned when the command fails <br>
+     * @return Return reply of command, or fallback if fail <br>
+     * @author agent <br>
+     */
+    private <T> T read(String name, int dbIndex, String key, Function<Jedis, T> command, T fallback) {
+        return executeOnShard(name, dbIndex, router().shardOf(key), readFromOf(key), command, fallback);
+    }
+
+    private <T> T read(String name, int dbIndex, byte[] key, Function<Jedis, T> command, T fallback) {
+        return executeOnShard(name, dbIndex, router().shardOf(key), readFromOf(key), command, fallback);
+    }
+
+    private <T> T executeOnShard(String name, int dbIndex, int shard, Function<Jedis, T> command, T fallback) {
+        return executeOnShard(name, dbIndex, shard, ReadFrom.PRIMARY, command, fallback);
+    }
+
+    private <T> T executeOnShard(String name, int dbIndex, int shard, ReadFrom readFrom, Function<Jedis, T> command, T fallback) {
+        long start = System.nanoTime();
+        try {
+            T reply = jedisLeaseManager.call(shard, dbIndex, readFrom, command);
+            redisCommandMetrics.success(name, dbIndex, start);
+            return reply;
+        } catch (Exception e) {
+            redisCommandMetrics.failure(name, dbIndex, start, e);
+            log.error(e.getMessage());
+            return fallback;
+        }
+    }
+
+    /**
+     * Description: Run a write command like {@link #execute(String, int, String, Function, Object)}, then drop near cached
+     * entries of the written key <br>
+     * CreateTime 2026-10-16 21:01 <br>
+     *
+     * @param name     Redis command name, tag of its metrics <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param key      Written key <br>
+     * @param command  Command to run <br>
+     * @param fallback Value returned when the command fails <br>
+     * @return Return reply of command, or fallback if fail <br>
+     * @author agent <br>
+     */
+    private <T> T executeAndInvalidate(String name, int dbIndex, String key, Function<Jedis, T> command, T fallback) {
+        try {
+            return execute(name, dbIndex, key, command, fallback);
+        } finally {
+            nearCache.invalidate(dbIndex, key);
+        }
+    }
+
+    private <T> T executeAndInvalidate(String name, int dbIndex, byte[] key, Function<Jedis, T> command, T fallback) {
+        try {
+            return execute(name, dbIndex, key, command, fallback);
+        } finally {
+            nearCache.invalidate(dbIndex, SafeEncoder.encode(key));
+        }
+    }
+
+    /**
+     * Description: MSETNX in chunks, all or none. Keys are watched and checked with EXISTS chunk by chunk, then set
+     * with one MSET per chunk in a MULTI which fails if any of them was touched meanwhile. Retried a few times
+     * when it fails that way <br>
+     * CreateTime 2026-10-16 22:51 <br>
+     *
+     * @return Return 1 if all keys were set, 0 if one existed or writers kept racing <br>
+     */
+    Long msetnxChunked(String[] keys, byte[][] keysvalues, Jedis jedis) {
+        int chunkSize = redisBulkProperties.getChunkSize();
+        for (int attempt = 0; attempt < MSETNX_ATTEMPTS; attempt++) {
+            for (int from = 0; from < keys.length; from += chunkSize) {
+                jedis.watch(Arrays.copyOfRange(keys, from, Math.min(keys.length, from + chunkSize)));
+            }
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> existing = new ArrayList<>();
+            for (int from = 0; from < keys.length; from += chunkSize) {
+                existing.add(pipeline.exists(Arrays.copyOfRange(keys, from, Math.min(keys.length, from + chunkSize))));
+            }
+            pipeline.sync();
+            if (existing.stream().anyMatch(count -> count.get() > 0)) {
+                jedis.unwatch();
+                return 0L;
+            }
+            Transaction transaction = jedis.multi();
+            for (int from = 0; from < keys.length; from += chunkSize) {
+                transaction.mset(Arrays.copyOfRange(keysvalues, from * 2, Math.min(keys.length, from + chunkSize) * 2));
+            }
+            if (transaction.exec() != null) {
+                return 1L;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Description: Replace dstKey with members, for set commands whose keys live on several shards <br>
+     */
+    private Long storeSet(String name, int dbIndex, String dstKey, Set<String> members) {
+        if (members == null) {
+            return null;
+        }
+        return execute(name, dbIndex, dstKey, jedis -> {
+            Transaction transaction = jedis.multi();
+            transaction.del(dstKey);
+            if (!members.isEmpty()) {
+                transaction.sadd(dstKey, members.toArray(new String[0]));
+            }
+            transaction.exec();
+            return (long) members.size();
+        }, null);
+    }
+
+    private ShardRouter router() {
+        return jedisLeaseManager.getShardRouter();
+    }
+
+    /**
+     * Description: Get where to read key: the choice of {@link #readFrom(ReadFrom, Supplier)} if any, else the one
+     * of its namespace, else the primary when no replica is configured <br>
+     */
+    private ReadFrom readFromOf(String key) {
+        ReadFrom readFrom = READ_FROM.get();
+        if (readFrom != null) {
+            return readFrom;
+        }
+        ReplicaSet replicaSet = jedisLeaseManager.getReplicaSet();
+        return replicaSet == null ? ReadFrom.PRIMARY : replicaSet.readFromOf(key);
+    }
+
+    private ReadFrom readFromOf(byte[] key) {
+        ReadFrom readFrom = READ_FROM.get();
+        if (readFrom != null) {
+            return readFrom;
+        }
+        ReplicaSet replicaSet = jedisLeaseManager.getReplicaSet();
+        return replicaSet == null ? ReadFrom.PRIMARY : replicaSet.readFromOf(SafeEncoder.encode(key));
+    }
+
+    /**
+     * Description: Run a multi-key command once per slot of its keys, and once per chunk of
+     * eldercare.cache.bulk.chunk-size keys of a slot. Commands of one shard go in a single pipeline, or are split over
+     * eldercare.cache.bulk.parallelism connections, and all pipelines are sent in parallel <br>
+     * CreateTime 2026-10-16 22:32 <br>
+     *
+     * @param name     Redis command name, tag of its metrics <br>
+     * @param dbIndex  DB index from 0 to 15 <br>
+     * @param readFrom Where to run a read-only command, PRIMARY for writes <br>
+     * @param count    Number of keys <br>
+     * @param slotOf   Slot of the key at a position <br>
+     * @param command  Queue the command for keys at given positions, which all share a slot <br>
+     * @param merge    Take the reply for keys at given positions, called on the calling thread in order of chunks <br>
+     * @return Return true if all shards replied, else false and merge isn't called <br>
+     * @author agent <br>
+     */
+    private <T> boolean fanOut(String name, int dbIndex, ReadFrom readFrom, int count, IntUnaryOperator slotOf,
+                               BiFunction<Pipeline, List<Integer>, Response<T>> command, BiConsumer<List<Integer>, T> merge) {
+        int chunkSize = Math.max(1, redisBulkProperties.getChunkSize());
+        Map<Integer, List<List<Integer>>> chunksByShard = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<Integer>> slot : indicesBySlot(count, slotOf).entrySet()) {
+            List<List<Integer>> chunks = chunksByShard.computeIfAbsent(router().shardOfSlot(slot.getKey()), shard -> new ArrayList<>());
+            List<Integer> indices = slot.getValue();
+            for (int from = 0; from < indices.size(); from += chunkSize) {
+                chunks.add(indices.subList(from, Math.min(indices.size(), from + chunkSize)));
+            }
+        }
+        int parallelism = Math.max(1, redisBulkProperties.getParallelism());
+        List<Map.Entry<Integer, List<List<Integer>>>> pipelines = new ArrayList<>();
+        for (Map.Entry<Integer, List<List<Integer>>> shard : chunksByShard.entrySet()) {
+            List<List<Integer>> chunks = shard.getValue();
+            int perPipeline = (chunks.size() + parallelism - 1) / parallelism;
+            for (int from = 0; from < chunks.size(); from += perPipeline) {
+                pipelines.add(new AbstractMap.SimpleImmutableEntry<>(shard.getKey(), chunks.subList(from, Math.min(chunks.size(), from + perPipeline))));
+            }
+        }
+        List<Supplier<List<T>>> calls = new ArrayList<>(pipelines.size());
+        for (Map.Entry<Integer, List<List<Integer>>> shard : pipelines) {
+            calls.add(() -> executeOnShard(name, dbIndex, shard.getKey(), readFrom, jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<T>> responses = new ArrayList<>(shard.getValue().size());
+                for (List<Integer> indices : shard.getValue()) {
+                    responses.add(command.apply(pipeline, indices));
+                }
+                pipeline.sync();
+                return responses.stream().map(Response::get).collect(Collectors.toList());
+            }, null));
+        }
+        List<List<T>> replies = jedisLeaseManager.fanOut(calls);
+        if (replies.contains(null)) {
+            return false;
+        }
+        for (int call = 0; call < pipelines.size(); call++) {
+            List<List<Integer>> chunks = pipelines.get(call).getValue();
+            List<T> pipelineReplies = replies.get(call);
+            for (int i = 0; i < chunks.size(); i++) {
+                merge.accept(chunks.get(i), pipelineReplies.get(i));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Description: Group positions of keys by slot, slots in order of their first key <br>
+     */
+    private static Map<Integer, List<Integer>> indicesBySlot(int count, IntUnaryOperator slotOf) {
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            groups.computeIfAbsent(slotOf.applyAsInt(i), slot -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private static String[] select(String[] keys, List<Integer> indices) {
+        String[] selected = new String[indices.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = keys[indices.get(i)];
+        }
+        return selected;
+    }
+
+    private static String[] withKey(String key, String[] keys) {
+        String[] all = Arrays.copyOf(keys, keys.length + 1);
+        all[keys.length] = key;
+        return all;
+    }
+
+    static List<String> decompress(ValueCompressor valueCompressor, List<byte[]> replies) {
+        List<String> values = new ArrayList<>(replies.size());
+        for (byte[] reply : replies) {
+            values.add(valueCompressor.decompress(reply));
+        }
+        return values;
+    }
+
+    static Map<String, String> decompress(ValueCompressor valueCompressor, Map<byte[], byte[]> replies) {
+        Map<String, String> values = new HashMap<>(replies.size() * 4 / 3 + 1);
+        for (Map.Entry<byte[], byte[]> reply : replies.entrySet()) {
+            values.put(SafeEncoder.encode(reply.getKey()), valueCompressor.decompress(reply.getValue()));
+        }
+        return values;
+    }
+
+    /**
+     * Description: Rewrite a String value which may be compressed: read it, edit its UTF-8 bytes, then write it back
+     * compressed as {@link ValueCompressor} decides, keeping its TTL. Runs in a MULTI watching key, retried a few
+     * times when another writer touched key meanwhile <br>
+     * CreateTime 2026-10-16 23:05 <br>
+     *
+     * @param jedis Connection of the shard owning key <br>
+     * @param key   <br>
+     * @param edit  Turn the UTF-8 bytes of the value, empty if key doesn't exist, into the new ones <br>
+     * @return Return UTF-8 length of the new value <br>
+     * @throws JedisException if writers kept racing <br>
+     * @author agent <br>
+     */
+    private Long rewriteCompressed(Jedis jedis, String key, UnaryOperator<byte[]> edit) {
+        byte[] rawKey = SafeEncoder.encode(key);
+        for (int attempt = 0; attempt < REWRITE_ATTEMPTS; attempt++) {
+            jedis.watch(rawKey);
+            byte[] edited = edit.apply(valueCompressor.toUtf8(jedis.get(rawKey)));
+            long ttl = jedis.pttl(rawKey);
+            Transaction transaction = jedis.multi();
+            transaction.set(rawKey, valueCompressor.compress(SafeEncoder.encode(edited)));
+            if (ttl > 0) {
+                transaction.pexpire(rawKey, ttl);
+            }
+            if (transaction.exec() != null) {
+                return (long) edited.length;
+            }
+        }
+        throw new JedisException("Writers kept racing on " + key + ", it was not rewritten");
+    }
+
+    static byte[][] compressValues(ValueCompressor valueCompressor, String[] keysvalues) {
+        byte[][] stored = new byte[keysvalues.length][];
+        for (int i = 0; i < keysvalues.length; i++) {
+            stored[i] = i % 2 == 0 ? SafeEncoder.encode(keysvalues[i]) : valueCompressor.compress(keysvalues[i]);
+        }
+        return stored;
+    }
+
+    static String[] keysOf(String[] keysvalues) {
+        String[] keys = new String[keysvalues.length / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keysvalues[i * 2];
+        }
+        return keys;
+    }
 }
@@ -0,0 +1,367 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Description: FIFO work queue on a Redis list, consumed with blocking pops instead of polling <br>
+ * Items are pushed on the left and taken from the right. Pops are atomic in Redis, so any number of threads and
+ * nodes can take from the same queue without local locking. {@link #takeReliably(Duration)} moves the item into
+ * the processing list NAME:processing, where it stays until {@link #ack(String)}, so an item taken by a crashed
+ * consumer can be brought back by {@link #recover()}. Each retry or recovery of an item counts an attempt in the hash
+ * NAME:attempts; once it reaches max attempts the item is moved to the dead list NAME:dead instead of going back to
+ * the queue, so a poison item can't loop forever. Equal items share their count. A blocking take keeps its connection for up to the timeout,
+ * so it is left out of lease leak detection. Both lists are on the shard of the queue name, so
+ * moves between them stay atomic when keys are sharded. In Redis Cluster the name needs a hash tag covering it, like
+ * {caregiver:alerts}, so that all its keys share a slot. Failures are thrown as JedisException <br>
+ * Example:
+ * <pre>
+ *     RedisWorkQueue alerts = redisUtils.workQueue("caregiver:alerts", 5, 2);
+ *     alerts.push(alertJson);
+ *     RedisWorkQueue.Consumers consumers = alerts.consume(this::dispatch, 4, Duration.ofSeconds(2));
+ * </pre>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:23 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+public class RedisWorkQueue {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /**
+     * Replies of {@link #retry(String)}
+     */
+    public static final long NOT_IN_PROCESSING = 0;
+    public static final long REQUEUED = 1;
+    public static final long DEAD = 2;
+
+    private static final long FAILURE_BACKOFF_MILLIS = 1000;
+
+    /**
+     * KEYS[1] processing, queue, attempts, dead. ARGV max attempts, '1' to pop the oldest item of processing or '0'
+     * to remove ARGV[3] from it. Counts an attempt of the item and pushes it back to the queue, or to dead once max
+     * attempts are reached. Returns 1 if requeued, 2 if dead, 0 if the item wasn't in processing, nil if processing
+     * was empty
+     */
+    private static final RedisScript RETRY = RedisScript.of("work-queue-retry",
+            "local item = ARGV[3] "
+                    + "if ARGV[2] == '1' then item = redis.call('rpop', KEYS[1]) if not item then return false end "
+                    + "elseif redis.call('lrem', KEYS[1], 1, item) == 0 then return 0 end "
+                    + "if redis.call('hincrby', KEYS[3], item, 1) >= tonumber(ARGV[1]) then "
+                    + "redis.call('hdel', KEYS[3], item) redis.call('lpush', KEYS[4], item) return 2 end "
+                    + "redis.call('lpush', KEYS[2], item) "
+                    + "return 1");
+
+    private final JedisLeaseManager jedisLeaseManager;
+    private final RedisCommandMetrics redisCommandMetrics;
+    private final String name;
+    private final String processing;
+    private final String attempts;
+    private final String dead;
+    private final int maxAttempts;
+    private final int dbIndex;
+
+    RedisWorkQueue(JedisLeaseManager jedisLeaseManager, RedisCommandMetrics redisCommandMetrics, String name, int maxAttempts, int dbIndex) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1, was " + maxAttempts);
+        }
+        this.jedisLeaseManager = jedisLeaseManager;
+        this.redisCommandMetrics = redisCommandMetrics;
+        this.name = name;
+        this.processing = name + ":processing";
+        this.attempts = name + ":attempts";
+        this.dead = name + ":dead";
+        this.maxAttempts = maxAttempts;
+        this.dbIndex = dbIndex;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Description: Get key of the dead list, where items go once they failed max attempts times <br>
+     */
+    public String getDeadName() {
+        return dead;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Description: Add items at the end of the queue <br>
+     *
+     * @param items <br>
+     * @return Return length of queue after push <br>
+     * @author agent <br>
+     */
+    public Long push(String... items) {
+        return execute("LPUSH", jedis -> jedis.lpush(name, items));
+    }
+
+    /**
+     * Description: Take the oldest item, waiting for one up to timeout <br>
+     *
+     * @param timeout Whole seconds, at least 1 <br>
+     * @return Return the item, or null if queue stayed empty <br>
+     * @author agent <br>
+     */
+    public String take(Duration timeout) {
+        int seconds = seconds(timeout);
+        List<String> reply = executeBlocking("BRPOP", jedis -> jedis.brpop(seconds, name));
+        return reply == null || reply.isEmpty() ? null : reply.get(1);
+    }
+
+    /**
+     * Description: Take up to max oldest items, waiting up to timeout for the first one. The others are popped
+     * in one pipeline on the same connection, so the call costs two round trips whatever max is <br>
+     *
+     * @param max     Most items to take <br>
+     * @param timeout Whole seconds, at least 1 <br>
+     * @return Return items oldest first, empty if queue stayed empty <br>
+     * @author agent <br>
+     */
+    public List<String> take(int max, Duration timeout) {
+        int seconds = seconds(timeout);
+        return executeBlocking("BRPOP", jedis -> {
+            List<String> first = jedis.brpop(seconds, name);
+            if (first == null || first.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<String> items = new ArrayList<>(max);
+            items.add(first.get(1));
+            if (max > 1) {
+                Pipeline pipeline = jedis.pipelined();
+                List<Response<String>> more = new ArrayList<>(max - 1);
+                for (int i = 1; i < max; i++) {
+                    more.add(pipeline.rpop(name));
+                }
+                pipeline.sync();
+                for (Response<String> item : more) {
+                    if (item.get() == null) {
+                        break;
+                    }
+                    items.add(item.get());
+                }
+            }
+            return items;
+        });
+    }
+
+    /**
+     * Description: Take the oldest item into the processing list, waiting for one up to timeout. The item must be
+     * given to {@link #ack(String)} or {@link #retry(String)} once handled <br>
+     *
+     * @param timeout Whole seconds, at least 1 <br>
+     * @return Return the item, or null if queue stayed empty <br>
+     * @author agent <br>
+     */
+    public String takeReliably(Duration timeout) {
+        int seconds = seconds(timeout);
+        return executeBlocking("BRPOPLPUSH", jedis -> jedis.brpoplpush(name, processing, seconds));
+    }
+
+    /**
+     * Description: Drop a handled item from the processing list, with its count of attempts <br>
+     *
+     * @param item Item returned by {@link #takeReliably(Duration)} <br>
+     * @return Return 1 if the item was in processing, else 0 <br>
+     * @author agent <br>
+     */
+    public Long ack(String item) {
+        return execute("MULTI", jedis -> {
+            Transaction transaction = jedis.multi();
+            Response<Long> removed = transaction.lrem(processing, 1, item);
+            transaction.hdel(attempts, item);
+            transaction.exec();
+            return removed.get();
+        });
+    }
+
+    /**
+     * Description: Move an item which failed from the processing list back to the end of the queue, or to the dead
+     * list once it failed max attempts times, atomically <br>
+     *
+     * @param item Item returned by {@link #takeReliably(Duration)} <br>
+     * @return Return 1 if the item is queued again, 2 if it was moved to the dead list, 0 if it wasn't in processing <br>
+     * @author agent <br>
+     */
+    public Long retry(String item) {
+        return execute("EVALSHA", jedis -> (Long) RETRY.eval(jedis, keys(), Arrays.asList(Integer.toString(maxAttempts), "0", item)));
+    }
+
+    /**
+     * Description: Move every item left in the processing list back to the end of the queue, counting an attempt for
+     * each, so an item which keeps crashing its consumer ends in the dead list too. Only safe while no consumer of
+     * this queue is running, e.g. before starting the only consumer group at startup <br>
+     *
+     * @return Return the number of recovered items, dead ones included <br>
+     * @author agent <br>
+     */
+    public int recover() {
+        List<String> args = Arrays.asList(Integer.toString(maxAttempts), "1", "");
+        return execute("EVALSHA", jedis -> {
+            int recovered = 0;
+            while (RETRY.eval(jedis, keys(), args) != null) {
+                recovered++;
+            }
+            return recovered;
+        });
+    }
+
+    public Long size() {
+        return execute("LLEN", jedis -> jedis.llen(name));
+    }
+
+    public Long processingSize() {
+        return execute("LLEN", jedis -> jedis.llen(processing));
+    }
+
+    public Long deadSize() {
+        return execute("LLEN", jedis -> jedis.llen(dead));
+    }
+
+    /**
+     * Description: Start threads which take items reliably and hand them to handler. An item is acked when handler
+     * returns, and retried when it throws. Each thread keeps a connection of the DB pool while it waits <br>
+     *
+     * @param handler     Handles one item <br>
+     * @param concurrency Number of consumer threads <br>
+     * @param pollTimeout Blocking time of each take, bounds how long {@link Consumers#close()} takes to apply <br>
+     * @return Return running consumers <br>
+     * @author agent <br>
+     */
+    public Consumers consume(Consumer<String> handler, int concurrency, Duration pollTimeout) {
+        Consumers consumers = new Consumers(handler, pollTimeout);
+        for (int i = 0; i < concurrency; i++) {
+            Thread thread = new Thread(consumers::run, "redis-queue-" + name + "-" + (i + 1));
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return consumers;
+    }
+
+    private <T> T execute(String command, Function<Jedis, T> call) {
+        return execute(command, false, call);
+    }
+
+    private <T> T executeBlocking(String command, Function<Jedis, T> call) {
+        return execute(command, true, call);
+    }
+
+    private <T> T execute(String command, boolean blocking, Function<Jedis, T> call) {
+        int shard = jedisLeaseManager.getShardRouter().shardOf(name);
+        long start = System.nanoTime();
+        try {
+            T reply = blocking ? jedisLeaseManager.callBlocking(shard, dbIndex, call) : jedisLeaseManager.call(shard, dbIndex, call);
+            redisCommandMetrics.success(command, dbIndex, start);
+            return reply;
+        } catch (RuntimeException e) {
+            redisCommandMetrics.failure(command, dbIndex, start, e);
+            throw e;
+        }
+    }
+
+    private List<String> keys() {
+        return Arrays.asList(processing, name, attempts, dead);
+    }
+
+    private static int seconds(Duration timeout) {
+        if (timeout.getSeconds() < 1) {
+            throw new IllegalArgumentException("Blocking timeout must be at least 1 second, was " + timeout);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, timeout.getSeconds());
+    }
+
+    /**
+     * Description: Consumer threads started by {@link #consume(Consumer, int, Duration)} <br>
+     */
+    public final class Consumers implements AutoCloseable {
+
+        private final Consumer<String> handler;
+        private final Duration pollTimeout;
+        private volatile boolean running = true;
+
+        private Consumers(Consumer<String> handler, Duration pollTimeout) {
+            this.handler = handler;
+            this.pollTimeout = pollTimeout;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * Description: Stop taking new items, threads end once their current take or item is done <br>
+         */
+        @Override
+        public void close() {
+            running = false;
+        }
+
+        private void run() {
+            while (running) {
+                String item;
+                try {
+                    item = takeReliably(pollTimeout);
+                } catch (RuntimeException e) {
+                    log.error("Cannot take from queue {}: {}", name, e.getMessage());
+                    pause();
+                    continue;
+                }
+                if (item != null) {
+                    handle(item);
+                }
+            }
+        }
+
+        private void handle(String item) {
+            try {
+                handler.accept(item);
+            } catch (RuntimeException e) {
+                try {
+                    if (retry(item) == DEAD) {
+                        log.error("Item of queue {} failed {} times and is moved to {}: {}", name, maxAttempts, dead, e.getMessage());
+                    } else {
+                        log.error("Item of queue {} failed and is retried: {}", name, e.getMessage());
+                    }
+                } catch (RuntimeException retryFailure) {
+                    log.error("Cannot retry item of queue {}, it stays in processing: {}", name, retryFailure.getMessage());
+                }
+                return;
+            }
+            try {
+                ack(item);
+            } catch (RuntimeException e) {
+                log.error("Cannot ack item of queue {}, it stays in processing: {}", name, e.getMessage());
+            }
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(FAILURE_BACKOFF_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.gearstation.eldercare.cache.utils;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Description: Walks a Redis cursor one page at a time. <br>
+ * The next page is only fetched once the current one is consumed, so a stream built on it keeps at most one
+ * page in memory and stops fetching as soon as the consumer stops. Redis may return an element more than once <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 21:02 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+class ScanSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final Function<String, ScanResult<T>> pageFetcher;
+    private String cursor = ScanParams.SCAN_POINTER_START;
+    private Iterator<T> page = Collections.emptyIterator();
+    private boolean complete;
+
+    /**
+     * @param pageFetcher Fetch the page starting at given cursor <br>
+     */
+    ScanSpliterator(Function<String, ScanResult<T>> pageFetcher) {
+        super(Long.MAX_VALUE, Spliterator.NONNULL);
+        this.pageFetcher = pageFetcher;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!page.hasNext()) {
+            if (complete) {
+                return false;
+            }
+            ScanResult<T> result = pageFetcher.apply(cursor);
+            cursor = result.getCursor();
+            complete = result.isCompleteIteration();
+            page = result.getResult().iterator();
+        }
+        action.accept(page.next());
+        return true;
+    }
+}
@@ -0,0 +1,249 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.codec.RedisCodec;
+import com.gearstation.eldercare.cache.codec.RedisCodecs;
+import com.gearstation.eldercare.cache.config.CacheLoadProperties;
+import lombok.extern.log4j.Log4j2;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Description: Engine of {@link RedisUtils#getOrLoad(String, Duration, Supplier, int)} <br>
+ * A value is stored with its logical expiry and the time its load took. Its Redis TTL is the logical TTL plus the
+ * stale TTL, so an expired value can still be served while it is loaded again. Loads of one key are single-flight:
+ * callers of this node share one load, and nodes share one through the lock KEY:load-lock. Before the logical
+ * expiry, a read triggers a background reload with the XFetch probability, which rises as the expiry nears and
+ * as loads get slower, so a hot key is usually reloaded before anyone misses it. Keys written here hold an
+ * envelope and must only be read through getOrLoad <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:42 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Log4j2
+class SingleFlightLoader {
+
+    private static final int ENVELOPE_MARK = 0xF1;
+
+    /**
+     * Mark byte, logical expiry in epoch millis, load time in millis, then the value
+     */
+    static final RedisCodec<Loaded> ENVELOPE = RedisCodecs.of(
+            (loaded, buffer) -> buffer.writeByte(ENVELOPE_MARK).writeZigZagLong(loaded.expiresAt).writeVarLong(loaded.loadMillis)
+                    .writeBytes(loaded.value),
+            reader -> {
+                if (reader.remaining() == 0 || (reader.readByte() & 0xFF) != ENVELOPE_MARK) {
+                    throw new IllegalArgumentException("Not a getOrLoad envelope");
+                }
+                return new Loaded(reader.readZigZagLong(), reader.readVarLong(), reader.readRemaining());
+            });
+
+    private final RedisUtils redisUtils;
+    private final CacheLoadProperties properties;
+    private final Map<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refresher;
+
+    SingleFlightLoader(RedisUtils redisUtils, CacheLoadProperties properties) {
+        this.redisUtils = redisUtils;
+        this.properties = properties;
+        AtomicInteger sequence = new AtomicInteger();
+        this.refresher = new ThreadPoolExecutor(properties.getRefreshThreads(), properties.getRefreshThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+            Thread thread = new Thread(runnable, "redis-refresh-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.allowCoreThreadTimeOut(true);
+    }
+
+    <T> T getOrLoad(String key, Duration ttl, Supplier<T> loader, RedisCodec<T> codec, int dbIndex) {
+        Loaded cached = read(key, dbIndex);
+        if (cached == null) {
+            return await(flight(key, ttl, loader, codec, dbIndex, false), null);
+        }
+        T stale = codec.decode(cached.value);
+        long now = System.currentTimeMillis();
+        if (!shouldRefresh(cached.expiresAt, cached.loadMillis, properties.getBeta(), now, ThreadLocalRandom.current().nextDouble())) {
+            return stale;
+        }
+        if (cached.expiresAt > now || properties.isStaleWhileRevalidate()) {
+            flight(key, ttl, loader, codec, dbIndex, true);
+            return stale;
+        }
+        return await(flight(key, ttl, loader, codec, dbIndex, false), stale);
+    }
+
+    /**
+     * Description: XFetch: reload when now - loadMillis * beta * ln(random) reaches the expiry, always true once
+     * the value has expired <br>
+     *
+     * @param random Uniform in [0, 1) <br>
+     */
+    static boolean shouldRefresh(long expiresAt, long loadMillis, double beta, long now, double random) {
+        if (now >= expiresAt) {
+            return true;
+        }
+        if (beta <= 0 || loadMillis <= 0) {
+            return false;
+        }
+        return now - loadMillis * beta * Math.log(1 - random) >= expiresAt;
+    }
+
+    /**
+     * Description: Join the load of key running on this node, or start one. A synchronous load runs on the calling
+     * thread, a background one on the refresher and is skipped when the refresher is full <br>
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> flight(String key, Duration ttl, Supplier<T> loader, RedisCodec<T> codec, int dbIndex, boolean background) {
+        String id = dbIndex + ":" + key;
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(id, created);
+        if (running != null) {
+            return (CompletableFuture<T>) running;
+        }
+        Runnable load = () -> {
+            try {
+                created.complete(loadAcrossNodes(key, ttl, loader, codec, dbIndex));
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                flights.remove(id, created);
+            }
+        };
+        if (!background) {
+            load.run();
+            return (CompletableFuture<T>) created;
+        }
+        try {
+            refresher.execute(load);
+        } catch (RejectedExecutionException e) {
+            flights.remove(id, created);
+            created.complete(null);
+            log.warn("Background reload of {} skipped, refresher is full", key);
+        }
+        return (CompletableFuture<T>) created;
+    }
+
+    /**
+     * Description: Wait for a load, up to the wait timeout when a stale value can be given instead <br>
+     */
+    private <T> T await(CompletableFuture<T> flight, T stale) {
+        try {
+            if (stale == null) {
+                return flight.join();
+            }
+            return flight.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return stale;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stale;
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Description: Load under the cross-node lock of key. When another node holds it, wait for its value up to
+     * the wait timeout, then load without the lock <br>
+     */
+    private <T> T loadAcrossNodes(String key, Duration ttl, Supplier<T> loader, RedisCodec<T> codec, int dbIndex) {
+        String lockKey = key + ":load-lock";
+        String token = UUID.randomUUID().toString();
+        if (lock(lockKey, token, dbIndex)) {
+            try {
+                return load(key, ttl, loader, codec, dbIndex);
+            } finally {
+                unlock(lockKey, token, dbIndex);
+            }
+        }
+        long deadline = System.nanoTime() + properties.getWaitTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(properties.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Loaded loaded = read(key, dbIndex);
+            if (loaded != null && loaded.expiresAt > System.currentTimeMillis()) {
+                return codec.decode(loaded.value);
+            }
+        }
+        log.warn("Load of {} by another node took over {} ms, loading here", key, properties.getWaitTimeout().toMillis());
+        return load(key, ttl, loader, codec, dbIndex);
+    }
+
+    private <T> T load(String key, Duration ttl, Supplier<T> loader, RedisCodec<T> codec, int dbIndex) {
+        long start = System.currentTimeMillis();
+        T value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        byte[] envelope = ENVELOPE.encode(new Loaded(now + ttl.toMillis(), now - start, codec.encode(value)));
+        long keepMillis = ttl.toMillis() + properties.getStaleTtl().toMillis();
+        redisUtils.pipelined("PSETEX", key, dbIndex, pipeline -> pipeline.psetex(SafeEncoder.encode(key), keepMillis, envelope));
+        return value;
+    }
+
+    private Loaded read(String key, int dbIndex) {
+        try {
+            return ENVELOPE.decode(redisUtils.get(SafeEncoder.encode(key), dbIndex));
+        } catch (IllegalArgumentException e) {
+            log.warn("Value of {} wasn't written by getOrLoad, loading it again", key);
+            return null;
+        }
+    }
+
+    private boolean lock(String lockKey, String token, int dbIndex) {
+        AtomicReference<Response<String>> reply = new AtomicReference<>();
+        boolean sent = redisUtils.pipelined("SET", lockKey, dbIndex, pipeline ->
+                reply.set(pipeline.set(lockKey, token, SetParams.setParams().nx().px(properties.getLockTimeout().toMillis()))));
+        // Without Redis, every node loads on its own
+        return !sent || reply.get().get() != null;
+    }
+
+    private void unlock(String lockKey, String token, int dbIndex) {
+        redisUtils.eval(RedisScript.COMPARE_AND_DELETE, Collections.singletonList(lockKey), Collections.singletonList(token), dbIndex);
+    }
+
+    /**
+     * Description: Stored value with its logical expiry and load time <br>
+     */
+    static final class Loaded {
+
+        final long expiresAt;
+        final long loadMillis;
+        final byte[] value;
+
+        Loaded(long expiresAt, long loadMillis, byte[] value) {
+            this.expiresAt = expiresAt;
+            this.loadMillis = loadMillis;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.gearstation.eldercare.cache;
+
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.config.CacheLoadProperties;
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import com.gearstation.eldercare.cache.config.RedisMetricsProperties;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.JedisPoolRegistry;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Assume;
+import org.junit.rules.ExternalResource;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Description: Redis of the tests which run real commands and scripts, at -Deldercare.test.redis=host:port
+ * (localhost:6379 by default) with password -Deldercare.test.redis-password. Tests using the rule are skipped when it
+ * can't be reached. They should only touch keys made by {@link #key(String)}, which are deleted after each test <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 23:10 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class LocalRedis extends ExternalResource {
+
+    public static final int DB = 15;
+
+    /**
+     * DB of the second shard of {@link #getShardedLeaseManager()}
+     */
+    public static final int SECOND_SHARD_DB = 14;
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private String prefix;
+    private SimpleMeterRegistry meterRegistry;
+    private JedisLeaseManager jedisLeaseManager;
+    private JedisLeaseManager shardedLeaseManager;
+    private RedisCommandMetrics redisCommandMetrics;
+
+    public LocalRedis() {
+        String address = System.getProperty("eldercare.test.redis", "localhost:6379");
+        int colon = address.lastIndexOf(':');
+        this.host = address.substring(0, colon);
+        this.port = Integer.parseInt(address.substring(colon + 1));
+        this.password = System.getProperty("eldercare.test.redis-password");
+    }
+
+    @Override
+    protected void before() {
+        try (Jedis jedis = new Jedis(host, port, 500)) {
+            if (password != null) {
+                jedis.auth(password);
+            }
+            jedis.ping();
+        } catch (JedisException e) {
+            Assume.assumeNoException("No Redis at " + host + ":" + port, e);
+        }
+        prefix = "test:" + UUID.randomUUID() + ":";
+        meterRegistry = new SimpleMeterRegistry();
+        JedisPoolRegistry registry = new JedisPoolRegistry(host + ":" + port, this::pool, DB);
+        jedisLeaseManager = new JedisLeaseManager(registry, Duration.ZERO, Duration.ofSeconds(5));
+        redisCommandMetrics = new RedisCommandMetrics(meterRegistry, new RedisMetricsProperties());
+    }
+
+    @Override
+    protected void after() {
+        try (Jedis jedis = jedis()) {
+            deleteKeys(jedis);
+            if (shardedLeaseManager != null) {
+                try (Jedis second = secondShardJedis()) {
+                    deleteKeys(second);
+                }
+            }
+        } finally {
+            jedisLeaseManager.close();
+            if (shardedLeaseManager != null) {
+                shardedLeaseManager.close();
+            }
+        }
+    }
+
+    private void deleteKeys(Jedis jedis) {
+        ScanParams params = new ScanParams().match(prefix + "*").count(1000);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            if (!page.getResult().isEmpty()) {
+                jedis.del(page.getResult().toArray(new String[0]));
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+
+    private JedisPool pool(int dbIndex) {
+        return new JedisPool(new GenericObjectPoolConfig(), host, port, 2000, password, dbIndex);
+    }
+
+    /**
+     * Description: Get a key only this test uses <br>
+     */
+    public String key(String name) {
+        return prefix + name;
+    }
+
+    /**
+     * Description: Borrow a connection of {@link #DB}, to check what commands left in Redis <br>
+     */
+    public Jedis jedis() {
+        return jedisLeaseManager.getJedisPoolRegistry().getResource(DB);
+    }
+
+    /**
+     * Description: Create RedisUtils on this Redis, with default settings and no near cache <br>
+     */
+    public RedisUtils redisUtils() {
+        return redisUtils(new RedisCompressionProperties(), new RedisBulkProperties());
+    }
+
+    /**
+     * Description: Create RedisUtils on this Redis with the given compression and bulk settings <br>
+     */
+    public RedisUtils redisUtils(RedisCompressionProperties compression, RedisBulkProperties bulk) {
+        return new RedisUtils(jedisLeaseManager, new NearCache(new NearCacheProperties()), redisCommandMetrics,
+                new ValueCompressor(compression, meterRegistry), new CacheLoadProperties(), bulk);
+    }
+
+    /**
+     * Description: Get a lease manager of two shards on this Redis, the first one on {@link #DB} and the second one
+     * on {@link #SECOND_SHARD_DB} whatever DB is asked, so the DB a key lands in shows the shard it was routed to <br>
+     */
+    public JedisLeaseManager getShardedLeaseManager() {
+        if (shardedLeaseManager == null) {
+            JedisPoolRegistry first = new JedisPoolRegistry("first", this::pool, DB);
+            JedisPoolRegistry second = new JedisPoolRegistry("second", dbIndex -> pool(SECOND_SHARD_DB), DB);
+            shardedLeaseManager = new JedisLeaseManager(Arrays.asList(first, second), 160, Duration.ZERO, Duration.ofSeconds(5));
+        }
+        return shardedLeaseManager;
+    }
+
+    /**
+     * Description: Create RedisUtils over {@link #getShardedLeaseManager()}, with default settings and no near cache <br>
+     */
+    public RedisUtils shardedRedisUtils(RedisBulkProperties bulk) {
+        return new RedisUtils(getShardedLeaseManager(), new NearCache(new NearCacheProperties()), redisCommandMetrics,
+                new ValueCompressor(new RedisCompressionProperties(), meterRegistry), new CacheLoadProperties(), bulk);
+    }
+
+    /**
+     * Description: Borrow a connection of {@link #SECOND_SHARD_DB} <br>
+     */
+    public Jedis secondShardJedis() {
+        return getShardedLeaseManager().getJedisPoolRegistries().get(1).getResource(DB);
+    }
+
+    /**
+     * Description: Get a key only this test uses, routed to shard of {@link #getShardedLeaseManager()} <br>
+     */
+    public String keyOnShard(String name, int shard) {
+        for (int i = 0; ; i++) {
+            String key = key(name + ":" + i);
+            if (getShardedLeaseManager().getShardRouter().shardOf(key) == shard) {
+                return key;
+            }
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public SimpleMeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    public JedisLeaseManager getJedisLeaseManager() {
+        return jedisLeaseManager;
+    }
+
+    public RedisCommandMetrics getRedisCommandMetrics() {
+        return redisCommandMetrics;
+    }
+}
@@ -0,0 +1,72 @@
+package com.gearstation.eldercare.cache.codec;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RedisCodecsTest {
+
+    @Test
+    public void longsRoundTripAndSmallOnesStayShort() {
+        for (long value : new long[]{0, 1, -1, 63, -64, 64, System.currentTimeMillis(), Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, (long) RedisCodecs.LONG.decode(RedisCodecs.LONG.encode(value)));
+        }
+        assertEquals(1, RedisCodecs.LONG.encode(-64L).length);
+        assertEquals(6, RedisCodecs.LONG.encode(1_700_000_000_000L).length);
+    }
+
+    @Test
+    public void doublesAndInstantsRoundTrip() {
+        assertEquals(36.6, RedisCodecs.DOUBLE.decode(RedisCodecs.DOUBLE.encode(36.6)), 0);
+        Instant instant = Instant.ofEpochSecond(1_700_000_000L, 123_456_789);
+        assertEquals(instant, RedisCodecs.INSTANT.decode(RedisCodecs.INSTANT.encode(instant)));
+        assertEquals(6, RedisCodecs.INSTANT.encode(Instant.ofEpochSecond(1_700_000_000L)).length);
+    }
+
+    @Test
+    public void stringIsPlainUtf8() {
+        String value = "张三 bpm ❤ 😀";
+        assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), RedisCodecs.STRING.encode(value));
+        assertEquals(value, RedisCodecs.STRING.decode(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void recordsAreComposedOfFields() {
+        RedisCodec<Object[]> codec = RedisCodecs.of(
+                (value, buffer) -> buffer.writeString((String) value[0]).writeZigZagLong((Long) value[1]).writeBoolean((Boolean) value[2]),
+                reader -> new Object[]{reader.readString(), reader.readZigZagLong(), reader.readBoolean()});
+        Object[] decoded = codec.decode(codec.encode(new Object[]{"elder:1", 72L, true}));
+        assertArrayEquals(new Object[]{"elder:1", 72L, true}, decoded);
+    }
+
+    @Test
+    public void nullReplyDecodesToNull() {
+        assertNull(RedisCodecs.LONG.decode((byte[]) null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedValueIsRejected() {
+        RedisCodecs.DOUBLE.decode(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void bufferIsPooledPerThreadExceptWhenNested() {
+        CodecBuffer outer = CodecBuffer.acquire();
+        try (CodecBuffer nested = CodecBuffer.acquire()) {
+            assertNotSame(outer, nested);
+        }
+        outer.writeLong(1);
+        outer.close();
+        try (CodecBuffer again = CodecBuffer.acquire()) {
+            assertSame(outer, again);
+            assertEquals(0, again.size());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.gearstation.eldercare.cache.codec;
+
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValueCompressorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ValueCompressor compressor;
+
+    @Before
+    public void setUp() {
+        RedisCompressionProperties properties = new RedisCompressionProperties();
+        properties.setEnabled(true);
+        properties.setThreshold(DataSize.ofBytes(64));
+        compressor = new ValueCompressor(properties, meterRegistry);
+    }
+
+    @Test
+    public void bigValueIsCompressedAndReadBack() {
+        String carePlan = String.join(",", Collections.nCopies(200, "{\"drug\":\"阿司匹林\",\"dose\":\"100mg\"}"));
+        byte[] stored = compressor.compress(carePlan);
+        assertEquals(ValueCompressor.MAGIC, stored[0]);
+        assertTrue(stored.length < carePlan.getBytes(StandardCharsets.UTF_8).length / 10);
+        assertEquals(carePlan, compressor.decompress(stored));
+        assertEquals(carePlan.getBytes(StandardCharsets.UTF_8).length,
+                meterRegistry.get("eldercare.redis.compression.bytes").tag("stage", "raw").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("eldercare.redis.compression.time").tag("operation", "decompress").timer().count());
+    }
+
+    @Test
+    public void smallValueIsStoredAsUtf8() {
+        assertArrayEquals("elder".getBytes(StandardCharsets.UTF_8), compressor.compress("elder"));
+    }
+
+    @Test
+    public void incompressibleValueIsStoredAsUtf8() {
+        StringBuilder random = new StringBuilder();
+        Random generator = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            random.append((char) ('!' + generator.nextInt(90)));
+        }
+        assertArrayEquals(random.toString().getBytes(StandardCharsets.UTF_8), compressor.compress(random.toString()));
+        assertEquals(1, meterRegistry.get("eldercare.redis.compression.skipped").counter().count(), 0);
+    }
+
+    @Test
+    public void plainValuesWrittenBeforeCompressionReadAsTheyAre() {
+        assertEquals("张三", compressor.decompress("张三".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("", compressor.decompress(new byte[0]));
+    }
+
+    @Test
+    public void utf8OfCompressedValueIsTheRawValue() {
+        String carePlan = String.join(",", Collections.nCopies(50, "{\"drug\":\"aspirin\"}"));
+        byte[] stored = compressor.compress(carePlan);
+        assertTrue(ValueCompressor.isCompressed(stored));
+        assertArrayEquals(carePlan.getBytes(StandardCharsets.UTF_8), compressor.toUtf8(stored));
+        assertFalse(ValueCompressor.isCompressed(compressor.compress("elder")));
+        assertEquals(0, compressor.toUtf8(null).length);
+    }
+
+    @Test
+    public void rangeFollowsGetrange() {
+        byte[] value = "This is a string".getBytes(StandardCharsets.UTF_8);
+        assertEquals("This", new String(ValueCompressor.range(value, 0, 3), StandardCharsets.UTF_8));
+        assertEquals("ing", new String(ValueCompressor.range(value, -3, -1), StandardCharsets.UTF_8));
+        assertEquals("This is a string", new String(ValueCompressor.range(value, 0, -1), StandardCharsets.UTF_8));
+        assertEquals("string", new String(ValueCompressor.range(value, 10, 100), StandardCharsets.UTF_8));
+        assertEquals("T", new String(ValueCompressor.range(value, -100, -100), StandardCharsets.UTF_8));
+        assertEquals(0, ValueCompressor.range(value, 5, 2).length);
+        assertEquals(0, ValueCompressor.range(new byte[0], 0, -1).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void corruptValueIsRejected() {
+        compressor.decompress(new byte[]{ValueCompressor.MAGIC, ValueCompressor.LZ4, 100, 1, 2});
+    }
+}
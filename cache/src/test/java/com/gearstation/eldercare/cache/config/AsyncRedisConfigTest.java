@@ -0,0 +1,98 @@
+package com.gearstation.eldercare.cache.config;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncRedisConfigTest {
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void platformThreadsAreNamedDaemons() throws Exception {
+        executor = executor(false, 2, 10);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        executor.submit(() -> thread.set(Thread.currentThread())).get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.get().getName().startsWith("redis-async-"));
+        assertTrue(thread.get().isDaemon());
+    }
+
+    @Test
+    public void callerRunsCallsWhenQueueIsFull() throws Exception {
+        executor = executor(false, 1, 1);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            busy.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        // Fills the queue
+        executor.execute(() -> awaitQuietly(release));
+        AtomicReference<Thread> overflow = new AtomicReference<>();
+
+        executor.execute(() -> overflow.set(Thread.currentThread()));
+
+        assertEquals(Thread.currentThread(), overflow.get());
+        release.countDown();
+    }
+
+    @Test
+    public void virtualThreadsFallBackToPlatformThreads() {
+        executor = executor(true, 2, 10);
+
+        // Java 21 and later run calls on virtual threads, older runtimes on the bounded pool
+        assertEquals(!virtualThreadsSupported(), executor instanceof ThreadPoolExecutor);
+    }
+
+    @Test
+    public void platformThreadsWhenVirtualThreadsAreOff() {
+        executor = executor(false, 3, 10);
+
+        assertTrue(executor instanceof ThreadPoolExecutor);
+        assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+    }
+
+    private static ExecutorService executor(boolean virtualThreads, int threads, int queueCapacity) {
+        AsyncRedisProperties properties = new AsyncRedisProperties();
+        properties.setVirtualThreads(virtualThreads);
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        return new AsyncRedisConfig(properties).redisAsyncExecutor();
+    }
+
+    private static boolean virtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.gearstation.eldercare.cache.manager;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import com.gearstation.eldercare.cache.codec.RedisCodecs;
+import com.gearstation.eldercare.cache.config.RedisCacheManagerProperties;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisUtilsCacheStorageTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisUtils redisUtils;
+
+    @Before
+    public void setUp() {
+        redisUtils = redis.redisUtils();
+    }
+
+    @Test
+    public void entriesExpireAfterCacheTtl() throws InterruptedException {
+        RedisUtilsCache cache = cache("sessions", Duration.ofMillis(300), 0);
+        cache.put("a", "alice");
+
+        assertEquals("alice", cache.get("a").get());
+        try (Jedis jedis = redis.jedis()) {
+            long pttl = jedis.pttl(cache.redisKeyOf("a"));
+            assertTrue(pttl > 0 && pttl <= 300);
+        }
+        Thread.sleep(500);
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void cacheWithoutTtlKeepsEntries() {
+        RedisUtilsCache cache = cache("roles", Duration.ZERO, 0);
+        cache.put("a", "admin");
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals(Long.valueOf(-1), jedis.pttl(cache.redisKeyOf("a")));
+        }
+    }
+
+    @Test
+    public void oldestWritesAreEvictedBeyondMaximumSize() throws InterruptedException {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 3);
+        for (int i = 1; i <= 5; i++) {
+            cache.put("u" + i, "user " + i);
+            Thread.sleep(2);
+        }
+
+        assertNull(cache.get("u1"));
+        assertNull(cache.get("u2"));
+        for (int i = 3; i <= 5; i++) {
+            assertEquals("user " + i, cache.get("u" + i).get());
+        }
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals(Long.valueOf(3), jedis.zcard(redis.key("cache:{users}:index")));
+        }
+    }
+
+    @Test
+    public void putIfAbsentKeepsCurrentValue() {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 10);
+
+        assertNull(cache.putIfAbsent("u1", "first"));
+        assertEquals("first", cache.putIfAbsent("u1", "second").get());
+        assertEquals("first", cache.get("u1").get());
+    }
+
+    @Test
+    public void clearDeletesEveryKeyOfTheCacheOnly() {
+        RedisUtilsCache users = cache("users", Duration.ofMinutes(1), 0);
+        RedisUtilsCache usersArchive = cache("users-archive", Duration.ofMinutes(1), 0);
+        // More than one delete batch
+        for (int i = 0; i < 1200; i++) {
+            users.put(i, "user " + i);
+        }
+        usersArchive.put(1, "archived");
+
+        users.clear();
+
+        assertEquals(0, count(redis.key("cache:users::*")));
+        assertNull(users.get(1));
+        assertNotNull(usersArchive.get(1));
+    }
+
+    @Test
+    public void clearOfBoundedCacheDropsItsIndex() {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 10);
+        cache.put("u1", "user 1");
+
+        cache.clear();
+
+        assertNull(cache.get("u1"));
+        try (Jedis jedis = redis.jedis()) {
+            assertFalse(jedis.exists(redis.key("cache:{users}:index")));
+        }
+    }
+
+    @Test
+    public void concurrentMissesOfOneKeyLoadOnce() throws Exception {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "user 1";
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> values = new ArrayList<>();
+            values.add(callers.submit(() -> cache.get("u1", loader)));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                values.add(callers.submit(() -> cache.get("u1", loader)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> value : values) {
+                assertEquals("user 1", value.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void slowLoadDoesNotBlockOtherKeys() throws Exception {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 0);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> slow = callers.submit(() -> cache.get("u1", () -> {
+                loading.countDown();
+                release.await();
+                return "user 1";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            assertEquals("user 2", cache.get("u2", () -> "user 2"));
+            release.countDown();
+            assertEquals("user 1", slow.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedLoadIsThrownAndNotCached() {
+        RedisUtilsCache cache = cache("users", Duration.ofMinutes(1), 0);
+        try {
+            cache.get("u1", () -> {
+                throw new IllegalStateException("database down");
+            });
+            fail("load failure expected");
+        } catch (Cache.ValueRetrievalException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertNull(cache.get("u1"));
+        assertEquals("user 1", cache.get("u1", () -> "user 1"));
+    }
+
+    private RedisUtilsCache cache(String name, Duration ttl, long maximumSize) {
+        RedisCacheManagerProperties properties = new RedisCacheManagerProperties();
+        RedisCacheManagerProperties.CacheSpec spec = new RedisCacheManagerProperties.CacheSpec();
+        spec.setTtl(ttl);
+        spec.setMaximumSize(maximumSize);
+        properties.getCaches().put(name, spec);
+        return new RedisUtilsCache(name, properties.specOf(name), redis.key("cache:"), true, redisUtils,
+                RedisCodecs.SERIALIZABLE, LocalRedis.DB);
+    }
+
+    private int count(String pattern) {
+        int count = 0;
+        try (Jedis jedis = redis.jedis()) {
+            ScanParams params = new ScanParams().match(pattern).count(1000);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                count += page.getResult().size();
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.gearstation.eldercare.cache.manager;
+
+import com.gearstation.eldercare.cache.config.RedisCacheManagerProperties;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisUtilsCacheTest {
+
+    @Test
+    public void globCharactersAreEscaped() {
+        assertEquals("cache:\\[a\\]\\*\\?::", RedisUtilsCache.globEscape("cache:[a]*?::"));
+        assertEquals("cache:users::", RedisUtilsCache.globEscape("cache:users::"));
+    }
+
+    @Test
+    public void cacheSettingsFallBackToDefaults() {
+        RedisCacheManagerProperties properties = new RedisCacheManagerProperties();
+        properties.getDefaults().setTtl(Duration.ofMinutes(10));
+        RedisCacheManagerProperties.CacheSpec users = new RedisCacheManagerProperties.CacheSpec();
+        users.setMaximumSize(500L);
+        properties.getCaches().put("users", users);
+
+        RedisCacheManagerProperties.CacheSpec spec = properties.specOf("users");
+        assertEquals(Duration.ofMinutes(10), spec.getTtl());
+        assertEquals(500L, (long) spec.getMaximumSize());
+        assertEquals(Duration.ZERO, spec.getLocalTtl());
+        assertEquals(0L, (long) properties.specOf("roles").getMaximumSize());
+    }
+}
@@ -0,0 +1,59 @@
+package com.gearstation.eldercare.cache.metrics;
+
+import com.gearstation.eldercare.cache.config.RedisMetricsProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RedisCommandMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCommandMetrics metrics;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new RedisCommandMetrics(meterRegistry, new RedisMetricsProperties());
+    }
+
+    @Test
+    public void timesSuccessByCommandAndDatabase() {
+        metrics.success("GET", 0, System.nanoTime());
+        metrics.success("GET", 0, System.nanoTime());
+        metrics.success("GET", 1, System.nanoTime());
+        assertEquals(2, successTimer("GET", "0").count());
+        assertEquals(1, successTimer("GET", "1").count());
+        assertNull(meterRegistry.find(RedisCommandMetrics.COMMANDS).tag("outcome", "error").timer());
+    }
+
+    @Test
+    public void countsFailureByException() {
+        metrics.failure("HSET", 2, System.nanoTime(), new JedisConnectionException("down"));
+        metrics.failure("HSET", 2, System.nanoTime(), new JedisConnectionException("down"));
+        Timer errors = meterRegistry.get(RedisCommandMetrics.COMMANDS)
+                .tags("command", "HSET", "db", "2", "outcome", "error").timer();
+        assertEquals(2, errors.count());
+        assertEquals(2, meterRegistry.get(RedisCommandMetrics.ERRORS)
+                .tags("command", "HSET", "exception", "JedisConnectionException").counter().count(), 0);
+    }
+
+    @Test
+    public void reusesMetersOfCommand() {
+        metrics.success("SET", 0, System.nanoTime());
+        Timer timer = successTimer("SET", "0");
+        metrics.success("SET", 0, System.nanoTime());
+        assertSame(timer, successTimer("SET", "0"));
+        assertEquals(1, meterRegistry.getMeters().size());
+    }
+
+    private Timer successTimer(String command, String db) {
+        return meterRegistry.get(RedisCommandMetrics.COMMANDS)
+                .tags("command", command, "db", db, "outcome", "success").timer();
+    }
+}
@@ -0,0 +1,73 @@
+package com.gearstation.eldercare.cache.near;
+
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NearCacheTest {
+
+    private NearCache nearCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setEnabled(true);
+        properties.getNamespaces().put("elder", Duration.ofMinutes(1));
+        nearCache = new NearCache(properties);
+    }
+
+    @Test
+    public void cachesConfiguredNamespaceOnly() {
+        nearCache.get(0, "elder:1", () -> load("a"));
+        nearCache.get(0, "elder:1", () -> load("b"));
+        nearCache.get(0, "device:1", () -> load("c"));
+        nearCache.get(0, "device:1", () -> load("d"));
+        assertEquals(3, loads.get());
+        assertEquals("a", nearCache.get(0, "elder:1", () -> load("e")));
+    }
+
+    @Test
+    public void invalidateDropsAllEntriesOfKey() {
+        nearCache.get(0, "elder:1", () -> load("a"));
+        nearCache.hget(0, "elder:1", "name", () -> load("packy"));
+        nearCache.invalidate(0, "elder:1");
+        assertEquals("b", nearCache.get(0, "elder:1", () -> load("b")));
+        assertEquals("bob", nearCache.hget(0, "elder:1", "name", () -> load("bob")));
+    }
+
+    @Test
+    public void keepsDatabasesApart() {
+        nearCache.get(0, "elder:1", () -> load("a"));
+        assertEquals("b", nearCache.get(1, "elder:1", () -> load("b")));
+    }
+
+    @Test
+    public void hgetIsAnsweredByCachedHash() {
+        nearCache.hgetall(0, "elder:1", () -> Collections.singletonMap("name", "packy"));
+        assertEquals("packy", nearCache.hget(0, "elder:1", "name", () -> load("other")));
+        assertNull(nearCache.hget(0, "elder:1", "age", () -> load("other")));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void valueLoadedDuringInvalidationIsNotKept() {
+        nearCache.get(0, "elder:1", () -> {
+            nearCache.invalidate(0, "elder:1");
+            return load("stale");
+        });
+        assertEquals("fresh", nearCache.get(0, "elder:1", () -> load("fresh")));
+    }
+
+    private String load(String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
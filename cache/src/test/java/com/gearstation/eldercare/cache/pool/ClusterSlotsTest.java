@@ -0,0 +1,66 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ClusterSlotsTest {
+
+    private final ClusterSlots slots = new ClusterSlots(Arrays.asList("10.0.0.1:7000", "10.0.0.2:7000"), 5, false);
+
+    @Test
+    public void slotIsCrc16OfHashTag() {
+        assertEquals(12182, slots.slotOf("foo"));
+        assertEquals(slots.slotOf("{42}"), slots.slotOf("elder:{42}:vitals"));
+        assertEquals(slots.slotOf("elder:{42}:vitals"), slots.slotOf("elder:{42}:vitals".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void multiKeyNeedsOneSlot() {
+        assertEquals(slots.slotOf("{42}"), slots.slotOf("elder:{42}:vitals", "elder:{42}:alerts"));
+        assertEquals(ShardRouter.SPREAD, slots.slotOf("elder:42", "elder:43"));
+    }
+
+    @Test
+    public void updateAddsMastersAndMovesSlots() {
+        List<Object> reply = Arrays.asList(
+                range(0, 8191, "10.0.0.1", 7000),
+                range(8192, 16383, "10.0.0.3", 7000));
+        slots.update(reply);
+        assertEquals(3, slots.size());
+        assertEquals("10.0.0.3:7000", slots.getShardName(2));
+        assertEquals(0, slots.shardOfSlot(100));
+        assertEquals(2, slots.shardOfSlot(12182));
+        assertEquals(2, slots.shardOf("foo"));
+    }
+
+    @Test
+    public void movedSlotGoesToTarget() {
+        int shard = slots.moved(12182, new HostAndPort("10.0.0.4", 7000));
+        assertEquals(shard, slots.shardOf("foo"));
+        assertEquals("10.0.0.4:7000", slots.getShardName(shard));
+        assertNotEquals(shard, slots.shardOfSlot(12183));
+    }
+
+    @Test
+    public void everyDatabaseIsZero() {
+        assertEquals(0, slots.database(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void strictDatabaseRejectsOthers() {
+        new ClusterSlots(Collections.singletonList("10.0.0.1:7000"), 5, true).database(3);
+    }
+
+    private static List<Object> range(long first, long last, String host, long port) {
+        List<Object> master = Arrays.asList(host.getBytes(StandardCharsets.UTF_8), port, "id".getBytes(StandardCharsets.UTF_8));
+        return Arrays.asList(first, last, master);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gearstation.eldercare.cache.pool;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JedisLeaseLeakTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private JedisLeaseManager manager;
+
+    @Before
+    public void setUp() {
+        JedisPoolRegistry registry = new JedisPoolRegistry(redis.getHost() + ":" + redis.getPort(),
+                dbIndex -> new JedisPool(new GenericObjectPoolConfig(), redis.getHost(), redis.getPort(), 2000, redis.getPassword(), dbIndex),
+                LocalRedis.DB);
+        manager = new JedisLeaseManager(registry, Duration.ofMillis(100), Duration.ofMillis(20));
+        manager.setLeakTraceSampling(1);
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    public void leaseHeldPastThresholdIsReportedOnceWithItsStack() throws InterruptedException {
+        try (JedisLease lease = manager.acquire(LocalRedis.DB)) {
+            lease.getJedis().ping();
+            TimeUnit.MILLISECONDS.sleep(400);
+
+            assertEquals(1, manager.getStats().get(LocalRedis.DB).getLeaksDetected());
+            assertEquals(Thread.currentThread().getName(), lease.getAcquiredBy());
+            assertNotNull(lease.getAcquireTrace());
+            assertTrue(Arrays.stream(lease.getAcquireTrace().getStackTrace())
+                    .anyMatch(frame -> frame.getMethodName().equals("leaseHeldPastThresholdIsReportedOnceWithItsStack")));
+        }
+        assertEquals(0, manager.getStats().get(LocalRedis.DB).getLeased());
+        assertTrue(manager.getStats().get(LocalRedis.DB).getHoldMaxMillis() >= 400);
+    }
+
+    @Test
+    public void leaseGivenBackInTimeIsNotReported() throws InterruptedException {
+        try (JedisLease lease = manager.acquire(LocalRedis.DB)) {
+            lease.getJedis().ping();
+        }
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(0, manager.getStats().get(LocalRedis.DB).getLeaksDetected());
+    }
+
+    @Test
+    public void blockingCallsAreNeverReported() {
+        manager.callBlocking(0, LocalRedis.DB, jedis -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return jedis.ping();
+        });
+
+        assertEquals(0, manager.getStats().get(LocalRedis.DB).getLeaksDetected());
+    }
+}
@@ -0,0 +1,54 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JedisLeaseManagerTest {
+
+    private final Jedis jedis = mock(Jedis.class);
+
+    private final JedisLeaseManager manager = new JedisLeaseManager(registry(jedis), Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+    @Test
+    public void releaseRecordsHoldAndGivesConnectionBack() {
+        JedisLease lease = manager.acquire(2);
+        assertEquals(1, manager.getStats().get(2).getLeased());
+
+        lease.close();
+        lease.close();
+
+        assertEquals(0, manager.getStats().get(2).getLeased());
+        assertEquals(1, manager.getStats().get(2).getHoldHistogram().values().stream().mapToLong(Long::longValue).sum());
+        verify(jedis, times(1)).close();
+        manager.close();
+    }
+
+    @Test
+    public void leaseClosedAfterTheManagerStillGivesConnectionBack() {
+        JedisLease lease = manager.acquire(2);
+        manager.close();
+
+        lease.close();
+
+        verify(jedis).close();
+    }
+
+    private static JedisPoolRegistry registry(Jedis jedis) {
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        JedisPoolRegistry registry = mock(JedisPoolRegistry.class);
+        when(registry.getName()).thenReturn("10.0.0.1:6379");
+        when(registry.getPool(anyInt())).thenReturn(pool);
+        return registry;
+    }
+}
@@ -0,0 +1,60 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JedisLeaseStatsTest {
+
+    private final JedisPoolRegistry registry = mock(JedisPoolRegistry.class);
+
+    private final JedisLeaseStats stats = new JedisLeaseStats("10.0.0.1:6379", 3, registry);
+
+    @Test
+    public void poolGaugesAreZeroBeforeThePoolExists() {
+        assertEquals(0, stats.getActive());
+        assertEquals(0, stats.getIdle());
+        assertEquals(0, stats.getWaiting());
+    }
+
+    @Test
+    public void poolGaugesComeFromThePoolOfTheDb() {
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getNumActive()).thenReturn(4);
+        when(pool.getNumIdle()).thenReturn(2);
+        when(pool.getNumWaiters()).thenReturn(1);
+        when(registry.peekPool(3)).thenReturn(pool);
+
+        assertEquals(4, stats.getActive());
+        assertEquals(2, stats.getIdle());
+        assertEquals(1, stats.getWaiting());
+    }
+
+    @Test
+    public void countersAndHistogramsAreExposed() {
+        stats.acquireWait.record(TimeUnit.MILLISECONDS.toNanos(1));
+        stats.acquireWait.record(TimeUnit.MILLISECONDS.toNanos(3));
+        stats.hold.record(TimeUnit.MILLISECONDS.toNanos(10));
+        stats.leased.increment();
+        stats.leaks.increment();
+        stats.acquireFailures.increment();
+
+        assertEquals("10.0.0.1:6379", stats.getShard());
+        assertEquals(3, stats.getDbIndex());
+        assertEquals(2, stats.getAcquireCount());
+        assertEquals(2.0, stats.getAcquireWaitMeanMillis(), 1e-9);
+        assertEquals(3.0, stats.getAcquireWaitMaxMillis(), 1e-9);
+        assertEquals(Long.valueOf(1), stats.getAcquireWaitHistogram().get("<4ms"));
+        assertEquals(10.0, stats.getHoldMeanMillis(), 1e-9);
+        assertEquals(10.0, stats.getHoldMaxMillis(), 1e-9);
+        assertEquals(Long.valueOf(1), stats.getHoldHistogram().get("<16ms"));
+        assertEquals(1, stats.getLeased());
+        assertEquals(1, stats.getLeaksDetected());
+        assertEquals(1, stats.getAcquireFailures());
+    }
+}
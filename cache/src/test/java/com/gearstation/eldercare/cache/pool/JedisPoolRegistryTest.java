@@ -0,0 +1,93 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class JedisPoolRegistryTest {
+
+    @Test
+    public void poolIsCreatedOncePerDb() {
+        AtomicInteger created = new AtomicInteger();
+        JedisPoolRegistry registry = new JedisPoolRegistry("a:6379", index -> {
+            created.incrementAndGet();
+            return mock(JedisPool.class);
+        }, 0);
+
+        assertNull(registry.peekPool(3));
+        JedisPool pool = registry.getPool(3);
+        assertSame(pool, registry.getPool(3));
+        assertSame(pool, registry.peekPool(3));
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void switchRetiresPoolsOfOldNode() {
+        JedisPool oldPool = mock(JedisPool.class);
+        JedisPool newPool = mock(JedisPool.class);
+        JedisPoolRegistry registry = new JedisPoolRegistry("a:6379", index -> oldPool, 0);
+        registry.getPool(0);
+
+        Map<Integer, JedisPool> retired = registry.switchTo("b:6379", index -> newPool);
+
+        assertSame(oldPool, retired.get(0));
+        assertEquals("b:6379", registry.getName());
+        assertEquals(1, registry.getGeneration());
+        assertNull(registry.peekPool(0));
+        assertSame(newPool, registry.getPool(0));
+        assertEquals(1, retired.size());
+    }
+
+    @Test
+    public void poolsCreatedDuringSwitchBelongToNewNode() throws Exception {
+        JedisPool oldPool = mock(JedisPool.class);
+        JedisPool newPool = mock(JedisPool.class);
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch switched = new CountDownLatch(1);
+        JedisPoolRegistry registry = new JedisPoolRegistry("a:6379", index -> {
+            creating.countDown();
+            await(switched);
+            return oldPool;
+        }, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<JedisPool> created = executor.submit(() -> registry.getPool(0));
+            creating.await();
+            Future<Map<Integer, JedisPool>> retired = executor.submit(() -> registry.switchTo("b:6379", index -> newPool));
+            // The switch waits for the pool being created, which then belongs to the retired node
+            Thread.sleep(100);
+            assertFalse(retired.isDone());
+            switched.countDown();
+
+            assertSame(oldPool, created.get(5, TimeUnit.SECONDS));
+            assertSame(oldPool, retired.get(5, TimeUnit.SECONDS).get(0));
+            assertSame(newPool, registry.getPool(0));
+            assertTrue(registry.getPools().containsValue(newPool));
+            assertFalse(registry.getPools().containsValue(oldPool));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogramHasNoMean() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMeanMillis(), 0.0);
+        assertEquals(0.0, histogram.getMaxMillis(), 0.0);
+        assertTrue(histogram.snapshot().values().stream().allMatch(count -> count == 0));
+    }
+
+    @Test
+    public void samplesFallInPowerOfTwoBuckets() {
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(300));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(4));
+        histogram.record(TimeUnit.SECONDS.toNanos(10));
+
+        Map<String, Long> snapshot = histogram.snapshot();
+        assertEquals(Long.valueOf(1), snapshot.get("<1ms"));
+        assertEquals(Long.valueOf(1), snapshot.get("<2ms"));
+        assertEquals(Long.valueOf(1), snapshot.get("<4ms"));
+        assertEquals(Long.valueOf(1), snapshot.get("<8ms"));
+        assertEquals(Long.valueOf(1), snapshot.get(">=4096ms"));
+        assertEquals(5, histogram.getCount());
+    }
+
+    @Test
+    public void bucketsAreInOrderFromFastestToSlowest() {
+        assertEquals("<1ms", new ArrayList<>(histogram.snapshot().keySet()).get(0));
+        assertEquals(">=4096ms", new ArrayList<>(histogram.snapshot().keySet()).get(histogram.snapshot().size() - 1));
+        assertEquals(14, histogram.snapshot().size());
+    }
+
+    @Test
+    public void meanAndMaxAreInMillis() {
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(6));
+
+        assertEquals(4.0, histogram.getMeanMillis(), 1e-9);
+        assertEquals(6.0, histogram.getMaxMillis(), 1e-9);
+    }
+
+    @Test
+    public void concurrentSamplesAreAllCounted() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(Long.valueOf(40_000), histogram.snapshot().get("<1ms"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.gearstation.eldercare.cache.pool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReplicaSetTest {
+
+    private static final String REPLICA_INFO = "# Replication\r\nrole:slave\r\nmaster_host:10.0.0.1\r\nmaster_port:6379\r\n"
+            + "master_link_status:up\r\nmaster_last_io_seconds_ago:1\r\nslave_repl_offset:1048500\r\nslave_priority:100\r\n";
+
+    @Test
+    public void infoFieldsAreRead() {
+        assertEquals("up", ReplicaSet.infoField(REPLICA_INFO, "master_link_status", "down"));
+        assertEquals("1048500", ReplicaSet.infoField(REPLICA_INFO, "slave_repl_offset", "0"));
+    }
+
+    @Test
+    public void missingFieldGivesDefault() {
+        assertEquals("0", ReplicaSet.infoField(REPLICA_INFO, "master_repl_offset", "0"));
+        assertEquals("down", ReplicaSet.infoField("# Replication\r\nrole:master\r\n", "master_link_status", "down"));
+    }
+
+    @Test
+    public void prefixOfAnotherFieldDoesNotMatch() {
+        assertEquals("x", ReplicaSet.infoField("master_link_status_extra:up\r\n", "master_link_status", "x"));
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> opened = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        for (AutoCloseable closeable : opened) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    public void inSyncReplicasAreReadInTurn() {
+        ReplicaSet replicas = replicaSet(1000, replicaInfo("up", 1000), replicaInfo("up", 990));
+
+        assertEquals(0, replicas.getLag(0));
+        assertEquals(10, replicas.getLag(1));
+        assertEquals(Arrays.asList(0, 1, 0, 1), picks(replicas, ReadFrom.REPLICA_PREFERRED, 4));
+    }
+
+    @Test
+    public void laggingReplicaIsSkipped() {
+        ReplicaSet replicas = replicaSet(5000, replicaInfo("up", 1000), replicaInfo("up", 4990));
+
+        assertEquals(Arrays.asList(1, 1, 1), picks(replicas, ReadFrom.REPLICA_PREFERRED, 3));
+    }
+
+    @Test
+    public void replicaPreferredReadsPrimaryWhenNoReplicaIsInSync() {
+        ReplicaSet replicas = replicaSet(5000, replicaInfo("up", 1000), replicaInfo("down", 5000));
+
+        assertEquals(-1, replicas.pick(ReadFrom.REPLICA_PREFERRED));
+        assertEquals(1, meterRegistry.get("eldercare.redis.replica.fallback").counter().count(), 0);
+    }
+
+    @Test
+    public void replicaReadsLaggingReplicaWhenNoneIsInSync() {
+        ReplicaSet replicas = replicaSet(5000, replicaInfo("down", 5000), replicaInfo("up", 1000));
+
+        assertEquals(ReplicaSet.UNREACHABLE, replicas.getLag(0));
+        assertEquals(Arrays.asList(1, 1), picks(replicas, ReadFrom.REPLICA, 2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void replicaFailsWhenNoneIsReachable() {
+        replicaSet(1000, replicaInfo("down", 1000)).pick(ReadFrom.REPLICA);
+    }
+
+    @Test
+    public void unreachableReplicaIsSkippedUntilNextCheck() {
+        ReplicaSet replicas = replicaSet(1000, replicaInfo("up", 1000), replicaInfo("up", 1000));
+        replicas.markUnreachable(0);
+
+        assertEquals(Arrays.asList(1, 1), picks(replicas, ReadFrom.REPLICA_PREFERRED, 2));
+    }
+
+    @Test
+    public void readFromFollowsNamespaceOfKey() {
+        Map<String, ReadFrom> namespaces = new HashMap<>();
+        namespaces.put("session", ReadFrom.PRIMARY);
+        namespaces.put("report", ReadFrom.REPLICA);
+        ReplicaSet replicas = new ReplicaSet(primary(1000), Collections.singletonList(replica(replicaInfo("up", 1000))), 100,
+                Duration.ofHours(1), ReadFrom.REPLICA_PREFERRED, namespaces, ':', meterRegistry);
+        opened.add(replicas);
+
+        assertEquals(ReadFrom.PRIMARY, replicas.readFromOf("session:42"));
+        assertEquals(ReadFrom.REPLICA, replicas.readFromOf("report:2019"));
+        assertEquals(ReadFrom.REPLICA_PREFERRED, replicas.readFromOf("sessions:42"));
+        assertEquals(ReadFrom.REPLICA_PREFERRED, replicas.readFromOf("session"));
+    }
+
+    @Test
+    public void managerReadsPrimaryWhenReplicaFails() {
+        Jedis primaryJedis = mock(Jedis.class);
+        when(primaryJedis.get("k")).thenReturn("primary");
+        JedisPoolRegistry primary = leasedPrimary(primaryJedis);
+        JedisPoolRegistry failing = replica(replicaInfo("up", 1000));
+        Jedis replicaJedis = failing.getResource(0);
+        when(replicaJedis.get("k")).thenThrow(new JedisConnectionException("Connection reset"));
+        ReplicaSet replicas = replicaSet(primary, failing);
+        JedisLeaseManager manager = manager(primary, replicas);
+
+        assertEquals("primary", manager.call(0, 0, ReadFrom.REPLICA_PREFERRED, jedis -> jedis.get("k")));
+        assertEquals(ReplicaSet.UNREACHABLE, replicas.getLag(0));
+        assertEquals(1, meterRegistry.get("eldercare.redis.replica.fallback").counter().count(), 0);
+    }
+
+    @Test(expected = JedisConnectionException.class)
+    public void managerRethrowsReplicaOnlyFailure() {
+        JedisPoolRegistry primary = leasedPrimary(mock(Jedis.class));
+        JedisPoolRegistry failing = replica(replicaInfo("up", 1000));
+        when(failing.getResource(0).get("k")).thenThrow(new JedisConnectionException("Connection reset"));
+
+        manager(primary, replicaSet(primary, failing)).call(0, 0, ReadFrom.REPLICA, jedis -> jedis.get("k"));
+    }
+
+    @Test
+    public void managerReadsPrimaryForPrimaryReads() {
+        Jedis primaryJedis = mock(Jedis.class);
+        when(primaryJedis.get("k")).thenReturn("primary");
+        JedisPoolRegistry primary = leasedPrimary(primaryJedis);
+        JedisPoolRegistry replica = replica(replicaInfo("up", 1000));
+        Jedis replicaJedis = replica.getResource(0);
+        JedisLeaseManager manager = manager(primary, replicaSet(primary, replica));
+
+        assertEquals("primary", manager.call(0, 0, ReadFrom.PRIMARY, jedis -> jedis.get("k")));
+        verify(replicaJedis, never()).get(anyString());
+    }
+
+    private ReplicaSet replicaSet(long primaryOffset, String... replicaInfos) {
+        List<JedisPoolRegistry> registries = new ArrayList<>();
+        for (String info : replicaInfos) {
+            registries.add(replica(info));
+        }
+        return replicaSet(primary(primaryOffset), registries.toArray(new JedisPoolRegistry[0]));
+    }
+
+    private ReplicaSet replicaSet(JedisPoolRegistry primary, JedisPoolRegistry... replicas) {
+        ReplicaSet replicaSet = new ReplicaSet(primary, Arrays.asList(replicas), 100, Duration.ofHours(1),
+                ReadFrom.REPLICA_PREFERRED, Collections.emptyMap(), ':', meterRegistry);
+        opened.add(replicaSet);
+        return replicaSet;
+    }
+
+    private JedisLeaseManager manager(JedisPoolRegistry primary, ReplicaSet replicas) {
+        JedisLeaseManager manager = new JedisLeaseManager(primary, Duration.ZERO, Duration.ofSeconds(5));
+        manager.setReplicaSet(replicas);
+        opened.add(manager);
+        return manager;
+    }
+
+    private static List<Integer> picks(ReplicaSet replicas, ReadFrom readFrom, int count) {
+        List<Integer> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(replicas.pick(readFrom));
+        }
+        return picked;
+    }
+
+    private static JedisPoolRegistry primary(long offset) {
+        return registry("primary", "# Replication\r\nrole:master\r\nmaster_repl_offset:" + offset + "\r\n");
+    }
+
+    private static JedisPoolRegistry leasedPrimary(Jedis jedis) {
+        JedisPoolRegistry primary = primary(1000);
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        when(primary.getPool(anyInt())).thenReturn(pool);
+        return primary;
+    }
+
+    private static JedisPoolRegistry replica(String info) {
+        return registry("replica", info);
+    }
+
+    private static JedisPoolRegistry registry(String name, String info) {
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.info("replication")).thenReturn(info);
+        JedisPoolRegistry registry = mock(JedisPoolRegistry.class);
+        when(registry.getName()).thenReturn(name);
+        when(registry.getResource(anyInt())).thenReturn(jedis);
+        return registry;
+    }
+
+    private static String replicaInfo(String linkStatus, long offset) {
+        return "# Replication\r\nrole:slave\r\nmaster_link_status:" + linkStatus + "\r\nslave_repl_offset:" + offset + "\r\n";
+    }
+}
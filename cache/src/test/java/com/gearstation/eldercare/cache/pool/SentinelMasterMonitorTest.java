@@ -0,0 +1,107 @@
+package com.gearstation.eldercare.cache.pool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+public class SentinelMasterMonitorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JedisPoolRegistry registry;
+    private SentinelMasterMonitor monitor;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new JedisPoolRegistry("10.0.0.1:6379", dbIndex -> new JedisPool("10.0.0.1", 6379), 0);
+        monitor = new SentinelMasterMonitor("eldercare", Collections.emptyList(), Duration.ofSeconds(1),
+                Duration.ofMillis(50), Duration.ofSeconds(10), meterRegistry);
+        monitor.start(registry, new HostAndPort("10.0.0.1", 6379),
+                node -> dbIndex -> new JedisPool(node.getHost(), node.getPort()));
+    }
+
+    @After
+    public void tearDown() {
+        monitor.close();
+        registry.close();
+    }
+
+    @Test
+    public void switchMasterPointsRegistryToNewMaster() {
+        monitor.onEvent("+odown", "master eldercare 10.0.0.1 6379 #quorum 2/2".split(" "));
+        assertTrue(monitor.isFailingOver());
+        monitor.onEvent("+switch-master", "eldercare 10.0.0.1 6379 10.0.0.2 6379".split(" "));
+        assertFalse(monitor.isFailingOver());
+        assertEquals("10.0.0.2:6379", registry.getName());
+        assertEquals(1, registry.getGeneration());
+        assertEquals(1, meterRegistry.get("eldercare.redis.failover.time").timer().count());
+        assertEquals(1.0, meterRegistry.get("eldercare.redis.failover.switches").counter().count(), 0.0);
+    }
+
+    @Test
+    public void repeatedSwitchFromAnotherSentinelIsIgnored() {
+        monitor.onEvent("+switch-master", "eldercare 10.0.0.1 6379 10.0.0.2 6379".split(" "));
+        monitor.onEvent("+switch-master", "eldercare 10.0.0.1 6379 10.0.0.2 6379".split(" "));
+        assertEquals(1, registry.getGeneration());
+    }
+
+    @Test
+    public void eventsOfOtherMastersAreIgnored() {
+        monitor.onEvent("+odown", "master billing 10.0.0.9 6379 #quorum 2/2".split(" "));
+        monitor.onEvent("+switch-master", "billing 10.0.0.9 6379 10.0.0.8 6379".split(" "));
+        assertFalse(monitor.isFailingOver());
+        assertEquals(0, registry.getGeneration());
+    }
+
+    @Test
+    public void callerSeesSwitchAfterConnectionFailure() {
+        int generation = registry.getGeneration();
+        monitor.onEvent("+switch-master", "eldercare 10.0.0.1 6379 10.0.0.2 6379".split(" "));
+        assertTrue(monitor.connectionFailed(generation));
+        assertFalse(monitor.connectionFailed(registry.getGeneration()));
+    }
+
+    @Test(expected = JedisConnectionException.class)
+    public void callFailsFastOnceFailoverWaitIsOver() {
+        monitor.onEvent("+odown", "master eldercare 10.0.0.1 6379 #quorum 2/2".split(" "));
+        monitor.awaitFailover();
+    }
+
+    @Test
+    public void recoveredMasterEndsFailover() {
+        monitor.onEvent("+odown", "master eldercare 10.0.0.1 6379 #quorum 2/2".split(" "));
+        monitor.onEvent("-odown", "master eldercare 10.0.0.1 6379".split(" "));
+        assertFalse(monitor.isFailingOver());
+        monitor.awaitFailover();
+    }
+
+    @Test
+    public void subscribingCatchesUpWithAMissedSwitch() {
+        SentinelMasterMonitor listening = spy(monitor);
+        doReturn(new HostAndPort("10.0.0.2", 6379)).when(listening).discoverMaster();
+        listening.catchUp();
+        assertEquals("10.0.0.2:6379", registry.getName());
+        listening.catchUp();
+        assertEquals(1, registry.getGeneration());
+    }
+
+    @Test
+    public void subscribingWithoutAnAnswerKeepsTheMaster() {
+        monitor.catchUp();
+        assertEquals("10.0.0.1:6379", registry.getName());
+        assertEquals(0, registry.getGeneration());
+    }
+}
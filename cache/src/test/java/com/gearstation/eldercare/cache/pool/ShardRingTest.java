@@ -0,0 +1,85 @@
+package com.gearstation.eldercare.cache.pool;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardRingTest {
+
+    private static final List<String> NODES = Arrays.asList("10.0.0.1:6379", "10.0.0.2:6379", "10.0.0.3:6379");
+
+    @Test
+    public void singleShardOwnsEverything() {
+        ShardRing ring = new ShardRing(Collections.singletonList("localhost:6379"), 160);
+        assertEquals(0, ring.shardOf("elder:42"));
+        assertEquals(0, ring.shardOf("elder:42", "elder:43", "device:7"));
+    }
+
+    @Test
+    public void keysSpreadEvenly() {
+        ShardRing ring = new ShardRing(NODES, 160);
+        int[] counts = new int[NODES.size()];
+        for (int i = 0; i < 30_000; i++) {
+            counts[ring.shardOf("elder:" + i)]++;
+        }
+        for (int count : counts) {
+            assertTrue("Uneven shard load " + Arrays.toString(counts), count > 8_000 && count < 12_000);
+        }
+    }
+
+    @Test
+    public void addingAShardMovesAboutAQuarterOfKeys() {
+        ShardRing three = new ShardRing(NODES, 160);
+        List<String> four = new ArrayList<>(NODES);
+        four.add("10.0.0.4:6379");
+        ShardRing grown = new ShardRing(four, 160);
+        int moved = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String key = "device:" + i;
+            if (three.shardOf(key) != grown.shardOf(key)) {
+                assertEquals(3, grown.shardOf(key));
+                moved++;
+            }
+        }
+        assertTrue("Moved " + moved, moved > 3_500 && moved < 6_500);
+    }
+
+    @Test
+    public void hashTagKeepsKeysTogether() {
+        ShardRing ring = new ShardRing(NODES, 160);
+        int shard = ring.shardOf("elder:{42}:vitals");
+        assertEquals(shard, ring.shardOf("elder:{42}:alerts"));
+        assertEquals(shard, ring.shardOf("{42}"));
+        assertEquals(shard, ring.shardOf("elder:{42}:vitals", "elder:{42}:alerts"));
+    }
+
+    @Test
+    public void keysOnSeveralShardsAreSpread() {
+        ShardRing ring = new ShardRing(NODES, 160);
+        String first = "elder:0";
+        String other = first;
+        for (int i = 1; ring.shardOf(other) == ring.shardOf(first); i++) {
+            other = "elder:" + i;
+        }
+        assertEquals(ShardRing.SPREAD, ring.shardOf(first, other));
+    }
+
+    @Test
+    public void hashTagIsFirstNonEmptyBraces() {
+        assertArrayEquals(bytes("42"), ShardRing.hashTagOf(bytes("elder:{42}:{7}")));
+        assertArrayEquals(bytes("elder:{}:42"), ShardRing.hashTagOf(bytes("elder:{}:42")));
+        assertArrayEquals(bytes("elder:{42"), ShardRing.hashTagOf(bytes("elder:{42")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
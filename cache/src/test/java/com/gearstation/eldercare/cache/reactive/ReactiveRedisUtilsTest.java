@@ -0,0 +1,183 @@
+package com.gearstation.eldercare.cache.reactive;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.config.CacheLoadProperties;
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReactiveRedisUtilsTest {
+
+    private static final int ELEMENTS = 1000;
+
+    private static final int PAGE = 10;
+
+    /**
+     * Over the default 1KB threshold, and compressible
+     */
+    private static final String BIG = String.join("", Collections.nCopies(300, "heartbeat "));
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisClient redisClient;
+    private ReactiveRedisConnections connections;
+    private ReactiveRedisUtils reactiveRedisUtils;
+    private RedisUtils redisUtils;
+
+    @Before
+    public void setUp() {
+        RedisCompressionProperties compression = new RedisCompressionProperties();
+        compression.setEnabled(true);
+        ValueCompressor valueCompressor = new ValueCompressor(compression, redis.getMeterRegistry());
+        NearCacheProperties nearCacheProperties = new NearCacheProperties();
+        nearCacheProperties.setEnabled(true);
+        nearCacheProperties.getNamespaces().put("test", Duration.ofMinutes(1));
+        NearCache nearCache = new NearCache(nearCacheProperties);
+
+        redisClient = RedisClient.create();
+        connections = new ReactiveRedisConnections(redisClient, dbIndex -> {
+            RedisURI.Builder builder = RedisURI.Builder.redis(redis.getHost(), redis.getPort()).withDatabase(dbIndex);
+            if (redis.getPassword() != null) {
+                builder.withPassword(redis.getPassword());
+            }
+            return builder.build();
+        });
+        reactiveRedisUtils = new ReactiveRedisUtils(connections, valueCompressor, nearCache);
+        redisUtils = new RedisUtils(redis.getJedisLeaseManager(), nearCache, redis.getRedisCommandMetrics(), valueCompressor,
+                new CacheLoadProperties(), new RedisBulkProperties());
+    }
+
+    @After
+    public void tearDown() {
+        connections.close();
+        redisClient.shutdown();
+    }
+
+    @Test
+    public void valuesRoundTripWithRedisUtils() {
+        String key = redis.key("big");
+        String hash = redis.key("hash");
+
+        assertEquals("OK", reactiveRedisUtils.set(key, BIG, LocalRedis.DB).block());
+        assertEquals(BIG, redisUtils.get(key, LocalRedis.DB));
+        redisUtils.hset(hash, "report", BIG, LocalRedis.DB);
+        assertEquals(BIG, reactiveRedisUtils.hget(hash, "report", LocalRedis.DB).block());
+        Map<String, String> all = reactiveRedisUtils.hgetall(hash, LocalRedis.DB).block();
+        assertEquals(Collections.singletonMap("report", BIG), all);
+        assertEquals(Arrays.asList(BIG, null), reactiveRedisUtils.mget(LocalRedis.DB, key, redis.key("missing")).block());
+    }
+
+    @Test
+    public void writesDropNearCacheEntries() {
+        String key = redis.key("status");
+        String hash = redis.key("device");
+        redisUtils.set(key, "online", LocalRedis.DB);
+        redisUtils.hset(hash, "battery", "80", LocalRedis.DB);
+        assertEquals("online", redisUtils.get(key, LocalRedis.DB));
+        assertEquals("80", redisUtils.hget(hash, "battery", LocalRedis.DB));
+
+        reactiveRedisUtils.set(key, "offline", LocalRedis.DB).block();
+        reactiveRedisUtils.hset(hash, "battery", "79", LocalRedis.DB).block();
+
+        assertEquals("offline", redisUtils.get(key, LocalRedis.DB));
+        assertEquals("79", redisUtils.hget(hash, "battery", LocalRedis.DB));
+
+        reactiveRedisUtils.remove(LocalRedis.DB, key).block();
+        assertNull(redisUtils.get(key, LocalRedis.DB));
+    }
+
+    @Test
+    public void sscanFetchesPagesOnDemand() throws InterruptedException {
+        String key = redis.key("members");
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS; i++) {
+            members.add("member-" + i);
+        }
+        reactiveRedisUtils.sadd(key, LocalRedis.DB, members.toArray(new String[0])).block();
+
+        long fetched = pagesFetchedForOne("sscan", reactiveRedisUtils.sscan(key, PAGE, LocalRedis.DB));
+
+        assertTrue("SSCAN pages fetched for one member: " + fetched, fetched >= 1 && fetched <= 2);
+        assertEquals(new HashSet<>(members), new HashSet<>(reactiveRedisUtils.sscan(key, PAGE, LocalRedis.DB).collectList().block()));
+    }
+
+    @Test
+    public void lrangeStreamFetchesWindowsOnDemand() throws InterruptedException {
+        String key = redis.key("readings");
+        List<String> readings = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS; i++) {
+            readings.add("reading-" + i);
+        }
+        reactiveRedisUtils.rpush(key, LocalRedis.DB, readings.toArray(new String[0])).block();
+
+        long fetched = pagesFetchedForOne("lrange", reactiveRedisUtils.lrangeStream(key, PAGE, LocalRedis.DB));
+
+        assertTrue("LRANGE windows fetched for one element: " + fetched, fetched >= 1 && fetched <= 2);
+        assertEquals(readings, reactiveRedisUtils.lrangeStream(key, PAGE, LocalRedis.DB).collectList().block());
+    }
+
+    /**
+     * Request one element, wait a while, then count the pages Redis served meanwhile
+     */
+    private long pagesFetchedForOne(String command, Flux<String> stream) throws InterruptedException {
+        CountDownLatch received = new CountDownLatch(1);
+        BaseSubscriber<String> subscriber = new BaseSubscriber<String>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(String value) {
+                received.countDown();
+            }
+        };
+        long before = calls(command);
+        stream.subscribe(subscriber);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(200);
+        long fetched = calls(command) - before;
+        subscriber.dispose();
+        return fetched;
+    }
+
+    private long calls(String command) {
+        try (Jedis jedis = redis.jedis()) {
+            String prefix = "cmdstat_" + command + ":calls=";
+            for (String line : jedis.info("commandstats").split("\r\n")) {
+                if (line.startsWith(prefix)) {
+                    return Long.parseLong(line.substring(prefix.length(), line.indexOf(',')));
+                }
+            }
+            return 0;
+        }
+    }
+}
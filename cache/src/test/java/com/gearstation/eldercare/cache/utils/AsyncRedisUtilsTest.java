@@ -0,0 +1,71 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.pool.ReadFrom;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AsyncRedisUtilsTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "async-test"));
+
+    /**
+     * Replies with the key, the DB, where reads of the running thread go and the thread name
+     */
+    private final RedisUtils redisUtils = new RedisUtils(null, null, null, null, null, null) {
+        @Override
+        public String get(String key, int dbIndex) {
+            return key + "@" + dbIndex + "@" + RedisUtils.currentReadFrom() + "@" + Thread.currentThread().getName();
+        }
+
+        @Override
+        public Map<String, String> hgetall(String key, int dbIndex) {
+            return Collections.singletonMap(key, Integer.toString(dbIndex));
+        }
+
+        @Override
+        public Long incrBy(String key, Long increment, int dbIndex) {
+            throw new IllegalStateException("incrBy of " + key);
+        }
+    };
+
+    private final AsyncRedisUtils asyncRedisUtils = new AsyncRedisUtils(redisUtils, executor);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void callsAreDelegatedOnTheExecutor() {
+        assertEquals("elder:42@1@null@async-test", asyncRedisUtils.get("elder:42", 1).join());
+        assertEquals(Collections.singletonMap("device:7", "2"), asyncRedisUtils.hgetall("device:7", 2).join());
+    }
+
+    @Test
+    public void readFromOfTheCallerIsKept() {
+        String reply = redisUtils.readFrom(ReadFrom.REPLICA, () -> asyncRedisUtils.get("elder:42", 1)).join();
+
+        assertEquals("elder:42@1@REPLICA@async-test", reply);
+        assertNull(RedisUtils.currentReadFrom());
+        // The executor thread is left as it was
+        assertEquals("elder:42@1@null@async-test", asyncRedisUtils.get("elder:42", 1).join());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failuresCompleteTheFuture() throws Throwable {
+        try {
+            asyncRedisUtils.incrBy("counter", 1L, 1).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BuiltInScriptsTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private Jedis jedis;
+
+    @Before
+    public void setUp() {
+        jedis = redis.jedis();
+    }
+
+    @After
+    public void tearDown() {
+        if (jedis != null) {
+            jedis.close();
+        }
+    }
+
+    @Test
+    public void scriptUnknownToServerIsSentThenCached() {
+        String reply = UUID.randomUUID().toString();
+        RedisScript script = RedisScript.of("fresh", "return '" + reply + "'");
+        assertFalse(jedis.scriptExists(script.getSha1()));
+
+        assertEquals(reply, script.eval(jedis, Collections.emptyList(), Collections.emptyList()));
+        assertTrue(jedis.scriptExists(script.getSha1()));
+        assertEquals(reply, script.eval(jedis, Collections.emptyList(), Collections.emptyList()));
+    }
+
+    @Test
+    public void incrementStopsAtCap() {
+        List<String> keys = keys("visits");
+
+        assertEquals(Arrays.asList(1L, 5L), RedisScript.INCREMENT_WITH_CAP.eval(jedis, keys, Arrays.asList("5", "10", "60")));
+        assertEquals(Arrays.asList(1L, 10L), RedisScript.INCREMENT_WITH_CAP.eval(jedis, keys, Arrays.asList("5", "10", "60")));
+        assertEquals(Arrays.asList(0L, 10L), RedisScript.INCREMENT_WITH_CAP.eval(jedis, keys, Arrays.asList("1", "10", "60")));
+        long ttl = jedis.ttl(keys.get(0));
+        assertTrue(ttl > 0 && ttl <= 60);
+    }
+
+    @Test
+    public void incrementWithoutTtlKeepsKey() {
+        List<String> keys = keys("visits");
+
+        RedisScript.INCREMENT_WITH_CAP.eval(jedis, keys, Arrays.asList("1", "10", "0"));
+        assertEquals(Long.valueOf(-1), jedis.ttl(keys.get(0)));
+    }
+
+    @Test
+    public void hashFieldIsSetOnlyIfAbsentOrExpected() {
+        List<String> keys = keys("bed");
+
+        assertEquals(1L, RedisScript.HASH_COMPARE_AND_SET.eval(jedis, keys, Arrays.asList("patient", "p1", "1", "", "")));
+        assertEquals(0L, RedisScript.HASH_COMPARE_AND_SET.eval(jedis, keys, Arrays.asList("patient", "p2", "1", "", "")));
+        assertEquals(0L, RedisScript.HASH_COMPARE_AND_SET.eval(jedis, keys, Arrays.asList("patient", "p2", "0", "p9", "p9")));
+        assertEquals(1L, RedisScript.HASH_COMPARE_AND_SET.eval(jedis, keys, Arrays.asList("patient", "p2", "0", "p1", "p1")));
+        assertEquals("p2", jedis.hget(keys.get(0), "patient"));
+    }
+
+    @Test
+    public void pushKeepsNewestValues() {
+        List<String> keys = keys("events");
+
+        assertEquals(2L, RedisScript.BOUNDED_PUSH.eval(jedis, keys, Arrays.asList("3", "a", "b")));
+        assertEquals(3L, RedisScript.BOUNDED_PUSH.eval(jedis, keys, Arrays.asList("3", "c", "d")));
+        assertEquals(Arrays.asList("d", "c", "b"), jedis.lrange(keys.get(0), 0, -1));
+    }
+
+    @Test
+    public void keyIsDeletedOnlyWithItsValue() {
+        List<String> keys = keys("lock");
+        jedis.set(keys.get(0), "mine");
+
+        assertEquals(0L, RedisScript.COMPARE_AND_DELETE.eval(jedis, keys, Collections.singletonList("theirs")));
+        assertTrue(jedis.exists(keys.get(0)));
+        assertEquals(1L, RedisScript.COMPARE_AND_DELETE.eval(jedis, keys, Collections.singletonList("mine")));
+        assertFalse(jedis.exists(keys.get(0)));
+    }
+
+    @Test
+    public void plainStringCommandSkipsCompressedValues() {
+        List<String> keys = keys("note");
+
+        assertEquals(2L, RedisScript.PLAIN_STRING_COMMAND.eval(jedis, keys, Arrays.asList("append", "ab")));
+        assertEquals(4L, RedisScript.PLAIN_STRING_COMMAND.eval(jedis, keys, Arrays.asList("append", "cd")));
+        assertEquals("bc", RedisScript.PLAIN_STRING_COMMAND.eval(jedis, keys, Arrays.asList("getrange", "1", "2")));
+
+        byte[] key = SafeEncoder.encode(keys.get(0));
+        byte[] compressed = {(byte) 0xFF, 1, 2, 3};
+        jedis.set(key, compressed);
+        assertNull(RedisScript.PLAIN_STRING_COMMAND.eval(jedis, keys, Arrays.asList("append", "ef")));
+        assertArrayEquals(compressed, jedis.get(key));
+    }
+
+    private List<String> keys(String name) {
+        return Collections.singletonList(redis.key(name));
+    }
+}
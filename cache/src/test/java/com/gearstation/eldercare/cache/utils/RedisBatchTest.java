@@ -0,0 +1,248 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import com.gearstation.eldercare.cache.codec.ValueCompressor;
+import com.gearstation.eldercare.cache.config.NearCacheProperties;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import com.gearstation.eldercare.cache.near.NearCache;
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import com.gearstation.eldercare.cache.pool.JedisPoolRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RedisBatchTest {
+
+    /**
+     * Over the default 1KB threshold, and compressible
+     */
+    private static final String BIG = String.join("", Collections.nCopies(300, "heartbeat "));
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisUtils redisUtils;
+
+    @Before
+    public void setUp() {
+        RedisCompressionProperties compression = new RedisCompressionProperties();
+        compression.setEnabled(true);
+        redisUtils = redis.redisUtils(compression, new RedisBulkProperties());
+    }
+
+    @Test
+    public void batchWritesAreCompressedLikeRedisUtils() {
+        String key = redis.key("big");
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        batch.set(key, BIG);
+        assertTrue(batch.execute());
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals((byte) 0xFF, jedis.get(SafeEncoder.encode(key))[0]);
+        }
+        assertEquals(BIG, redisUtils.get(key, LocalRedis.DB));
+    }
+
+    @Test
+    public void batchReadsDecompressWritesOfRedisUtils() {
+        String key = redis.key("big");
+        String hash = redis.key("hash");
+        redisUtils.set(key, BIG, LocalRedis.DB);
+        redisUtils.hset(hash, "report", BIG, LocalRedis.DB);
+        redisUtils.hset(hash, "small", "ok", LocalRedis.DB);
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        BatchResponse<String> value = batch.get(key);
+        BatchResponse<String> field = batch.hget(hash, "report");
+        BatchResponse<Map<String, String>> all = batch.hgetall(hash);
+        assertTrue(batch.execute());
+
+        assertEquals(BIG, value.get());
+        assertEquals(BIG, field.get());
+        assertEquals(BIG, all.get().get("report"));
+        assertEquals("ok", all.get().get("small"));
+    }
+
+    @Test
+    public void hashAndMultiKeyValuesRoundTrip() {
+        String hash = redis.key("hash");
+        String first = redis.key("{mget}first");
+        String second = redis.key("{mget}second");
+        Map<String, String> fields = Collections.singletonMap("report", BIG);
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        batch.hmset(hash, fields);
+        batch.mset(first, BIG, second, "small");
+        assertTrue(batch.execute());
+        BatchResponse<List<String>> values = batch.mget(first, second);
+        BatchResponse<List<String>> hashValues = batch.hmget(hash, "report", "missing");
+        assertTrue(batch.execute());
+
+        assertEquals(Arrays.asList(BIG, "small"), values.get());
+        assertEquals(Arrays.asList(BIG, null), hashValues.get());
+        assertEquals(fields, redisUtils.hgetall(hash, LocalRedis.DB));
+    }
+
+    @Test
+    public void editsOfACompressedValueFailAndLeaveItAlone() {
+        String key = redis.key("big");
+        redisUtils.set(key, BIG, LocalRedis.DB);
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        BatchResponse<Long> appended = batch.append(key, "!");
+        BatchResponse<Long> ranged = batch.setRange(key, "x", 0);
+        BatchResponse<Long> length = batch.serlen(key);
+        assertTrue(batch.execute());
+
+        assertTrue(appended.isFailed());
+        assertTrue(appended.getError() instanceof IllegalStateException);
+        assertTrue(ranged.isFailed());
+        assertTrue(length.isFailed());
+        assertEquals(BIG, redisUtils.get(key, LocalRedis.DB));
+    }
+
+    @Test
+    public void editsOfAPlainValueRunAsUsual() {
+        String key = redis.key("small");
+        redisUtils.set(key, "beat", LocalRedis.DB);
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        BatchResponse<Long> appended = batch.append(key, "s");
+        BatchResponse<Long> ranged = batch.setRange(key, "B", 0);
+        BatchResponse<String> range = batch.getrange(key, 0, 1);
+        assertTrue(batch.execute());
+
+        assertFalse(appended.isFailed());
+        assertEquals(Long.valueOf(5), appended.get());
+        assertEquals(Long.valueOf(5), ranged.get());
+        assertEquals("Be", range.get());
+        assertEquals("Beats", redisUtils.get(key, LocalRedis.DB));
+    }
+
+    @Test
+    public void responsesHoldTypedReplies() {
+        String key = redis.key("status");
+        String counter = redis.key("beats");
+        String hash = redis.key("device");
+        String set = redis.key("wards");
+        String list = redis.key("alarms");
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        BatchResponse<String> written = batch.setex(key, "online", 60);
+        BatchResponse<String> value = batch.get(key);
+        BatchResponse<Boolean> existing = batch.isExisting(key);
+        BatchResponse<Long> beats = batch.incrBy(counter, 3L);
+        batch.hset(hash, "battery", "80");
+        BatchResponse<Map<String, String>> fields = batch.hgetall(hash);
+        batch.sadd(set, "east", "west");
+        BatchResponse<Set<String>> members = batch.smembers(set);
+        batch.rpush(list, "fall", "smoke");
+        BatchResponse<List<String>> range = batch.lrange(list, 0, -1);
+        BatchResponse<Long> removed = batch.remove(key);
+        assertEquals(11, batch.size());
+        assertTrue(batch.execute());
+
+        assertEquals(0, batch.size());
+        assertEquals("OK", written.get());
+        assertEquals("online", value.get());
+        assertEquals(Boolean.TRUE, existing.get());
+        assertEquals(Long.valueOf(3), beats.get());
+        assertEquals(Collections.singletonMap("battery", "80"), fields.get());
+        assertEquals(new HashSet<>(Arrays.asList("east", "west")), members.get());
+        assertEquals(Arrays.asList("fall", "smoke"), range.get());
+        assertEquals(Long.valueOf(1), removed.get());
+        assertTrue(value.isDone());
+        assertFalse(value.isFailed());
+    }
+
+    @Test
+    public void errorReplyFailsItsOwnResponseOnly() {
+        String key = redis.key("status");
+        redisUtils.set(key, "online", LocalRedis.DB);
+
+        RedisBatch batch = redisUtils.batch(LocalRedis.DB);
+        BatchResponse<Long> incremented = batch.incr(key);
+        BatchResponse<String> value = batch.get(key);
+        assertTrue(batch.execute());
+
+        assertTrue(incremented.isFailed());
+        assertTrue(incremented.getError() instanceof JedisDataException);
+        assertNull(incremented.get());
+        assertEquals("online", value.get());
+    }
+
+    @Test
+    public void lostConnectionFailsTheWholePipeline() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        JedisPoolRegistry unreachable = new JedisPoolRegistry(
+                dbIndex -> new JedisPool(new GenericObjectPoolConfig(), redis.getHost(), closedPort, 500, null, dbIndex), LocalRedis.DB);
+        JedisLeaseManager jedisLeaseManager = new JedisLeaseManager(unreachable, Duration.ZERO, Duration.ofSeconds(5));
+        try {
+            RedisBatch batch = new RedisBatch(jedisLeaseManager, new NearCache(new NearCacheProperties()), redis.getRedisCommandMetrics(),
+                    new ValueCompressor(new RedisCompressionProperties(), redis.getMeterRegistry()), LocalRedis.DB);
+            BatchResponse<String> written = batch.set(redis.key("status"), "online");
+            BatchResponse<String> value = batch.get(redis.key("status"));
+
+            assertFalse(batch.execute());
+
+            assertTrue(written.isFailed());
+            assertTrue(value.isFailed());
+            assertTrue(written.getError() instanceof JedisConnectionException);
+            assertSame(written.getError(), value.getError());
+        } finally {
+            jedisLeaseManager.close();
+        }
+    }
+
+    @Test
+    public void commandsAreRoutedToTheShardOfTheirKey() {
+        String first = redis.keyOnShard("status", 0);
+        String second = redis.keyOnShard("status", 1);
+        RedisUtils sharded = redis.shardedRedisUtils(new RedisBulkProperties());
+
+        RedisBatch batch = sharded.batch(LocalRedis.DB);
+        batch.set(first, "online");
+        batch.set(second, "offline");
+        BatchResponse<List<String>> spread = batch.mget(first, second);
+        assertTrue(batch.execute());
+        BatchResponse<String> firstValue = batch.get(first);
+        BatchResponse<String> secondValue = batch.get(second);
+        assertTrue(batch.execute());
+
+        assertEquals("online", firstValue.get());
+        assertEquals("offline", secondValue.get());
+        assertTrue(spread.isFailed());
+        try (Jedis jedis = redis.jedis(); Jedis secondShard = redis.secondShardJedis()) {
+            assertEquals("online", jedis.get(first));
+            assertFalse(jedis.exists(second));
+            assertEquals("offline", secondShard.get(second));
+            assertFalse(secondShard.exists(first));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class RedisCountersTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisUtils redisUtils;
+
+    private RedisCounters counters;
+
+    private String visits;
+
+    @Before
+    public void setUp() {
+        redisUtils = redis.redisUtils();
+        // Flushed only when a test asks
+        counters = redisUtils.counters(Duration.ofHours(1), 0);
+        visits = redis.key("visits");
+    }
+
+    @After
+    public void tearDown() {
+        if (counters != null) {
+            counters.close();
+        }
+    }
+
+    @Test
+    public void incrementsStayLocalUntilFlush() {
+        counters.incr(visits, LocalRedis.DB);
+        counters.incrBy(visits, 4, LocalRedis.DB);
+
+        try (Jedis jedis = redis.jedis()) {
+            assertNull(jedis.get(visits));
+            counters.flush();
+            assertEquals("5", jedis.get(visits));
+        }
+    }
+
+    @Test
+    public void readsSeePendingDeltas() {
+        redisUtils.set(visits, "10", LocalRedis.DB);
+        counters.incrBy(visits, 3, LocalRedis.DB);
+        counters.hincrBy(visits + ":ward", "3", 2, LocalRedis.DB);
+
+        assertEquals(13, counters.get(visits, LocalRedis.DB));
+        assertEquals(2, counters.hget(visits + ":ward", "3", LocalRedis.DB));
+        counters.flush();
+        assertEquals(13, counters.get(visits, LocalRedis.DB));
+        assertEquals(2, counters.hget(visits + ":ward", "3", LocalRedis.DB));
+    }
+
+    @Test
+    public void hashCountersAreFlushedPerField() {
+        counters.hincrBy(visits, "morning", 2, LocalRedis.DB);
+        counters.hincrBy(visits, "evening", 5, LocalRedis.DB);
+        counters.flush();
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals("2", jedis.hget(visits, "morning"));
+            assertEquals("5", jedis.hget(visits, "evening"));
+        }
+    }
+
+    @Test
+    public void idleCountersAreDroppedAndCountAgain() {
+        counters.incr(visits, LocalRedis.DB);
+        counters.flush();
+        counters.flush();
+        counters.flush();
+        assertEquals(0, redis.getMeterRegistry().get("eldercare.redis.counters.pending").gauge().value(), 0);
+
+        counters.incr(visits, LocalRedis.DB);
+        counters.flush();
+        assertEquals(2, counters.get(visits, LocalRedis.DB));
+    }
+
+    @Test
+    public void concurrentIncrementsAndFlushesLoseNothing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        // A few counters, so cells are retired and made again meanwhile
+                        counters.incr(visits + ":" + (i % 8), LocalRedis.DB);
+                    }
+                }));
+            }
+            while (!writers.stream().allMatch(Future::isDone)) {
+                counters.flush();
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        counters.flush();
+
+        long total = 0;
+        try (Jedis jedis = redis.jedis()) {
+            for (int counter = 0; counter < 8; counter++) {
+                total += Long.parseLong(jedis.get(visits + ":" + counter));
+            }
+        }
+        assertEquals(80_000, total);
+    }
+
+    @Test
+    public void closeFlushesPendingDeltas() {
+        counters.incrBy(visits, 7, LocalRedis.DB);
+        counters.close();
+        counters = null;
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals("7", jedis.get(visits));
+        }
+    }
+
+    @Test
+    public void thresholdFlushesBeforeInterval() throws InterruptedException {
+        RedisCounters eager = redisUtils.counters(Duration.ofHours(1), 100);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                eager.incr(visits, LocalRedis.DB);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            String stored = null;
+            try (Jedis jedis = redis.jedis()) {
+                while (stored == null && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                    stored = jedis.get(visits);
+                }
+            }
+            assertNotNull(stored);
+            assertEquals(1000, eager.get(visits, LocalRedis.DB));
+        } finally {
+            eager.close();
+        }
+    }
+}
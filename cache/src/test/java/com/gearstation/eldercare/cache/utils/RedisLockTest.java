@@ -0,0 +1,123 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisLockTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    @Test
+    public void lockIsExclusiveUntilReleased() {
+        RedisLock lock = lock("{billing}", Duration.ofSeconds(10));
+
+        RedisLock.Lease lease = lock.tryLock();
+        assertNotNull(lease);
+        assertNull(lock.tryLock());
+        lease.close();
+        assertFalse(lease.isHeld());
+
+        try (RedisLock.Lease next = lock.tryLock()) {
+            assertNotNull(next);
+        }
+    }
+
+    @Test
+    public void waiterGetsLockOnceReleased() throws Exception {
+        RedisLock lock = lock("{billing}", Duration.ofSeconds(10));
+        RedisLock.Lease lease = lock.tryLock();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<RedisLock.Lease> waiter = executor.submit(() -> lock.tryLock(Duration.ofSeconds(5)));
+            Thread.sleep(200);
+            lease.close();
+
+            try (RedisLock.Lease next = waiter.get(5, TimeUnit.SECONDS)) {
+                assertNotNull(next);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void fencingTokensGrowWithEachAcquisition() {
+        RedisLock lock = lock("{billing}", Duration.ofSeconds(10));
+        long previous = 0;
+        for (int i = 0; i < 5; i++) {
+            try (RedisLock.Lease lease = lock.tryLock()) {
+                assertTrue(lease.getFencingToken() > previous);
+                previous = lease.getFencingToken();
+            }
+        }
+        // A lock made again, as on another node, keeps counting
+        try (RedisLock.Lease lease = lock("{billing}", Duration.ofSeconds(10)).tryLock()) {
+            assertTrue(lease.getFencingToken() > previous);
+        }
+    }
+
+    @Test
+    public void leaseIsRenewedWhileHeld() throws InterruptedException {
+        RedisLock lock = lock("{billing}", Duration.ofMillis(300));
+        try (RedisLock.Lease lease = lock.tryLock()) {
+            Thread.sleep(1000);
+
+            assertTrue(lease.isHeld());
+            assertNull(lock.tryLock());
+        }
+        assertEquals(0, lost("{billing}"), 0);
+    }
+
+    @Test
+    public void leaseTakenOverIsLostAndNotReleased() throws InterruptedException {
+        RedisLock lock = lock("{billing}", Duration.ofMillis(300));
+        String name = redis.key("{billing}");
+        RedisLock.Lease lease = lock.tryLock();
+        try (Jedis jedis = redis.jedis()) {
+            jedis.set(name, "someone else");
+        }
+        Thread.sleep(400);
+
+        assertFalse(lease.isHeld());
+        lease.close();
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals("someone else", jedis.get(name));
+        }
+        assertEquals(1, lost("{billing}"), 0);
+    }
+
+    @Test
+    public void releaseDuringRenewalIsNotCountedLost() throws InterruptedException {
+        // Renewals every 10 ms, releases around them
+        RedisLock lock = lock("{billing}", Duration.ofMillis(30));
+        for (int i = 0; i < 200; i++) {
+            RedisLock.Lease lease = lock.tryLock(Duration.ofSeconds(1));
+            Thread.sleep(9 + i % 3);
+            lease.close();
+        }
+        assertEquals(0, lost("{billing}"), 0);
+    }
+
+    private RedisLock lock(String name, Duration leaseTime) {
+        return new RedisLock(redis.getJedisLeaseManager(), redis.getRedisCommandMetrics(), redis.key(name), leaseTime, LocalRedis.DB);
+    }
+
+    private double lost(String name) {
+        return redis.getMeterRegistry().get("eldercare.redis.lock.lost").tag("lock", redis.key(name)).counter().count();
+    }
+}
@@ -0,0 +1,107 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisRateLimiterScriptTest {
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    @Test
+    public void bucketLetsBurstThroughThenRejects() {
+        RedisRateLimiter limiter = limiter("ingest", Duration.ofMillis(10));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("hub-1", 0.5, 5).isAllowed());
+        }
+        RedisRateLimiter.Decision rejected = limiter.tryAcquire("hub-1", 0.5, 5);
+        assertFalse(rejected.isAllowed());
+        assertTrue(rejected.getRetryAfterMillis() > 1000 && rejected.getRetryAfterMillis() <= 2000);
+    }
+
+    @Test
+    public void bucketsAreRefilledByRedisClock() throws InterruptedException {
+        RedisRateLimiter limiter = limiter("ingest", Duration.ofMillis(10));
+
+        assertTrue(limiter.tryAcquire("hub-1", 100, 1).isAllowed());
+        assertFalse(limiter.tryAcquire("hub-1", 100, 1).isAllowed());
+        Thread.sleep(50);
+        assertTrue(limiter.tryAcquire("hub-1", 100, 1).isAllowed());
+    }
+
+    @Test
+    public void grantIsHandedOutLocally() {
+        RedisRateLimiter limiter = limiter("ingest", Duration.ofSeconds(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("hub-1", 1000, 2000).isAllowed());
+        }
+
+        assertEquals(1, syncs("ingest"), 0);
+        try (Jedis jedis = redis.jedis()) {
+            double tokens = Double.parseDouble(jedis.hget(redis.key("ingest") + ":hub-1", "tokens"));
+            // One grant of 200 taken, refilled by at most the few millis since
+            assertTrue(tokens >= 1800 && tokens < 2000);
+        }
+    }
+
+    @Test
+    public void bucketsAreSeparate() {
+        RedisRateLimiter limiter = limiter("ingest", Duration.ofMillis(10));
+
+        assertTrue(limiter.tryAcquire("hub-1", 0.5, 1).isAllowed());
+        assertFalse(limiter.tryAcquire("hub-1", 0.5, 1).isAllowed());
+        assertTrue(limiter.tryAcquire("hub-2", 0.5, 1).isAllowed());
+    }
+
+    @Test
+    public void concurrentRequestsNeverExceedBurst() throws Exception {
+        RedisRateLimiter limiter = limiter("ingest", Duration.ofSeconds(1));
+        RedisRateLimiter otherNode = limiter("ingest", Duration.ofSeconds(1));
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> threads = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                RedisRateLimiter node = thread % 2 == 0 ? limiter : otherNode;
+                threads.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        if (node.tryAcquire("hub-1", 0.001, 100).isAllowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> thread : threads) {
+                thread.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(100, allowed.get());
+    }
+
+    private RedisRateLimiter limiter(String name, Duration syncInterval) {
+        return new RedisRateLimiter(redis.getJedisLeaseManager(), redis.getRedisCommandMetrics(), redis.key(name), syncInterval, LocalRedis.DB);
+    }
+
+    private double syncs(String name) {
+        return redis.getMeterRegistry().get("eldercare.redis.rate-limit.syncs").tag("limiter", redis.key(name)).counter().count();
+    }
+}
@@ -0,0 +1,27 @@
+package com.gearstation.eldercare.cache.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisRateLimiterTest {
+
+    private static final long TEN_MILLIS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void grantCoversOneSyncInterval() {
+        assertEquals(10, RedisRateLimiter.grantSize(1000, 2000, TEN_MILLIS));
+    }
+
+    @Test
+    public void slowBucketsAreSyncedPerRequest() {
+        assertEquals(1, RedisRateLimiter.grantSize(5, 10, TEN_MILLIS));
+    }
+
+    @Test
+    public void grantIsCappedByBurst() {
+        assertEquals(5, RedisRateLimiter.grantSize(10_000, 50, TEN_MILLIS));
+    }
+}
@@ -0,0 +1,115 @@
+package com.gearstation.eldercare.cache.utils;
+
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RedisScriptTest {
+
+    private static final List<String> KEYS = Collections.singletonList("k");
+
+    private static final List<String> ARGS = Collections.singletonList("v");
+
+    @Test
+    public void sha1MatchesScriptLoad() {
+        // SCRIPT LOAD "return 1" replies this
+        assertEquals("e0e1f9fabfc9d4800c877a703b823ac0578ff8db", RedisScript.of("one", "return 1").getSha1());
+    }
+
+    @Test
+    public void sha1IsLowerCaseHex() {
+        assertEquals(40, RedisScript.BOUNDED_PUSH.getSha1().length());
+        assertEquals(RedisScript.BOUNDED_PUSH.getSha1().toLowerCase(), RedisScript.BOUNDED_PUSH.getSha1());
+    }
+
+    @Test
+    public void knownScriptIsCalledBySha1Only() {
+        RedisScript script = RedisScript.of("one", "return 1");
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.evalsha(script.getSha1(), KEYS, ARGS)).thenReturn(1L);
+
+        assertEquals(1L, script.eval(jedis, KEYS, ARGS));
+        verify(jedis, never()).eval(anyString(), anyList(), anyList());
+    }
+
+    @Test
+    public void unknownScriptIsSentWithEval() {
+        RedisScript script = RedisScript.of("one", "return 1");
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.evalsha(script.getSha1(), KEYS, ARGS)).thenThrow(new JedisNoScriptException("NOSCRIPT No matching script"));
+        when(jedis.eval(script.getSource(), KEYS, ARGS)).thenReturn(1L);
+
+        assertEquals(1L, script.eval(jedis, KEYS, ARGS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void unknownBinaryScriptIsSentWithEval() {
+        RedisScript script = RedisScript.of("one", "return 1");
+        Jedis jedis = mock(Jedis.class);
+        List<byte[]> keys = Collections.singletonList(SafeEncoder.encode("k"));
+        when(jedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenThrow(new JedisNoScriptException("NOSCRIPT No matching script"));
+        when(jedis.eval(any(byte[].class), any(List.class), any(List.class))).thenReturn(1L);
+
+        assertEquals(1L, script.evalBinary(jedis, keys, Collections.emptyList()));
+        verify(jedis).eval(aryEq(SafeEncoder.encode(script.getSource())), eq(keys), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void pipelinedCallsResendOnlyThoseAnsweredNoScript() {
+        RedisScript script = RedisScript.of("one", "return 1");
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        Pipeline resend = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline, resend);
+        List<String> known = Collections.singletonList("known");
+        List<String> unknown = Collections.singletonList("unknown");
+        Response<Object> knownReply = mock(Response.class);
+        when(knownReply.get()).thenReturn(1L);
+        Response<Object> noScript = mock(Response.class);
+        when(noScript.get()).thenThrow(new JedisNoScriptException("NOSCRIPT No matching script"));
+        Response<Object> resent = mock(Response.class);
+        when(resent.get()).thenReturn(2L);
+        when(pipeline.evalsha(script.getSha1(), known, ARGS)).thenReturn(knownReply);
+        when(pipeline.evalsha(script.getSha1(), unknown, ARGS)).thenReturn(noScript);
+        when(resend.eval(script.getSource(), unknown, ARGS)).thenReturn(resent);
+
+        assertEquals(Arrays.asList(1L, 2L), script.evalEach(jedis, Arrays.asList(known, unknown), ARGS));
+        verify(resend).eval(script.getSource(), unknown, ARGS);
+        verify(resend, never()).eval(script.getSource(), known, ARGS);
+        verify(pipeline, never()).eval(anyString(), anyList(), anyList());
+    }
+
+    @Test(expected = JedisDataException.class)
+    public void scriptErrorsAreNotRetried() {
+        RedisScript script = RedisScript.of("one", "return 1");
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.evalsha(script.getSha1(), KEYS, ARGS)).thenThrow(new JedisDataException("ERR Error running script"));
+
+        try {
+            script.eval(jedis, KEYS, ARGS);
+        } finally {
+            verify(jedis, never()).eval(anyString(), anyList(), anyList());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.gearstation.eldercare.cache.utils;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisTimeSeriesTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    // Partition keys are computed without Redis
+    private final RedisTimeSeries timeSeries = new RedisTimeSeries(null, null, "vitals", Duration.ofHours(1), Duration.ofDays(3650), 0);
+
+    @Test
+    public void samplesOfAPartitionShareAKey() {
+        long start = 1_790_000_000_000L / HOUR * HOUR;
+        assertEquals("vitals:{resident:42:spo2}:" + start, timeSeries.partitionKey("resident:42:spo2", start));
+        assertEquals("vitals:{resident:42:spo2}:" + start, timeSeries.partitionKey("resident:42:spo2", start + HOUR - 1));
+    }
+
+    @Test
+    public void rangeCoversEveryPartitionItTouches() {
+        long start = 1_790_000_000_000L / HOUR * HOUR;
+        assertEquals(Arrays.asList("vitals:{hr}:" + start, "vitals:{hr}:" + (start + HOUR), "vitals:{hr}:" + (start + 2 * HOUR)),
+                timeSeries.partitionKeys("hr", start + 10, start + 2 * HOUR));
+    }
+
+    @Test
+    public void endFarAheadIsClampedToRetention() {
+        RedisTimeSeries dayLong = new RedisTimeSeries(null, null, "vitals", Duration.ofHours(1), Duration.ofDays(1), 0);
+        long now = System.currentTimeMillis();
+
+        // From a day ago to a day ahead, each end may fall in one more partition
+        int partitions = dayLong.partitionKeys("hr", Long.MIN_VALUE, Long.MAX_VALUE).size();
+        assertTrue(partitions >= 48 && partitions <= 50);
+        assertTrue(dayLong.partitionKeys("hr", now + Duration.ofDays(2).toMillis(), Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOfTooManyPartitionsIsRefused() {
+        timeSeries.partitionKeys("hr", 0, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void valueFollowsTheTimestamp() {
+        assertEquals(-0.5, RedisTimeSeries.valueOf("1790000000000:-0.5"), 0);
+    }
+
+    @Test
+    public void windowsSplitByPartitionsMerge() {
+        RedisTimeSeries.Window merged = new RedisTimeSeries.Window(0, 2, 60, 80, 140).merge(new RedisTimeSeries.Window(0, 1, 90, 90, 90));
+        assertEquals(3, merged.getCount());
+        assertEquals(60, merged.getMin(), 0);
+        assertEquals(90, merged.getMax(), 0);
+        assertEquals(230.0 / 3, merged.getAverage(), 1e-9);
+    }
+}
@@ -0,0 +1,169 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.config.RedisCompressionProperties;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisUtilsBulkTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    private static final int KEYS = 7;
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisUtils redisUtils;
+
+    @Before
+    public void setUp() {
+        RedisBulkProperties bulk = new RedisBulkProperties();
+        bulk.setChunkSize(CHUNK_SIZE);
+        redisUtils = redis.redisUtils(new RedisCompressionProperties(), bulk);
+    }
+
+    @Test
+    public void mgetKeepsKeyOrderAcrossChunks() {
+        String[] keys = keys("reading");
+        try (Jedis jedis = redis.jedis()) {
+            for (int i = 0; i < KEYS; i += 2) {
+                jedis.set(keys[i], "value-" + i);
+            }
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < KEYS; i++) {
+            expected.add(i % 2 == 0 ? "value-" + i : null);
+        }
+        assertEquals(expected, redisUtils.mget(LocalRedis.DB, keys));
+    }
+
+    @Test
+    public void msetSetsEveryChunk() {
+        String[] keys = keys("status");
+
+        assertEquals("OK", redisUtils.mset(LocalRedis.DB, keysvalues(keys)));
+
+        try (Jedis jedis = redis.jedis()) {
+            for (int i = 0; i < KEYS; i++) {
+                assertEquals("value-" + i, jedis.get(keys[i]));
+            }
+        }
+    }
+
+    @Test
+    public void msetnxOverChunksSetsAllKeys() {
+        String[] keys = keys("{device}alarm");
+
+        assertEquals(Long.valueOf(1), redisUtils.msetnx(LocalRedis.DB, keysvalues(keys)));
+
+        try (Jedis jedis = redis.jedis()) {
+            for (int i = 0; i < KEYS; i++) {
+                assertEquals("value-" + i, jedis.get(keys[i]));
+            }
+        }
+    }
+
+    @Test
+    public void msetnxOverChunksSetsNothingWhenOneKeyExists() {
+        String[] keys = keys("{device}alarm");
+        try (Jedis jedis = redis.jedis()) {
+            jedis.set(keys[KEYS - 1], "taken");
+        }
+
+        assertEquals(Long.valueOf(0), redisUtils.msetnx(LocalRedis.DB, keysvalues(keys)));
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals(Long.valueOf(1), jedis.exists(keys));
+            assertEquals("taken", jedis.get(keys[KEYS - 1]));
+        }
+    }
+
+    @Test
+    public void msetnxGivesUpWhenWritersKeepRacing() {
+        String[] keys = keys("{device}alarm");
+        String[] keysvalues = keysvalues(keys);
+        byte[][] stored = new byte[keysvalues.length][];
+        for (int i = 0; i < keysvalues.length; i++) {
+            stored[i] = SafeEncoder.encode(keysvalues[i]);
+        }
+        AtomicInteger attempts = new AtomicInteger();
+
+        try (Jedis racer = redis.jedis(); Jedis jedis = touchingBeforeMulti(racer, keys[KEYS - 1], attempts)) {
+            assertEquals(Long.valueOf(0), redisUtils.msetnxChunked(keys, stored, jedis));
+        }
+
+        assertEquals(RedisUtils.MSETNX_ATTEMPTS, attempts.get());
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals(Long.valueOf(0), jedis.exists(keys));
+        }
+    }
+
+    @Test
+    public void removeCountsKeysOfEveryChunk() {
+        String[] keys = keys("session");
+        try (Jedis jedis = redis.jedis()) {
+            for (int i = 0; i < KEYS - 2; i++) {
+                jedis.set(keys[i], "value-" + i);
+            }
+        }
+
+        assertEquals(Long.valueOf(KEYS - 2), redisUtils.remove(LocalRedis.DB, keys));
+
+        try (Jedis jedis = redis.jedis()) {
+            assertEquals(Long.valueOf(0), jedis.exists(keys));
+        }
+    }
+
+    /**
+     * Connection whose MULTI is preceded by another client touching key, which stays missing, so every watched
+     * attempt is aborted without any key showing up
+     */
+    private Jedis touchingBeforeMulti(Jedis racer, String key, AtomicInteger attempts) {
+        Jedis jedis = new Jedis(redis.getHost(), redis.getPort()) {
+            @Override
+            public Transaction multi() {
+                attempts.incrementAndGet();
+                Transaction touch = racer.multi();
+                touch.set(key, "racing");
+                touch.del(key);
+                touch.exec();
+                return super.multi();
+            }
+        };
+        if (redis.getPassword() != null) {
+            jedis.auth(redis.getPassword());
+        }
+        jedis.select(LocalRedis.DB);
+        return jedis;
+    }
+
+    private String[] keys(String name) {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = redis.key(name + ":" + i);
+        }
+        return keys;
+    }
+
+    private static String[] keysvalues(String[] keys) {
+        String[] keysvalues = new String[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keysvalues[i * 2] = keys[i];
+            keysvalues[i * 2 + 1] = "value-" + i;
+        }
+        return keysvalues;
+    }
+}
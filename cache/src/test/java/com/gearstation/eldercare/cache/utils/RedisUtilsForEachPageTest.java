@@ -0,0 +1,132 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.pool.JedisLeaseManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RedisUtilsForEachPageTest {
+
+    private final ExecutorService fanOutExecutor = Executors.newCachedThreadPool();
+
+    private RedisUtils redisUtils;
+
+    @Before
+    public void setUp() {
+        // forEachPage only works on the stream it is given, on the fan-out threads of the lease manager
+        JedisLeaseManager jedisLeaseManager = mock(JedisLeaseManager.class);
+        when(jedisLeaseManager.getFanOutExecutor()).thenReturn(fanOutExecutor);
+        redisUtils = new RedisUtils(jedisLeaseManager, null, null, null, null, null);
+    }
+
+    @After
+    public void tearDown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    @Test
+    public void pagesAreBounded() {
+        List<Integer> sizes = new ArrayList<>();
+        long handed = redisUtils.forEachPage(IntStream.range(0, 25).boxed(), 10, 1, page -> sizes.add(page.size()));
+        assertEquals(25, handed);
+        assertEquals(Arrays.asList(10, 10, 5), sizes);
+    }
+
+    @Test
+    public void falseStopsTheWalk() {
+        AtomicInteger pulled = new AtomicInteger();
+        long handed = redisUtils.forEachPage(IntStream.range(0, 1000).boxed().peek(i -> pulled.incrementAndGet()), 10, 1, page -> false);
+        assertEquals(10, handed);
+        assertEquals(10, pulled.get());
+    }
+
+    @Test
+    public void parallelConsumersSeeEveryElement() {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        redisUtils.forEachPage(IntStream.range(0, 10_000).boxed(), 100, 4, seen::addAll);
+        assertEquals(10_000, seen.size());
+        assertEquals(10_000, seen.stream().distinct().count());
+    }
+
+    @Test
+    public void pagesInFlightAreBoundedByParallelism() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger mostInFlight = new AtomicInteger();
+        redisUtils.forEachPage(IntStream.range(0, 2000).boxed(), 10, 4, page -> {
+            mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            inFlight.decrementAndGet();
+            return true;
+        });
+        assertTrue(mostInFlight.get() <= 4);
+    }
+
+    @Test
+    public void onlyPagesHandedToConsumerAreCounted() {
+        AtomicInteger consumed = new AtomicInteger();
+        long handed = redisUtils.forEachPage(IntStream.range(0, 10_000).boxed(), 10, 4, page -> {
+            consumed.addAndGet(page.size());
+            return false;
+        });
+        assertEquals(consumed.get(), handed);
+        assertTrue(handed < 10_000);
+    }
+
+    @Test
+    public void interruptWaitsForRunningPages() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        AtomicLong handed = new AtomicLong(-1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread walker = new Thread(() -> {
+            handed.set(redisUtils.forEachPage(IntStream.range(0, 1000).boxed(), 10, 2, page -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.incrementAndGet();
+                return true;
+            }));
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        walker.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        walker.interrupt();
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue("walk returned while pages were running", walker.isAlive());
+
+        release.countDown();
+        walker.join(5000);
+        assertTrue(interrupted.get());
+        assertEquals(finished.get() * 10L, handed.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void consumerFailureIsThrown() {
+        redisUtils.forEachPage(IntStream.range(0, 1000).boxed(), 10, 4, page -> {
+            throw new IllegalStateException("boom");
+        });
+    }
+}
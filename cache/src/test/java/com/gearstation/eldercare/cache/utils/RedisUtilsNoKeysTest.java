@@ -0,0 +1,26 @@
+package com.gearstation.eldercare.cache.utils;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisUtilsNoKeysTest {
+
+    // Calls without keys must answer before touching Redis
+    private final RedisUtils redisUtils = new RedisUtils(null, null, null, null, null, null);
+
+    @Test
+    public void mgetOfNoKeysIsEmpty() {
+        assertEquals(Collections.emptyList(), redisUtils.mget(0, new byte[0][]));
+        assertEquals(Collections.emptyList(), redisUtils.mget(0, new String[0]));
+    }
+
+    @Test
+    public void setOperationsOfNoKeysAreEmpty() {
+        assertEquals(Collections.emptySet(), redisUtils.sdiff(0));
+        assertEquals(Collections.emptySet(), redisUtils.sinter(0));
+        assertEquals(Collections.emptySet(), redisUtils.sunion(0));
+    }
+}
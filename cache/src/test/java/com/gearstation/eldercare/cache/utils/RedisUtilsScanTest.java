@@ -0,0 +1,142 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import com.gearstation.eldercare.cache.config.RedisBulkProperties;
+import com.gearstation.eldercare.cache.metrics.RedisCommandMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisUtilsScanTest {
+
+    private static final int KEYS = 100;
+
+    private static final int COUNT = 10;
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisUtils redisUtils;
+    private Set<String> statuses;
+    private Set<String> devices;
+
+    @Before
+    public void setUp() {
+        redisUtils = redis.redisUtils();
+        statuses = new HashSet<>();
+        devices = new HashSet<>();
+        try (Jedis jedis = redis.jedis()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < KEYS; i++) {
+                String status = redis.key("status:" + i);
+                String device = redis.key("device:" + i);
+                pipeline.set(status, "online");
+                pipeline.hset(device, "battery", "80");
+                statuses.add(status);
+                devices.add(device);
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Test
+    public void patternKeepsMatchingKeysOnly() {
+        try (Stream<String> keys = redisUtils.scan(redis.key("status:*"), COUNT, null, LocalRedis.DB)) {
+            assertEquals(statuses, keys.collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    public void typeKeepsKeysOfThatTypeOnly() {
+        try (Stream<String> keys = redisUtils.scan(redis.key("*"), COUNT, "hash", LocalRedis.DB)) {
+            assertEquals(devices, keys.collect(Collectors.toSet()));
+        }
+        try (Stream<String> keys = redisUtils.scan(redis.key("*"), COUNT, "zset", LocalRedis.DB)) {
+            assertEquals(0, keys.count());
+        }
+    }
+
+    @Test
+    public void limitFetchesNoFurtherPages() {
+        String pattern = redis.key("status:*");
+        int limit = 5;
+        // Pages a SCAN walk needs before it has seen limit matching keys
+        int needed = 0;
+        try (Jedis jedis = redis.jedis()) {
+            ScanParams params = new ScanParams().match(pattern).count(COUNT);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            int seen = 0;
+            while (seen < limit) {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                needed++;
+                seen += page.getResult().size();
+                cursor = page.getCursor();
+            }
+        }
+        double before = scanPages();
+
+        List<String> found;
+        try (Stream<String> keys = redisUtils.scan(pattern, COUNT, null, LocalRedis.DB)) {
+            found = keys.limit(limit).collect(Collectors.toList());
+        }
+
+        assertEquals(limit, found.size());
+        assertTrue(statuses.containsAll(found));
+        assertEquals(needed, scanPages() - before, 0);
+    }
+
+    @Test
+    public void shardsAreWalkedOneAfterTheOther() {
+        RedisUtils sharded = redis.shardedRedisUtils(new RedisBulkProperties());
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            first.add(redis.keyOnShard("first:" + i, 0));
+            second.add(redis.keyOnShard("second:" + i, 1));
+        }
+        for (String key : first) {
+            sharded.set(key, "online", LocalRedis.DB);
+        }
+        for (String key : second) {
+            sharded.set(key, "online", LocalRedis.DB);
+        }
+
+        List<String> found;
+        try (Stream<String> keys = sharded.scan(redis.key("*"), COUNT, null, LocalRedis.DB)) {
+            found = keys.filter(key -> first.contains(key) || second.contains(key)).collect(Collectors.toList());
+        }
+
+        assertEquals(first.size() + second.size(), found.size());
+        assertEquals(new HashSet<>(first), new HashSet<>(found.subList(0, first.size())));
+        assertEquals(new HashSet<>(second), new HashSet<>(found.subList(first.size(), found.size())));
+    }
+
+    @Test
+    public void keysStillReturnsEveryMatch() {
+        Set<String> all = new HashSet<>(statuses);
+        all.addAll(devices);
+
+        assertEquals(statuses, redisUtils.keys(redis.key("status:*"), LocalRedis.DB));
+        assertEquals(all, redisUtils.keys(redis.key("*"), LocalRedis.DB));
+    }
+
+    private double scanPages() {
+        Timer pages = redis.getMeterRegistry().find(RedisCommandMetrics.COMMANDS).tag("command", "SCAN").tag("outcome", "success").timer();
+        return pages == null ? 0 : pages.count();
+    }
+}
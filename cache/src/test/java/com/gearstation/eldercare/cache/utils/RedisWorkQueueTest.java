@@ -0,0 +1,158 @@
+package com.gearstation.eldercare.cache.utils;
+
+import com.gearstation.eldercare.cache.LocalRedis;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisWorkQueueTest {
+
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Rule
+    public LocalRedis redis = new LocalRedis();
+
+    private RedisWorkQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = queue("{alerts}", 3);
+    }
+
+    @Test
+    public void itemsAreTakenInPushOrder() {
+        queue.push("a", "b", "c");
+
+        assertEquals("a", queue.take(ONE_SECOND));
+        assertEquals(Arrays.asList("b", "c"), queue.take(5, ONE_SECOND));
+        assertNull(queue.take(ONE_SECOND));
+        assertEquals(Collections.emptyList(), queue.take(5, ONE_SECOND));
+    }
+
+    @Test
+    public void ackedItemLeavesProcessing() {
+        queue.push("a");
+
+        assertEquals("a", queue.takeReliably(ONE_SECOND));
+        assertEquals(Long.valueOf(0), queue.size());
+        assertEquals(Long.valueOf(1), queue.processingSize());
+        assertEquals(Long.valueOf(1), queue.ack("a"));
+        assertEquals(Long.valueOf(0), queue.processingSize());
+        assertEquals(Long.valueOf(0), queue.ack("a"));
+    }
+
+    @Test
+    public void failingItemIsRetriedThenDead() {
+        queue.push("poison");
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            assertEquals("poison", queue.takeReliably(ONE_SECOND));
+            assertEquals(Long.valueOf(RedisWorkQueue.REQUEUED), queue.retry("poison"));
+        }
+        assertEquals("poison", queue.takeReliably(ONE_SECOND));
+        assertEquals(Long.valueOf(RedisWorkQueue.DEAD), queue.retry("poison"));
+
+        assertEquals(Long.valueOf(0), queue.size());
+        assertEquals(Long.valueOf(0), queue.processingSize());
+        assertEquals(Long.valueOf(1), queue.deadSize());
+    }
+
+    @Test
+    public void retryOfUnknownItemQueuesNothing() {
+        assertEquals(Long.valueOf(RedisWorkQueue.NOT_IN_PROCESSING), queue.retry("ghost"));
+        assertEquals(Long.valueOf(0), queue.size());
+    }
+
+    @Test
+    public void ackForgetsAttempts() {
+        queue.push("a");
+        queue.takeReliably(ONE_SECOND);
+        queue.retry("a");
+        queue.takeReliably(ONE_SECOND);
+        queue.retry("a");
+        queue.takeReliably(ONE_SECOND);
+        queue.ack("a");
+
+        queue.push("a");
+        queue.takeReliably(ONE_SECOND);
+        assertEquals(Long.valueOf(RedisWorkQueue.REQUEUED), queue.retry("a"));
+    }
+
+    @Test
+    public void recoverRequeuesProcessingAndCountsAttempts() {
+        queue.push("a", "b");
+        queue.takeReliably(ONE_SECOND);
+        queue.takeReliably(ONE_SECOND);
+
+        assertEquals(2, queue.recover());
+        assertEquals(Long.valueOf(0), queue.processingSize());
+        assertEquals(Arrays.asList("a", "b"), queue.take(2, ONE_SECOND));
+
+        RedisWorkQueue fragile = queue("{fragile}", 1);
+        fragile.push("a");
+        fragile.takeReliably(ONE_SECOND);
+        assertEquals(1, fragile.recover());
+        assertEquals(Long.valueOf(0), fragile.size());
+        assertEquals(Long.valueOf(1), fragile.deadSize());
+    }
+
+    @Test
+    public void consumersAckHandledItemsAndRetryFailures() throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        RedisWorkQueue.Consumers consumers = queue.consume(item -> {
+            if (item.equals("poison")) {
+                throw new IllegalStateException("Cannot handle " + item);
+            }
+            handled.add(item);
+            done.countDown();
+        }, 2, ONE_SECOND);
+        try {
+            queue.push("poison", "a");
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (queue.deadSize() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            consumers.close();
+        }
+
+        assertEquals(Collections.singletonList("a"), handled);
+        assertEquals(Long.valueOf(1), queue.deadSize());
+        assertEquals(Long.valueOf(0), queue.processingSize());
+    }
+
+    @Test
+    public void closedConsumersTakeNoMoreItems() throws InterruptedException {
+        List<String> handled = new CopyOnWriteArrayList<>();
+        RedisWorkQueue.Consumers consumers = queue.consume(handled::add, 2, ONE_SECOND);
+        consumers.close();
+        assertFalse(consumers.isRunning());
+        // Takes under way end after the poll timeout
+        Thread.sleep(ONE_SECOND.toMillis() + 500);
+
+        queue.push("a");
+        Thread.sleep(500);
+
+        assertTrue(handled.isEmpty());
+        assertEquals(Long.valueOf(1), queue.size());
+    }
+
+    private RedisWorkQueue queue(String name, int maxAttempts) {
+        return new RedisWorkQueue(redis.getJedisLeaseManager(), redis.getRedisCommandMetrics(), redis.key(name), maxAttempts, LocalRedis.DB);
+    }
+}
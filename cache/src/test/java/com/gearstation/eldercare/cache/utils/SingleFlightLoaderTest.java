@@ -0,0 +1,45 @@
+package com.gearstation.eldercare.cache.utils;
+
+import org.junit.Test;
+import redis.clients.jedis.util.SafeEncoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightLoaderTest {
+
+    @Test
+    public void expiredValueIsAlwaysRefreshed() {
+        assertTrue(SingleFlightLoader.shouldRefresh(1000, 0, 0, 1000, 0.0));
+    }
+
+    @Test
+    public void earlyRefreshGrowsWithLoadTime() {
+        // 1 - random = e^-1, so now + loadMillis * beta is compared with the expiry
+        double random = 1 - Math.exp(-1);
+        assertFalse(SingleFlightLoader.shouldRefresh(10_000, 100, 1.0, 9_000, random));
+        assertTrue(SingleFlightLoader.shouldRefresh(10_000, 2_000, 1.0, 9_000, random));
+    }
+
+    @Test
+    public void zeroBetaDisablesEarlyRefresh() {
+        assertFalse(SingleFlightLoader.shouldRefresh(10_000, 60_000, 0, 9_999, 0.999));
+    }
+
+    @Test
+    public void envelopeRoundTrips() {
+        byte[] value = SafeEncoder.encode("{\"bpm\":72}");
+        SingleFlightLoader.Loaded loaded = SingleFlightLoader.ENVELOPE.decode(
+                SingleFlightLoader.ENVELOPE.encode(new SingleFlightLoader.Loaded(1_790_000_000_000L, 35, value)));
+        assertEquals(1_790_000_000_000L, loaded.expiresAt);
+        assertEquals(35, loaded.loadMillis);
+        assertArrayEquals(value, loaded.value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plainValueIsNotAnEnvelope() {
+        SingleFlightLoader.ENVELOPE.decode(SafeEncoder.encode("plain"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.gearstation.eldercare.gateway.config;
+
+import com.gearstation.eldercare.cache.utils.RedisUtils;
+import com.gearstation.eldercare.gateway.filter.RateLimitFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Description: Rate limit of gateway requests, shared by all gateway nodes through Redis. Off unless
+ * eldercare.gateway.rate-limit.enabled is true <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:46 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "eldercare.gateway.rate-limit", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RateLimitConfig {
+
+    private final RedisProperties redisProperties;
+
+    private final RateLimitProperties rateLimitProperties;
+
+    /**
+     * Description: Runs first, so rejected requests cost nothing behind it <br>
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RedisUtils redisUtils) {
+        Integer database = rateLimitProperties.getDatabase();
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(new RateLimitFilter(
+                redisUtils.rateLimiter(rateLimitProperties.getKeyPrefix(), rateLimitProperties.getSyncInterval(),
+                        database != null ? database : redisProperties.getDatabase()), rateLimitProperties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,187 @@
+package com.gearstation.eldercare.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description: Settings of the gateway rate limits, by route and by client <br>
+ * Example:
+ * <pre>
+ * eldercare:
+ *   gateway:
+ *     rate-limit:
+ *       enabled: true
+ *       trusted-proxies: 10.0.0.10, 10.0.0.11
+ *       defaults:
+ *         permits-per-second: 20
+ *         burst: 40
+ *       clients:
+ *         nurse-station:
+ *           permits-per-second: 200
+ *           burst: 400
+ *       routes:
+ *         - id: vitals
+ *           path: /api/vitals/**
+ *           permits-per-second: 50
+ *           burst: 100
+ *           clients:
+ *             ward-hub-3:
+ *               permits-per-second: 500
+ *               burst: 1000
+ * </pre>
+ * The limit of a request is the first one set among its route for its client, any route for its client, its route,
+ * and the defaults. Each route and client has its own bucket. The client is the authenticated user of the request,
+ * else the client header when the request comes from a trusted proxy, else the remote address, so callers can't
+ * pick another client's bucket or a fresh one by setting the header <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:46 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+@Data
+@ConfigurationProperties(prefix = "eldercare.gateway.rate-limit")
+public class RateLimitProperties {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * Limit gateway requests, off unless set
+     */
+    private boolean enabled = false;
+
+    /**
+     * DB of the buckets, spring.redis.database when unset
+     */
+    private Integer database;
+
+    /**
+     * Prefix of the bucket keys, followed by route id and client
+     */
+    private String keyPrefix = "ratelimit";
+
+    /**
+     * Longest time a node hands out tokens taken from Redis before it asks again
+     */
+    private Duration syncInterval = Duration.ofMillis(10);
+
+    /**
+     * Header naming the client, read only on requests from a trusted proxy
+     */
+    private String clientHeader = "X-Client-Id";
+
+    /**
+     * Remote addresses of the proxies which set the client header, none by default
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * Limit of requests matching no route and of routes which don't set their own
+     */
+    private Limit defaults = new Limit(20, 40);
+
+    /**
+     * Limits keyed by client, on every route
+     */
+    private Map<String, Limit> clients = new LinkedHashMap<>();
+
+    /**
+     * Routes, matched in order by path
+     */
+    private List<Route> routes = new ArrayList<>();
+
+    /**
+     * Description: Find the first route whose path matches <br>
+     *
+     * @param path Request path <br>
+     * @return Return the route, or null <br>
+     * @author agent <br>
+     */
+    public Route routeOf(String path) {
+        for (Route route : routes) {
+            if (PATH_MATCHER.match(route.getPath(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Description: Limit of a client on a route <br>
+     *
+     * @param route  Route, null for requests matching none <br>
+     * @param client Client <br>
+     * @return Return the limit <br>
+     * @author agent <br>
+     */
+    public Limit limitOf(Route route, String client) {
+        if (route != null && route.getClients().containsKey(client)) {
+            return route.getClients().get(client);
+        }
+        if (clients.containsKey(client)) {
+            return clients.get(client);
+        }
+        if (route != null && route.getPermitsPerSecond() != null && route.getBurst() != null) {
+            return new Limit(route.getPermitsPerSecond(), route.getBurst());
+        }
+        return defaults;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Sustained rate
+         */
+        private double permitsPerSecond;
+
+        /**
+         * Most requests let through at once
+         */
+        private long burst;
+
+        public Limit() {
+        }
+
+        public Limit(double permitsPerSecond, long burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    @Data
+    public static class Route {
+
+        /**
+         * Name of the route in bucket keys and meters
+         */
+        private String id;
+
+        /**
+         * Ant path pattern, like /api/vitals/**
+         */
+        private String path;
+
+        /**
+         * Sustained rate, the defaults apply when unset
+         */
+        private Double permitsPerSecond;
+
+        /**
+         * Most requests let through at once, the defaults apply when unset
+         */
+        private Long burst;
+
+        /**
+         * Limits keyed by client on this route
+         */
+        private Map<String, Limit> clients = new LinkedHashMap<>();
+    }
+}
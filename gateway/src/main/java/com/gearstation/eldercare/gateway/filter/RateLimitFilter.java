@@ -0,0 +1,76 @@
+package com.gearstation.eldercare.gateway.filter;
+
+import com.gearstation.eldercare.cache.utils.RedisRateLimiter;
+import com.gearstation.eldercare.gateway.config.RateLimitProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Description: Reply 429 to requests over the limit of their route and client <br>
+ * Copyright © 2019 www.gear-station.com <br>
+ * CreateTime: 2026/10/16 22:46 <br>
+ *
+ * @author agent <br>
+ * @version 1.0.1 <br>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    private final RedisRateLimiter rateLimiter;
+
+    private final RateLimitProperties properties;
+
+    public RateLimitFilter(RedisRateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = clientOf(request);
+        RateLimitProperties.Route route = properties.routeOf(request.getRequestURI().substring(request.getContextPath().length()));
+        RateLimitProperties.Limit limit = properties.limitOf(route, client);
+        String bucket = (route != null ? route.getId() : DEFAULT_ROUTE) + ":" + client;
+        RedisRateLimiter.Decision decision = rateLimiter.tryAcquire(bucket, limit.getPermitsPerSecond(), limit.getBurst());
+        if (decision.isAllowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((decision.getRetryAfterMillis() + 999) / 1000));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+    }
+
+    /**
+     * Description: Identify the client of a request: its authenticated user, else the client header when it comes
+     * from a trusted proxy, else its remote address <br>
+     *
+     * @param request Request <br>
+     * @return Return the client <br>
+     * @author agent <br>
+     */
+    String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null && StringUtils.hasText(principal.getName())) {
+            return principal.getName();
+        }
+        String remoteAddress = request.getRemoteAddr();
+        if (properties.getTrustedProxies().contains(remoteAddress)) {
+            String client = request.getHeader(properties.getClientHeader());
+            if (StringUtils.hasText(client)) {
+                return client;
+            }
+        }
+        return remoteAddress;
+    }
+}
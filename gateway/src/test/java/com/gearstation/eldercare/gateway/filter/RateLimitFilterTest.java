@@ -0,0 +1,50 @@
+package com.gearstation.eldercare.gateway.filter;
+
+import com.gearstation.eldercare.gateway.config.RateLimitProperties;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimitFilterTest {
+
+    private final RateLimitProperties properties = new RateLimitProperties();
+
+    private final RateLimitFilter filter = new RateLimitFilter(null, properties);
+
+    @Test
+    public void clientHeaderIsIgnoredFromUntrustedAddress() {
+        MockHttpServletRequest request = request("203.0.113.7");
+        request.addHeader("X-Client-Id", "nurse-station");
+
+        assertEquals("203.0.113.7", filter.clientOf(request));
+    }
+
+    @Test
+    public void clientHeaderIsReadFromTrustedProxy() {
+        properties.setTrustedProxies(Collections.singletonList("10.0.0.10"));
+        MockHttpServletRequest request = request("10.0.0.10");
+        request.addHeader("X-Client-Id", "nurse-station");
+
+        assertEquals("nurse-station", filter.clientOf(request));
+        assertEquals("10.0.0.10", filter.clientOf(request("10.0.0.10")));
+    }
+
+    @Test
+    public void authenticatedUserComesFirst() {
+        properties.setTrustedProxies(Collections.singletonList("10.0.0.10"));
+        MockHttpServletRequest request = request("10.0.0.10");
+        request.addHeader("X-Client-Id", "nurse-station");
+        request.setUserPrincipal(() -> "ward-hub-3");
+
+        assertEquals("ward-hub-3", filter.clientOf(request));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/vitals/42");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+}